@@ -0,0 +1,64 @@
+package InventoryApp.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import InventoryApp.models.Inventory;
+import InventoryApp.models.Part;
+
+/**
+ * Measures filling an empty Inventory through Inventory.addPart. Parts are
+ * built before each invocation so only the inserts are timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class BulkAddBenchmark {
+
+    // Number of parts to add
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    // Parts to add
+    private Part[] parts;
+
+    @Setup(Level.Trial)
+    public void build() {
+        Random random = new Random(42);
+        parts = new Part[size];
+
+        for (int partID = 0; partID < size; partID++) {
+            parts[partID] = Catalog.part(partID, random);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clear() {
+        Inventory.clear();
+    }
+
+    @Benchmark
+    public int addParts() {
+        for (Part part : parts) {
+            Inventory.addPart(part);
+        }
+
+        return Inventory.getPartsCount();
+    }
+}
@@ -0,0 +1,104 @@
+package InventoryApp.benchmarks;
+
+import java.util.Random;
+
+import InventoryApp.models.InhousePart;
+import InventoryApp.models.Inventory;
+import InventoryApp.models.OutsourcedPart;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+
+/**
+ * Builds synthetic catalogs for the benchmarks. Parts alternate between
+ * in-house and outsourced, and IDs are dense as they are when added through
+ * the parts screen.
+ */
+final class Catalog {
+
+    // Number of distinct suppliers used for outsourced parts
+    private static final int SUPPLIERS = 500;
+
+    // Number of distinct machines used for in-house parts
+    private static final int MACHINES = 200;
+
+    private Catalog() {
+    }
+
+    /**
+     * Build a valid part.
+     *
+     * @param partID
+     * @param random
+     * @return new part
+     */
+    static Part part(int partID, Random random) {
+        Part part;
+
+        if ((partID & 1) == 0) {
+            InhousePart inhousePart = new InhousePart();
+            inhousePart.setMachineID(random.nextInt(MACHINES));
+            part = inhousePart;
+        } else {
+            OutsourcedPart outsourcedPart = new OutsourcedPart();
+            outsourcedPart.setCompanyName("Supplier " + random.nextInt(SUPPLIERS));
+            part = outsourcedPart;
+        }
+
+        part.setPartID(partID);
+        part.setName("Part " + partID);
+        part.setPrice(1 + random.nextInt(10000) / 100.0);
+        part.setMin(0);
+        part.setMax(1000);
+        part.setInStock(random.nextInt(1000));
+
+        return part;
+    }
+
+    /**
+     * Build a valid product from the given parts.
+     *
+     * @param productID
+     * @param parts associated parts
+     * @return new product
+     */
+    static Product product(int productID, Part... parts) {
+        Product product = new Product();
+        double cost = 0;
+
+        for (Part part : parts) {
+            product.addAssociatedPart(part);
+            cost += part.getPrice();
+        }
+
+        product.setProductID(productID);
+        product.setName("Product " + productID);
+        product.setPrice(cost + 1);
+        product.setMin(0);
+        product.setMax(100);
+        product.setInStock(10);
+
+        return product;
+    }
+
+    /**
+     * Replace the Inventory with a catalog of the given size. One product is
+     * added for every ten parts, each built from three parts.
+     *
+     * @param size number of parts
+     * @param random
+     */
+    static void load(int size, Random random) {
+        Inventory.clear();
+
+        for (int partID = 0; partID < size; partID++) {
+            Inventory.addPart(part(partID, random));
+        }
+
+        for (int productID = 0; productID < size / 10; productID++) {
+            Inventory.addProduct(product(productID,
+                    Inventory.lookupPart(random.nextInt(size)),
+                    Inventory.lookupPart(random.nextInt(size)),
+                    Inventory.lookupPart(random.nextInt(size))));
+        }
+    }
+}
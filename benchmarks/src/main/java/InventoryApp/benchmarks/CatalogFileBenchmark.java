@@ -0,0 +1,102 @@
+package InventoryApp.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import InventoryApp.models.Inventory;
+import InventoryApp.models.Part;
+import InventoryApp.wire.CatalogFile;
+
+/**
+ * Measures saving the Inventory to a compressed CatalogFile, loading it back
+ * in full, on the common pool and on a single worker, and reading one part
+ * by decompressing a single block. The file size is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class CatalogFileBenchmark {
+
+    // Number of parts in the catalog
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    // File saved and loaded
+    private Path file;
+
+    // Source of part IDs
+    private Random random;
+
+    // Pool with one worker, for comparison with the common pool
+    private ForkJoinPool single;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        random = new Random(42);
+        single = new ForkJoinPool(1);
+        Catalog.load(size, random);
+        file = Files.createTempFile("catalog", ".bin");
+        CatalogFile.save(file);
+        System.out.println("catalog file: " + Files.size(file) + " bytes");
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+        single.shutdown();
+    }
+
+    @Benchmark
+    public Path save() throws IOException {
+        CatalogFile.save(file);
+        return file;
+    }
+
+    @Benchmark
+    public List<Part> readParts() throws IOException {
+        try (CatalogFile catalog = CatalogFile.open(file)) {
+            return catalog.readParts();
+        }
+    }
+
+    @Benchmark
+    public Part lookupPart() throws IOException {
+        try (CatalogFile catalog = CatalogFile.open(file)) {
+            return catalog.lookupPart(random.nextInt(size));
+        }
+    }
+
+    @Benchmark
+    public int loadInventory() throws IOException {
+        CatalogFile.load(file);
+        return Inventory.getPartsCount();
+    }
+
+    @Benchmark
+    public int loadInventorySingleThread() throws IOException {
+        CatalogFile.load(file, single);
+        return Inventory.getPartsCount();
+    }
+}
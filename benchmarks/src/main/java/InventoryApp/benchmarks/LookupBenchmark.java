@@ -0,0 +1,56 @@
+package InventoryApp.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import InventoryApp.models.Inventory;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+
+/**
+ * Measures Inventory.lookupPart and Inventory.lookupProduct for random IDs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LookupBenchmark {
+
+    // Number of parts in the catalog
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    // Source of lookup IDs
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void load() {
+        random = new Random(42);
+        Catalog.load(size, random);
+    }
+
+    @Benchmark
+    public Part lookupPart() {
+        return Inventory.lookupPart(random.nextInt(size));
+    }
+
+    @Benchmark
+    public Product lookupProduct() {
+        return Inventory.lookupProduct(random.nextInt(Math.max(1, size / 10)));
+    }
+}
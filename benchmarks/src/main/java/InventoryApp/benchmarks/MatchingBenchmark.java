@@ -0,0 +1,59 @@
+package InventoryApp.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import InventoryApp.matching.DuplicateDetector;
+import InventoryApp.matching.DuplicateReport;
+import InventoryApp.matching.PartMatch;
+
+/**
+ * Measures a suggestion for a name being typed, against an index already
+ * built, and the full-catalog duplicate report, which builds its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MatchingBenchmark {
+
+    // Number of parts in the catalog
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    // Source of names looked up
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void load() {
+        random = new Random(42);
+        Catalog.load(size, random);
+        DuplicateDetector.suggest("Part 0", Double.NaN, null, -1, 1);
+    }
+
+    @Benchmark
+    public List<PartMatch> suggest() {
+        return DuplicateDetector.suggest("Part " + random.nextInt(size), Double.NaN, null, -1, 5);
+    }
+
+    @Benchmark
+    public DuplicateReport report() {
+        return DuplicateDetector.report(DuplicateDetector.DEFAULT_MIN_SCORE);
+    }
+}
@@ -0,0 +1,57 @@
+package InventoryApp.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import InventoryApp.exceptions.ValidationException;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+
+/**
+ * Measures Product.isValid for products with large bills of materials.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    // Number of associated parts on the product
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    // Product under test
+    private Product product;
+
+    @Setup(Level.Trial)
+    public void build() {
+        Random random = new Random(42);
+        Part[] parts = new Part[size];
+
+        for (int partID = 0; partID < size; partID++) {
+            parts[partID] = Catalog.part(partID, random);
+        }
+
+        product = Catalog.product(0, parts);
+    }
+
+    @Benchmark
+    public boolean isValid() throws ValidationException {
+        return product.isValid();
+    }
+}
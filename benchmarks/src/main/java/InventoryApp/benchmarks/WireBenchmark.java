@@ -0,0 +1,188 @@
+package InventoryApp.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import InventoryApp.models.InhousePart;
+import InventoryApp.models.OutsourcedPart;
+import InventoryApp.models.Part;
+import InventoryApp.server.Json;
+import InventoryApp.wire.BinaryBatch;
+
+/**
+ * Compares moving a batch of parts as a BinaryBatch in a direct buffer with
+ * moving it as a JSON array written the way the API server writes parts.
+ * Decoding builds the parts in both cases; scanBinary reads one field of
+ * every row in place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class WireBenchmark {
+
+    // Number of parts in the batch
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    // Parts to encode
+    private List<Part> parts;
+
+    // Reused buffer for binary encoding
+    private ByteBuffer target;
+
+    // Encoded batches to decode
+    private ByteBuffer binary;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void build() throws IOException {
+        Random random = new Random(42);
+        parts = new ArrayList<>(size);
+
+        for (int partID = 0; partID < size; partID++) {
+            parts.add(Catalog.part(partID, random));
+        }
+
+        binary = BinaryBatch.encode(parts, Collections.emptyList());
+        target = ByteBuffer.allocateDirect(binary.capacity());
+        json = encodeJson();
+    }
+
+    @Benchmark
+    public ByteBuffer encodeBinary() {
+        target.clear();
+        BinaryBatch.encode(parts, Collections.emptyList(), target);
+        return target;
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (Writer out = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            out.write('[');
+
+            for (int i = 0; i < parts.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+
+                writePart(out, parts.get(i));
+            }
+
+            out.write(']');
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<Part> decodeBinary() {
+        return BinaryBatch.wrap(binary.duplicate()).readParts();
+    }
+
+    @Benchmark
+    public List<Part> decodeJson() {
+        List<?> rows = (List<?>) Json.parse(new String(json, StandardCharsets.UTF_8));
+        List<Part> decoded = new ArrayList<>(rows.size());
+
+        for (Object row : rows) {
+            decoded.add(toPart((Map<?, ?>) row));
+        }
+
+        return decoded;
+    }
+
+    @Benchmark
+    public double scanBinary() {
+        BinaryBatch batch = BinaryBatch.wrap(binary.duplicate());
+        double total = 0;
+
+        for (int i = 0; i < batch.getPartCount(); i++) {
+            total += batch.getPartPrice(i) * batch.getPartInStock(i);
+        }
+
+        return total;
+    }
+
+    private static void writePart(Writer out, Part part) throws IOException {
+        out.write('{');
+        Json.writeName(out, "id");
+        out.write(Integer.toString(part.getPartID()));
+        out.write(',');
+        Json.writeName(out, "name");
+        Json.writeString(out, part.getName());
+        out.write(',');
+        Json.writeName(out, "price");
+        out.write(Double.toString(part.getPrice()));
+        out.write(',');
+        Json.writeName(out, "inStock");
+        out.write(Integer.toString(part.getInStock()));
+        out.write(',');
+        Json.writeName(out, "min");
+        out.write(Integer.toString(part.getMin()));
+        out.write(',');
+        Json.writeName(out, "max");
+        out.write(Integer.toString(part.getMax()));
+        out.write(',');
+
+        if (part instanceof OutsourcedPart) {
+            Json.writeName(out, "companyName");
+            Json.writeString(out, ((OutsourcedPart) part).getCompanyName());
+        } else {
+            Json.writeName(out, "machineID");
+            out.write(Integer.toString(((InhousePart) part).getMachineID()));
+        }
+
+        out.write('}');
+    }
+
+    private static Part toPart(Map<?, ?> row) {
+        Part part;
+
+        if (row.containsKey("companyName")) {
+            OutsourcedPart outsourcedPart = new OutsourcedPart();
+            outsourcedPart.setCompanyName((String) row.get("companyName"));
+            part = outsourcedPart;
+        } else {
+            InhousePart inhousePart = new InhousePart();
+            inhousePart.setMachineID(((Double) row.get("machineID")).intValue());
+            part = inhousePart;
+        }
+
+        part.setPartID(((Double) row.get("id")).intValue());
+        part.setName((String) row.get("name"));
+        part.setPrice((Double) row.get("price"));
+        part.setInStock(((Double) row.get("inStock")).intValue());
+        part.setMin(((Double) row.get("min")).intValue());
+        part.setMax(((Double) row.get("max")).intValue());
+
+        return part;
+    }
+}
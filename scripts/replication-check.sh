@@ -0,0 +1,111 @@
+#!/bin/sh
+# Start a primary and two replicas of the headless server on this host, each
+# in its own JVM, and check that changes made on the primary reach both
+# replicas while the replicas refuse changes of their own. Then kill the
+# primary, promote the first replica, point the second at it, and check that
+# the new primary runs under a higher term and its changes reach the second.
+#
+#   ant jar && scripts/replication-check.sh [classpath]
+#
+# The classpath defaults to dist/c482.jar. Ports are taken from API_PORT
+# (18080, then the next two for the replicas) and REPLICATION_PORT (17070,
+# then the next two for the replicas once promoted).
+
+CP=${1:-dist/c482.jar}
+API_PORT=${API_PORT:-18080}
+REPLICATION_PORT=${REPLICATION_PORT:-17070}
+JAVA=${JAVA:-java}
+PIDS=
+
+cleanup() {
+    [ -n "$PIDS" ] && kill $PIDS 2>/dev/null
+}
+trap cleanup EXIT INT TERM
+
+fail() {
+    echo "FAIL: $*" >&2
+    exit 1
+}
+
+# wait up to 10 seconds for a URL to answer with a status
+await() {
+    for i in $(seq 1 50); do
+        [ "$(curl -s -o /dev/null -w '%{http_code}' "$1")" = "$2" ] && return 0
+        sleep 0.2
+    done
+    return 1
+}
+
+# print the term a server reports
+term() {
+    curl -s "$1/replication" | sed 's/.*"term": *\(-\{0,1\}[0-9]*\).*/\1/'
+}
+
+# start replica $1 of the primary on replication port $2
+start_replica() {
+    "$JAVA" -cp "$CP" -Dinventory.replication.primary=localhost:$2 \
+        -Dinventory.replication.port=$((REPLICATION_PORT + $1)) \
+        InventoryApp.InventoryServer $((API_PORT + $1)) >/dev/null &
+    eval "REPLICA_$1=$!"
+    PIDS="$PIDS $!"
+    await "http://localhost:$((API_PORT + $1))/replication" 200 || fail "replica $1 did not start"
+}
+
+"$JAVA" -cp "$CP" -Dinventory.replication.port=$REPLICATION_PORT \
+    InventoryApp.InventoryServer $API_PORT >/dev/null &
+PRIMARY=$!
+PIDS="$PIDS $!"
+await "http://localhost:$API_PORT/replication" 200 || fail "primary did not start"
+
+for n in 1 2; do
+    start_replica $n $REPLICATION_PORT
+done
+
+PART='{"type": "inhouse", "machineID": 7, "name": "Bolt", "price": 0.5, "inStock": 5, "min": 1, "max": 10}'
+
+[ "$(curl -s -o /dev/null -w '%{http_code}' -X POST -d "$PART" "http://localhost:$API_PORT/parts")" = 201 ] \
+    || fail "primary refused a new part"
+
+for n in 1 2; do
+    REPLICA="http://localhost:$((API_PORT + n))"
+
+    await "$REPLICA/parts/0" 200 || fail "replica $n did not receive the part"
+    curl -s "$REPLICA/replication" | grep -q REPLICA || fail "replica $n does not report its role"
+
+    STATUS=$(curl -s -o /dev/null -w '%{http_code}' -X PUT -d "$PART" "$REPLICA/parts/0")
+    [ "$STATUS" = 409 ] || fail "replica $n answered $STATUS to a change instead of 409"
+done
+
+# failover: the primary dies and the first replica is promoted by command
+OLD_TERM=$(term "http://localhost:$API_PORT")
+kill $PRIMARY
+wait $PRIMARY 2>/dev/null
+
+NEW_PRIMARY="http://localhost:$((API_PORT + 1))"
+STATUS=$(curl -s -o /dev/null -w '%{http_code}' -X POST "$NEW_PRIMARY/replication/promote")
+[ "$STATUS" = 200 ] || fail "replica 1 answered $STATUS to promotion"
+curl -s "$NEW_PRIMARY/replication" | grep -q PRIMARY || fail "replica 1 does not report itself primary"
+
+NEW_TERM=$(term "$NEW_PRIMARY")
+[ "$NEW_TERM" -gt "$OLD_TERM" ] || fail "the new term $NEW_TERM is not above the old term $OLD_TERM"
+
+# the second replica is restarted against the new primary
+kill $REPLICA_2
+wait $REPLICA_2 2>/dev/null
+start_replica 2 $((REPLICATION_PORT + 1))
+
+NUT='{"type": "outsourced", "companyName": "Acme", "name": "Nut", "price": 0.25, "inStock": 5, "min": 1, "max": 10}'
+
+[ "$(curl -s -o /dev/null -w '%{http_code}' -X POST -d "$NUT" "$NEW_PRIMARY/parts")" = 201 ] \
+    || fail "the promoted replica refused a new part"
+
+REPLICA="http://localhost:$((API_PORT + 2))"
+await "$REPLICA/parts/0" 200 || fail "replica 2 lost the part made before failover"
+await "$REPLICA/parts/1" 200 || fail "replica 2 did not receive the part made after failover"
+[ "$(term "$REPLICA")" = "$NEW_TERM" ] || fail "replica 2 does not follow the new term"
+
+STATUS=$(curl -s -o /dev/null -w '%{http_code}' -X PUT -d "$NUT" "$REPLICA/parts/1")
+[ "$STATUS" = 409 ] || fail "replica 2 answered $STATUS to a change instead of 409"
+
+echo "OK: a primary and 2 replicas in separate JVMs stayed in step; replicas refused changes"
+echo "OK: after the primary was killed, the promoted replica took term $NEW_TERM (was $OLD_TERM) and replica 2 followed it"
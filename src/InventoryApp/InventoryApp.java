@@ -1,19 +1,53 @@
 package InventoryApp;
 
+import java.io.IOException;
+
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.TextInputControl;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.KeyEvent;
 import javafx.stage.Stage;
 
+import InventoryApp.events.EventBus;
+import InventoryApp.metrics.Metrics;
+import InventoryApp.models.History;
+import InventoryApp.models.InventoryTimeline;
+import InventoryApp.replication.Replication;
+import InventoryApp.server.ApiServer;
+import InventoryApp.storage.Storage;
+import InventoryApp.views.FxWatchdog;
+import InventoryApp.wire.CatalogFile;
+
 /**
  * <h1>Inventory Application for C482</h1>
  * This application is a CRUD inventory application, providing a simple JavaFX 
- * GUI for maintaining an inventory. There is no data persistence.
+ * GUI for maintaining an inventory. The inventory is kept in memory; system
+ * properties can persist it to an embedded database (Storage) or a catalog
+ * file saved on exit (CatalogFile), and journal its changes as events
+ * (EventBus).
  * 
  * @author Dale Richards <dric123@wgu.edu>
  */
 public class InventoryApp extends Application {
+    
+    // System property holding the API port; the API is off when unset
+    private static final String API_PORT_PROPERTY = "inventory.api.port";
+    
+    // Undo and redo shortcuts
+    private static final KeyCombination UNDO = new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN);
+    private static final KeyCombination REDO = new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN);
+    
+    // Embedded API server, if enabled
+    private ApiServer apiServer;
+    
     /**
      * Start the GUI by loading the main FXML and setting the GUI viewport
      * 
@@ -22,6 +56,16 @@ public class InventoryApp extends Application {
      */
     @Override
     public void start(Stage stage) throws Exception {
+        Metrics.configureFromSystemProperties();
+        FxWatchdog.startFromSystemProperties();
+        Storage.setFailureHandler(e -> Platform.runLater(() -> showStorageFailure(e)));
+        Storage.openFromSystemProperties();
+        CatalogFile.loadFromSystemProperties();
+        History.enable();
+        InventoryTimeline.enableFromSystemProperties();
+        EventBus.enableFromSystemProperties();
+        Replication.startFromSystemProperties();
+        
         FXMLLoader loader = new FXMLLoader();
         loader.setLocation(InventoryApp.class.getResource("/InventoryApp/views/Main.fxml"));
         Parent root = loader.load();
@@ -29,7 +73,87 @@ public class InventoryApp extends Application {
         Scene scene = new Scene(root);
         
         stage.setScene(scene);
+        stage.addEventFilter(KeyEvent.KEY_PRESSED, this::handleUndoRedo);
         stage.show();
+        
+        startApiServer();
+    }
+    
+    /**
+     * Stop the embedded API server, the FX watchdog and replication, if
+     * running, close the store and save the catalog file, if configured, when
+     * the GUI closes
+     * 
+     * @throws Exception 
+     */
+    @Override
+    public void stop() throws Exception {
+        FxWatchdog.stop();
+        
+        if (apiServer != null) {
+            apiServer.stop();
+        }
+        
+        Replication.stop();
+        Storage.close();
+        CatalogFile.saveFromSystemProperties();
+    }
+    
+    /**
+     * Undo or redo the last inventory change on the shortcut keys. Text fields
+     * keep the shortcuts for their own text.
+     * 
+     * @param event 
+     */
+    private void handleUndoRedo(KeyEvent event) {
+        if (event.getTarget() instanceof TextInputControl) {
+            return;
+        }
+        
+        try {
+            if (UNDO.match(event)) {
+                event.consume();
+                History.undo();
+            } else if (REDO.match(event)) {
+                event.consume();
+                History.redo();
+            }
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            Alert alert = new Alert(AlertType.INFORMATION);
+            alert.setTitle("Undo Error");
+            alert.setHeaderText("The change could not be undone or redone!");
+            alert.setContentText(e.getMessage());
+            alert.show();
+        }
+    }
+    
+    /**
+     * Tell the user a change could not be written to the store. The change
+     * itself stands in the inventory.
+     * 
+     * @param e 
+     */
+    private static void showStorageFailure(RuntimeException e) {
+        Alert alert = new Alert(AlertType.ERROR);
+        alert.setTitle("Storage Error");
+        alert.setHeaderText("A change could not be saved to the database!");
+        alert.setContentText(e.getMessage());
+        alert.show();
+    }
+    
+    /**
+     * Start the embedded API server if a port was configured. Mutations
+     * received over the API are applied on the JavaFX application thread.
+     * 
+     * @throws IOException 
+     */
+    private void startApiServer() throws IOException {
+        String port = System.getProperty(API_PORT_PROPERTY);
+        
+        if (port != null) {
+            apiServer = new ApiServer(Integer.parseInt(port), Platform::runLater);
+            apiServer.start();
+        }
     }
     
     /**
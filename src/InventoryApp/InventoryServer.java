@@ -0,0 +1,69 @@
+package InventoryApp;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import InventoryApp.events.EventBus;
+import InventoryApp.metrics.Metrics;
+import InventoryApp.models.InventoryTimeline;
+import InventoryApp.replication.Replication;
+import InventoryApp.server.ApiServer;
+import InventoryApp.storage.Storage;
+import InventoryApp.wire.CatalogFile;
+
+/**
+ * <h1>Headless Inventory Server</h1>
+ * Runs the inventory without the JavaFX GUI, serving it over the HTTP API.
+ * Nothing here touches the JavaFX toolkit, so the server starts quickly with a
+ * small heap and can run where no display is available.
+ * 
+ * @see InventoryApp, ApiServer
+ */
+public class InventoryServer {
+    
+    // Logger for a failed catalog save
+    private static final Logger logger = Logger.getLogger(InventoryServer.class.getName());
+    
+    /**
+     * Start the API server on the given port, or the default port.
+     * 
+     * @param args optional port
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : ApiServer.DEFAULT_PORT;
+        
+        Metrics.configureFromSystemProperties();
+        Storage.openFromSystemProperties();
+        CatalogFile.loadFromSystemProperties();
+        InventoryTimeline.enableFromSystemProperties();
+        EventBus.enableFromSystemProperties();
+        Replication.startFromSystemProperties();
+        
+        // mutations run on the request thread; there is no UI thread to hand off to
+        ApiServer api = new ApiServer(port, Runnable::run);
+        api.start();
+        
+        // shut down in the same order as the GUI
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            api.stop();
+            Replication.stop();
+            Storage.close();
+            saveCatalog();
+        }));
+        
+        System.out.println("Inventory API listening on http://localhost:" + api.getPort());
+    }
+    
+    /**
+     * Save the catalog file, if configured, on shutdown
+     */
+    private static void saveCatalog() {
+        try {
+            CatalogFile.saveFromSystemProperties();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not save the catalog file", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package InventoryApp.events;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * DurableCursor stores a subscriber's position, the sequence of the last
+ * event it processed, in a small file so it can resume after a restart.
+ *
+ * @see EventBus#subscribe(Subscriber, Path)
+ */
+public final class DurableCursor implements Closeable {
+
+    // Cursor file, holding one long
+    private final FileChannel channel;
+
+    // Reused write buffer
+    private final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+
+    /**
+     * Open a cursor file, creating it if missing
+     *
+     * @param path
+     * @throws IOException
+     */
+    public DurableCursor(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Read the stored position
+     *
+     * @param initial position to return if none is stored yet
+     * @return sequence of the last event processed, or initial
+     * @throws IOException
+     */
+    public synchronized long load(long initial) throws IOException {
+        if (channel.size() < Long.BYTES) {
+            return initial;
+        }
+
+        buffer.clear();
+        channel.read(buffer, 0);
+        buffer.flip();
+        return buffer.getLong();
+    }
+
+    /**
+     * Store the position and force it to disk
+     *
+     * @param sequence of the last event processed
+     * @throws IOException
+     */
+    public synchronized void store(long sequence) throws IOException {
+        buffer.clear();
+        buffer.putLong(sequence);
+        buffer.flip();
+        channel.write(buffer, 0);
+        channel.force(false);
+    }
+
+    /**
+     * Close the cursor file
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,418 @@
+package InventoryApp.events;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import InventoryApp.events.InventoryEvent.Type;
+import InventoryApp.events.Subscription.Backpressure;
+import InventoryApp.models.InhousePart;
+import InventoryApp.models.Inventory;
+import InventoryApp.models.InventoryListener;
+import InventoryApp.models.OutsourcedPart;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+
+/**
+ * EventBus publishes a typed InventoryEvent for every change to the Inventory
+ * so downstream systems can react without polling.
+ * <p>
+ * Events pass through a bounded ring buffer. The Inventory numbers and
+ * journals each event under its own lock and hands it to a dedicated
+ * publisher thread, the ring buffer's only producer; each subscription reads
+ * on its own thread without locking. A BLOCK subscription slows the publisher
+ * thread down when it falls a full buffer behind, for at most
+ * inventory.events.blockMillis; if it is still behind then, the publisher
+ * stops waiting for it until it catches up. Changes keep committing
+ * meanwhile, and their events queue for the publisher. A DROP subscription
+ * never slows the publisher and is told what it missed instead.
+ * <p>
+ * With a journal, every event is also appended to a file, and sequence
+ * numbers continue across restarts. The events of a bulk edit, or of a
+ * catalog load, are appended in one write. A durable subscription keeps its position
+ * in a DurableCursor file and, after a restart or when it falls behind the
+ * buffer, catches up from the journal. If a journal write fails, the journal
+ * is marked broken and takes no further events, and durable subscriptions
+ * are told through onOverflow() about events it cannot replay.
+ *
+ * @see InventoryEvent, Subscription
+ */
+public class EventBus {
+
+    // Logger for journal failures
+    private static final Logger logger = Logger.getLogger(EventBus.class.getName());
+
+    // Default ring buffer capacity
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    // Longest the producer waits for a BLOCK subscription before releasing it
+    private static final long BLOCK_MILLIS = Long.getLong("inventory.events.blockMillis", 1000);
+
+    // Subscription thread counter for naming
+    private static final AtomicInteger subscriptions = new AtomicInteger();
+
+    // Ring buffer, once enabled
+    private static RingBuffer ring;
+
+    // Event journal, or null
+    private static EventJournal journal;
+
+    // Events of a batch being published, or null outside a batch
+    private static List<InventoryEvent> batch;
+
+    // Sequence of the next event to be numbered
+    private static long nextSequence;
+
+    // Numbered events waiting for the publisher thread
+    private static final BlockingQueue<InventoryEvent> pending = new LinkedBlockingQueue<>();
+
+    /**
+     * Constructor
+     */
+    private EventBus() {
+    }
+
+    /**
+     * Start publishing events.
+     *
+     * @param capacity ring buffer slots, rounded up to a power of two
+     * @param journalPath event journal, or null to keep events in memory only
+     * @throws IOException if the journal cannot be opened
+     */
+    public static void enable(int capacity, Path journalPath) throws IOException {
+        synchronized (Inventory.class) {
+            enableLocked(capacity, journalPath);
+        }
+    }
+
+    private static synchronized void enableLocked(int capacity, Path journalPath) throws IOException {
+        if (ring != null) {
+            throw new IllegalStateException("The event bus is already enabled.");
+        }
+
+        journal = journalPath == null ? null : new EventJournal(journalPath);
+        nextSequence = journal == null ? 0 : journal.getLastSequence() + 1;
+        ring = new RingBuffer(capacity, nextSequence, BLOCK_MILLIS);
+
+        Thread publisher = new Thread(EventBus::runPublisher, "inventory-events-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+
+        Inventory.addListener(new Publisher());
+    }
+
+    /**
+     * Start publishing events if inventory.events.capacity or
+     * inventory.events.journal is set.
+     *
+     * @throws IOException if the journal cannot be opened
+     */
+    public static void enableFromSystemProperties() throws IOException {
+        Integer capacity = Integer.getInteger("inventory.events.capacity");
+        String journalPath = System.getProperty("inventory.events.journal");
+
+        if (capacity != null || journalPath != null) {
+            enable(capacity == null ? DEFAULT_CAPACITY : capacity, journalPath == null ? null : Paths.get(journalPath));
+        }
+    }
+
+    /**
+     * Subscribe to events published from now on.
+     *
+     * @param subscriber
+     * @param backpressure
+     * @return running subscription
+     */
+    public static synchronized Subscription subscribe(Subscriber subscriber, Backpressure backpressure) {
+        RingBuffer buffer = requireEnabled();
+        Subscription subscription = new Subscription(buffer, subscriber, backpressure, null, null,
+                buffer.getCursor(), "inventory-events-" + subscriptions.incrementAndGet());
+
+        if (backpressure == Backpressure.BLOCK) {
+            buffer.addGating(subscription);
+        }
+
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * Subscribe durably, resuming after the last event recorded in a cursor
+     * file. Events no longer in the ring buffer are replayed from the journal;
+     * without a journal, they are reported through onOverflow().
+     *
+     * @param subscriber
+     * @param cursorPath cursor file, created if missing to start from now
+     * @return running subscription
+     * @throws IOException if the cursor cannot be opened
+     */
+    public static synchronized Subscription subscribe(Subscriber subscriber, Path cursorPath) throws IOException {
+        RingBuffer buffer = requireEnabled();
+        DurableCursor cursor = new DurableCursor(cursorPath);
+        long position = Math.min(cursor.load(buffer.getCursor()), buffer.getCursor());
+        cursor.store(position);
+
+        Subscription subscription = new Subscription(buffer, subscriber, Backpressure.DROP, cursor, journal,
+                position, "inventory-events-" + subscriptions.incrementAndGet());
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * Get the sequence of the last published event
+     *
+     * @return sequence, or -1 before the first event
+     */
+    public static synchronized long getSequence() {
+        return requireEnabled().getCursor();
+    }
+
+    /**
+     * Determine whether a journal write has failed. A broken journal takes no
+     * further events until the application is restarted.
+     *
+     * @return true if the journal is broken
+     */
+    public static synchronized boolean isJournalBroken() {
+        return journal != null && journal.isBroken();
+    }
+
+    private static RingBuffer requireEnabled() {
+        if (ring == null) {
+            throw new IllegalStateException("The event bus is not enabled.");
+        }
+
+        return ring;
+    }
+
+    /**
+     * Number, journal and queue an event for the publisher thread. Called
+     * only by the Publisher, under the Inventory lock, so events are numbered
+     * in order. Within a batch the event is held until the batch ends.
+     *
+     * @param event
+     */
+    private static void publish(InventoryEvent event) {
+        InventoryEvent numbered = event.number(nextSequence++, System.currentTimeMillis());
+
+        if (batch != null) {
+            batch.add(numbered);
+            return;
+        }
+
+        if (journal != null && !journal.isBroken()) {
+            try {
+                journal.append(numbered);
+            } catch (IOException e) {
+                journalFailed(e);
+            }
+        }
+
+        pending.add(numbered);
+    }
+
+    /**
+     * Hold the events published by a change until it completes, then
+     * journal them in one write and publish them.
+     *
+     * @param change publishing the events
+     */
+    private static void publishBatch(Runnable change) {
+        batch = new ArrayList<>();
+
+        try {
+            change.run();
+        } finally {
+            List<InventoryEvent> events = batch;
+            batch = null;
+            publishAll(events);
+        }
+    }
+
+    /**
+     * Journal the events of a batch in one write, then publish them.
+     *
+     * @param events
+     */
+    private static void publishAll(List<InventoryEvent> events) {
+        if (journal != null && !journal.isBroken() && !events.isEmpty()) {
+            try {
+                journal.appendAll(events);
+            } catch (IOException e) {
+                journalFailed(e);
+            }
+        }
+
+        pending.addAll(events);
+    }
+
+    /**
+     * Report a failed journal write. The journal has marked itself broken, so
+     * this is reported once.
+     *
+     * @param e
+     */
+    private static void journalFailed(IOException e) {
+        logger.log(Level.SEVERE, "The event journal is broken; events are no longer journaled", e);
+    }
+
+    /**
+     * Publisher thread: move queued events into the ring buffer, waiting
+     * there for BLOCK subscriptions.
+     */
+    private static void runPublisher() {
+        RingBuffer buffer;
+
+        synchronized (EventBus.class) {
+            buffer = ring;
+        }
+
+        try {
+            while (true) {
+                buffer.publish(pending.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static InventoryEvent partEvent(Type type, Part part, double previousPrice, int previousInStock) {
+        return new InventoryEvent(0, 0, type, part.getPartID(), part.getName(),
+                part.getPrice(), previousPrice, part.getInStock(), previousInStock, part.getMin());
+    }
+
+    private static InventoryEvent productEvent(Type type, Product product, double previousPrice, int previousInStock) {
+        return new InventoryEvent(0, 0, type, product.getProductID(), product.getName(),
+                product.getPrice(), previousPrice, product.getInStock(), previousInStock, product.getMin());
+    }
+
+    /**
+     * Publish STOCK_BELOW_MIN when a part's current inventory drops below its
+     * minimum.
+     *
+     * @param part
+     * @param wasBelow whether the part was below its minimum before
+     * @param previousInStock
+     */
+    private static void checkMinimum(Part part, boolean wasBelow, int previousInStock) {
+        if (!wasBelow && part.getInStock() < part.getMin()) {
+            publish(partEvent(Type.STOCK_BELOW_MIN, part, part.getPrice(), previousInStock));
+        }
+    }
+
+    /**
+     * Determine whether anything other than price and current inventory
+     * differs between two versions of a part.
+     *
+     * @param oldPart
+     * @param newPart
+     * @return true if other fields changed
+     */
+    private static boolean otherFieldsChanged(Part oldPart, Part newPart) {
+        if (oldPart.getClass() != newPart.getClass()
+                || !Objects.equals(oldPart.getName(), newPart.getName())
+                || oldPart.getMin() != newPart.getMin() || oldPart.getMax() != newPart.getMax()) {
+            return true;
+        }
+
+        if (newPart instanceof InhousePart) {
+            return ((InhousePart) oldPart).getMachineID() != ((InhousePart) newPart).getMachineID();
+        }
+
+        return !Objects.equals(((OutsourcedPart) oldPart).getCompanyName(), ((OutsourcedPart) newPart).getCompanyName());
+    }
+
+    /**
+     * Inventory listener translating each change into events.
+     */
+    private static final class Publisher implements InventoryListener {
+
+        @Override
+        public void partAdded(Part part) {
+            publish(partEvent(Type.PART_ADDED, part, part.getPrice(), part.getInStock()));
+            checkMinimum(part, false, part.getInStock());
+        }
+
+        @Override
+        public void partRemoved(Part part) {
+            publish(partEvent(Type.PART_REMOVED, part, part.getPrice(), part.getInStock()));
+        }
+
+        @Override
+        public void partUpdated(Part oldPart, Part newPart) {
+            // in-place changes are published by stockAdjusted()
+            if (oldPart == newPart) {
+                return;
+            }
+
+            if (otherFieldsChanged(oldPart, newPart)) {
+                publish(partEvent(Type.PART_UPDATED, newPart, oldPart.getPrice(), oldPart.getInStock()));
+            }
+
+            if (oldPart.getPrice() != newPart.getPrice()) {
+                publish(partEvent(Type.PRICE_CHANGED, newPart, oldPart.getPrice(), oldPart.getInStock()));
+            }
+
+            if (oldPart.getInStock() != newPart.getInStock()) {
+                publish(partEvent(Type.STOCK_CHANGED, newPart, oldPart.getPrice(), oldPart.getInStock()));
+            }
+
+            checkMinimum(newPart, oldPart.getInStock() < oldPart.getMin(), oldPart.getInStock());
+        }
+
+        @Override
+        public void partsUpdated(List<Part> oldParts, List<Part> newParts) {
+            publishBatch(() -> {
+                for (int i = 0; i < newParts.size(); i++) {
+                    partUpdated(oldParts.get(i), newParts.get(i));
+                }
+            });
+        }
+
+        @Override
+        public void stockAdjusted(Part part, int oldInStock) {
+            publish(partEvent(Type.STOCK_CHANGED, part, part.getPrice(), oldInStock));
+            checkMinimum(part, oldInStock < part.getMin(), oldInStock);
+        }
+
+        @Override
+        public void stockTransferred(Part part, String from, String to, int quantity) {
+            // the part's totals are unchanged; the event marks the move
+            publish(partEvent(Type.STOCK_TRANSFERRED, part, part.getPrice(), part.getInStock()));
+        }
+
+        @Override
+        public void productAdded(Product product) {
+            publish(productEvent(Type.PRODUCT_ADDED, product, product.getPrice(), product.getInStock()));
+        }
+
+        @Override
+        public void productRemoved(Product product) {
+            publish(productEvent(Type.PRODUCT_REMOVED, product, product.getPrice(), product.getInStock()));
+        }
+
+        @Override
+        public void productUpdated(Product oldProduct, Product newProduct) {
+            publish(productEvent(Type.PRODUCT_UPDATED, newProduct, oldProduct.getPrice(), oldProduct.getInStock()));
+        }
+
+        @Override
+        public void inventoryCleared() {
+            publish(new InventoryEvent(0, 0, Type.INVENTORY_CLEARED, -1, null, 0.0, 0.0, 0, 0, 0));
+        }
+
+        @Override
+        public void inventoryLoaded(List<Part> parts, List<Product> products) {
+            // journaled in one write, however large the catalog
+            publishBatch(() -> InventoryListener.super.inventoryLoaded(parts, products));
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package InventoryApp.events;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * EventJournal appends every published event to a file so that durable
+ * subscriptions can catch up on events published while they were down,
+ * including before a restart.
+ * <p>
+ * The first failed write marks the journal broken: later appends are refused
+ * rather than written after a torn record, and replays stop at the last
+ * complete event.
+ *
+ * @see EventBus, DurableCursor
+ */
+final class EventJournal implements Closeable {
+
+    // Journal file
+    private final Path path;
+
+    // Open journal
+    private final DataOutputStream out;
+
+    // Sequence of the last event in the journal, or -1 if empty
+    private final long lastSequence;
+
+    // Set by the first failed write
+    private volatile boolean broken;
+
+    /**
+     * Open a journal, creating it if missing. A torn trailing record left by
+     * a crash is cut off, so new events follow the last complete one.
+     *
+     * @param path
+     * @throws IOException
+     */
+    EventJournal(Path path) throws IOException {
+        this.path = path;
+
+        long last = -1;
+
+        if (Files.exists(path)) {
+            CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(path)));
+            long complete = 0;
+
+            try (DataInputStream in = new DataInputStream(counter)) {
+                while (true) {
+                    last = InventoryEvent.read(in).getSequence();
+                    complete = counter.count;
+                }
+            } catch (EOFException e) {
+                // end of journal
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                if (channel.size() > complete) {
+                    channel.truncate(complete);
+                }
+            }
+        }
+
+        this.lastSequence = last;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+    }
+
+    /**
+     * Get the sequence of the last event in the journal when it was opened
+     *
+     * @return sequence, or -1 if the journal was empty
+     */
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Determine whether a write has failed
+     *
+     * @return true if the journal is broken
+     */
+    boolean isBroken() {
+        return broken;
+    }
+
+    /**
+     * Append an event
+     *
+     * @param event
+     * @throws IOException if the write fails or the journal is broken
+     */
+    synchronized void append(InventoryEvent event) throws IOException {
+        requireIntact();
+
+        try {
+            event.write(out);
+            out.flush();
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Append several events with a single flush
+     *
+     * @param events
+     * @throws IOException if the write fails or the journal is broken
+     */
+    synchronized void appendAll(List<InventoryEvent> events) throws IOException {
+        requireIntact();
+
+        try {
+            for (InventoryEvent event : events) {
+                event.write(out);
+            }
+
+            out.flush();
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    private void requireIntact() throws IOException {
+        if (broken) {
+            throw new IOException("The event journal " + path + " is broken.");
+        }
+    }
+
+    /**
+     * Replay the events in a range of sequences
+     *
+     * @param from first sequence, inclusive
+     * @param to last sequence, inclusive
+     * @param subscription receiving the events
+     * @throws IOException
+     */
+    void replay(long from, long to, Subscription subscription) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                InventoryEvent event = InventoryEvent.read(in);
+
+                if (event.getSequence() > to) {
+                    return;
+                }
+
+                if (event.getSequence() >= from) {
+                    subscription.deliver(event);
+                }
+            }
+        } catch (EOFException e) {
+            // end of journal
+        }
+    }
+
+    /**
+     * Close the journal
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Counts the bytes read through it, so the end of the last complete
+     * record is known.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        // Bytes read so far
+        long count;
+
+        /**
+         * Constructor
+         *
+         * @param in
+         */
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+
+            if (b >= 0) {
+                count++;
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+
+            if (read > 0) {
+                count += read;
+            }
+
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
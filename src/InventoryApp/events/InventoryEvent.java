@@ -0,0 +1,232 @@
+package InventoryApp.events;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * InventoryEvent is one typed change published by the EventBus.
+ * <p>
+ * Events are immutable and numbered by a sequence that increases by one per
+ * event, across restarts when the bus is backed by a journal. Part and product
+ * events carry the entity's values after the change and, where it applies,
+ * the previous price and current inventory.
+ *
+ * @see EventBus
+ */
+public final class InventoryEvent {
+
+    /**
+     * Type of change.
+     */
+    public enum Type {
+        PART_ADDED, PART_UPDATED, PART_REMOVED, PRICE_CHANGED, STOCK_CHANGED, STOCK_BELOW_MIN,
+        PRODUCT_ADDED, PRODUCT_UPDATED, PRODUCT_REMOVED, INVENTORY_CLEARED, STOCK_TRANSFERRED
+    }
+
+    // Event sequence number
+    private final long sequence;
+
+    // Epoch milliseconds when the event was published
+    private final long timestamp;
+
+    // Type of change
+    private final Type type;
+
+    // Part or product ID, or -1 if the event has none
+    private final int id;
+
+    // Part or product name
+    private final String name;
+
+    // Price after the change
+    private final double price;
+
+    // Price before the change
+    private final double previousPrice;
+
+    // Current inventory after the change
+    private final int inStock;
+
+    // Current inventory before the change
+    private final int previousInStock;
+
+    // Minimum required inventory
+    private final int min;
+
+    /**
+     * Constructor
+     *
+     * @param sequence
+     * @param timestamp
+     * @param type
+     * @param id
+     * @param name
+     * @param price
+     * @param previousPrice
+     * @param inStock
+     * @param previousInStock
+     * @param min
+     */
+    InventoryEvent(long sequence, long timestamp, Type type, int id, String name,
+            double price, double previousPrice, int inStock, int previousInStock, int min) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.previousPrice = previousPrice;
+        this.inStock = inStock;
+        this.previousInStock = previousInStock;
+        this.min = min;
+    }
+
+    /**
+     * Get the sequence number
+     *
+     * @return sequence
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Get the time the event was published
+     *
+     * @return epoch milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Get the type of change
+     *
+     * @return type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Get the part or product ID
+     *
+     * @return ID, or -1 if the event has none
+     */
+    public int getID() {
+        return id;
+    }
+
+    /**
+     * Get the part or product name
+     *
+     * @return name, or null if the event has none
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the price after the change
+     *
+     * @return price
+     */
+    public double getPrice() {
+        return price;
+    }
+
+    /**
+     * Get the price before the change
+     *
+     * @return previous price, equal to getPrice() if it did not change
+     */
+    public double getPreviousPrice() {
+        return previousPrice;
+    }
+
+    /**
+     * Get the current inventory after the change
+     *
+     * @return units in stock
+     */
+    public int getInStock() {
+        return inStock;
+    }
+
+    /**
+     * Get the current inventory before the change
+     *
+     * @return previous units in stock, equal to getInStock() if it did not change
+     */
+    public int getPreviousInStock() {
+        return previousInStock;
+    }
+
+    /**
+     * Get the minimum required inventory
+     *
+     * @return min
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Copy the event with a sequence number and timestamp assigned.
+     *
+     * @param sequence
+     * @param timestamp
+     * @return numbered event
+     */
+    InventoryEvent number(long sequence, long timestamp) {
+        return new InventoryEvent(sequence, timestamp, type, id, name, price, previousPrice, inStock, previousInStock, min);
+    }
+
+    /**
+     * Write the event to a stream
+     *
+     * @param out
+     * @throws IOException
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeLong(sequence);
+        out.writeLong(timestamp);
+        out.writeByte(type.ordinal());
+        out.writeInt(id);
+        out.writeBoolean(name != null);
+
+        if (name != null) {
+            out.writeUTF(name);
+        }
+
+        out.writeDouble(price);
+        out.writeDouble(previousPrice);
+        out.writeInt(inStock);
+        out.writeInt(previousInStock);
+        out.writeInt(min);
+    }
+
+    /**
+     * Read an event written by write()
+     *
+     * @param in
+     * @return event
+     * @throws IOException
+     */
+    static InventoryEvent read(DataInput in) throws IOException {
+        long sequence = in.readLong();
+        long timestamp = in.readLong();
+        Type type = Type.values()[in.readByte()];
+        int id = in.readInt();
+        String name = in.readBoolean() ? in.readUTF() : null;
+
+        return new InventoryEvent(sequence, timestamp, type, id, name,
+                in.readDouble(), in.readDouble(), in.readInt(), in.readInt(), in.readInt());
+    }
+
+    @Override
+    public String toString() {
+        return sequence + " " + type + " " + id + " " + name;
+    }
+}
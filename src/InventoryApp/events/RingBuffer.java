@@ -0,0 +1,176 @@
+package InventoryApp.events;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * RingBuffer is a bounded single-producer, multi-consumer event buffer.
+ * <p>
+ * The producer writes an event into its slot and then advances the published
+ * cursor; consumers read slots up to the cursor without locking. Blocking
+ * subscriptions gate the producer: it waits, up to a timeout, while the
+ * slowest of them is a full buffer behind. A subscription still behind when
+ * the timeout expires is released, and the producer no longer waits for it
+ * until it catches up, so a stuck subscriber stalls the producer once rather
+ * than on every event. Other subscriptions never slow the producer, and all
+ * of them detect overwritten slots by their sequence numbers.
+ *
+ * @see EventBus
+ */
+final class RingBuffer {
+
+    // Event slots, indexed by sequence modulo the capacity
+    private final InventoryEvent[] slots;
+
+    // Capacity minus one; the capacity is a power of two
+    private final int mask;
+
+    // Sequence of the first event ever published
+    private final long firstSequence;
+
+    // Sequence of the last published event
+    private final AtomicLong cursor;
+
+    // Subscriptions the producer waits for
+    private final List<Subscription> gating = new CopyOnWriteArrayList<>();
+
+    // Gating subscriptions not waited for until they catch up, after a timeout
+    private final Set<Subscription> released = ConcurrentHashMap.newKeySet();
+
+    // Longest the producer waits for a gating subscription
+    private final long blockNanos;
+
+    /**
+     * Constructor
+     *
+     * @param capacity slots, rounded up to a power of two
+     * @param firstSequence sequence of the first event
+     * @param blockMillis longest the producer waits for a blocking subscription
+     */
+    RingBuffer(int capacity, long firstSequence, long blockMillis) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new InventoryEvent[size];
+        this.mask = size - 1;
+        this.firstSequence = firstSequence;
+        this.cursor = new AtomicLong(firstSequence - 1);
+        this.blockNanos = TimeUnit.MILLISECONDS.toNanos(blockMillis);
+    }
+
+    /**
+     * Get the number of slots
+     *
+     * @return capacity
+     */
+    int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Get the sequence of the last published event
+     *
+     * @return cursor
+     */
+    long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Get the sequence of the oldest event still held
+     *
+     * @return oldest sequence, or getCursor() + 1 if none was published
+     */
+    long getOldestSequence() {
+        return Math.max(firstSequence, cursor.get() - slots.length + 1);
+    }
+
+    /**
+     * Get the event in a sequence's slot, which may be a later event if the
+     * slot was overwritten
+     *
+     * @param sequence
+     * @return event, or null if the slot was never written
+     */
+    InventoryEvent get(long sequence) {
+        return slots[(int) (sequence & mask)];
+    }
+
+    /**
+     * Publish an event. Called by one producer at a time.
+     *
+     * @param event numbered with getCursor() + 1
+     */
+    void publish(InventoryEvent event) {
+        long sequence = event.getSequence();
+        long wrapPoint = sequence - slots.length;
+
+        if (!gating.isEmpty() && minimumGatingSequence(wrapPoint) < wrapPoint) {
+            long deadline = System.nanoTime() + blockNanos;
+
+            while (minimumGatingSequence(wrapPoint) < wrapPoint && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(10_000);
+            }
+
+            // stop waiting for subscriptions that are still behind
+            for (Subscription subscription : gating) {
+                if (subscription.getSequence() < wrapPoint) {
+                    released.add(subscription);
+                }
+            }
+        }
+
+        slots[(int) (sequence & mask)] = event;
+        cursor.set(sequence);
+    }
+
+    /**
+     * Make the producer wait for a subscription
+     *
+     * @param subscription
+     */
+    void addGating(Subscription subscription) {
+        gating.add(subscription);
+    }
+
+    /**
+     * Stop waiting for a subscription
+     *
+     * @param subscription
+     */
+    void removeGating(Subscription subscription) {
+        gating.remove(subscription);
+        released.remove(subscription);
+    }
+
+    /**
+     * Get the position of the slowest gating subscription. A released
+     * subscription is skipped while it is still behind the wrap point, and
+     * gates the producer again once it has caught up.
+     *
+     * @param wrapPoint sequence whose slot the next event overwrites
+     * @return slowest sequence, or Long.MAX_VALUE if none gates the producer
+     */
+    private long minimumGatingSequence(long wrapPoint) {
+        long minimum = Long.MAX_VALUE;
+
+        for (Subscription subscription : gating) {
+            long sequence = subscription.getSequence();
+
+            if (released.contains(subscription)) {
+                if (sequence < wrapPoint) {
+                    continue;
+                }
+
+                released.remove(subscription);
+            }
+
+            minimum = Math.min(minimum, sequence);
+        }
+
+        return minimum;
+    }
+}
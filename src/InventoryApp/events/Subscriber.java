@@ -0,0 +1,28 @@
+package InventoryApp.events;
+
+/**
+ * Subscriber receives InventoryEvents from the EventBus, in sequence order,
+ * on its subscription's own thread.
+ *
+ * @see EventBus, Subscription
+ */
+@FunctionalInterface
+public interface Subscriber {
+
+    /**
+     * An event was published. Exceptions are logged and the event is skipped.
+     *
+     * @param event
+     * @throws Exception
+     */
+    void onEvent(InventoryEvent event) throws Exception;
+
+    /**
+     * Events were overwritten in the ring buffer before this subscriber read
+     * them.
+     *
+     * @param missed number of events lost
+     */
+    default void onOverflow(long missed) {
+    }
+}
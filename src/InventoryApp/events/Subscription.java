@@ -0,0 +1,244 @@
+package InventoryApp.events;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Subscription delivers events from the ring buffer to one Subscriber on a
+ * dedicated daemon thread.
+ * <p>
+ * The thread reads every event published since its last position, in order,
+ * then parks briefly when it has caught up. A durable subscription stores its
+ * position in a DurableCursor after each batch, and catches up on events no
+ * longer held by the ring buffer from the event journal, if there is one.
+ *
+ * @see EventBus, Subscriber
+ */
+public final class Subscription implements Closeable {
+
+    /**
+     * What happens when a subscriber falls a full buffer behind.
+     */
+    public enum Backpressure {
+        /**
+         * The publisher thread waits, up to inventory.events.blockMillis, for
+         * the subscriber. If it is still behind, it is treated as DROP until
+         * it catches up. Inventory changes never wait.
+         */
+        BLOCK,
+        /** The subscriber loses the overwritten events and is told through onOverflow(). */
+        DROP
+    }
+
+    // Logger for subscriber failures
+    private static final Logger logger = Logger.getLogger(Subscription.class.getName());
+
+    // Idle wait between polls of the ring buffer
+    private static final long IDLE_NANOS = 100_000;
+
+    // Ring buffer read from
+    private final RingBuffer ring;
+
+    // Subscriber receiving events
+    private final Subscriber subscriber;
+
+    // Backpressure policy
+    private final Backpressure backpressure;
+
+    // Cursor storing the position, or null if not durable
+    private final DurableCursor cursor;
+
+    // Journal to catch up from, or null
+    private final EventJournal journal;
+
+    // Sequence of the last event delivered
+    private final AtomicLong sequence;
+
+    // Number of events lost to overflow
+    private final AtomicLong overflows = new AtomicLong();
+
+    // Delivery thread
+    private final Thread thread;
+
+    // Cleared by close()
+    private volatile boolean running = true;
+
+    /**
+     * Constructor
+     *
+     * @param ring
+     * @param subscriber
+     * @param backpressure
+     * @param cursor durable cursor, or null
+     * @param journal journal to catch up from, or null
+     * @param sequence sequence of the last event already delivered
+     * @param name thread name
+     */
+    Subscription(RingBuffer ring, Subscriber subscriber, Backpressure backpressure,
+            DurableCursor cursor, EventJournal journal, long sequence, String name) {
+        this.ring = ring;
+        this.subscriber = subscriber;
+        this.backpressure = backpressure;
+        this.cursor = cursor;
+        this.journal = journal;
+        this.sequence = new AtomicLong(sequence);
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Get the sequence of the last event delivered
+     *
+     * @return sequence
+     */
+    public long getSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * Get the number of published events not yet delivered
+     *
+     * @return lag
+     */
+    public long getLag() {
+        return ring.getCursor() - sequence.get();
+    }
+
+    /**
+     * Get the number of events lost to overflow
+     *
+     * @return lost events
+     */
+    public long getOverflows() {
+        return overflows.get();
+    }
+
+    /**
+     * Get the backpressure policy
+     *
+     * @return policy
+     */
+    public Backpressure getBackpressure() {
+        return backpressure;
+    }
+
+    /**
+     * Stop delivering events. A durable subscription keeps its stored
+     * position.
+     *
+     * @throws IOException if the cursor cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        ring.removeGating(this);
+        LockSupport.unpark(thread);
+
+        if (cursor != null) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            cursor.close();
+        }
+    }
+
+    /**
+     * Start the delivery thread
+     */
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Deliver one event and advance the position. Used for replay and by the
+     * delivery thread.
+     *
+     * @param event
+     */
+    void deliver(InventoryEvent event) {
+        try {
+            subscriber.onEvent(event);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Subscriber failed on event " + event, e);
+        }
+
+        sequence.set(event.getSequence());
+    }
+
+    /**
+     * Delivery loop.
+     */
+    private void run() {
+        while (running) {
+            long available = ring.getCursor();
+            long next = sequence.get() + 1;
+
+            if (next > available) {
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+
+            for (; next <= available && running; next++) {
+                InventoryEvent event = ring.get(next);
+
+                // the slot was reused or predates the buffer
+                if (event == null || event.getSequence() != next) {
+                    catchUp(next);
+                    break;
+                }
+
+                deliver(event);
+            }
+
+            storeCursor();
+        }
+    }
+
+    /**
+     * Recover from falling behind the ring buffer: replay the missing events
+     * from the journal if there is one, and report whatever is still lost.
+     *
+     * @param next first sequence not held by the ring buffer
+     */
+    private void catchUp(long next) {
+        long oldest = ring.getOldestSequence();
+
+        if (journal != null) {
+            try {
+                journal.replay(next, oldest - 1, this);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not replay the event journal", e);
+            }
+        }
+
+        long missed = oldest - 1 - sequence.get();
+
+        if (missed > 0) {
+            overflows.addAndGet(missed);
+            sequence.set(oldest - 1);
+            subscriber.onOverflow(missed);
+        }
+    }
+
+    /**
+     * Store the position in the durable cursor, if any.
+     */
+    private void storeCursor() {
+        if (cursor == null) {
+            return;
+        }
+
+        try {
+            cursor.store(sequence.get());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not store subscriber cursor", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package InventoryApp.exceptions;
+
+/**
+ * Unchecked storage exception. This is thrown when an InventoryStore cannot
+ * read or write its backing store.
+ *
+ * @see InventoryStore
+ */
+public class StorageException extends RuntimeException {
+    /**
+     * Constructor. Passes the message and underlying cause to the base handler.
+     *
+     * @param message
+     * @param cause
+     */
+    public StorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,319 @@
+package InventoryApp.matching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import InventoryApp.metrics.Metrics;
+import InventoryApp.metrics.OperationEvent;
+import InventoryApp.metrics.Timer;
+import InventoryApp.models.InhousePart;
+import InventoryApp.models.Inventory;
+import InventoryApp.models.InventoryListener;
+import InventoryApp.models.OutsourcedPart;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+
+/**
+ * DuplicateDetector finds parts that are likely the same part entered twice,
+ * such as "M3 bolt" and "Bolt M3 x10".
+ * <p>
+ * Names are compared by the Jaccard similarity of their character trigrams,
+ * and only pairs that share a MinHash band are compared at all, so neither a
+ * suggestion nor the full report looks at every pair. A pair whose names are
+ * alike enough is scored on its names, prices and suppliers together.
+ * <p>
+ * The index behind suggestions is built from the Inventory on first use and
+ * then kept current through an InventoryListener; it is built again when the
+ * changes since outgrow it. Callbacks only touch the index, so the lock order
+ * stays Inventory before DuplicateDetector.
+ *
+ * @see PartMatch, DuplicateReport
+ */
+public final class DuplicateDetector {
+
+    // Lowest name similarity for a pair to be scored
+    static final double MIN_NAME_SIMILARITY = 0.5;
+
+    // Lowest score reported by default
+    public static final double DEFAULT_MIN_SCORE = 0.6;
+
+    // Weight of each signal in the score
+    private static final double NAME_WEIGHT = 0.7;
+    private static final double PRICE_WEIGHT = 0.2;
+    private static final double SOURCE_WEIGHT = 0.1;
+
+    // Signal given when one side is missing
+    private static final double UNKNOWN = 0.5;
+
+    // Operation timers
+    private final static Timer BUILD = Metrics.timer("matching.build");
+    private final static Timer SUGGEST = Metrics.timer("matching.suggest");
+    private final static Timer REPORT = Metrics.timer("matching.report");
+
+    // Highest score first, then lowest part ID
+    private static final Comparator<PartMatch> BY_SCORE = Comparator
+            .comparingDouble(PartMatch::getScore).reversed()
+            .thenComparingInt(match -> match.getMatch().getPartID());
+
+    // Held while building, so only one build runs at a time
+    private static final Object buildLock = new Object();
+
+    // Current index, or null until needed
+    private static LshIndex index;
+
+    // Changes made while an index is built, or null if none is being built
+    private static List<Consumer<LshIndex>> pending;
+
+    // Counts clears and loads, which make an index being built useless
+    private static long generation;
+
+    // Whether the listener is registered
+    private static boolean listening;
+
+    // Keeps the index current
+    private static final InventoryListener listener = new InventoryListener() {
+        @Override
+        public void partAdded(Part part) {
+            changed(index -> index.add(part));
+        }
+
+        @Override
+        public void partRemoved(Part part) {
+            changed(index -> index.remove(part));
+        }
+
+        @Override
+        public void partUpdated(Part oldPart, Part newPart) {
+            // stock changes report the same instance, with the name unchanged
+            if (oldPart != newPart) {
+                changed(index -> {
+                    index.remove(oldPart);
+                    index.add(newPart);
+                });
+            }
+        }
+
+        @Override
+        public void inventoryCleared() {
+            discard();
+        }
+
+        @Override
+        public void inventoryLoaded(List<Part> parts, List<Product> products) {
+            discard();
+        }
+    };
+
+    /**
+     * Constructor
+     */
+    private DuplicateDetector() {
+    }
+
+    /**
+     * Find existing parts that look like a part being entered
+     *
+     * @param name
+     * @param price price entered, or NaN if none
+     * @param source company name or machine ID entered, or null if none
+     * @param excludePartID ID of the part being modified, or -1
+     * @param limit most matches returned
+     * @return matches, highest score first
+     */
+    public static List<PartMatch> suggest(String name, double price, String source, int excludePartID, int limit) {
+        OperationEvent operation = SUGGEST.start();
+
+        try {
+            int[] shingles = NameShingles.shingles(name);
+
+            if (shingles.length == 0 || limit <= 0) {
+                return Collections.emptyList();
+            }
+
+            List<PartMatch> matches = new ArrayList<>();
+
+            for (Part part : index().candidates(shingles)) {
+                if (part.getPartID() == excludePartID) {
+                    continue;
+                }
+
+                double nameSimilarity = NameShingles.similarity(shingles, NameShingles.shingles(part.getName()));
+
+                if (nameSimilarity >= MIN_NAME_SIMILARITY) {
+                    double score = score(nameSimilarity, price, source, part.getPrice(), sourceOf(part));
+                    matches.add(new PartMatch(null, part, nameSimilarity, score));
+                }
+            }
+
+            matches.sort(BY_SCORE);
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        } finally {
+            operation.stop();
+        }
+    }
+
+    /**
+     * Find likely duplicates across the whole catalog. Indexing and comparing
+     * both run in parallel on the common fork-join pool.
+     *
+     * @param minScore lowest score reported
+     * @return report, its matches highest score first
+     */
+    public static DuplicateReport report(double minScore) {
+        OperationEvent operation = REPORT.start();
+        long start = System.nanoTime();
+
+        try {
+            LshIndex built = build(true);
+            LongAdder compared = new LongAdder();
+            List<PartMatch> matches = built.scan(minScore, compared);
+            matches.sort(BY_SCORE);
+
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            return new DuplicateReport(matches, built.size(), compared.sum(), elapsedMillis);
+        } finally {
+            operation.stop();
+        }
+    }
+
+    /**
+     * Score a pair of parts whose names are alike
+     *
+     * @param nameSimilarity
+     * @param price one price, or NaN if unknown
+     * @param source one company name or machine ID, or null if unknown
+     * @param otherPrice the other price
+     * @param otherSource the other company name or machine ID
+     * @return score from 0 to 1
+     */
+    static double score(double nameSimilarity, double price, String source, double otherPrice, String otherSource) {
+        double priceSimilarity = UNKNOWN;
+
+        if (price > 0 && otherPrice > 0) {
+            priceSimilarity = Math.min(price, otherPrice) / Math.max(price, otherPrice);
+        } else if (price == 0 && otherPrice == 0) {
+            priceSimilarity = 1;
+        }
+
+        double sourceSimilarity = UNKNOWN;
+
+        if (source != null && !source.trim().isEmpty() && otherSource != null) {
+            sourceSimilarity = source.trim().equalsIgnoreCase(otherSource.trim()) ? 1 : 0;
+        }
+
+        return NAME_WEIGHT * nameSimilarity + PRICE_WEIGHT * priceSimilarity + SOURCE_WEIGHT * sourceSimilarity;
+    }
+
+    /**
+     * Get what the parts screen shows as a part's source
+     *
+     * @param part
+     * @return company name, machine ID, or null
+     */
+    static String sourceOf(Part part) {
+        if (part instanceof OutsourcedPart) {
+            return ((OutsourcedPart) part).getCompanyName();
+        } else if (part instanceof InhousePart) {
+            return Integer.toString(((InhousePart) part).getMachineID());
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the current index, building it if there is none or it is outgrown
+     *
+     * @return index
+     */
+    private static LshIndex index() {
+        synchronized (DuplicateDetector.class) {
+            if (index != null && !index.isOutgrown()) {
+                return index;
+            }
+        }
+
+        return build(false);
+    }
+
+    /**
+     * Build an index from the parts in the Inventory now. Changes made while
+     * it is built are applied to it afterwards, and it replaces the current
+     * index unless the Inventory was cleared or loaded meanwhile.
+     *
+     * @param fresh build even if the current index is up to date
+     * @return index
+     */
+    private static LshIndex build(boolean fresh) {
+        synchronized (buildLock) {
+            List<Part> snapshot;
+            long builtGeneration;
+
+            synchronized (Inventory.class) {
+                synchronized (DuplicateDetector.class) {
+                    if (!fresh && index != null && !index.isOutgrown()) {
+                        return index;
+                    }
+
+                    snapshot = Inventory.listParts();
+                    builtGeneration = generation;
+                    pending = new ArrayList<>();
+                }
+
+                if (!listening) {
+                    Inventory.addListener(listener);
+                    listening = true;
+                }
+            }
+
+            OperationEvent operation = BUILD.start();
+            LshIndex built = null;
+
+            try {
+                built = new LshIndex(snapshot);
+            } finally {
+                operation.stop();
+
+                synchronized (DuplicateDetector.class) {
+                    if (built != null && generation == builtGeneration) {
+                        for (Consumer<LshIndex> change : pending) {
+                            change.accept(built);
+                        }
+
+                        index = built;
+                    }
+
+                    pending = null;
+                }
+            }
+
+            return built;
+        }
+    }
+
+    /**
+     * Apply a change to the current index and to one being built
+     *
+     * @param change
+     */
+    private static synchronized void changed(Consumer<LshIndex> change) {
+        if (index != null) {
+            change.accept(index);
+        }
+
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    /**
+     * Drop the index after the Inventory was cleared or replaced
+     */
+    private static synchronized void discard() {
+        index = null;
+        generation++;
+    }
+}
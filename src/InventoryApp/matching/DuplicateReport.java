@@ -0,0 +1,75 @@
+package InventoryApp.matching;
+
+import java.util.List;
+
+/**
+ * DuplicateReport lists the likely duplicate pairs found in one pass over the
+ * whole catalog.
+ *
+ * @see DuplicateDetector#report(double)
+ */
+public final class DuplicateReport {
+
+    // Likely duplicates, highest score first
+    private final List<PartMatch> matches;
+
+    // Parts in the catalog
+    private final int partsScanned;
+
+    // Pairs that shared a bucket and had their names compared
+    private final long pairsCompared;
+
+    // Time taken
+    private final long elapsedMillis;
+
+    /**
+     * Constructor
+     *
+     * @param matches
+     * @param partsScanned
+     * @param pairsCompared
+     * @param elapsedMillis
+     */
+    DuplicateReport(List<PartMatch> matches, int partsScanned, long pairsCompared, long elapsedMillis) {
+        this.matches = matches;
+        this.partsScanned = partsScanned;
+        this.pairsCompared = pairsCompared;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Get the likely duplicates
+     *
+     * @return pairs, highest score first
+     */
+    public List<PartMatch> getMatches() {
+        return matches;
+    }
+
+    /**
+     * Get the number of parts in the catalog
+     *
+     * @return parts
+     */
+    public int getPartsScanned() {
+        return partsScanned;
+    }
+
+    /**
+     * Get the number of pairs whose names were compared
+     *
+     * @return pairs
+     */
+    public long getPairsCompared() {
+        return pairsCompared;
+    }
+
+    /**
+     * Get the time taken
+     *
+     * @return milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
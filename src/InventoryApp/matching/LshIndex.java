@@ -0,0 +1,429 @@
+package InventoryApp.matching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import InventoryApp.models.Part;
+
+/**
+ * LshIndex groups parts whose names share a MinHash band.
+ * <p>
+ * It is built in parallel from a snapshot of the parts. Each band is an
+ * array of longs holding a band hash in the high half and a part's position
+ * in the low half, sorted so that a bucket is a run of equal band hashes.
+ * Parts added after the build go to a small hash map and parts removed are
+ * only marked, so the index stays current until those changes outgrow it
+ * and it is built again.
+ * <p>
+ * Buckets larger than MAX_BUCKET are not searched. They gather names made
+ * only of common shingles, such as "Part 1" to "Part 999", and searching
+ * them would compare every pair. Names with exactly the same shingles are
+ * grouped apart from the bands instead, so a name entered hundreds of times
+ * is still found: each copy is paired with the first.
+ *
+ * @see MinHash, DuplicateDetector
+ */
+final class LshIndex {
+
+    // Largest bucket searched
+    static final int MAX_BUCKET = 64;
+
+    // Fewest changes after which the index is built again
+    private static final int MIN_REBUILD_CHANGES = 1024;
+
+    // Entries of a band a scan task handles before splitting
+    private static final int SCAN_CHUNK = 1 << 14;
+
+    // Parts indexed when built
+    private final Part[] parts;
+
+    // Shingles of each part
+    private final int[][] shingles;
+
+    // Band hashes of each part
+    private final int[][] bands;
+
+    // Per band: band hash and part position, sorted
+    private final long[][] buckets;
+
+    // Per band: whether each part's bucket is too large to search
+    private final boolean[][] oversized;
+
+    // Hash of each part's whole shingle set
+    private final int[] nameHashes;
+
+    // Name hash and part position, sorted
+    private final long[] names;
+
+    // Parts added since the build, by band and band hash
+    private final Map<Long, List<Part>> added = new HashMap<>();
+
+    // Parts removed or replaced since the build
+    private final Set<Part> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // Number of parts added since the build
+    private int addedCount;
+
+    /**
+     * Constructor. Builds the index on the common fork-join pool.
+     *
+     * @param snapshot parts to index, not changed while building
+     */
+    LshIndex(List<Part> snapshot) {
+        parts = snapshot.toArray(new Part[snapshot.size()]);
+        shingles = new int[parts.length][];
+        bands = new int[parts.length][];
+        buckets = new long[MinHash.BANDS][];
+        oversized = new boolean[MinHash.BANDS][];
+        nameHashes = new int[parts.length];
+        names = new long[parts.length];
+
+        Arrays.parallelSetAll(shingles, i -> NameShingles.shingles(parts[i].getName()));
+        Arrays.parallelSetAll(bands, i -> MinHash.bands(shingles[i]));
+        Arrays.parallelSetAll(nameHashes, i -> nameHash(shingles[i]));
+        Arrays.parallelSetAll(names, i -> (long) nameHashes[i] << 32 | i);
+        Arrays.parallelSort(names);
+
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            int column = band;
+            long[] keys = new long[parts.length];
+            Arrays.parallelSetAll(keys, i -> (long) bands[i][column] << 32 | i);
+            Arrays.parallelSort(keys);
+            buckets[band] = keys;
+            oversized[band] = new boolean[parts.length];
+
+            for (int start = 0, end; start < keys.length; start = end) {
+                end = bucketEnd(keys, start, keys.length);
+
+                if (end - start > MAX_BUCKET) {
+                    for (int i = start; i < end; i++) {
+                        oversized[band][(int) keys[i]] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of parts indexed when built
+     *
+     * @return parts
+     */
+    int size() {
+        return parts.length;
+    }
+
+    /**
+     * Check whether enough has changed since the build to build again
+     *
+     * @return true if outgrown
+     */
+    synchronized boolean isOutgrown() {
+        return addedCount + removed.size() > Math.max(MIN_REBUILD_CHANGES, parts.length / 4);
+    }
+
+    /**
+     * Index a part added after the build
+     *
+     * @param part
+     */
+    synchronized void add(Part part) {
+        int[] partShingles = NameShingles.shingles(part.getName());
+        int[] partBands = MinHash.bands(partShingles);
+
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            added.computeIfAbsent(addedKey(band, partBands[band]), key -> new ArrayList<>()).add(part);
+        }
+
+        added.computeIfAbsent(addedKey(MinHash.BANDS, nameHash(partShingles)), key -> new ArrayList<>()).add(part);
+
+        // a part removed and added back, as by undo, is indexed again
+        removed.remove(part);
+        addedCount++;
+    }
+
+    /**
+     * Drop a part removed or replaced after the build
+     *
+     * @param part
+     */
+    synchronized void remove(Part part) {
+        removed.add(part);
+    }
+
+    /**
+     * Get the current parts sharing a bucket with a name, including up to
+     * MAX_BUCKET parts with exactly its shingles
+     *
+     * @param nameShingles shingles of the name
+     * @return distinct parts
+     */
+    synchronized List<Part> candidates(int[] nameShingles) {
+        Set<Part> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        int[] nameBands = MinHash.bands(nameShingles);
+
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            addBucket(candidates, buckets[band], nameBands[band], false);
+            addAdded(candidates, band, nameBands[band]);
+        }
+
+        int nameHash = nameHash(nameShingles);
+        addBucket(candidates, names, nameHash, true);
+        addAdded(candidates, MinHash.BANDS, nameHash);
+
+        candidates.removeAll(removed);
+        return new ArrayList<>(candidates);
+    }
+
+    /**
+     * Compare every part with the first part that has exactly its shingles
+     *
+     * @param minScore lowest score kept
+     * @param compared counts the pairs compared
+     * @param matches likely duplicates found
+     */
+    private void scanNames(double minScore, LongAdder compared, Queue<PartMatch> matches) {
+        long pairs = 0;
+
+        for (int start = 0, end; start < names.length; start = end) {
+            end = bucketEnd(names, start, names.length);
+            int x = (int) names[start];
+
+            for (int i = start + 1; i < end; i++) {
+                int y = (int) names[i];
+
+                if (Arrays.equals(shingles[x], shingles[y])) {
+                    pairs++;
+                    PartMatch match = compare(x, y, minScore);
+
+                    if (match != null) {
+                        matches.add(match);
+                    }
+                }
+            }
+        }
+
+        compared.add(pairs);
+    }
+
+    private void addBucket(Set<Part> candidates, long[] keys, int hash, boolean truncate) {
+        long first = (long) hash << 32;
+        int start = search(keys, first);
+        int end = hash == Integer.MAX_VALUE ? keys.length : search(keys, first + (1L << 32));
+
+        if (end - start > MAX_BUCKET && truncate) {
+            end = start + MAX_BUCKET;
+        }
+
+        if (end - start <= MAX_BUCKET) {
+            for (int i = start; i < end; i++) {
+                candidates.add(parts[(int) keys[i]]);
+            }
+        }
+    }
+
+    private void addAdded(Set<Part> candidates, int band, int hash) {
+        List<Part> addedParts = added.get(addedKey(band, hash));
+
+        if (addedParts != null) {
+            candidates.addAll(addedParts.size() > MAX_BUCKET ? addedParts.subList(0, MAX_BUCKET) : addedParts);
+        }
+    }
+
+    /**
+     * Compare every pair of indexed parts that share a bucket, in parallel.
+     * Each pair is compared once, in the first band they share; pairs with
+     * the same shingles are compared by name instead.
+     *
+     * @param minScore lowest score reported
+     * @param compared counts the pairs compared
+     * @return likely duplicates, in no particular order
+     */
+    List<PartMatch> scan(double minScore, LongAdder compared) {
+        Queue<PartMatch> matches = new ConcurrentLinkedQueue<>();
+        List<ScanTask> tasks = new ArrayList<>();
+
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            tasks.add(new ScanTask(band, 0, parts.length, minScore, matches, compared));
+        }
+
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        scanNames(minScore, compared, matches);
+
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * Compare two indexed parts
+     *
+     * @param x position of one part
+     * @param y position of the other
+     * @param minScore lowest score kept
+     * @return match, or null if they are not alike enough
+     */
+    private PartMatch compare(int x, int y, double minScore) {
+        double nameSimilarity = NameShingles.similarity(shingles[x], shingles[y]);
+
+        if (nameSimilarity < DuplicateDetector.MIN_NAME_SIMILARITY) {
+            return null;
+        }
+
+        double score = DuplicateDetector.score(nameSimilarity, parts[x].getPrice(), DuplicateDetector.sourceOf(parts[x]),
+                parts[y].getPrice(), DuplicateDetector.sourceOf(parts[y]));
+        return score < minScore ? null : new PartMatch(parts[x], parts[y], nameSimilarity, score);
+    }
+
+    /**
+     * Check whether two parts share a searched bucket in an earlier band
+     *
+     * @param x
+     * @param y
+     * @param band
+     * @return true if already compared there
+     */
+    private boolean sharedEarlier(int x, int y, int band) {
+        for (int earlier = 0; earlier < band; earlier++) {
+            if (bands[x][earlier] == bands[y][earlier] && !oversized[earlier][x]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Find the first entry at or after a key
+     *
+     * @param keys sorted entries
+     * @param key
+     * @return index, or keys.length if none
+     */
+    private static int search(long[] keys, long key) {
+        int low = 0;
+        int high = keys.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    private static int bucketEnd(long[] keys, int start, int limit) {
+        int end = start;
+
+        while (end < limit && keys[end] >> 32 == keys[start] >> 32) {
+            end++;
+        }
+
+        return end;
+    }
+
+    private static int nameHash(int[] shingles) {
+        return NameShingles.mix(Arrays.hashCode(shingles));
+    }
+
+    private static long addedKey(int band, int hash) {
+        return (long) band << 32 | (hash & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Compares the pairs in the buckets of a range of one band, splitting
+     * the range on bucket boundaries.
+     */
+    private final class ScanTask extends RecursiveAction {
+
+        // Band scanned
+        private final int band;
+
+        // Range of entries in the band, starting at a bucket
+        private final int from;
+        private final int to;
+
+        // Lowest score kept
+        private final double minScore;
+
+        // Likely duplicates found by every task
+        private final Queue<PartMatch> matches;
+
+        // Pairs compared by every task
+        private final LongAdder compared;
+
+        ScanTask(int band, int from, int to, double minScore, Queue<PartMatch> matches, LongAdder compared) {
+            this.band = band;
+            this.from = from;
+            this.to = to;
+            this.minScore = minScore;
+            this.matches = matches;
+            this.compared = compared;
+        }
+
+        @Override
+        protected void compute() {
+            long[] keys = buckets[band];
+
+            if (to - from > SCAN_CHUNK) {
+                int split = bucketEnd(keys, (from + to) >>> 1, to);
+
+                if (split < to) {
+                    invokeAll(new ScanTask(band, from, split, minScore, matches, compared),
+                            new ScanTask(band, split, to, minScore, matches, compared));
+                    return;
+                }
+            }
+
+            long pairs = 0;
+
+            for (int start = from, end; start < to; start = end) {
+                end = bucketEnd(keys, start, to);
+
+                if (end - start > MAX_BUCKET) {
+                    continue;
+                }
+
+                for (int i = start; i < end; i++) {
+                    for (int j = i + 1; j < end; j++) {
+                        int x = (int) keys[i];
+                        int y = (int) keys[j];
+
+                        if (nameHashes[x] == nameHashes[y] || sharedEarlier(x, y, band)) {
+                            continue;
+                        }
+
+                        pairs++;
+                        PartMatch match = compare(x, y, minScore);
+
+                        if (match != null) {
+                            matches.add(match);
+                        }
+                    }
+                }
+            }
+
+            compared.add(pairs);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package InventoryApp.matching;
+
+import java.util.Arrays;
+
+/**
+ * NameShingles breaks a part name into hashed character trigrams.
+ * <p>
+ * The name is lower-cased and split into words of letters and digits; each
+ * word is padded with a boundary mark and cut into overlapping three
+ * character pieces. Word order and punctuation are ignored, so "M3 bolt" and
+ * "Bolt M3 x10" share every shingle of the first name.
+ *
+ * @see MinHash
+ */
+final class NameShingles {
+
+    // Shingles of an empty name
+    private static final int[] NONE = new int[0];
+
+    // Stands in for the start and end of a word
+    private static final int BOUNDARY = 0;
+
+    /**
+     * Constructor
+     */
+    private NameShingles() {
+    }
+
+    /**
+     * Get the distinct shingles of a name
+     *
+     * @param name
+     * @return shingle hashes in ascending order
+     */
+    static int[] shingles(String name) {
+        if (name == null || name.isEmpty()) {
+            return NONE;
+        }
+
+        // a word of n characters gives n shingles, so this is always enough
+        int[] shingles = new int[name.length()];
+        int count = 0;
+        int first = 0;
+        int second = BOUNDARY;
+
+        for (int i = 0; i <= name.length(); i++) {
+            int c = i < name.length() ? name.charAt(i) : ' ';
+
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+
+                // the first letter of a word starts the first shingle and
+                // completes none
+                if (second != BOUNDARY) {
+                    shingles[count++] = hash(first, second, c);
+                }
+
+                first = second;
+                second = c;
+            } else if (second != BOUNDARY) {
+                shingles[count++] = hash(first, second, BOUNDARY);
+                first = BOUNDARY;
+                second = BOUNDARY;
+            }
+        }
+
+        Arrays.sort(shingles, 0, count);
+        int distinct = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || shingles[distinct - 1] != shingles[i]) {
+                shingles[distinct++] = shingles[i];
+            }
+        }
+
+        return distinct == 0 ? NONE : Arrays.copyOf(shingles, distinct);
+    }
+
+    /**
+     * Get the Jaccard similarity of two shingle sets: the shingles both share
+     * over the shingles either has
+     *
+     * @param a shingles in ascending order
+     * @param b shingles in ascending order
+     * @return similarity from 0 to 1, 0 if both are empty
+     */
+    static double similarity(int[] a, int[] b) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+
+        int either = a.length + b.length - shared;
+        return either == 0 ? 0 : (double) shared / either;
+    }
+
+    /**
+     * Mix the bits of a value so that nearby inputs give unrelated outputs
+     *
+     * @param value
+     * @return mixed value
+     */
+    static int mix(int value) {
+        value ^= value >>> 16;
+        value *= 0x85EBCA6B;
+        value ^= value >>> 13;
+        value *= 0xC2B2AE35;
+        value ^= value >>> 16;
+        return value;
+    }
+
+    private static int hash(int first, int second, int third) {
+        return mix((first * 31 + second) * 31 + third);
+    }
+}
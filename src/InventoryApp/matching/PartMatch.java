@@ -0,0 +1,75 @@
+package InventoryApp.matching;
+
+import InventoryApp.models.Part;
+
+/**
+ * PartMatch is a pair of parts that look like duplicates, or a part that
+ * looks like the one being entered.
+ *
+ * @see DuplicateDetector
+ */
+public final class PartMatch {
+
+    // Part compared, or null when comparing a part being entered
+    private final Part part;
+
+    // Existing part it resembles
+    private final Part match;
+
+    // Jaccard similarity of the two names
+    private final double nameSimilarity;
+
+    // Name, price and supplier signals combined
+    private final double score;
+
+    /**
+     * Constructor
+     *
+     * @param part
+     * @param match
+     * @param nameSimilarity
+     * @param score
+     */
+    PartMatch(Part part, Part match, double nameSimilarity, double score) {
+        this.part = part;
+        this.match = match;
+        this.nameSimilarity = nameSimilarity;
+        this.score = score;
+    }
+
+    /**
+     * Get the part compared
+     *
+     * @return part, or null for a suggestion
+     */
+    public Part getPart() {
+        return part;
+    }
+
+    /**
+     * Get the existing part it resembles
+     *
+     * @return part
+     */
+    public Part getMatch() {
+        return match;
+    }
+
+    /**
+     * Get how alike the names are
+     *
+     * @return similarity from 0 to 1
+     */
+    public double getNameSimilarity() {
+        return nameSimilarity;
+    }
+
+    /**
+     * Get how likely the two are the same part
+     *
+     * @return score from 0 to 1
+     */
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,30 @@
+package InventoryApp.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * FxmlLoadEvent covers loading one FXML view on the JavaFX application
+ * thread, so screen switches show up in a recording.
+ */
+@Name("InventoryApp.FxmlLoad")
+@Label("FXML Load")
+@Category({"Inventory", "JavaFX"})
+public class FxmlLoadEvent extends Event {
+
+    // FXML resource being loaded
+    @Label("View")
+    private String view;
+
+    /**
+     * Constructor. Begins the event.
+     *
+     * @param view FXML resource name
+     */
+    public FxmlLoadEvent(String view) {
+        this.view = view;
+        begin();
+    }
+}
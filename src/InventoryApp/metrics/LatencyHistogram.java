@@ -0,0 +1,195 @@
+package InventoryApp.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram records durations in nanoseconds into log-linear buckets,
+ * in the style of an HDR histogram. Each power of two is split into 32
+ * sub-buckets, so any recorded value is reported within about 3%.
+ * <p>
+ * Recording is lock-free: a bucket increment, a sum and a max update, all
+ * with atomics. Reading takes a snapshot, which may be slightly torn against
+ * concurrent recordings but is never inconsistent by more than those
+ * in-flight values.
+ *
+ * @see Timer
+ */
+public class LatencyHistogram {
+
+    // Sub-buckets per power of two, as a bit count
+    private static final int SUB_BUCKET_BITS = 5;
+
+    // Sub-buckets per power of two
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Total number of buckets, covering every positive long
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    // Count per bucket
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    // Number of recorded values
+    private final LongAdder totalCount = new LongAdder();
+
+    // Sum of recorded values
+    private final LongAdder totalNanos = new LongAdder();
+
+    // Largest recorded value
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Record a duration.
+     *
+     * @param nanos duration in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+
+        counts.incrementAndGet(bucketOf(value));
+        totalCount.increment();
+        totalNanos.add(value);
+
+        long max = maxNanos.get();
+
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Take a snapshot of the recorded values.
+     *
+     * @return snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            copy[bucket] = counts.get(bucket);
+        }
+
+        return new Snapshot(copy, totalCount.sum(), totalNanos.sum(), maxNanos.get());
+    }
+
+    /**
+     * Get the bucket holding a value.
+     *
+     * @param value non-negative value
+     * @return bucket index
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Get the smallest value held by a bucket.
+     *
+     * @param bucket
+     * @return lower bound, inclusive
+     */
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+
+        return (SUB_BUCKETS + subBucket) << shift;
+    }
+
+    /**
+     * Snapshot is an immutable copy of a histogram.
+     */
+    public static final class Snapshot {
+
+        // Count per bucket
+        private final long[] counts;
+
+        // Number of recorded values
+        private final long count;
+
+        // Sum of recorded values
+        private final long totalNanos;
+
+        // Largest recorded value
+        private final long maxNanos;
+
+        private Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * Get the number of recorded values
+         *
+         * @return count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Get the mean recorded value
+         *
+         * @return mean in nanoseconds, 0 if empty
+         */
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * Get the largest recorded value
+         *
+         * @return max in nanoseconds
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Get the value at a percentile. The midpoint of the matching bucket
+         * is returned, capped at the recorded maximum.
+         *
+         * @param percentile between 0 and 100
+         * @return value in nanoseconds, 0 if empty
+         */
+        public long getPercentileNanos(double percentile) {
+            long total = 0;
+
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+            long seen = 0;
+
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+
+                if (seen >= rank) {
+                    long low = lowerBound(bucket);
+                    long high = bucket + 1 < BUCKETS ? lowerBound(bucket + 1) : Long.MAX_VALUE;
+                    return Math.min(maxNanos, low + (high - low) / 2);
+                }
+            }
+
+            return maxNanos;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package InventoryApp.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics is the registry of operation timers. Timers are created on first
+ * use and live for the life of the application.
+ * <p>
+ * The registry can be published over JMX and dumped to the log on a fixed
+ * period. Both are opt-in; recording costs the same either way.
+ *
+ * @see Timer, MetricsMXBean
+ */
+public class Metrics {
+
+    // JMX name of the registry
+    public static final String OBJECT_NAME = "InventoryApp:type=Metrics";
+
+    // Timers by operation name
+    private final static ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    // Logger used for periodic dumps
+    private final static Logger logger = Logger.getLogger(Metrics.class.getName());
+
+    // Scheduler for periodic dumps, if started
+    private static ScheduledExecutorService reporter;
+
+    /**
+     * Constructor
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Get the timer for an operation, creating it if needed.
+     *
+     * @param name operation name
+     * @return timer
+     */
+    public static Timer timer(String name) {
+        Timer timer = timers.get(name);
+
+        if (timer == null) {
+            timer = timers.computeIfAbsent(name, Timer::new);
+        }
+
+        return timer;
+    }
+
+    /**
+     * Get a summary of every timer.
+     *
+     * @return summaries keyed by operation name, in name order
+     */
+    public static Map<String, TimerStats> getTimers() {
+        Map<String, TimerStats> stats = new TreeMap<>();
+
+        for (Timer timer : timers.values()) {
+            stats.put(timer.getName(), TimerStats.of(timer.snapshot()));
+        }
+
+        return stats;
+    }
+
+    /**
+     * Get a printable report of every timer that has recorded at least once.
+     *
+     * @return report, one line per timer
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+
+        for (Map.Entry<String, TimerStats> entry : getTimers().entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                report.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+            }
+        }
+
+        return report.toString();
+    }
+
+    /**
+     * Publish the registry over JMX. Publishing twice is a no-op.
+     */
+    public static synchronized void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MXBean(), name);
+            }
+        } catch (JMException e) {
+            logger.warning("Could not register metrics MBean: " + e);
+        }
+    }
+
+    /**
+     * Dump the report to the log on a fixed period. Starting twice is a
+     * no-op.
+     *
+     * @param period
+     * @param unit
+     */
+    public static synchronized void startReporting(long period, TimeUnit unit) {
+        if (reporter != null) {
+            return;
+        }
+
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        reporter.scheduleAtFixedRate(() -> {
+            String report = report();
+
+            if (!report.isEmpty()) {
+                logger.info("Inventory metrics\n" + report);
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stop the periodic dump, if started.
+     */
+    public static synchronized void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    /**
+     * Start JMX publication and periodic dumps as configured by system
+     * properties: inventory.metrics.jmx=true publishes over JMX, and
+     * inventory.metrics.logSeconds=N dumps every N seconds.
+     */
+    public static void configureFromSystemProperties() {
+        if (Boolean.getBoolean("inventory.metrics.jmx")) {
+            registerMBean();
+        }
+
+        long seconds = Long.getLong("inventory.metrics.logSeconds", 0);
+
+        if (seconds > 0) {
+            startReporting(seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * MXBean adapter over the static registry.
+     */
+    private static final class MXBean implements MetricsMXBean {
+
+        @Override
+        public Map<String, TimerStats> getTimers() {
+            return Metrics.getTimers();
+        }
+
+        @Override
+        public String getReport() {
+            return Metrics.report();
+        }
+    }
+}
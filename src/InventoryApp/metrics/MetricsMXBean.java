@@ -0,0 +1,26 @@
+package InventoryApp.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics registry, registered as
+ * InventoryApp:type=Metrics.
+ *
+ * @see Metrics
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Get a summary of every timer.
+     *
+     * @return summaries keyed by operation name
+     */
+    Map<String, TimerStats> getTimers();
+
+    /**
+     * Get a printable report of every timer.
+     *
+     * @return report
+     */
+    String getReport();
+}
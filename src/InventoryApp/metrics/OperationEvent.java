@@ -0,0 +1,68 @@
+package InventoryApp.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * OperationEvent is one timed operation, such as an Inventory lookup or a
+ * save handler. It is recorded into its Timer's histogram and, when a Flight
+ * Recorder recording has the event enabled, committed as a JFR event.
+ * <p>
+ * Events are obtained from Timer.start() and must be stopped exactly once:
+ * <pre>
+ * OperationEvent operation = TIMER.start();
+ * try {
+ *     ...
+ * } finally {
+ *     operation.stop();
+ * }
+ * </pre>
+ *
+ * @see Timer
+ */
+@Name("InventoryApp.Operation")
+@Label("Inventory Operation")
+@Category("Inventory")
+@Description("A timed inventory, validation or view operation")
+@StackTrace(false)
+public class OperationEvent extends Event {
+
+    // Operation name, as registered with Metrics
+    @Label("Operation")
+    private String operation;
+
+    // Timer recording the latency
+    private final transient Timer timer;
+
+    // System.nanoTime() at the start of the operation
+    private final transient long startNanos;
+
+    /**
+     * Constructor. Begins the event.
+     *
+     * @param timer
+     */
+    OperationEvent(Timer timer) {
+        this.operation = timer.getName();
+        this.timer = timer;
+        this.startNanos = System.nanoTime();
+        begin();
+    }
+
+    /**
+     * Stop the operation, recording its latency and committing the event if
+     * it is enabled.
+     */
+    public void stop() {
+        timer.record(System.nanoTime() - startNanos);
+        end();
+
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
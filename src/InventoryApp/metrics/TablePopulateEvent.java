@@ -0,0 +1,37 @@
+package InventoryApp.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * TablePopulateEvent covers filling the rows behind a TableView on the JavaFX
+ * application thread, including fetching them pre-sorted, so it measures the
+ * list change the table must then render.
+ */
+@Name("InventoryApp.TablePopulate")
+@Label("Table Populate")
+@Category({"Inventory", "JavaFX"})
+public class TablePopulateEvent extends Event {
+
+    // Table being populated
+    @Label("Table")
+    private String table;
+
+    // Number of rows handed to the table
+    @Label("Rows")
+    private int rows;
+
+    /**
+     * Constructor. Begins the event.
+     *
+     * @param table table name
+     * @param rows number of rows
+     */
+    public TablePopulateEvent(String table, int rows) {
+        this.table = table;
+        this.rows = rows;
+        begin();
+    }
+}
@@ -0,0 +1,70 @@
+package InventoryApp.metrics;
+
+/**
+ * Timer counts and times one kind of operation. Timers are obtained from
+ * Metrics and are usually held in static fields:
+ * <pre>
+ * OperationEvent operation = TIMER.start();
+ * try {
+ *     ...
+ * } finally {
+ *     operation.stop();
+ * }
+ * </pre>
+ *
+ * @see Metrics, OperationEvent
+ */
+public class Timer {
+
+    // Operation name
+    private final String name;
+
+    // Recorded latencies
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * Constructor
+     *
+     * @param name operation name
+     */
+    Timer(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the operation name
+     *
+     * @return operation name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Start timing one operation. The returned event is also a Flight
+     * Recorder event, committed when it is stopped if JFR has it enabled.
+     *
+     * @return running operation
+     */
+    public OperationEvent start() {
+        return new OperationEvent(this);
+    }
+
+    /**
+     * Record one operation of the given duration.
+     *
+     * @param nanos
+     */
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    /**
+     * Take a snapshot of the recorded latencies.
+     *
+     * @return snapshot
+     */
+    public LatencyHistogram.Snapshot snapshot() {
+        return histogram.snapshot();
+    }
+}
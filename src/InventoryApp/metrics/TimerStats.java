@@ -0,0 +1,124 @@
+package InventoryApp.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * TimerStats is a summary of one timer, in microseconds, shaped for JMX.
+ *
+ * @see MetricsMXBean
+ */
+public class TimerStats {
+
+    // Number of operations
+    private final long count;
+
+    // Mean latency
+    private final double meanMicros;
+
+    // Median latency
+    private final double p50Micros;
+
+    // 99th percentile latency
+    private final double p99Micros;
+
+    // 99.9th percentile latency
+    private final double p999Micros;
+
+    // Largest latency
+    private final double maxMicros;
+
+    /**
+     * Constructor
+     *
+     * @param count
+     * @param meanMicros
+     * @param p50Micros
+     * @param p99Micros
+     * @param p999Micros
+     * @param maxMicros
+     */
+    @ConstructorProperties({"count", "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros"})
+    public TimerStats(long count, double meanMicros, double p50Micros, double p99Micros, double p999Micros, double maxMicros) {
+        this.count = count;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    /**
+     * Summarize a histogram snapshot.
+     *
+     * @param snapshot
+     * @return summary
+     */
+    static TimerStats of(LatencyHistogram.Snapshot snapshot) {
+        return new TimerStats(snapshot.getCount(),
+                snapshot.getMeanNanos() / 1000.0,
+                snapshot.getPercentileNanos(50) / 1000.0,
+                snapshot.getPercentileNanos(99) / 1000.0,
+                snapshot.getPercentileNanos(99.9) / 1000.0,
+                snapshot.getMaxNanos() / 1000.0);
+    }
+
+    /**
+     * Get the number of operations
+     *
+     * @return count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the mean latency
+     *
+     * @return mean in microseconds
+     */
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    /**
+     * Get the median latency
+     *
+     * @return median in microseconds
+     */
+    public double getP50Micros() {
+        return p50Micros;
+    }
+
+    /**
+     * Get the 99th percentile latency
+     *
+     * @return 99th percentile in microseconds
+     */
+    public double getP99Micros() {
+        return p99Micros;
+    }
+
+    /**
+     * Get the 99.9th percentile latency
+     *
+     * @return 99.9th percentile in microseconds
+     */
+    public double getP999Micros() {
+        return p999Micros;
+    }
+
+    /**
+     * Get the largest latency
+     *
+     * @return max in microseconds
+     */
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                count, meanMicros, p50Micros, p99Micros, p999Micros, maxMicros);
+    }
+}
@@ -0,0 +1,244 @@
+package InventoryApp.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import InventoryApp.exceptions.ValidationException;
+import InventoryApp.metrics.Metrics;
+import InventoryApp.metrics.OperationEvent;
+import InventoryApp.metrics.Timer;
+
+/**
+ * BulkEdit is one change applied to many parts at once, such as a price
+ * increase over a search result or a new supplier for a selection of parts.
+ * <p>
+ * The edit is applied as one batch: every updated part is built and
+ * validated, and a price increase is checked against every product using the
+ * parts, before any is stored, so either all parts change or none do.
+ * The Inventory then replaces them through updateParts(), and its listeners
+ * see a single partsUpdated() call, so the change is saved in one
+ * transaction, journaled in one write, refreshed in the tables once and
+ * undone in one step.
+ *
+ * @see Inventory#updateParts(List)
+ */
+public class BulkEdit {
+
+    // Apply timer
+    private final static Timer APPLY = Metrics.timer("bulkEdit.apply");
+
+    // Percentage added to each price, such as 5 for a 5% increase
+    private double pricePercent;
+
+    // Change to each minimum inventory
+    private int minChange;
+
+    // Change to each maximum inventory
+    private int maxChange;
+
+    // Supplier every outsourced part is reassigned to, or null to keep each part's own
+    private String companyName;
+
+    /**
+     * Constructor
+     */
+    public BulkEdit() {
+    }
+
+    /**
+     * Get the percentage added to each price
+     *
+     * @return percentage, negative for a decrease
+     */
+    public double getPricePercent() {
+        return pricePercent;
+    }
+
+    /**
+     * Set the percentage added to each price. New prices are rounded to the
+     * cent.
+     *
+     * @param pricePercent percentage, negative for a decrease
+     */
+    public void setPricePercent(double pricePercent) {
+        this.pricePercent = pricePercent;
+    }
+
+    /**
+     * Get the change to each minimum inventory
+     *
+     * @return change
+     */
+    public int getMinChange() {
+        return minChange;
+    }
+
+    /**
+     * Set the change to each minimum inventory
+     *
+     * @param minChange change, negative to lower
+     */
+    public void setMinChange(int minChange) {
+        this.minChange = minChange;
+    }
+
+    /**
+     * Get the change to each maximum inventory
+     *
+     * @return change
+     */
+    public int getMaxChange() {
+        return maxChange;
+    }
+
+    /**
+     * Set the change to each maximum inventory
+     *
+     * @param maxChange change, negative to lower
+     */
+    public void setMaxChange(int maxChange) {
+        this.maxChange = maxChange;
+    }
+
+    /**
+     * Get the supplier outsourced parts are reassigned to
+     *
+     * @return company name, or null if suppliers are kept
+     */
+    public String getCompanyName() {
+        return companyName;
+    }
+
+    /**
+     * Set the supplier outsourced parts are reassigned to. In-house parts are
+     * left in-house, keeping their machine IDs.
+     *
+     * @param companyName company name, or null to keep suppliers
+     */
+    public void setCompanyName(String companyName) {
+        this.companyName = companyName;
+    }
+
+    /**
+     * Check whether the edit changes anything
+     *
+     * @return true if no field is changed
+     */
+    public boolean isEmpty() {
+        return pricePercent == 0 && minChange == 0 && maxChange == 0 && companyName == null;
+    }
+
+    /**
+     * Apply the edit to the current version of each part, as one batch
+     *
+     * @param partIDs IDs of the parts to edit; repeated IDs are edited once
+     * @return updated parts, or none if the edit changes nothing
+     * @throws ValidationException if any updated part is invalid, or a
+     *         product would cost less than its parts, in which case no part
+     *         is changed
+     * @throws IllegalStateException if a part is no longer in the inventory,
+     *         or the inventory is a read-only replica
+     */
+    public List<Part> apply(Collection<Integer> partIDs) throws ValidationException {
+        if (isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        OperationEvent operation = APPLY.start();
+
+        try {
+            // hold the Inventory lock so no part changes between validation and update
+            synchronized (Inventory.class) {
+                Inventory.requireWritable();
+                List<Part> updatedParts = new ArrayList<>(partIDs.size());
+
+                for (int partID : new LinkedHashSet<>(partIDs)) {
+                    updatedParts.add(applyTo(Inventory.requirePart(partID)));
+                }
+
+                for (Part updatedPart : updatedParts) {
+                    try {
+                        updatedPart.isValid();
+                    } catch (ValidationException e) {
+                        throw new ValidationException(updatedPart.getName() + " (part "
+                                + updatedPart.getPartID() + "): " + e.getMessage());
+                    }
+                }
+
+                if (pricePercent > 0) {
+                    checkProducts(updatedParts);
+                }
+
+                Inventory.updateParts(updatedParts);
+                return updatedParts;
+            }
+        } finally {
+            operation.stop();
+        }
+    }
+
+    /**
+     * Build the edited copy of a part
+     *
+     * @param current
+     * @return updated part
+     */
+    Part applyTo(Part current) {
+        Part part;
+
+        if (current instanceof OutsourcedPart) {
+            OutsourcedPart outsourcedPart = new OutsourcedPart();
+            outsourcedPart.setCompanyName(companyName != null ? companyName : ((OutsourcedPart) current).getCompanyName());
+            part = outsourcedPart;
+        } else {
+            InhousePart inhousePart = new InhousePart();
+            inhousePart.setMachineID(((InhousePart) current).getMachineID());
+            part = inhousePart;
+        }
+
+        part.setPartID(current.getPartID());
+        part.setName(current.getName());
+        part.setPrice(pricePercent == 0 ? current.getPrice() : Math.round(current.getPrice() * (100 + pricePercent)) / 100.0);
+        part.setInStock(current.getInStock());
+        part.setMin(current.getMin() + minChange);
+        part.setMax(current.getMax() + maxChange);
+        return part;
+    }
+
+    /**
+     * Check that every product using the updated parts is still priced at
+     * least at the total of its parts, as Product.isValid() requires.
+     *
+     * @param updatedParts
+     * @throws ValidationException naming the first product that is not
+     */
+    private static void checkProducts(List<Part> updatedParts) throws ValidationException {
+        Map<Integer, Part> updates = new HashMap<>();
+
+        for (Part part : updatedParts) {
+            updates.put(part.getPartID(), part);
+        }
+
+        for (Product product : Inventory.getProducts()) {
+            double totalPartsPrice = 0;
+            boolean affected = false;
+
+            for (int i = 0; i < product.getAssociatedPartsCount(); i++) {
+                Part part = product.getAssociatedPart(i);
+                Part updatedPart = updates.get(part.getPartID());
+                affected |= updatedPart != null;
+                totalPartsPrice += updatedPart != null ? updatedPart.getPrice() : part.getPrice();
+            }
+
+            if (affected && totalPartsPrice > product.getPrice()) {
+                throw new ValidationException(product.getName() + " (product " + product.getProductID()
+                        + "): the product price must be greater than total cost of associated parts.");
+            }
+        }
+    }
+}
@@ -0,0 +1,846 @@
+package InventoryApp.models;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * Delta is a compact record of one change to the Inventory.
+ * <p>
+ * Additions and removals hold the part or product itself; a part removal also
+ * holds the part's position and its stock at named locations, so undoing it
+ * restores both. Updates hold only the fields that changed, each with its
+ * value before and after, so a price edit costs one pair of doubles rather
+ * than a copy of the part. A stock change made at a location also holds the
+ * location and its quantity, so undoing it restores the location too. A
+ * transfer between locations holds both locations and the units moved, and
+ * its inverse moves them back. A batch of
+ * part updates, such as a bulk edit, is one delta holding a delta per part,
+ * so it is undone in one step. Every delta
+ * has an inverse, and Inventory.apply() replays a delta through the regular
+ * mutation methods; History builds undo and redo on the two.
+ *
+ * @see Inventory, History
+ */
+public final class Delta {
+
+    /**
+     * Kind of change recorded by a delta.
+     */
+    public enum Kind {
+        PART_ADDED, PART_REMOVED, PART_UPDATED, PRODUCT_ADDED, PRODUCT_REMOVED, PRODUCT_UPDATED, PARTS_UPDATED,
+        STOCK_TRANSFERRED
+    }
+
+    // Field bits of an update
+    public static final int NAME = 1;
+    public static final int PRICE = 1 << 1;
+    public static final int IN_STOCK = 1 << 2;
+    public static final int MIN = 1 << 3;
+    public static final int MAX = 1 << 4;
+    public static final int IN_HOUSE = 1 << 5;
+    public static final int MACHINE_ID = 1 << 6;
+    public static final int COMPANY_NAME = 1 << 7;
+    public static final int ASSOCIATED_PARTS = 1 << 8;
+    public static final int LOCATION = 1 << 9;
+    public static final int LOCATION_QUANTITY = 1 << 10;
+
+    // Fields a part update may change
+    private static final int PART_FIELDS = NAME | PRICE | IN_STOCK | MIN | MAX | IN_HOUSE | MACHINE_ID | COMPANY_NAME;
+
+    // Fields a product update may change
+    private static final int PRODUCT_FIELDS = NAME | PRICE | IN_STOCK | MIN | MAX | ASSOCIATED_PARTS;
+
+    // Value tags of the stream format
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte INT_ARRAY = 5;
+
+    // Kind of change
+    private final Kind kind;
+
+    // Part or product ID, or the number of parts a batch updates
+    private final int id;
+
+    // Part or product added or removed, part updates of a batch, else null
+    private final Object item;
+
+    // Field bits changed by an update, else 0
+    private final int fields;
+
+    // Values before the update, one per field bit in ascending order
+    private final Object[] oldValues;
+
+    // Values after the update, one per field bit in ascending order
+    private final Object[] newValues;
+
+    // Position of an added or removed part in the inventory, or -1 if unknown
+    private final int position;
+
+    // Stock of an added or removed part at named locations, or null if unknown
+    private final Map<String, Integer> locations;
+
+    /**
+     * Constructor
+     *
+     * @param kind
+     * @param id
+     * @param item
+     * @param fields
+     * @param oldValues
+     * @param newValues
+     */
+    private Delta(Kind kind, int id, Object item, int fields, Object[] oldValues, Object[] newValues) {
+        this(kind, id, item, fields, oldValues, newValues, -1, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param kind
+     * @param id
+     * @param item
+     * @param fields
+     * @param oldValues
+     * @param newValues
+     * @param position
+     * @param locations
+     */
+    private Delta(Kind kind, int id, Object item, int fields, Object[] oldValues, Object[] newValues,
+            int position, Map<String, Integer> locations) {
+        this.kind = kind;
+        this.id = id;
+        this.item = item;
+        this.fields = fields;
+        this.oldValues = oldValues;
+        this.newValues = newValues;
+        this.position = position;
+        this.locations = locations;
+    }
+
+    /**
+     * Record a part addition
+     *
+     * @param part
+     * @return delta
+     */
+    public static Delta partAdded(Part part) {
+        return new Delta(Kind.PART_ADDED, part.getPartID(), part, 0, null, null);
+    }
+
+    /**
+     * Record a part removal
+     *
+     * @param part
+     * @return delta
+     */
+    public static Delta partRemoved(Part part) {
+        return new Delta(Kind.PART_REMOVED, part.getPartID(), part, 0, null, null);
+    }
+
+    /**
+     * Record a part removal along with where the part was, so undoing it puts
+     * the part back in place
+     *
+     * @param part
+     * @param position position the part held in the inventory
+     * @param locations stock the part held at named locations
+     * @return delta
+     */
+    public static Delta partRemoved(Part part, int position, Map<String, Integer> locations) {
+        return new Delta(Kind.PART_REMOVED, part.getPartID(), part, 0, null, null,
+                position, new LinkedHashMap<>(locations));
+    }
+
+    /**
+     * Record the fields that differ between a part and its update
+     *
+     * @param oldPart
+     * @param newPart
+     * @return delta, or null if no field changed
+     */
+    public static Delta partUpdated(Part oldPart, Part newPart) {
+        return updated(Kind.PART_UPDATED, newPart.getPartID(), PART_FIELDS,
+                field -> partValue(oldPart, field), field -> partValue(newPart, field));
+    }
+
+    /**
+     * Record a change to a part's current inventory
+     *
+     * @param part
+     * @param oldInStock
+     * @return delta, or null if the inventory did not change
+     */
+    public static Delta stockAdjusted(Part part, int oldInStock) {
+        if (part.getInStock() == oldInStock) {
+            return null;
+        }
+
+        return new Delta(Kind.PART_UPDATED, part.getPartID(), null, IN_STOCK,
+                new Object[]{oldInStock}, new Object[]{part.getInStock()});
+    }
+
+    /**
+     * Record a change to a part's stock at a location. Applying the delta
+     * sets the location's quantity, which changes the part's current
+     * inventory by the same amount.
+     *
+     * @param part
+     * @param location
+     * @param oldQuantity quantity at the location before the change
+     * @param oldInStock
+     * @return delta, or null if the inventory did not change
+     */
+    public static Delta stockAdjusted(Part part, String location, int oldQuantity, int oldInStock) {
+        if (part.getInStock() == oldInStock) {
+            return null;
+        }
+
+        return new Delta(Kind.PART_UPDATED, part.getPartID(), null, IN_STOCK | LOCATION | LOCATION_QUANTITY,
+                new Object[]{oldInStock, location, oldQuantity},
+                new Object[]{part.getInStock(), location, StockLocations.getQuantity(location, part)});
+    }
+
+    /**
+     * Record a move of stock between locations. The old and new location
+     * values are the source and destination, so the inverse moves the stock
+     * back.
+     *
+     * @param part
+     * @param from source location
+     * @param to destination location
+     * @param quantity units moved
+     * @return delta
+     */
+    public static Delta stockTransferred(Part part, String from, String to, int quantity) {
+        return new Delta(Kind.STOCK_TRANSFERRED, part.getPartID(), null, LOCATION | LOCATION_QUANTITY,
+                new Object[]{from, quantity}, new Object[]{to, quantity});
+    }
+
+    /**
+     * Record a batch of part updates as one change
+     *
+     * @param oldParts
+     * @param newParts updated parts, in the same order
+     * @return delta, or null if no field of any part changed
+     */
+    public static Delta partsUpdated(List<Part> oldParts, List<Part> newParts) {
+        List<Delta> changes = new ArrayList<>(newParts.size());
+
+        for (int i = 0; i < newParts.size(); i++) {
+            Delta change = partUpdated(oldParts.get(i), newParts.get(i));
+
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+
+        if (changes.isEmpty()) {
+            return null;
+        }
+
+        return new Delta(Kind.PARTS_UPDATED, changes.size(), changes.toArray(new Delta[changes.size()]), 0, null, null);
+    }
+
+    /**
+     * Record a product addition
+     *
+     * @param product
+     * @return delta
+     */
+    public static Delta productAdded(Product product) {
+        return new Delta(Kind.PRODUCT_ADDED, product.getProductID(), product, 0, null, null);
+    }
+
+    /**
+     * Record a product removal
+     *
+     * @param product
+     * @return delta
+     */
+    public static Delta productRemoved(Product product) {
+        return new Delta(Kind.PRODUCT_REMOVED, product.getProductID(), product, 0, null, null);
+    }
+
+    /**
+     * Record the fields that differ between a product and its update
+     *
+     * @param oldProduct
+     * @param newProduct
+     * @return delta, or null if no field changed
+     */
+    public static Delta productUpdated(Product oldProduct, Product newProduct) {
+        return updated(Kind.PRODUCT_UPDATED, newProduct.getProductID(), PRODUCT_FIELDS,
+                field -> productValue(oldProduct, field), field -> productValue(newProduct, field));
+    }
+
+    /**
+     * Get the kind of change
+     *
+     * @return kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the ID of the part or product changed
+     *
+     * @return part or product ID, or the number of parts a batch updates
+     */
+    public int getID() {
+        return id;
+    }
+
+    /**
+     * Get the field bits changed by an update
+     *
+     * @return field bits, 0 for additions and removals
+     */
+    public int getFields() {
+        return fields;
+    }
+
+    /**
+     * Get the part added or removed
+     *
+     * @return part, or null if this is not a part addition or removal
+     */
+    public Part getPart() {
+        return item instanceof Part ? (Part) item : null;
+    }
+
+    /**
+     * Get the product added or removed
+     *
+     * @return product, or null if this is not a product addition or removal
+     */
+    public Product getProduct() {
+        return item instanceof Product ? (Product) item : null;
+    }
+
+    /**
+     * Get the position of an added or removed part
+     *
+     * @return position in the inventory, or -1 if not recorded
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Get the stock of an added or removed part at named locations
+     *
+     * @return quantity keyed by location name, empty if not recorded
+     */
+    public Map<String, Integer> getLocations() {
+        return locations == null ? Collections.<String, Integer>emptyMap() : Collections.unmodifiableMap(locations);
+    }
+
+    /**
+     * Get the location of a stock change
+     *
+     * @return location name, or null if this is not a stock change at a
+     *         location
+     */
+    public String getLocation() {
+        return (String) value(LOCATION, null);
+    }
+
+    /**
+     * Get the location a transfer moved stock from
+     *
+     * @return location name, or null if this is not a transfer
+     */
+    public String getSourceLocation() {
+        return kind == Kind.STOCK_TRANSFERRED ? (String) oldValues[0] : null;
+    }
+
+    /**
+     * Get the quantity a stock change leaves at its location, or the units a
+     * transfer moved
+     *
+     * @return quantity
+     */
+    public int getLocationQuantity() {
+        return (Integer) value(LOCATION_QUANTITY, 0);
+    }
+
+    /**
+     * Get the part updates of a batch
+     *
+     * @return one update per part, or an empty list if this is not a batch
+     */
+    public List<Delta> getChanges() {
+        return item instanceof Delta[] ? Arrays.asList((Delta[]) item) : Collections.<Delta>emptyList();
+    }
+
+    /**
+     * Get the delta undoing this one
+     *
+     * @return inverse delta
+     */
+    public Delta inverse() {
+        switch (kind) {
+            case PART_ADDED:
+                return new Delta(Kind.PART_REMOVED, id, item, 0, null, null, position, locations);
+            case PART_REMOVED:
+                return new Delta(Kind.PART_ADDED, id, item, 0, null, null, position, locations);
+            case PRODUCT_ADDED:
+                return new Delta(Kind.PRODUCT_REMOVED, id, item, 0, null, null);
+            case PRODUCT_REMOVED:
+                return new Delta(Kind.PRODUCT_ADDED, id, item, 0, null, null);
+            case PARTS_UPDATED:
+                Delta[] changes = (Delta[]) item;
+                Delta[] inverses = new Delta[changes.length];
+
+                for (int i = 0; i < changes.length; i++) {
+                    inverses[changes.length - 1 - i] = changes[i].inverse();
+                }
+
+                return new Delta(kind, id, inverses, 0, null, null);
+            default:
+                return new Delta(kind, id, null, fields, newValues, oldValues);
+        }
+    }
+
+    /**
+     * Build the updated copy of a part. Fields outside the delta are taken
+     * from the current part.
+     *
+     * @param current
+     * @return updated part
+     */
+    Part applyTo(Part current) {
+        boolean inHouse = (Boolean) value(IN_HOUSE, current instanceof InhousePart);
+        Part part;
+
+        if (inHouse) {
+            InhousePart inhousePart = new InhousePart();
+            inhousePart.setMachineID((Integer) value(MACHINE_ID, partValue(current, MACHINE_ID)));
+            part = inhousePart;
+        } else {
+            OutsourcedPart outsourcedPart = new OutsourcedPart();
+            outsourcedPart.setCompanyName((String) value(COMPANY_NAME, partValue(current, COMPANY_NAME)));
+            part = outsourcedPart;
+        }
+
+        part.setPartID(current.getPartID());
+        part.setName((String) value(NAME, current.getName()));
+        part.setPrice((Double) value(PRICE, current.getPrice()));
+        part.setInStock((Integer) value(IN_STOCK, current.getInStock()));
+        part.setMin((Integer) value(MIN, current.getMin()));
+        part.setMax((Integer) value(MAX, current.getMax()));
+        return part;
+    }
+
+    /**
+     * Build the updated copy of a product. Associated parts are copied from
+     * the current product unless the delta changes them.
+     *
+     * @param current
+     * @return updated product
+     */
+    Product applyTo(Product current) {
+        Product product = new Product();
+        product.setProductID(current.getProductID());
+        product.setName((String) value(NAME, current.getName()));
+        product.setPrice((Double) value(PRICE, current.getPrice()));
+        product.setInStock((Integer) value(IN_STOCK, current.getInStock()));
+        product.setMin((Integer) value(MIN, current.getMin()));
+        product.setMax((Integer) value(MAX, current.getMax()));
+
+        if ((fields & ASSOCIATED_PARTS) == 0) {
+            product.getAssociatedParts().addAll(current.getAssociatedParts());
+        } else {
+            // resolve against the current parts first to avoid inventory scans
+            Map<Integer, Part> known = new HashMap<>();
+
+            for (Part part : current.getAssociatedParts()) {
+                known.put(part.getPartID(), part);
+            }
+
+            for (int partID : (int[]) value(ASSOCIATED_PARTS, null)) {
+                Part part = known.containsKey(partID) ? known.get(partID) : Inventory.lookupPart(partID);
+
+                if (part != null) {
+                    product.addAssociatedPart(part);
+                }
+            }
+        }
+
+        return product;
+    }
+
+    /**
+     * Write the delta to a stream
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(kind.ordinal());
+        out.writeInt(id);
+
+        switch (kind) {
+            case PART_ADDED:
+            case PART_REMOVED:
+                writePart(out, (Part) item);
+                out.writeInt(position);
+                out.writeInt(locations == null ? -1 : locations.size());
+
+                if (locations != null) {
+                    for (Map.Entry<String, Integer> entry : locations.entrySet()) {
+                        out.writeUTF(entry.getKey());
+                        out.writeInt(entry.getValue());
+                    }
+                }
+                break;
+            case PRODUCT_ADDED:
+            case PRODUCT_REMOVED:
+                writeProduct(out, (Product) item);
+                break;
+            case PARTS_UPDATED:
+                for (Delta change : (Delta[]) item) {
+                    change.write(out);
+                }
+                break;
+            default:
+                out.writeInt(fields);
+
+                for (int i = 0; i < oldValues.length; i++) {
+                    writeValue(out, oldValues[i]);
+                    writeValue(out, newValues[i]);
+                }
+        }
+    }
+
+    /**
+     * Read a delta written by write(). Associated parts of products are
+     * resolved against the Inventory.
+     *
+     * @param in
+     * @return delta
+     * @throws IOException
+     */
+    public static Delta read(DataInput in) throws IOException {
+        Kind kind = Kind.values()[in.readByte()];
+        int id = in.readInt();
+
+        switch (kind) {
+            case PART_ADDED:
+            case PART_REMOVED:
+                Part part = readPart(in);
+                int position = in.readInt();
+                int locationCount = in.readInt();
+                Map<String, Integer> locations = locationCount < 0 ? null : new LinkedHashMap<>();
+
+                for (int i = 0; i < locationCount; i++) {
+                    locations.put(in.readUTF(), in.readInt());
+                }
+
+                return new Delta(kind, id, part, 0, null, null, position, locations);
+            case PRODUCT_ADDED:
+            case PRODUCT_REMOVED:
+                return new Delta(kind, id, readProduct(in), 0, null, null);
+            case PARTS_UPDATED:
+                Delta[] changes = new Delta[id];
+
+                for (int i = 0; i < changes.length; i++) {
+                    changes[i] = read(in);
+                }
+
+                return new Delta(kind, id, changes, 0, null, null);
+            default:
+                int fields = in.readInt();
+                Object[] oldValues = new Object[Integer.bitCount(fields)];
+                Object[] newValues = new Object[oldValues.length];
+
+                for (int i = 0; i < oldValues.length; i++) {
+                    oldValues[i] = readValue(in);
+                    newValues[i] = readValue(in);
+                }
+
+                return new Delta(kind, id, null, fields, oldValues, newValues);
+        }
+    }
+
+    /**
+     * Get the new value of a field, or a fallback if the delta leaves it
+     * unchanged.
+     *
+     * @param field
+     * @param fallback
+     * @return field value
+     */
+    private Object value(int field, Object fallback) {
+        if ((fields & field) == 0) {
+            return fallback;
+        }
+
+        return newValues[Integer.bitCount(fields & (field - 1))];
+    }
+
+    /**
+     * Diff two items field by field.
+     *
+     * @param kind
+     * @param id
+     * @param candidates field bits to compare
+     * @param oldValue
+     * @param newValue
+     * @return delta, or null if no field changed
+     */
+    private static Delta updated(Kind kind, int id, int candidates,
+            IntFunction<Object> oldValue, IntFunction<Object> newValue) {
+        int fields = 0;
+        Object[] oldValues = new Object[Integer.bitCount(candidates)];
+        Object[] newValues = new Object[oldValues.length];
+        int count = 0;
+
+        for (int field = 1; field <= candidates; field <<= 1) {
+            if ((candidates & field) == 0) {
+                continue;
+            }
+
+            Object before = oldValue.apply(field);
+            Object after = newValue.apply(field);
+
+            if (!Objects.deepEquals(before, after)) {
+                fields |= field;
+                oldValues[count] = before;
+                newValues[count] = after;
+                count++;
+            }
+        }
+
+        if (fields == 0) {
+            return null;
+        }
+
+        return new Delta(kind, id, null, fields, Arrays.copyOf(oldValues, count), Arrays.copyOf(newValues, count));
+    }
+
+    /**
+     * Get a field of a part
+     *
+     * @param part
+     * @param field
+     * @return boxed field value; null for a field of the other part type
+     */
+    private static Object partValue(Part part, int field) {
+        switch (field) {
+            case NAME:
+                return part.getName();
+            case PRICE:
+                return part.getPrice();
+            case IN_STOCK:
+                return part.getInStock();
+            case MIN:
+                return part.getMin();
+            case MAX:
+                return part.getMax();
+            case IN_HOUSE:
+                return part instanceof InhousePart;
+            case MACHINE_ID:
+                return part instanceof InhousePart ? ((InhousePart) part).getMachineID() : null;
+            case COMPANY_NAME:
+                return part instanceof OutsourcedPart ? ((OutsourcedPart) part).getCompanyName() : null;
+            default:
+                throw new IllegalArgumentException("Not a part field: " + field);
+        }
+    }
+
+    /**
+     * Get a field of a product
+     *
+     * @param product
+     * @param field
+     * @return boxed field value; associated parts as an array of part IDs
+     */
+    private static Object productValue(Product product, int field) {
+        switch (field) {
+            case NAME:
+                return product.getName();
+            case PRICE:
+                return product.getPrice();
+            case IN_STOCK:
+                return product.getInStock();
+            case MIN:
+                return product.getMin();
+            case MAX:
+                return product.getMax();
+            case ASSOCIATED_PARTS:
+                return partIDs(product.getAssociatedParts());
+            default:
+                throw new IllegalArgumentException("Not a product field: " + field);
+        }
+    }
+
+    /**
+     * Get the IDs of a list of parts
+     *
+     * @param parts
+     * @return part IDs
+     */
+    private static int[] partIDs(List<Part> parts) {
+        int[] partIDs = new int[parts.size()];
+
+        for (int i = 0; i < partIDs.length; i++) {
+            partIDs[i] = parts.get(i).getPartID();
+        }
+
+        return partIDs;
+    }
+
+    /**
+     * Write a tagged field value
+     *
+     * @param out
+     * @param value
+     * @throws IOException
+     */
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            out.writeUTF((String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else {
+            int[] values = (int[]) value;
+            out.writeByte(INT_ARRAY);
+            out.writeInt(values.length);
+
+            for (int v : values) {
+                out.writeInt(v);
+            }
+        }
+    }
+
+    /**
+     * Read a tagged field value
+     *
+     * @param in
+     * @return field value
+     * @throws IOException
+     */
+    private static Object readValue(DataInput in) throws IOException {
+        byte tag = in.readByte();
+
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return in.readUTF();
+            case INTEGER:
+                return in.readInt();
+            case DOUBLE:
+                return in.readDouble();
+            case BOOLEAN:
+                return in.readBoolean();
+            case INT_ARRAY:
+                int[] values = new int[in.readInt()];
+
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = in.readInt();
+                }
+
+                return values;
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Write every field of a part
+     *
+     * @param out
+     * @param part
+     * @throws IOException
+     */
+    private static void writePart(DataOutput out, Part part) throws IOException {
+        for (int field = 1; field <= COMPANY_NAME; field <<= 1) {
+            writeValue(out, partValue(part, field));
+        }
+
+        out.writeInt(part.getPartID());
+    }
+
+    /**
+     * Read a part written by writePart()
+     *
+     * @param in
+     * @return part
+     * @throws IOException
+     */
+    private static Part readPart(DataInput in) throws IOException {
+        Object[] values = new Object[Integer.bitCount(PART_FIELDS)];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readValue(in);
+        }
+
+        Delta fields = new Delta(Kind.PART_UPDATED, 0, null, PART_FIELDS, values, values);
+        Part part = fields.applyTo(new InhousePart());
+        part.setPartID(in.readInt());
+        return part;
+    }
+
+    /**
+     * Write every field of a product, with associated parts as part IDs
+     *
+     * @param out
+     * @param product
+     * @throws IOException
+     */
+    private static void writeProduct(DataOutput out, Product product) throws IOException {
+        for (int field = 1; field <= ASSOCIATED_PARTS; field <<= 1) {
+            if ((PRODUCT_FIELDS & field) != 0) {
+                writeValue(out, productValue(product, field));
+            }
+        }
+
+        out.writeInt(product.getProductID());
+    }
+
+    /**
+     * Read a product written by writeProduct()
+     *
+     * @param in
+     * @return product
+     * @throws IOException
+     */
+    private static Product readProduct(DataInput in) throws IOException {
+        Object[] values = new Object[Integer.bitCount(PRODUCT_FIELDS)];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readValue(in);
+        }
+
+        Delta fields = new Delta(Kind.PRODUCT_UPDATED, 0, null, PRODUCT_FIELDS, values, values);
+        Product product = fields.applyTo(new Product());
+        product.setProductID(in.readInt());
+        return product;
+    }
+}
@@ -0,0 +1,188 @@
+package InventoryApp.models;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * DeltaStack is a stack of deltas holding at most a fixed number in memory.
+ * <p>
+ * When the limit is exceeded, the oldest half of the in-memory deltas is
+ * written to a spill file as one chunk. Chunks are read back, newest first,
+ * once the in-memory deltas run out, and the file is truncated behind them.
+ *
+ * @see History, Delta
+ */
+final class DeltaStack implements Closeable {
+
+    // Maximum number of deltas held in memory
+    private final int memoryLimit;
+
+    // In-memory deltas, newest last
+    private final Deque<Delta> memory = new ArrayDeque<>();
+
+    // File offset of each spilled chunk, newest last
+    private final List<Long> chunkOffsets = new ArrayList<>();
+
+    // Number of deltas in each spilled chunk, newest last
+    private final List<Integer> chunkSizes = new ArrayList<>();
+
+    // Number of spilled deltas
+    private int spilled;
+
+    // Spill file, created on first spill
+    private Path spillPath;
+
+    // Open spill file, or null before the first spill
+    private RandomAccessFile spillFile;
+
+    /**
+     * Constructor
+     *
+     * @param memoryLimit maximum number of deltas held in memory
+     */
+    DeltaStack(int memoryLimit) {
+        this.memoryLimit = Math.max(2, memoryLimit);
+    }
+
+    /**
+     * Push a delta, spilling the oldest deltas if the memory limit is exceeded
+     *
+     * @param delta
+     * @throws IOException if the spill file cannot be written
+     */
+    void push(Delta delta) throws IOException {
+        memory.addLast(delta);
+
+        if (memory.size() > memoryLimit) {
+            spill(memory.size() / 2);
+        }
+    }
+
+    /**
+     * Pop the newest delta, reading back a spilled chunk if needed
+     *
+     * @return newest delta, or null if the stack is empty
+     * @throws IOException if the spill file cannot be read
+     */
+    Delta pop() throws IOException {
+        if (memory.isEmpty() && !chunkOffsets.isEmpty()) {
+            unspill();
+        }
+
+        return memory.pollLast();
+    }
+
+    /**
+     * Get the number of deltas, in memory and spilled
+     *
+     * @return number of deltas
+     */
+    int size() {
+        return memory.size() + spilled;
+    }
+
+    /**
+     * Get the number of deltas held in memory
+     *
+     * @return number of in-memory deltas
+     */
+    int getMemorySize() {
+        return memory.size();
+    }
+
+    /**
+     * Drop every delta and truncate the spill file
+     *
+     * @throws IOException
+     */
+    void clear() throws IOException {
+        memory.clear();
+        chunkOffsets.clear();
+        chunkSizes.clear();
+        spilled = 0;
+
+        if (spillFile != null) {
+            spillFile.setLength(0);
+        }
+    }
+
+    /**
+     * Close and delete the spill file
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (spillFile != null) {
+            spillFile.close();
+            Files.deleteIfExists(spillPath);
+            spillFile = null;
+        }
+    }
+
+    /**
+     * Write the oldest in-memory deltas to the end of the spill file as one
+     * chunk.
+     *
+     * @param count number of deltas to spill
+     * @throws IOException
+     */
+    private void spill(int count) throws IOException {
+        if (spillFile == null) {
+            spillPath = Files.createTempFile("inventory-history", ".spill");
+            spillPath.toFile().deleteOnExit();
+            spillFile = new RandomAccessFile(spillPath.toFile(), "rw");
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (int i = 0; i < count; i++) {
+                memory.pollFirst().write(out);
+            }
+        }
+
+        long offset = spillFile.length();
+        spillFile.seek(offset);
+        spillFile.write(bytes.toByteArray());
+
+        chunkOffsets.add(offset);
+        chunkSizes.add(count);
+        spilled += count;
+    }
+
+    /**
+     * Read the newest spilled chunk back into memory and truncate it from the
+     * spill file.
+     *
+     * @throws IOException
+     */
+    private void unspill() throws IOException {
+        long offset = chunkOffsets.remove(chunkOffsets.size() - 1);
+        int count = chunkSizes.remove(chunkSizes.size() - 1);
+
+        byte[] bytes = new byte[(int) (spillFile.length() - offset)];
+        spillFile.seek(offset);
+        spillFile.readFully(bytes);
+        spillFile.setLength(offset);
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            for (int i = 0; i < count; i++) {
+                memory.addLast(Delta.read(in));
+            }
+        }
+
+        spilled -= count;
+    }
+}
@@ -0,0 +1,243 @@
+package InventoryApp.models;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * History records every change to the Inventory as a Delta and provides undo
+ * and redo.
+ * <p>
+ * Undo applies the inverse of the newest delta through Inventory.apply(), so
+ * its cost is proportional to the fields changed rather than the size of the
+ * catalog. A new change clears the redo stack; clearing the Inventory or
+ * loading a catalog into it clears both stacks. Each stack keeps at most inventory.history.memoryEntries deltas
+ * in memory (1000 by default) and spills older ones to a temporary file.
+ * <p>
+ * A bulk edit of several parts is recorded as one delta and undone in one
+ * step. Undoing a stock change made at a location restores that location's
+ * quantity, and undoing a part removal puts the part back in its position
+ * with its stock at each location.
+ *
+ * @see Delta, Inventory
+ */
+public class History {
+
+    // Maximum number of deltas held in memory by each stack
+    private static final int MEMORY_ENTRIES = Integer.getInteger("inventory.history.memoryEntries", 1000);
+
+    // Changes that may be undone
+    private final static DeltaStack undoStack = new DeltaStack(MEMORY_ENTRIES);
+
+    // Undone changes that may be redone
+    private final static DeltaStack redoStack = new DeltaStack(MEMORY_ENTRIES);
+
+    // Listener recording changes, once enabled
+    private static Recorder recorder;
+
+    // Set while History applies a delta, so the change is not recorded again
+    private static boolean replaying;
+
+    /**
+     * Constructor
+     */
+    private History() {
+    }
+
+    /**
+     * Start recording changes. Changes made before the first call are not
+     * recorded.
+     */
+    public static void enable() {
+        synchronized (Inventory.class) {
+            enableLocked();
+        }
+    }
+
+    private static synchronized void enableLocked() {
+        if (recorder == null) {
+            recorder = new Recorder();
+            Inventory.addListener(recorder);
+        }
+    }
+
+    /**
+     * Undo the newest change
+     *
+     * @return true if a change was undone, false if there was none
+     * @throws IllegalStateException on a read-only replica
+     */
+    public static boolean undo() {
+        // the Inventory lock is always taken first, as Inventory calls in here
+        synchronized (Inventory.class) {
+            Inventory.requireWritable();
+            return replay(undoStack, redoStack);
+        }
+    }
+
+    /**
+     * Redo the newest undone change
+     *
+     * @return true if a change was redone, false if there was none
+     * @throws IllegalStateException on a read-only replica
+     */
+    public static boolean redo() {
+        synchronized (Inventory.class) {
+            Inventory.requireWritable();
+            return replay(redoStack, undoStack);
+        }
+    }
+
+    /**
+     * Get the number of changes that may be undone
+     *
+     * @return number of changes
+     */
+    public static synchronized int getUndoCount() {
+        return undoStack.size();
+    }
+
+    /**
+     * Get the number of changes that may be redone
+     *
+     * @return number of changes
+     */
+    public static synchronized int getRedoCount() {
+        return redoStack.size();
+    }
+
+    /**
+     * Apply the inverse of the newest delta on one stack and push that
+     * inverse on the other, so undo and redo mirror each other.
+     *
+     * @param from
+     * @param to
+     * @return true if a delta was applied
+     * @throws IllegalStateException or IllegalArgumentException if the delta
+     * no longer applies, in which case it stays on its stack
+     */
+    private static synchronized boolean replay(DeltaStack from, DeltaStack to) {
+        try {
+            Delta delta = from.pop();
+
+            if (delta == null) {
+                return false;
+            }
+
+            Delta inverse = delta.inverse();
+            replaying = true;
+
+            try {
+                Inventory.apply(inverse);
+            } catch (RuntimeException e) {
+                // keep the change so it may be tried again
+                from.push(delta);
+                throw e;
+            } finally {
+                replaying = false;
+            }
+
+            to.push(inverse);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Record a change made outside History.
+     *
+     * @param delta change, or null if nothing changed
+     */
+    private static synchronized void record(Delta delta) {
+        if (delta == null || replaying) {
+            return;
+        }
+
+        try {
+            undoStack.push(delta);
+            redoStack.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Drop every recorded change.
+     */
+    private static synchronized void clear() {
+        try {
+            undoStack.clear();
+            redoStack.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Inventory listener recording each change as a delta.
+     */
+    private static final class Recorder implements InventoryListener {
+
+        @Override
+        public void partAdded(Part part) {
+            record(Delta.partAdded(part));
+        }
+
+        @Override
+        public void partRemoved(Part part, int position) {
+            // the part's location stock is still in place while listeners run
+            record(Delta.partRemoved(part, position, StockLocations.getAssignedQuantities(part.getPartID())));
+        }
+
+        @Override
+        public void partUpdated(Part oldPart, Part newPart) {
+            // in-place changes are recorded by stockAdjusted()
+            if (oldPart != newPart) {
+                record(Delta.partUpdated(oldPart, newPart));
+            }
+        }
+
+        @Override
+        public void partsUpdated(List<Part> oldParts, List<Part> newParts) {
+            // a bulk edit is undone in one step
+            record(Delta.partsUpdated(oldParts, newParts));
+        }
+
+        @Override
+        public void stockAdjusted(Part part, String location, int oldQuantity, int oldInStock) {
+            record(Delta.stockAdjusted(part, location, oldQuantity, oldInStock));
+        }
+
+        @Override
+        public void stockTransferred(Part part, String from, String to, int quantity) {
+            record(Delta.stockTransferred(part, from, to, quantity));
+        }
+
+        @Override
+        public void productAdded(Product product) {
+            record(Delta.productAdded(product));
+        }
+
+        @Override
+        public void productRemoved(Product product) {
+            record(Delta.productRemoved(product));
+        }
+
+        @Override
+        public void productUpdated(Product oldProduct, Product newProduct) {
+            record(Delta.productUpdated(oldProduct, newProduct));
+        }
+
+        @Override
+        public void inventoryCleared() {
+            clear();
+        }
+
+        @Override
+        public void inventoryLoaded(List<Part> parts, List<Product> products) {
+            // a loaded catalog is a new starting point, not an undoable change
+            clear();
+        }
+    }
+}
@@ -1,21 +1,69 @@
 package InventoryApp.models;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import InventoryApp.metrics.Metrics;
+import InventoryApp.metrics.OperationEvent;
+import InventoryApp.metrics.Timer;
 
 /**
  * Inventory is a master list of all parts and products.
+ * <p>
+ * All access is synchronized on the class, so the Inventory may be read and
+ * changed from API threads as well as the JavaFX application thread.
+ * <p>
+ * The Inventory has no JavaFX dependency. Views observe it through an
+ * InventoryListener; see ObservableInventory for the JavaFX adapter.
  * 
- * @see Part, Product
+ * @see Part, Product, InventoryListener, Delta
  * @author Dale Richards <dric123@wgu.edu>
  */
 public class Inventory {
     
-    // Observable list of parts in the inventory
-    private final static ObservableList<Part> allParts = FXCollections.observableArrayList();
+    // List of parts in the inventory
+    private final static SnapshotList<Part> allParts = new SnapshotList<>();
+    
+    // List of products in the inventory
+    private final static SnapshotList<Product> products = new SnapshotList<>();
+    
+    // Next part ID to assign, above every part ID in use since the last reset
+    private static int nextPartID;
+    
+    // Next product ID to assign, above every product ID in use since the last reset
+    private static int nextProductID;
+    
+    // Set on a read-only replica, where local changes are refused
+    private static boolean readOnly;
+    
+    // Listeners notified of every change
+    private final static List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+    
+    // Operation timers
+    private final static Timer ADD_PART = Metrics.timer("inventory.addPart");
+    private final static Timer ADD_PRODUCT = Metrics.timer("inventory.addProduct");
+    private final static Timer LOOKUP_PART = Metrics.timer("inventory.lookupPart");
+    private final static Timer LOOKUP_PRODUCT = Metrics.timer("inventory.lookupProduct");
+    private final static Timer REMOVE_PART = Metrics.timer("inventory.removePart");
+    private final static Timer REMOVE_PRODUCT = Metrics.timer("inventory.removeProduct");
+    private final static Timer UPDATE_PART = Metrics.timer("inventory.updatePart");
+    private final static Timer UPDATE_PARTS = Metrics.timer("inventory.updateParts");
+    private final static Timer UPDATE_PRODUCT = Metrics.timer("inventory.updateProduct");
+    private final static Timer LOAD = Metrics.timer("inventory.load");
+    
+    // Secondary index of parts ordered by price
+    private final static SortedIndex<Part> partsByPrice = new SortedIndex<>(Part::getPrice);
+    
+    // Secondary index of parts ordered by current inventory
+    private final static SortedIndex<Part> partsByStock = new SortedIndex<>(Part::getInStock);
     
-    // Observable list of products in the inventory
-    private final static ObservableList<Product> products = FXCollections.observableArrayList();
+    // Secondary index of products ordered by price
+    private final static SortedIndex<Product> productsByPrice = new SortedIndex<>(Product::getPrice);
+    
+    // Secondary index of products ordered by current inventory
+    private final static SortedIndex<Product> productsByStock = new SortedIndex<>(Product::getInStock);
 
     /**
      * Constructor
@@ -28,16 +76,174 @@ public class Inventory {
      * 
      * @param newPart 
      */
-    public static void addPart(Part newPart){
-        allParts.add(newPart);
+    public static synchronized void addPart(Part newPart){
+        addPart(newPart, allParts.size());
+    }
+    
+    /**
+     * Add a part at a position in the inventory, such as when a removal is
+     * undone
+     * 
+     * @param newPart
+     * @param position position in the inventory, clamped to its size 
+     */
+    private static void addPart(Part newPart, int position){
+        OperationEvent operation = ADD_PART.start();
+        
+        try {
+            allParts.add(Math.min(position, allParts.size()), newPart);
+            indexPart(newPart);
+            nextPartID = Math.max(nextPartID, newPart.getPartID() + 1);
+        
+            for (InventoryListener listener : listeners) {
+                listener.partAdded(newPart);
+            }
+        } finally {
+            operation.stop();
+        }
     }
     
     /**
      * Add a new product to the inventory
      * @param newProduct 
      */
-    public static void addProduct(Product newProduct){
-        products.add(newProduct);
+    public static synchronized void addProduct(Product newProduct){
+        OperationEvent operation = ADD_PRODUCT.start();
+        
+        try {
+            products.add(newProduct);
+            indexProduct(newProduct);
+            nextProductID = Math.max(nextProductID, newProduct.getProductID() + 1);
+        
+            for (InventoryListener listener : listeners) {
+                listener.productAdded(newProduct);
+            }
+        } finally {
+            operation.stop();
+        }
+    }
+    
+    /**
+     * Remove every part and product from the inventory
+     */
+    public static synchronized void clear() {
+        reset();
+        
+        for (InventoryListener listener : listeners) {
+            listener.inventoryCleared();
+        }
+    }
+    
+    /**
+     * Replace every part and product in one batch, such as when a saved
+     * catalog is loaded. Listeners are notified once, through
+     * inventoryLoaded(), instead of once per item.
+     * 
+     * @param newParts
+     * @param newProducts products using parts from newParts
+     */
+    public static synchronized void load(List<? extends Part> newParts, List<? extends Product> newProducts) {
+        OperationEvent operation = LOAD.start();
+        
+        try {
+            reset();
+            allParts.addAll(newParts);
+            products.addAll(newProducts);
+            partsByPrice.addAll(newParts);
+            partsByStock.addAll(newParts);
+            productsByPrice.addAll(newProducts);
+            productsByStock.addAll(newProducts);
+            
+            for (Part part : newParts) {
+                nextPartID = Math.max(nextPartID, part.getPartID() + 1);
+                
+                if (part instanceof OutsourcedPart) {
+                    SupplierDictionary.addPart((OutsourcedPart) part);
+                } else if (part instanceof InhousePart) {
+                    MachineIndex.addPart((InhousePart) part);
+                }
+            }
+            
+            for (Product product : newProducts) {
+                nextProductID = Math.max(nextProductID, product.getProductID() + 1);
+            }
+            
+            List<Part> loadedParts = allParts.snapshot();
+            List<Product> loadedProducts = products.snapshot();
+            
+            for (InventoryListener listener : listeners) {
+                listener.inventoryLoaded(loadedParts, loadedProducts);
+            }
+        } finally {
+            operation.stop();
+        }
+    }
+    
+    /**
+     * Empty the master lists and every index, without notifying listeners
+     */
+    private static void reset() {
+        allParts.clear();
+        products.clear();
+        partsByPrice.clear();
+        partsByStock.clear();
+        productsByPrice.clear();
+        productsByStock.clear();
+        nextPartID = 0;
+        nextProductID = 0;
+        SupplierDictionary.clearParts();
+        MachineIndex.clear();
+        StockLocations.clear();
+    }
+    
+    /**
+     * Register a listener to be notified of every change
+     * 
+     * @param listener 
+     */
+    public static synchronized void addListener(InventoryListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Unregister a listener
+     * 
+     * @param listener 
+     */
+    public static synchronized void removeListener(InventoryListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Mark the inventory read-only, or writable again. Set by Replication
+     * while this process is a replica, whose changes come from the primary
+     * only; local entry points such as the screens, undo and stock moves
+     * check it through requireWritable().
+     * 
+     * @param readOnly 
+     */
+    public static synchronized void setReadOnly(boolean readOnly) {
+        Inventory.readOnly = readOnly;
+    }
+    
+    /**
+     * Determine whether local changes are refused
+     * 
+     * @return true on a read-only replica
+     */
+    public static synchronized boolean isReadOnly() {
+        return readOnly;
+    }
+    
+    /**
+     * Refuse a local change while the inventory is read-only
+     * 
+     * @throws IllegalStateException on a read-only replica
+     */
+    public static synchronized void requireWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("This inventory is a read-only replica.");
+        }
     }
     
     /**
@@ -52,17 +258,39 @@ public class Inventory {
      * @param product
      * @return true if the product can be deleted, else false
      */
-    public static boolean canDeleteProduct(Product product) {
+    public static synchronized boolean canDeleteProduct(Product product) {
         return product.getAssociatedPartsCount() == 0;
     }
     
     /**
-     * Get a list of all current parts
+     * Take a consistent snapshot of the parts and products in constant time.
+     * The snapshot may be iterated from any thread while the Inventory
+     * changes.
+     * 
+     * @return immutable snapshot
+     */
+    public static synchronized InventorySnapshot snapshot() {
+        return new InventorySnapshot(allParts.snapshot(), products.snapshot());
+    }
+    
+    /**
+     * Get a read-only view of all current parts. Iterate it only while holding
+     * the Inventory lock; listParts() returns a snapshot for other callers.
      * 
      * @return list of parts in inventory
      */
-    public static ObservableList<Part> getParts() {
-        return allParts;
+    public static synchronized List<Part> getParts() {
+        return Collections.unmodifiableList(allParts);
+    }
+    
+    /**
+     * Get an immutable snapshot of the current parts in constant time, safe
+     * to iterate from any thread
+     * 
+     * @return snapshot of parts in inventory
+     */
+    public static synchronized List<Part> listParts() {
+        return allParts.snapshot();
     }
     
     /**
@@ -70,7 +298,7 @@ public class Inventory {
      * 
      * @return number of parts.
      */
-    public static int getPartsCount() {
+    public static synchronized int getPartsCount() {
         return allParts.size();
     }
     
@@ -79,17 +307,66 @@ public class Inventory {
      * 
      * @return number of products.
      */
-    public static int getProductsCount() {
+    public static synchronized int getProductsCount() {
         return products.size();
     }
     
     /**
-     * Get a list of current products
+     * Get the ID the next new part will be given, without reserving it
+     * 
+     * @return part ID
+     */
+    public static synchronized int getNextPartID() {
+        return nextPartID;
+    }
+    
+    /**
+     * Reserve an ID for a new part. IDs are never reused, even after the part
+     * with the highest ID is removed.
+     * 
+     * @return part ID
+     */
+    public static synchronized int allocatePartID() {
+        return nextPartID++;
+    }
+    
+    /**
+     * Get the ID the next new product will be given, without reserving it
+     * 
+     * @return product ID
+     */
+    public static synchronized int getNextProductID() {
+        return nextProductID;
+    }
+    
+    /**
+     * Reserve an ID for a new product. IDs are never reused, even after the
+     * product with the highest ID is removed.
+     * 
+     * @return product ID
+     */
+    public static synchronized int allocateProductID() {
+        return nextProductID++;
+    }
+    
+    /**
+     * Get a read-only view of current products. Iterate it only while holding
+     * the Inventory lock; listProducts() returns a snapshot for other callers.
      * 
      * @return list of products in inventory
      */
-    public static ObservableList<Product> getProducts() {
-        return products;
+    public static synchronized List<Product> getProducts() {
+        return Collections.unmodifiableList(products);
+    }
+    
+    /**
+     * Get an immutable snapshot of the current products in constant time,
+     * safe to iterate from any thread
+     * 
+     * @return snapshot of products in inventory
+     */
+    public static synchronized List<Product> listProducts() {
+        return products.snapshot();
     }
     
     /**
@@ -98,14 +375,20 @@ public class Inventory {
      * @param partID
      * @return Part if applicable, else null
      */
-    public static Part lookupPart(int partID) {
-        for (Part p : allParts) {
-            if (p.getPartID() == partID) {
-                return p;
+    public static synchronized Part lookupPart(int partID) {
+        OperationEvent operation = LOOKUP_PART.start();
+        
+        try {
+            for (Part p : allParts) {
+                if (p.getPartID() == partID) {
+                    return p;
+                }
             }
-        }
 
-        return null;
+            return null;
+        } finally {
+            operation.stop();
+        }
     }
     
     /**
@@ -114,14 +397,20 @@ public class Inventory {
      * @param productID
      * @return Product if applicable, else null
      */
-    public static Product lookupProduct(int productID) {
-        for (Product p : products) {
-            if (p.getProductID() == productID) {
-                return p;
+    public static synchronized Product lookupProduct(int productID) {
+        OperationEvent operation = LOOKUP_PRODUCT.start();
+        
+        try {
+            for (Product p : products) {
+                if (p.getProductID() == productID) {
+                    return p;
+                }
             }
-        }
         
-        return null;
+            return null;
+        } finally {
+            operation.stop();
+        }
     }
     
     /**
@@ -133,15 +422,31 @@ public class Inventory {
      * @param partID
      * @return true if the product was removed successfully, else false
      */
-    public static boolean removePart(int partID) {
-        for (Part p : allParts) {
-            if (p.getPartID() == partID) {
-                allParts.remove(p);
-                return true;
+    public static synchronized boolean removePart(int partID) {
+        OperationEvent operation = REMOVE_PART.start();
+        
+        try {
+            for (int i = 0; i < allParts.size(); i++) {
+                Part p = allParts.get(i);
+                
+                if (p.getPartID() == partID) {
+                    allParts.remove(i);
+                    unindexPart(p);
+                
+                    for (InventoryListener listener : listeners) {
+                        listener.partRemoved(p, i);
+                    }
+                    
+                    // cleared after the listeners, so History can record it
+                    StockLocations.removePart(partID);
+                    return true;
+                }
             }
-        }
         
-        return false;
+            return false;
+        } finally {
+            operation.stop();
+        }
     }
 
     /**
@@ -150,32 +455,439 @@ public class Inventory {
      * @param productID
      * @return true if the product was removed successfully, else false
      */
-    public static boolean removeProduct(int productID) {
-        for (Product p : products) {
-            if (p.getProductID() == productID) {
-                products.remove(p);
-                return true;
+    public static synchronized boolean removeProduct(int productID) {
+        OperationEvent operation = REMOVE_PRODUCT.start();
+        
+        try {
+            for (Product p : products) {
+                if (p.getProductID() == productID) {
+                    products.remove(p);
+                    unindexProduct(p);
+                
+                    for (InventoryListener listener : listeners) {
+                        listener.productRemoved(p);
+                    }
+                
+                    return true;
+                }
             }
-        }
         
-        return false;
+            return false;
+        } finally {
+            operation.stop();
+        }
     }
     
     /**
-     * Update a part in the inventory
+     * Update a part in the inventory, replacing the part with the same ID
      * 
      * @param updatedPart 
+     * @throws IllegalStateException if no part has its ID
+     * @throws IllegalArgumentException if its current inventory is less than
+     *         the stock held at named locations
      */
-    public static void updatePart(Part updatedPart) {
-        allParts.set(updatedPart.getPartID(), updatedPart);
+    public static synchronized void updatePart(Part updatedPart) {
+        OperationEvent operation = UPDATE_PART.start();
+        
+        try {
+            int index = requirePartIndex(updatedPart.getPartID());
+            StockLocations.checkInStock(updatedPart);
+            Part oldPart = allParts.set(index, updatedPart);
+            unindexPart(oldPart);
+            indexPart(updatedPart);
+        
+            for (InventoryListener listener : listeners) {
+                listener.partUpdated(oldPart, updatedPart);
+            }
+        } finally {
+            operation.stop();
+        }
+    }
+    
+    /**
+     * Update several parts in one batch. Every part is checked before any is
+     * replaced, and listeners are notified once, through partsUpdated().
+     * 
+     * @param updatedParts parts with distinct IDs
+     * @throws IllegalStateException if a part is no longer in the inventory
+     * @throws IllegalArgumentException if a part's current inventory is less
+     *         than the stock it holds at named locations
+     */
+    public static synchronized void updateParts(List<? extends Part> updatedParts) {
+        OperationEvent operation = UPDATE_PARTS.start();
+        
+        try {
+            int[] indexes = new int[updatedParts.size()];
+            
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = requirePartIndex(updatedParts.get(i).getPartID());
+                StockLocations.checkInStock(updatedParts.get(i));
+            }
+            
+            List<Part> oldParts = new ArrayList<>(indexes.length);
+            List<Part> newParts = new ArrayList<>(updatedParts);
+            
+            for (int i = 0; i < indexes.length; i++) {
+                Part oldPart = allParts.set(indexes[i], newParts.get(i));
+                unindexPart(oldPart);
+                indexPart(newParts.get(i));
+                oldParts.add(oldPart);
+            }
+            
+            List<Part> oldView = Collections.unmodifiableList(oldParts);
+            List<Part> newView = Collections.unmodifiableList(newParts);
+        
+            for (InventoryListener listener : listeners) {
+                listener.partsUpdated(oldView, newView);
+            }
+        } finally {
+            operation.stop();
+        }
     }
     
     /**
-     * Update a product in the inventory
+     * Update a product in the inventory, replacing the product with the same
+     * ID
      * 
      * @param updatedProduct 
+     * @throws IllegalStateException if no product has its ID
+     */
+    public static synchronized void updateProduct(Product updatedProduct) {
+        OperationEvent operation = UPDATE_PRODUCT.start();
+        
+        try {
+            Product oldProduct = products.set(requireProductIndex(updatedProduct.getProductID()), updatedProduct);
+            unindexProduct(oldProduct);
+            indexProduct(updatedProduct);
+        
+            for (InventoryListener listener : listeners) {
+                listener.productUpdated(oldProduct, updatedProduct);
+            }
+        } finally {
+            operation.stop();
+        }
+    }
+    
+    /**
+     * Change the current inventory of a part in place, keeping the secondary
+     * indexes in step. Called by StockLocations when stock is received.
+     * 
+     * @param part
+     * @param location location whose quantity changed
+     * @param oldQuantity quantity at the location before the change
+     * @param inStock 
+     */
+    static synchronized void adjustStock(Part part, String location, int oldQuantity, int inStock) {
+        int oldInStock = part.getInStock();
+        
+        unindexPart(part);
+        part.setInStock(inStock);
+        indexPart(part);
+        
+        for (InventoryListener listener : listeners) {
+            listener.stockAdjusted(part, location, oldQuantity, oldInStock);
+            listener.partUpdated(part, part);
+        }
+    }
+    
+    /**
+     * Tell listeners that stock of a part moved between locations. Called by
+     * StockLocations once both location journals are written; the part's
+     * current inventory is unchanged.
+     * 
+     * @param part
+     * @param from source location
+     * @param to destination location
+     * @param quantity units moved
+     */
+    static synchronized void transferStock(Part part, String from, String to, int quantity) {
+        for (InventoryListener listener : listeners) {
+            listener.stockTransferred(part, from, to, quantity);
+        }
+    }
+    
+    /**
+     * Apply a recorded change through the regular mutation methods. Updates
+     * build a copy of the current part or product with the changed fields;
+     * a stock change at a location sets that location's quantity instead, and
+     * a transfer moves its units again. A part is added back at its recorded
+     * position with its location stock.
+     * 
+     * @param delta
+     * @throws IllegalStateException if the part or product to update or
+     *         remove is no longer in the inventory
+     */
+    public static synchronized void apply(Delta delta) {
+        switch (delta.getKind()) {
+            case PART_ADDED:
+                addPart(delta.getPart(), delta.getPosition() < 0 ? allParts.size() : delta.getPosition());
+                StockLocations.restorePart(delta.getID(), delta.getLocations());
+                break;
+            case PART_REMOVED:
+                requireFound(removePart(delta.getID()), "Part", delta.getID());
+                break;
+            case PART_UPDATED:
+                Part part = lookupPart(delta.getID());
+                requireFound(part != null, "Part", delta.getID());
+                
+                if (delta.getLocation() == null) {
+                    updatePart(delta.applyTo(part));
+                } else {
+                    StockLocations.restoreQuantity(delta.getLocation(), part, delta.getLocationQuantity());
+                }
+                break;
+            case STOCK_TRANSFERRED:
+                StockLocations.restoreTransfer(requirePart(delta.getID()), delta.getSourceLocation(),
+                        delta.getLocation(), delta.getLocationQuantity());
+                break;
+            case PARTS_UPDATED:
+                List<Part> updatedParts = new ArrayList<>();
+                
+                for (Delta change : delta.getChanges()) {
+                    updatedParts.add(change.applyTo(requirePart(change.getID())));
+                }
+                
+                updateParts(updatedParts);
+                break;
+            case PRODUCT_ADDED:
+                addProduct(delta.getProduct());
+                break;
+            case PRODUCT_REMOVED:
+                requireFound(removeProduct(delta.getID()), "Product", delta.getID());
+                break;
+            case PRODUCT_UPDATED:
+                Product product = lookupProduct(delta.getID());
+                requireFound(product != null, "Product", delta.getID());
+                updateProduct(delta.applyTo(product));
+                break;
+        }
+    }
+    
+    /**
+     * Look up parts priced within a range
+     * 
+     * @param minPrice lower bound, inclusive
+     * @param maxPrice upper bound, inclusive
+     * @return matching parts ordered by price
+     */
+    public static synchronized List<Part> lookupPartsByPrice(double minPrice, double maxPrice) {
+        return partsByPrice.range(minPrice, maxPrice);
+    }
+    
+    /**
+     * Look up parts whose current inventory falls within a range
+     * 
+     * @param minStock lower bound, inclusive
+     * @param maxStock upper bound, inclusive
+     * @return matching parts ordered by current inventory
+     */
+    public static synchronized List<Part> lookupPartsByStock(int minStock, int maxStock) {
+        return partsByStock.range(minStock, maxStock);
+    }
+    
+    /**
+     * Look up products priced within a range
+     * 
+     * @param minPrice lower bound, inclusive
+     * @param maxPrice upper bound, inclusive
+     * @return matching products ordered by price
+     */
+    public static synchronized List<Product> lookupProductsByPrice(double minPrice, double maxPrice) {
+        return productsByPrice.range(minPrice, maxPrice);
+    }
+    
+    /**
+     * Look up products whose current inventory falls within a range
+     * 
+     * @param minStock lower bound, inclusive
+     * @param maxStock upper bound, inclusive
+     * @return matching products ordered by current inventory
+     */
+    public static synchronized List<Product> lookupProductsByStock(int minStock, int maxStock) {
+        return productsByStock.range(minStock, maxStock);
+    }
+    
+    /**
+     * Look up the parts supplied by a manufacturer
+     * 
+     * @see SupplierDictionary
+     * @param companyName
+     * @return parts from the manufacturer
+     */
+    public static synchronized List<OutsourcedPart> lookupPartsBySupplier(String companyName) {
+        return SupplierDictionary.lookupParts(companyName);
+    }
+    
+    /**
+     * Look up the parts produced by a machine
+     * 
+     * @see MachineIndex
+     * @param machineID
+     * @return parts from the machine
+     */
+    public static synchronized List<InhousePart> lookupPartsByMachine(int machineID) {
+        return MachineIndex.lookupParts(machineID);
+    }
+    
+    /**
+     * Get all parts sorted by price
+     * 
+     * @param ascending
+     * @return sorted parts
+     */
+    public static synchronized List<Part> getPartsSortedByPrice(boolean ascending) {
+        return partsByPrice.sorted(ascending);
+    }
+    
+    /**
+     * Get all parts sorted by current inventory
+     * 
+     * @param ascending
+     * @return sorted parts
+     */
+    public static synchronized List<Part> getPartsSortedByStock(boolean ascending) {
+        return partsByStock.sorted(ascending);
+    }
+    
+    /**
+     * Get all products sorted by price
+     * 
+     * @param ascending
+     * @return sorted products
+     */
+    public static synchronized List<Product> getProductsSortedByPrice(boolean ascending) {
+        return productsByPrice.sorted(ascending);
+    }
+    
+    /**
+     * Get all products sorted by current inventory
+     * 
+     * @param ascending
+     * @return sorted products
+     */
+    public static synchronized List<Product> getProductsSortedByStock(boolean ascending) {
+        return productsByStock.sorted(ascending);
+    }
+    
+    /**
+     * Fail a delta whose part or product is no longer in the inventory
+     * 
+     * @param found
+     * @param type
+     * @param id 
+     */
+    private static void requireFound(boolean found, String type, int id) {
+        if (!found) {
+            throw new IllegalStateException(type + " " + id + " is no longer in the inventory.");
+        }
+    }
+    
+    /**
+     * Get the part currently stored under an ID
+     * 
+     * @param partID
+     * @return part
+     * @throws IllegalStateException if the part is no longer in the inventory
+     */
+    static synchronized Part requirePart(int partID) {
+        return allParts.get(requirePartIndex(partID));
+    }
+    
+    /**
+     * Find where a part is stored. A part is usually stored at its ID, as IDs
+     * are assigned in order; otherwise, such as after a removal, the list is
+     * searched.
+     * 
+     * @param partID
+     * @return index into the parts list
+     * @throws IllegalStateException if the part is no longer in the inventory
+     */
+    private static int requirePartIndex(int partID) {
+        if (partID >= 0 && partID < allParts.size() && allParts.get(partID).getPartID() == partID) {
+            return partID;
+        }
+        
+        for (int i = 0; i < allParts.size(); i++) {
+            if (allParts.get(i).getPartID() == partID) {
+                return i;
+            }
+        }
+        
+        requireFound(false, "Part", partID);
+        return -1;
+    }
+    
+    /**
+     * Find where a product is stored, as requirePartIndex() does for parts
+     * 
+     * @param productID
+     * @return index into the products list
+     * @throws IllegalStateException if the product is no longer in the inventory
+     */
+    private static int requireProductIndex(int productID) {
+        if (productID >= 0 && productID < products.size() && products.get(productID).getProductID() == productID) {
+            return productID;
+        }
+        
+        for (int i = 0; i < products.size(); i++) {
+            if (products.get(i).getProductID() == productID) {
+                return i;
+            }
+        }
+        
+        requireFound(false, "Product", productID);
+        return -1;
+    }
+    
+    /**
+     * Add a part to the secondary indexes
+     * 
+     * @param part 
+     */
+    private static void indexPart(Part part) {
+        partsByPrice.add(part);
+        partsByStock.add(part);
+        
+        if (part instanceof OutsourcedPart) {
+            SupplierDictionary.addPart((OutsourcedPart) part);
+        } else if (part instanceof InhousePart) {
+            MachineIndex.addPart((InhousePart) part);
+        }
+    }
+    
+    /**
+     * Remove a part from the secondary indexes
+     * 
+     * @param part 
+     */
+    private static void unindexPart(Part part) {
+        partsByPrice.remove(part);
+        partsByStock.remove(part);
+        
+        if (part instanceof OutsourcedPart) {
+            SupplierDictionary.removePart((OutsourcedPart) part);
+        } else if (part instanceof InhousePart) {
+            MachineIndex.removePart((InhousePart) part);
+        }
+    }
+    
+    /**
+     * Add a product to the secondary indexes
+     * 
+     * @param product 
+     */
+    private static void indexProduct(Product product) {
+        productsByPrice.add(product);
+        productsByStock.add(product);
+    }
+    
+    /**
+     * Remove a product from the secondary indexes
+     * 
+     * @param product 
      */
-    public static void updateProduct(Product updatedProduct) {
-        products.set(updatedProduct.getProductID(), updatedProduct);
+    private static void unindexProduct(Product product) {
+        productsByPrice.remove(product);
+        productsByStock.remove(product);
     }
 }
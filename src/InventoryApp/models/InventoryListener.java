@@ -0,0 +1,154 @@
+package InventoryApp.models;
+
+import java.util.List;
+
+/**
+ * InventoryListener is notified of every change to the Inventory. This is how
+ * views and services keep their own copies of the parts and products in step
+ * without the models depending on them.
+ * <p>
+ * Callbacks run on the thread making the change while the Inventory lock is
+ * held, so they should be quick and must not block on other threads that use
+ * the Inventory.
+ * 
+ * @see Inventory
+ */
+public interface InventoryListener {
+    
+    /**
+     * A part was added.
+     * 
+     * @param part 
+     */
+    default void partAdded(Part part) {
+    }
+    
+    /**
+     * A part was removed.
+     * 
+     * @param part 
+     */
+    default void partRemoved(Part part) {
+    }
+    
+    /**
+     * A part was removed from a position in the inventory. Its stock at named
+     * locations is cleared only after every listener has been called. By
+     * default this is handled as partRemoved(part).
+     * 
+     * @param part
+     * @param position position the part held 
+     */
+    default void partRemoved(Part part, int position) {
+        partRemoved(part);
+    }
+    
+    /**
+     * A part was replaced by an updated part. Both may be the same instance
+     * when a part was changed in place.
+     * 
+     * @param oldPart
+     * @param newPart 
+     */
+    default void partUpdated(Part oldPart, Part newPart) {
+    }
+    
+    /**
+     * Several parts were replaced by updated parts in one batch, such as by a
+     * bulk edit. By default this is handled as each part being updated.
+     * 
+     * @param oldParts parts replaced
+     * @param newParts updated parts, in the same order 
+     */
+    default void partsUpdated(List<Part> oldParts, List<Part> newParts) {
+        for (int i = 0; i < newParts.size(); i++) {
+            partUpdated(oldParts.get(i), newParts.get(i));
+        }
+    }
+    
+    /**
+     * A part's current inventory was changed in place, such as when stock is
+     * received at a location. partUpdated() follows with the same instance.
+     * 
+     * @param part
+     * @param oldInStock current inventory before the change
+     */
+    default void stockAdjusted(Part part, int oldInStock) {
+    }
+    
+    /**
+     * A part's stock at a location was changed, changing its current
+     * inventory in place by the same amount. By default this is handled as
+     * stockAdjusted(part, oldInStock).
+     * 
+     * @param part
+     * @param location location changed
+     * @param oldQuantity quantity at the location before the change
+     * @param oldInStock current inventory before the change
+     */
+    default void stockAdjusted(Part part, String location, int oldQuantity, int oldInStock) {
+        stockAdjusted(part, oldInStock);
+    }
+    
+    /**
+     * Stock of a part was moved between locations. The part's current
+     * inventory is unchanged, so no partUpdated() follows.
+     * 
+     * @param part
+     * @param from source location
+     * @param to destination location
+     * @param quantity units moved
+     */
+    default void stockTransferred(Part part, String from, String to, int quantity) {
+    }
+    
+    /**
+     * A product was added.
+     * 
+     * @param product 
+     */
+    default void productAdded(Product product) {
+    }
+    
+    /**
+     * A product was removed.
+     * 
+     * @param product 
+     */
+    default void productRemoved(Product product) {
+    }
+    
+    /**
+     * A product was replaced by an updated product.
+     * 
+     * @param oldProduct
+     * @param newProduct 
+     */
+    default void productUpdated(Product oldProduct, Product newProduct) {
+    }
+    
+    /**
+     * Every part and product was removed.
+     */
+    default void inventoryCleared() {
+    }
+    
+    /**
+     * Every part and product was replaced in one batch. By default this is
+     * handled as the inventory being cleared and each item being added.
+     * 
+     * @param parts snapshot of the parts loaded
+     * @param products snapshot of the products loaded
+     */
+    default void inventoryLoaded(List<Part> parts, List<Product> products) {
+        inventoryCleared();
+        
+        for (Part part : parts) {
+            partAdded(part);
+        }
+        
+        for (Product product : products) {
+            productAdded(product);
+        }
+    }
+}
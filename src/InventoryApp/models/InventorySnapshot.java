@@ -0,0 +1,53 @@
+package InventoryApp.models;
+
+import java.util.List;
+
+/**
+ * InventorySnapshot is a consistent, immutable view of the parts and products
+ * in the Inventory at one moment.
+ * <p>
+ * Taking a snapshot costs constant time and never copies the lists, and a
+ * snapshot may be iterated from any thread for as long as needed while the
+ * Inventory keeps changing. The lists are frozen, but the parts themselves
+ * are shared with the Inventory: receiving stock at a location updates a
+ * part's current inventory in place.
+ *
+ * @see Inventory#snapshot()
+ */
+public final class InventorySnapshot {
+
+    // Parts at the time of the snapshot
+    private final List<Part> parts;
+
+    // Products at the time of the snapshot
+    private final List<Product> products;
+
+    /**
+     * Constructor
+     *
+     * @param parts
+     * @param products
+     */
+    InventorySnapshot(List<Part> parts, List<Product> products) {
+        this.parts = parts;
+        this.products = products;
+    }
+
+    /**
+     * Get the parts at the time of the snapshot
+     *
+     * @return immutable list of parts
+     */
+    public List<Part> getParts() {
+        return parts;
+    }
+
+    /**
+     * Get the products at the time of the snapshot
+     *
+     * @return immutable list of products
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+}
@@ -0,0 +1,509 @@
+package InventoryApp.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InventoryTimeline keeps every version of every part and product so the
+ * inventory can be queried as of a past time.
+ * <p>
+ * Each change to the Inventory appends a timestamped copy of the part or
+ * product to that entity's version list, or a removal marker. Version lists
+ * are ordered by time, so a read as of a time is a binary search,
+ * O(log versions) per entity. The whole inventory can be listed or restored
+ * as of any time.
+ * <p>
+ * Versions newer than the retention window (inventory.timeline.retentionHours,
+ * 168 by default) are kept in full. A background task compacts older versions
+ * to checkpoints (inventory.timeline.checkpointMinutes, 60 by default): only
+ * the last version of each entity in each checkpoint interval is kept, so
+ * older reads resolve to the state at the end of the interval.
+ *
+ * @see Inventory
+ */
+public class InventoryTimeline {
+
+    // Window of versions kept in full
+    private static final long RETENTION_MILLIS = TimeUnit.HOURS.toMillis(
+            Long.getLong("inventory.timeline.retentionHours", 168));
+
+    // Checkpoint interval older versions are compacted to
+    private static final long CHECKPOINT_MILLIS = TimeUnit.MINUTES.toMillis(
+            Long.getLong("inventory.timeline.checkpointMinutes", 60));
+
+    // Part versions by part ID
+    private final static Map<Integer, Versions> parts = new HashMap<>();
+
+    // Product versions by product ID
+    private final static Map<Integer, Versions> products = new HashMap<>();
+
+    // Time of the latest version, so versions never go back in time
+    private static long lastTime;
+
+    // Background compaction, once enabled
+    private static ScheduledExecutorService compactor;
+
+    /**
+     * Constructor
+     */
+    private InventoryTimeline() {
+    }
+
+    /**
+     * Start recording versions, starting with the current state of the
+     * inventory, and schedule compaction.
+     */
+    public static void enable() {
+        synchronized (Inventory.class) {
+            enableLocked();
+        }
+    }
+
+    /**
+     * Start recording if inventory.timeline is set to true
+     */
+    public static void enableFromSystemProperties() {
+        if (Boolean.getBoolean("inventory.timeline")) {
+            enable();
+        }
+    }
+
+    /**
+     * Determine whether versions are being recorded
+     *
+     * @return true once enabled
+     */
+    public static synchronized boolean isEnabled() {
+        return compactor != null;
+    }
+
+    private static synchronized void enableLocked() {
+        if (compactor != null) {
+            return;
+        }
+
+        long time = nextTime();
+
+        for (Part part : Inventory.listParts()) {
+            record(parts, part.getPartID(), time, copyOf(part));
+        }
+
+        for (Product product : Inventory.listProducts()) {
+            record(products, product.getProductID(), time, copyOf(product));
+        }
+
+        Inventory.addListener(new Recorder());
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-timeline-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(InventoryTimeline::compact,
+                CHECKPOINT_MILLIS, CHECKPOINT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Look up a part as it was at a time
+     *
+     * @param partID
+     * @param time epoch milliseconds
+     * @return copy of the part, or null if it was not in the inventory
+     */
+    public static synchronized Part lookupPartAsOf(int partID, long time) {
+        Versions versions = parts.get(partID);
+        return versions == null ? null : copyOf((Part) versions.at(time));
+    }
+
+    /**
+     * Look up a product as it was at a time
+     *
+     * @param productID
+     * @param time epoch milliseconds
+     * @return copy of the product, or null if it was not in the inventory
+     */
+    public static synchronized Product lookupProductAsOf(int productID, long time) {
+        Versions versions = products.get(productID);
+        return versions == null ? null : copyOf((Product) versions.at(time));
+    }
+
+    /**
+     * Get the current inventory of a part at a time
+     *
+     * @param partID
+     * @param time epoch milliseconds
+     * @return units in stock, 0 if the part was not in the inventory
+     */
+    public static synchronized int getInStockAsOf(int partID, long time) {
+        Versions versions = parts.get(partID);
+        Part part = versions == null ? null : (Part) versions.at(time);
+        return part == null ? 0 : part.getInStock();
+    }
+
+    /**
+     * List the parts in the inventory at a time
+     *
+     * @param time epoch milliseconds
+     * @return copies of the parts, ordered by part ID
+     */
+    public static synchronized List<Part> listPartsAsOf(long time) {
+        List<Part> result = new ArrayList<>();
+
+        for (Versions versions : parts.values()) {
+            Part part = (Part) versions.at(time);
+
+            if (part != null) {
+                result.add(copyOf(part));
+            }
+        }
+
+        result.sort(Comparator.comparingInt(Part::getPartID));
+        return result;
+    }
+
+    /**
+     * List the products in the inventory at a time
+     *
+     * @param time epoch milliseconds
+     * @return copies of the products, ordered by product ID
+     */
+    public static synchronized List<Product> listProductsAsOf(long time) {
+        List<Product> result = new ArrayList<>();
+
+        for (Versions versions : products.values()) {
+            Product product = (Product) versions.at(time);
+
+            if (product != null) {
+                result.add(copyOf(product));
+            }
+        }
+
+        result.sort(Comparator.comparingInt(Product::getProductID));
+        return result;
+    }
+
+    /**
+     * Replace the inventory with its state at a time, in one Inventory.load().
+     * The restore is itself recorded as new versions.
+     * <p>
+     * Versions hold each part's total current inventory only, not how it was
+     * split across locations, so the restored parts hold all of their stock
+     * at the default location.
+     *
+     * @param time epoch milliseconds
+     * @throws IllegalStateException on a read-only replica
+     */
+    public static void restore(long time) {
+        synchronized (Inventory.class) {
+            Inventory.requireWritable();
+
+            List<Part> restoredParts = listPartsAsOf(time);
+            List<Product> restoredProducts = listProductsAsOf(time);
+
+            Map<Integer, Part> partsByID = new HashMap<>();
+
+            for (Part part : restoredParts) {
+                partsByID.put(part.getPartID(), part);
+            }
+
+            // link products to the restored parts rather than the versions
+            for (Product product : restoredProducts) {
+                List<Part> associatedParts = product.getAssociatedParts();
+
+                for (int i = 0; i < associatedParts.size(); i++) {
+                    Part part = partsByID.get(associatedParts.get(i).getPartID());
+
+                    if (part != null) {
+                        associatedParts.set(i, part);
+                    }
+                }
+            }
+
+            Inventory.load(restoredParts, restoredProducts);
+        }
+    }
+
+    /**
+     * Get the number of versions held
+     *
+     * @return number of versions across all parts and products
+     */
+    public static synchronized long getVersionsCount() {
+        long count = 0;
+
+        for (Versions versions : parts.values()) {
+            count += versions.size;
+        }
+
+        for (Versions versions : products.values()) {
+            count += versions.size;
+        }
+
+        return count;
+    }
+
+    /**
+     * Compact versions older than the retention window to one per checkpoint
+     * interval. Runs in the background once enabled.
+     */
+    public static synchronized void compact() {
+        long horizon = System.currentTimeMillis() - RETENTION_MILLIS;
+
+        for (Versions versions : parts.values()) {
+            versions.compact(horizon, CHECKPOINT_MILLIS);
+        }
+
+        for (Versions versions : products.values()) {
+            versions.compact(horizon, CHECKPOINT_MILLIS);
+        }
+    }
+
+    /**
+     * Append a version to an entity's list.
+     *
+     * @param versions
+     * @param id
+     * @param time
+     * @param state copy of the entity, or null if it was removed
+     */
+    private static void record(Map<Integer, Versions> versions, int id, long time, Object state) {
+        Versions entity = versions.get(id);
+
+        if (entity == null) {
+            entity = new Versions();
+            versions.put(id, entity);
+        }
+
+        entity.append(time, state);
+    }
+
+    /**
+     * Get a version timestamp no earlier than the last one
+     *
+     * @return epoch milliseconds
+     */
+    private static long nextTime() {
+        lastTime = Math.max(lastTime, System.currentTimeMillis());
+        return lastTime;
+    }
+
+    /**
+     * Copy a part, so versions are not changed by later in-place updates
+     *
+     * @param part
+     * @return copy, or null if part is null
+     */
+    private static Part copyOf(Part part) {
+        if (part == null) {
+            return null;
+        }
+
+        Part copy;
+
+        if (part instanceof InhousePart) {
+            InhousePart inhousePart = new InhousePart();
+            inhousePart.setMachineID(((InhousePart) part).getMachineID());
+            copy = inhousePart;
+        } else {
+            OutsourcedPart outsourcedPart = new OutsourcedPart();
+            outsourcedPart.setCompanyName(((OutsourcedPart) part).getCompanyName());
+            copy = outsourcedPart;
+        }
+
+        copy.setPartID(part.getPartID());
+        copy.setName(part.getName());
+        copy.setPrice(part.getPrice());
+        copy.setInStock(part.getInStock());
+        copy.setMin(part.getMin());
+        copy.setMax(part.getMax());
+        return copy;
+    }
+
+    /**
+     * Copy a product and its list of associated parts
+     *
+     * @param product
+     * @return copy, or null if product is null
+     */
+    private static Product copyOf(Product product) {
+        if (product == null) {
+            return null;
+        }
+
+        Product copy = new Product();
+        copy.setProductID(product.getProductID());
+        copy.setName(product.getName());
+        copy.setPrice(product.getPrice());
+        copy.setInStock(product.getInStock());
+        copy.setMin(product.getMin());
+        copy.setMax(product.getMax());
+        copy.getAssociatedParts().addAll(product.getAssociatedParts());
+        return copy;
+    }
+
+    /**
+     * Versions of one part or product, ordered by time.
+     */
+    private static final class Versions {
+
+        // Version timestamps, ascending
+        private long[] times = new long[2];
+
+        // Entity state at each timestamp, null once removed
+        private Object[] states = new Object[2];
+
+        // Number of versions
+        private int size;
+
+        /**
+         * Append a version. A version at the same time as the last one
+         * replaces it, and a removal of a removed entity is dropped.
+         *
+         * @param time
+         * @param state
+         */
+        private void append(long time, Object state) {
+            if (size > 0 && state == null && states[size - 1] == null) {
+                return;
+            }
+
+            if (size > 0 && times[size - 1] == time) {
+                states[size - 1] = state;
+                return;
+            }
+
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                states = Arrays.copyOf(states, size * 2);
+            }
+
+            times[size] = time;
+            states[size] = state;
+            size++;
+        }
+
+        /**
+         * Get the state at a time by binary search
+         *
+         * @param time
+         * @return state, or null if the entity did not exist
+         */
+        private Object at(long time) {
+            int low = 0;
+            int high = size - 1;
+
+            // find the last version at or before the time
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+
+                if (times[mid] <= time) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            return high < 0 ? null : states[high];
+        }
+
+        /**
+         * Keep only the last version in each checkpoint interval before the
+         * horizon.
+         *
+         * @param horizon
+         * @param interval
+         */
+        private void compact(long horizon, long interval) {
+            int kept = 0;
+
+            for (int i = 0; i < size; i++) {
+                boolean old = times[i] < horizon;
+                boolean superseded = i + 1 < size && times[i + 1] < horizon
+                        && times[i + 1] / interval == times[i] / interval;
+
+                if (!(old && superseded)) {
+                    times[kept] = times[i];
+                    states[kept] = states[i];
+                    kept++;
+                }
+            }
+
+            Arrays.fill(states, kept, size, null);
+            size = kept;
+        }
+    }
+
+    /**
+     * Inventory listener recording a version for each change.
+     */
+    private static final class Recorder implements InventoryListener {
+
+        @Override
+        public void partAdded(Part part) {
+            recordPart(part);
+        }
+
+        @Override
+        public void partRemoved(Part part) {
+            synchronized (InventoryTimeline.class) {
+                InventoryTimeline.record(parts, part.getPartID(), nextTime(), null);
+            }
+        }
+
+        @Override
+        public void partUpdated(Part oldPart, Part newPart) {
+            recordPart(newPart);
+        }
+
+        @Override
+        public void productAdded(Product product) {
+            recordProduct(product);
+        }
+
+        @Override
+        public void productRemoved(Product product) {
+            synchronized (InventoryTimeline.class) {
+                InventoryTimeline.record(products, product.getProductID(), nextTime(), null);
+            }
+        }
+
+        @Override
+        public void productUpdated(Product oldProduct, Product newProduct) {
+            recordProduct(newProduct);
+        }
+
+        @Override
+        public void inventoryCleared() {
+            synchronized (InventoryTimeline.class) {
+                long time = nextTime();
+
+                for (Versions versions : parts.values()) {
+                    versions.append(time, null);
+                }
+
+                for (Versions versions : products.values()) {
+                    versions.append(time, null);
+                }
+            }
+        }
+
+        private void recordPart(Part part) {
+            synchronized (InventoryTimeline.class) {
+                InventoryTimeline.record(parts, part.getPartID(), nextTime(), copyOf(part));
+            }
+        }
+
+        private void recordProduct(Product product) {
+            synchronized (InventoryTimeline.class) {
+                InventoryTimeline.record(products, product.getProductID(), nextTime(), copyOf(product));
+            }
+        }
+    }
+}
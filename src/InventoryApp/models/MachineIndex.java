@@ -0,0 +1,204 @@
+package InventoryApp.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * MachineIndex groups in-house parts by the machine that produces them and
+ * keeps per-machine aggregates for capacity planning.
+ * <p>
+ * The Inventory updates the index on every mutation, so part counts, units in
+ * stock and stock value per machine are always available without filtering
+ * the parts list by subtype.
+ *
+ * @see InhousePart, Inventory
+ */
+public class MachineIndex {
+
+    // Per-machine entries ordered by machine ID
+    private final static Map<Integer, Machine> machines = new TreeMap<>();
+
+    /**
+     * Constructor
+     */
+    private MachineIndex() {
+    }
+
+    /**
+     * Get the inventory parts produced by a machine
+     *
+     * @param machineID
+     * @return parts from the machine, empty if none
+     */
+    public static synchronized List<InhousePart> lookupParts(int machineID) {
+        Machine machine = machines.get(machineID);
+
+        if (machine == null) {
+            return Collections.emptyList();
+        }
+
+        return new ArrayList<>(machine.parts);
+    }
+
+    /**
+     * Get the current load of a machine
+     *
+     * @param machineID
+     * @return machine load, empty if the machine has no parts
+     */
+    public static synchronized MachineLoad getLoad(int machineID) {
+        Machine machine = machines.get(machineID);
+
+        if (machine == null) {
+            return new MachineLoad(machineID, 0, 0, 0.0);
+        }
+
+        return machine.toLoad(machineID);
+    }
+
+    /**
+     * Get the load of every machine with at least one inventory part
+     *
+     * @return machine loads ordered by machine ID
+     */
+    public static synchronized List<MachineLoad> getLoads() {
+        List<MachineLoad> loads = new ArrayList<>(machines.size());
+
+        for (Map.Entry<Integer, Machine> entry : machines.entrySet()) {
+            loads.add(entry.getValue().toLoad(entry.getKey()));
+        }
+
+        return loads;
+    }
+
+    /**
+     * Drop every part from the index. Called by Inventory.
+     */
+    static synchronized void clear() {
+        machines.clear();
+    }
+
+    /**
+     * Index an inventory part under its machine. Called by Inventory.
+     *
+     * @param part
+     */
+    static synchronized void addPart(InhousePart part) {
+        Machine machine = machines.get(part.getMachineID());
+
+        if (machine == null) {
+            machine = new Machine();
+            machines.put(part.getMachineID(), machine);
+        }
+
+        if (machine.parts.add(part)) {
+            machine.unitsInStock += part.getInStock();
+            machine.stockValue += part.getPrice() * part.getInStock();
+        }
+    }
+
+    /**
+     * Remove an inventory part from its machine. Called by Inventory.
+     *
+     * @param part
+     */
+    static synchronized void removePart(InhousePart part) {
+        Machine machine = machines.get(part.getMachineID());
+
+        if (machine == null || !machine.parts.remove(part)) {
+            return;
+        }
+
+        if (machine.parts.isEmpty()) {
+            machines.remove(part.getMachineID());
+        } else {
+            machine.unitsInStock -= part.getInStock();
+            machine.stockValue -= part.getPrice() * part.getInStock();
+        }
+    }
+
+    /**
+     * Mutable per-machine entry.
+     */
+    private static final class Machine {
+
+        // Parts produced by the machine
+        private final Set<InhousePart> parts = new LinkedHashSet<>();
+
+        // Total current inventory of the machine's parts
+        private long unitsInStock;
+
+        // Total price times current inventory of the machine's parts
+        private double stockValue;
+
+        private MachineLoad toLoad(int machineID) {
+            return new MachineLoad(machineID, parts.size(), unitsInStock, stockValue);
+        }
+    }
+
+    /**
+     * MachineLoad is a point-in-time view of a single machine's aggregates.
+     */
+    public static final class MachineLoad {
+
+        // Machine ID
+        private final int machineID;
+
+        // Number of inventory parts produced by the machine
+        private final int partsCount;
+
+        // Total current inventory of the machine's parts
+        private final long unitsInStock;
+
+        // Total price times current inventory of the machine's parts
+        private final double stockValue;
+
+        private MachineLoad(int machineID, int partsCount, long unitsInStock, double stockValue) {
+            this.machineID = machineID;
+            this.partsCount = partsCount;
+            this.unitsInStock = unitsInStock;
+            this.stockValue = stockValue;
+        }
+
+        /**
+         * Get the machine ID
+         *
+         * @return machine ID
+         */
+        public int getMachineID() {
+            return machineID;
+        }
+
+        /**
+         * Get the number of parts produced by the machine
+         *
+         * @return number of parts
+         */
+        public int getPartsCount() {
+            return partsCount;
+        }
+
+        /**
+         * Get the total current inventory of the machine's parts
+         *
+         * @return units in stock
+         */
+        public long getUnitsInStock() {
+            return unitsInStock;
+        }
+
+        /**
+         * Get the stock value of the machine's parts
+         *
+         * @return price times current inventory, summed
+         */
+        public double getStockValue() {
+            return stockValue;
+        }
+    }
+}
@@ -8,7 +8,7 @@ package InventoryApp.models;
  */
 public class OutsourcedPart extends Part {
 
-    // Name of the part's manufacturer
+    // Name of the part's manufacturer, shared with the supplier dictionary
     private String companyName;
     
     /**
@@ -19,13 +19,25 @@ public class OutsourcedPart extends Part {
     public String getCompanyName() {
         return companyName;
     }
+    
+    /**
+     * Get the manufacturer's supplier ID
+     * 
+     * @see SupplierDictionary
+     * @return supplier ID, or SupplierDictionary.NO_SUPPLIER if no inventory
+     *         part is from this manufacturer
+     */
+    public int getSupplierID() {
+        return SupplierDictionary.lookupSupplierID(companyName);
+    }
         
     /**
-     * Set the manufacturer's name
+     * Set the manufacturer's name. A known supplier's name is interned so
+     * parts from the same manufacturer share a single copy.
      * 
      * @param companyName 
      */
     public void setCompanyName(String companyName) {
-        this.companyName = companyName;
+        this.companyName = SupplierDictionary.intern(companyName);
     }
 }
@@ -1,6 +1,9 @@
 package InventoryApp.models;
 
 import InventoryApp.exceptions.ValidationException;
+import InventoryApp.metrics.Metrics;
+import InventoryApp.metrics.OperationEvent;
+import InventoryApp.metrics.Timer;
 
 /**
  * Part represents a part in the inventory which can be used in conjunction with
@@ -13,6 +16,9 @@ import InventoryApp.exceptions.ValidationException;
  */
 public abstract class Part {
     
+    // Validation timer, shared by all parts
+    private final static Timer VALIDATE = Metrics.timer("part.isValid");
+    
     // Internal part ID
     private int partID;
     
@@ -98,37 +104,43 @@ public abstract class Part {
      * @throws ValidationException 
      */
     public boolean isValid() throws ValidationException {
-        // Name is required
-        if (getName().equals("")) {
-            throw new ValidationException("The name field cannot be empty.");
-        }
+        OperationEvent operation = VALIDATE.start();
         
-        // inventory must be positive
-        if (getInStock() < 0) {
-            throw new ValidationException("The current inventory must be greater than 0.");
-        }
+        try {
+            // Name is required
+            if (getName().equals("")) {
+                throw new ValidationException("The name field cannot be empty.");
+            }
         
-        // part price must be positive
-        if (getPrice() < 0) {
-            throw new ValidationException("The price must be greater than $0");
-        }
+            // inventory must be positive
+            if (getInStock() < 0) {
+                throw new ValidationException("The current inventory must be greater than 0.");
+            }
         
-        // the minimum must be positive
-        if (getMin() < 0) {
-            throw new ValidationException("The minimum inventory must be greater than 0.");
-        }
+            // part price must be positive
+            if (getPrice() < 0) {
+                throw new ValidationException("The price must be greater than $0");
+            }
         
-        // the maximum must be greater than the minimum
-        if (getMin() > getMax()) {
-            throw new ValidationException("The minimum inventory must be less than the maximum.");
-        }
+            // the minimum must be positive
+            if (getMin() < 0) {
+                throw new ValidationException("The minimum inventory must be greater than 0.");
+            }
         
-        // the in stock inventory must be between min and max
-        if (getInStock() < getMin() || getInStock() > getMax()) {
-            throw new ValidationException("The current inventory must be between the minimum and maximum inventory.");
-        }
+            // the maximum must be greater than the minimum
+            if (getMin() > getMax()) {
+                throw new ValidationException("The minimum inventory must be less than the maximum.");
+            }
         
-        return true;
+            // the in stock inventory must be between min and max
+            if (getInStock() < getMin() || getInStock() > getMax()) {
+                throw new ValidationException("The current inventory must be between the minimum and maximum inventory.");
+            }
+        
+            return true;
+        } finally {
+            operation.stop();
+        }
     }
     
     /**
@@ -0,0 +1,143 @@
+package InventoryApp.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PartEdges holds the associated parts of many products in two flat arrays:
+ * every product's parts one run after another, and where each run starts.
+ * <p>
+ * Catalog loaders build one for all the products they read, so a product
+ * costs a row number instead of a list of its own until something asks for
+ * its parts as a List. Counting and pricing a product's parts read the
+ * arrays directly.
+ *
+ * @see Product#setAssociatedParts(PartEdges, int)
+ */
+public final class PartEdges {
+
+    // Start of each row in parts, plus the end of the last row
+    private final int[] offsets;
+
+    // Associated parts of every row, one run after another
+    private final Part[] parts;
+
+    /**
+     * Constructor. The arrays are used as they are, so a loader may fill in
+     * parts after handing the store to its products.
+     *
+     * @param offsets start of each row in parts, plus the end of the last
+     * @param parts associated parts of every row, one run after another
+     */
+    public PartEdges(int[] offsets, Part[] parts) {
+        if (offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != parts.length) {
+            throw new IllegalArgumentException("Offsets do not cover the parts");
+        }
+
+        this.offsets = offsets;
+        this.parts = parts;
+    }
+
+    /**
+     * Get where each row starts, given how many parts each row has
+     *
+     * @param counts parts per row
+     * @return start of each row, plus the end of the last
+     */
+    public static int[] offsets(int[] counts) {
+        int[] offsets = new int[counts.length + 1];
+
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] < 0) {
+                throw new IllegalArgumentException("Negative part count in row " + i);
+            }
+
+            offsets[i + 1] = Math.addExact(offsets[i], counts[i]);
+        }
+
+        return offsets;
+    }
+
+    /**
+     * Get the number of rows
+     *
+     * @return rows
+     */
+    public int getRows() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Get the number of associated parts in a row
+     *
+     * @param row
+     * @return parts
+     */
+    public int getCount(int row) {
+        return offsets[row + 1] - offsets[row];
+    }
+
+    /**
+     * Get one associated part of a row
+     *
+     * @param row
+     * @param index position within the row
+     * @return part
+     */
+    public Part getPart(int row, int index) {
+        if (index < 0 || index >= getCount(row)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + getCount(row));
+        }
+
+        return parts[offsets[row] + index];
+    }
+
+    /**
+     * Get the total price of the associated parts in a row
+     *
+     * @param row
+     * @return total price
+     */
+    public double getPrice(int row) {
+        double total = 0.00;
+
+        for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+            total += parts[i].getPrice();
+        }
+
+        return total;
+    }
+
+    /**
+     * Lookup an associated part of a row by part ID
+     *
+     * @param row
+     * @param partID
+     * @return first matching part, null if none
+     */
+    public Part lookup(int row, int partID) {
+        for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+            if (parts[i].getPartID() == partID) {
+                return parts[i];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Copy the associated parts of a row into a new list
+     *
+     * @param row
+     * @return parts
+     */
+    List<Part> toList(int row) {
+        List<Part> list = new ArrayList<>(getCount(row));
+
+        for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+            list.add(parts[i]);
+        }
+
+        return list;
+    }
+}
@@ -1,17 +1,31 @@
 package InventoryApp.models;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import java.lang.ref.SoftReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
 
 import InventoryApp.exceptions.ValidationException;
+import InventoryApp.metrics.Metrics;
+import InventoryApp.metrics.OperationEvent;
+import InventoryApp.metrics.Timer;
 
 /**
  * Product represents a part in the inventory which is comprised of Parts.
+ * <p>
+ * A product read by a catalog loader keeps its associated parts in a shared
+ * PartEdges store and only builds a list of them when asked. An unchanged
+ * list is held softly, so the garbage collector may drop it under memory
+ * pressure and it is built again on the next request; once the list is
+ * changed the product keeps it for good.
  * 
  * @author Dale Richards <dric123@wgu.edu>
  */
 public class Product {
     
+    // Validation timer, shared by all products
+    private final static Timer VALIDATE = Metrics.timer("product.isValid");
+    
     // Internal product ID
     private int productID;
     
@@ -30,8 +44,17 @@ public class Product {
     // Maximum required inventory
     private int max;
     
-    // List of associated parts
-    private ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+    // List of associated parts, or null while they are read from partEdges
+    private List<Part> associatedParts = new ArrayList<>();
+    
+    // Shared store of associated parts, or null once they are in a list
+    private PartEdges partEdges;
+    
+    // Row of this product in partEdges
+    private int partEdgesRow;
+    
+    // Unchanged list built from partEdges, which may be dropped at any time
+    private SoftReference<LoadedParts> loadedParts;
 
     /**
      * Constructor
@@ -45,16 +68,60 @@ public class Product {
      * @param associatedPart 
      */
     public void addAssociatedPart(Part associatedPart) {
-        this.associatedParts.add(associatedPart);
+        getAssociatedParts().add(associatedPart);
+    }
+    
+    /**
+     * Read associated parts from a shared store until they are changed,
+     * replacing any the product has.
+     * 
+     * @param edges
+     * @param row row of this product in edges
+     */
+    public void setAssociatedParts(PartEdges edges, int row) {
+        if (row < 0 || row >= edges.getRows()) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Rows: " + edges.getRows());
+        }
+        
+        associatedParts = null;
+        partEdges = edges;
+        partEdgesRow = row;
+        loadedParts = null;
     }
     
     /**
-     * Get a list of associated parts.
+     * Get a list of associated parts, building it from the shared store if
+     * need be. Changes to the list are changes to the product.
      * 
      * @return associated parts
      */
-    public ObservableList<Part> getAssociatedParts() {
-        return associatedParts;
+    public List<Part> getAssociatedParts() {
+        if (associatedParts != null) {
+            return associatedParts;
+        }
+        
+        LoadedParts parts = loadedParts == null ? null : loadedParts.get();
+        
+        if (parts == null) {
+            parts = new LoadedParts(partEdges.toList(partEdgesRow));
+            loadedParts = new SoftReference<>(parts);
+        }
+        
+        return parts;
+    }
+    
+    /**
+     * Get one associated part without building the list.
+     * 
+     * @param index
+     * @return associated part
+     */
+    public Part getAssociatedPart(int index) {
+        if (associatedParts != null) {
+            return associatedParts.get(index);
+        }
+        
+        return partEdges.getPart(partEdgesRow, index);
     }
     
     /**
@@ -63,7 +130,30 @@ public class Product {
      * @return associated parts
      */
     public int getAssociatedPartsCount() {
-        return associatedParts.size();
+        if (associatedParts != null) {
+            return associatedParts.size();
+        }
+        
+        return partEdges.getCount(partEdgesRow);
+    }
+    
+    /**
+     * Get the total price of the associated parts.
+     * 
+     * @return total price
+     */
+    public double getAssociatedPartsPrice() {
+        if (associatedParts == null) {
+            return partEdges.getPrice(partEdgesRow);
+        }
+        
+        double totalPartsPrice = 0.00;
+        
+        for (Part p : associatedParts) {
+            totalPartsPrice += p.getPrice();
+        }
+        
+        return totalPartsPrice;
     }
     
     /**
@@ -127,54 +217,56 @@ public class Product {
      * @throws ValidationException 
      */
     public boolean isValid() throws ValidationException {
-        double totalPartsPrice = 0.00;
+        OperationEvent operation = VALIDATE.start();
         
-        // summate the price of associated parts
-        for(Part p : getAssociatedParts()) {
-            totalPartsPrice += p.getPrice();
-        }
+        try {
+            // summate the price of associated parts
+            double totalPartsPrice = getAssociatedPartsPrice();
         
-        // ensure a product is named
-        if (getName().equals("")) {
-            throw new ValidationException("The name field cannot be empty.");
-        }
+            // ensure a product is named
+            if (getName().equals("")) {
+                throw new ValidationException("The name field cannot be empty.");
+            }
         
-        // inventory must be at least 1
-        if (getInStock() < 0) {
-            throw new ValidationException("The current inventory must be greater than 0.");
-        }
+            // inventory must be at least 1
+            if (getInStock() < 0) {
+                throw new ValidationException("The current inventory must be greater than 0.");
+            }
         
-        // price must be positive
-        if (getPrice() < 0) {
-            throw new ValidationException("The price must be greater than $0");
-        }
+            // price must be positive
+            if (getPrice() < 0) {
+                throw new ValidationException("The price must be greater than $0");
+            }
         
-        // a product must have at least one part
-        if (getAssociatedPartsCount() < 1) {
-            throw new ValidationException("The product must contain at least 1 part.");
-        }
+            // a product must have at least one part
+            if (getAssociatedPartsCount() < 1) {
+                throw new ValidationException("The product must contain at least 1 part.");
+            }
         
-        // the sum of parts must be less than the price of the product
-        if (totalPartsPrice > getPrice()) {
-            throw new ValidationException("The product price must be greater than total cost of associated parts.");
-        }
+            // the sum of parts must be less than the price of the product
+            if (totalPartsPrice > getPrice()) {
+                throw new ValidationException("The product price must be greater than total cost of associated parts.");
+            }
         
-        // min inventory must be greater than zero
-        if (getMin() < 0) {
-            throw new ValidationException("The minimum inventory must be greater than 0.");
-        }
+            // min inventory must be greater than zero
+            if (getMin() < 0) {
+                throw new ValidationException("The minimum inventory must be greater than 0.");
+            }
         
-        // max inventory must be greater than minimum
-        if (getMin() > getMax()) {
-            throw new ValidationException("The minimum inventory must be less than the maximum.");
-        }
+            // max inventory must be greater than minimum
+            if (getMin() > getMax()) {
+                throw new ValidationException("The minimum inventory must be less than the maximum.");
+            }
         
-        // current inventory must be between the min and max.
-        if (getInStock() < getMin() || getInStock() > getMax()) {
-            throw new ValidationException("The current inventory must be between the minimum and maximum inventory.");
-        }
+            // current inventory must be between the min and max.
+            if (getInStock() < getMin() || getInStock() > getMax()) {
+                throw new ValidationException("The current inventory must be between the minimum and maximum inventory.");
+            }
         
-        return true;
+            return true;
+        } finally {
+            operation.stop();
+        }
     }
     
     /**
@@ -184,6 +276,10 @@ public class Product {
      * @return associated parts matching filter
      */
     public Part lookupAssociatedPart(int partID) {
+        if (associatedParts == null) {
+            return partEdges.lookup(partEdgesRow, partID);
+        }
+        
         for (Part p : associatedParts) {
             if (p.getPartID() == partID) {
                 return p;
@@ -197,7 +293,9 @@ public class Product {
      * Delete all associated parts
      */
     public void purgeAssociatedParts() {
-        associatedParts = FXCollections.observableArrayList();
+        associatedParts = new ArrayList<>();
+        partEdges = null;
+        loadedParts = null;
     }
     
     /**
@@ -207,9 +305,15 @@ public class Product {
      * @return 
      */
     public boolean removeAssociatedPart(int partID) {
-        for (Part p : associatedParts) {
+        if (lookupAssociatedPart(partID) == null) {
+            return false;
+        }
+        
+        List<Part> parts = getAssociatedParts();
+        
+        for (Part p : parts) {
             if (p.getPartID() == partID) {
-                associatedParts.remove(p);
+                parts.remove(p);
                 return true;
             }
         }
@@ -270,4 +374,60 @@ public class Product {
     public void setProductID(int productID) {
         this.productID = productID;
     }
+    
+    /**
+     * List of associated parts built from the shared store. The first change
+     * makes it the product's own list, so nothing is lost if it is dropped.
+     */
+    private final class LoadedParts extends AbstractList<Part> {
+        
+        // Associated parts
+        private final List<Part> parts;
+        
+        LoadedParts(List<Part> parts) {
+            this.parts = parts;
+        }
+        
+        @Override
+        public Part get(int index) {
+            return parts.get(index);
+        }
+        
+        @Override
+        public int size() {
+            return parts.size();
+        }
+        
+        @Override
+        public Part set(int index, Part part) {
+            keep();
+            return parts.set(index, part);
+        }
+        
+        @Override
+        public void add(int index, Part part) {
+            keep();
+            parts.add(index, part);
+            modCount++;
+        }
+        
+        @Override
+        public Part remove(int index) {
+            keep();
+            modCount++;
+            return parts.remove(index);
+        }
+        
+        /**
+         * Make this the product's own list, unless the product has moved on
+         * to other parts since it was built
+         */
+        private void keep() {
+            if (loadedParts != null && loadedParts.get() == this) {
+                associatedParts = this;
+                partEdges = null;
+                loadedParts = null;
+            }
+        }
+    }
 }
@@ -0,0 +1,206 @@
+package InventoryApp.models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * SnapshotList is an array list that hands out immutable snapshots in
+ * constant time.
+ * <p>
+ * Elements are stored in fixed-size segments reached through a spine array.
+ * A snapshot shares the current spine and segments; after a snapshot, the
+ * first write copies the spine and each segment it touches, so snapshots
+ * never see later changes. A write therefore costs one segment copy, plus a
+ * spine copy on the first write after each snapshot, rather than a copy of
+ * the whole list.
+ * <p>
+ * The list itself is not thread-safe; Inventory guards it with its lock.
+ * Snapshots may be read from any thread without a lock.
+ *
+ * @see Inventory
+ */
+final class SnapshotList<T> extends AbstractList<T> implements RandomAccess {
+
+    // Elements per segment, a power of two
+    private static final int SEGMENT_SHIFT = 6;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    // Segments of elements
+    private Object[][] spine = new Object[4][];
+
+    // Epoch in which each segment was copied; segments from older epochs are shared
+    private int[] segmentEpochs = new int[4];
+
+    // Number of elements
+    private int size;
+
+    // Incremented by every snapshot
+    private int epoch;
+
+    // Whether the spine is referenced by a snapshot
+    private boolean spineShared;
+
+    // Snapshot of the current contents, reused until the next write
+    private Snapshot<T> snapshot;
+
+    /**
+     * Take an immutable snapshot of the list in constant time
+     *
+     * @return snapshot
+     */
+    List<T> snapshot() {
+        if (snapshot == null) {
+            snapshot = new Snapshot<>(spine, size);
+            spineShared = true;
+            epoch++;
+        }
+
+        return snapshot;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkIndex(index, size);
+        return (T) spine[index >>> SEGMENT_SHIFT][index & SEGMENT_MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public T set(int index, T element) {
+        checkIndex(index, size);
+        Object[] segment = writableSegment(index >>> SEGMENT_SHIFT);
+
+        @SuppressWarnings("unchecked")
+        T previous = (T) segment[index & SEGMENT_MASK];
+        segment[index & SEGMENT_MASK] = element;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        checkIndex(index, size + 1);
+        ensureCapacity(size + 1);
+
+        // shift the tail right by one, starting from the end
+        for (int i = size; i > index; i--) {
+            writableSegment(i >>> SEGMENT_SHIFT)[i & SEGMENT_MASK] = get(i - 1);
+        }
+
+        size++;
+        writableSegment(index >>> SEGMENT_SHIFT)[index & SEGMENT_MASK] = element;
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        T removed = get(index);
+
+        for (int i = index; i < size - 1; i++) {
+            writableSegment(i >>> SEGMENT_SHIFT)[i & SEGMENT_MASK] = get(i + 1);
+        }
+
+        size--;
+        writableSegment(size >>> SEGMENT_SHIFT)[size & SEGMENT_MASK] = null;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        spine = new Object[4][];
+        segmentEpochs = new int[4];
+        spineShared = false;
+        snapshot = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Get a segment that may be written, copying it and the spine if they
+     * are shared with a snapshot.
+     *
+     * @param segmentIndex
+     * @return writable segment
+     */
+    private Object[] writableSegment(int segmentIndex) {
+        snapshot = null;
+
+        if (spineShared) {
+            spine = spine.clone();
+            spineShared = false;
+        }
+
+        Object[] segment = spine[segmentIndex];
+
+        if (segment == null) {
+            segment = new Object[SEGMENT_SIZE];
+            spine[segmentIndex] = segment;
+            segmentEpochs[segmentIndex] = epoch;
+        } else if (segmentEpochs[segmentIndex] != epoch) {
+            segment = segment.clone();
+            spine[segmentIndex] = segment;
+            segmentEpochs[segmentIndex] = epoch;
+        }
+
+        return segment;
+    }
+
+    /**
+     * Grow the spine to hold a number of elements.
+     *
+     * @param capacity
+     */
+    private void ensureCapacity(int capacity) {
+        int segments = (capacity + SEGMENT_MASK) >>> SEGMENT_SHIFT;
+
+        if (segments > spine.length) {
+            int length = Math.max(segments, spine.length * 2);
+            spine = Arrays.copyOf(spine, length);
+            segmentEpochs = Arrays.copyOf(segmentEpochs, length);
+            spineShared = false;
+        }
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Immutable view of the list at the time it was taken.
+     */
+    private static final class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+
+        // Spine at the time of the snapshot, never written again
+        private final Object[][] spine;
+
+        // Number of elements at the time of the snapshot
+        private final int size;
+
+        private Snapshot(Object[][] spine, int size) {
+            this.spine = spine;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            checkIndex(index, size);
+            return (T) spine[index >>> SEGMENT_SHIFT][index & SEGMENT_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
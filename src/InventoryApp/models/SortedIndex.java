@@ -0,0 +1,305 @@
+package InventoryApp.models;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * SortedIndex is a secondary index over a numeric attribute of a Part or
+ * Product, such as price or current inventory. It is kept in step with the
+ * Inventory so range queries and sorted table feeds do not have to scan or
+ * re-sort the master lists.
+ * <p>
+ * Entries are held in a balanced tree ordered by the attribute value, so each
+ * add or remove costs O(log n). The value is captured when the entry is added,
+ * which means an item must be removed from the index before it is modified
+ * and re-added afterwards. Inventory does this on every mutation.
+ *
+ * @see Inventory
+ * @param <T> indexed type
+ */
+public class SortedIndex<T> {
+
+    // Function extracting the indexed value from an item
+    private final ToDoubleFunction<T> keyFunction;
+
+    // Entries ordered by value, then by insertion order
+    private final TreeSet<Entry<T>> entries = new TreeSet<>();
+
+    // Entry lookup by item identity, used for O(log n) removal
+    private final Map<T, Entry<T>> entriesByItem = new IdentityHashMap<>();
+
+    // Tie breaker for items sharing the same value
+    private long sequence;
+
+    /**
+     * Constructor
+     *
+     * @param keyFunction function extracting the indexed value
+     */
+    public SortedIndex(ToDoubleFunction<T> keyFunction) {
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * Add an item to the index. Adding an item already present is a no-op.
+     *
+     * @param item
+     */
+    public void add(T item) {
+        if (item == null || entriesByItem.containsKey(item)) {
+            return;
+        }
+
+        Entry<T> entry = new Entry<>(keyFunction.applyAsDouble(item), sequence++, item);
+        entries.add(entry);
+        entriesByItem.put(item, entry);
+    }
+
+    /**
+     * Add many items at once. Into an empty index, such as when a catalog is
+     * loaded, the entries are sorted in parallel and the tree is built from
+     * them in linear time; otherwise each item is added in turn.
+     *
+     * @param items
+     */
+    @SuppressWarnings("unchecked")
+    public void addAll(List<? extends T> items) {
+        if (!entries.isEmpty()) {
+            for (T item : items) {
+                add(item);
+            }
+
+            return;
+        }
+
+        List<Entry<T>> added = new ArrayList<>(items.size());
+
+        for (T item : items) {
+            if (item != null && !entriesByItem.containsKey(item)) {
+                Entry<T> entry = new Entry<>(keyFunction.applyAsDouble(item), sequence++, item);
+                entriesByItem.put(item, entry);
+                added.add(entry);
+            }
+        }
+
+        Entry<T>[] sorted = added.toArray((Entry<T>[]) new Entry<?>[added.size()]);
+        Arrays.parallelSort(sorted);
+        // TreeSet builds itself in linear time from a SortedSet in its own order
+        entries.addAll(new SortedRun<>(sorted));
+    }
+
+    /**
+     * Remove an item from the index.
+     *
+     * @param item
+     * @return true if the item was indexed, else false
+     */
+    public boolean remove(T item) {
+        Entry<T> entry = entriesByItem.remove(item);
+
+        if (entry == null) {
+            return false;
+        }
+
+        return entries.remove(entry);
+    }
+
+    /**
+     * Remove every item from the index.
+     */
+    public void clear() {
+        entries.clear();
+        entriesByItem.clear();
+    }
+
+    /**
+     * Get the number of indexed items.
+     *
+     * @return number of items
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get every item whose value lies within the inclusive range, in ascending
+     * order.
+     *
+     * @param min lower bound, inclusive
+     * @param max upper bound, inclusive
+     * @return items within the range
+     */
+    public List<T> range(double min, double max) {
+        List<T> items = new ArrayList<>();
+
+        if (min > max) {
+            return items;
+        }
+
+        NavigableSet<Entry<T>> slice = entries.subSet(
+                new Entry<T>(min, Long.MIN_VALUE, null), true,
+                new Entry<T>(max, Long.MAX_VALUE, null), true);
+
+        for (Entry<T> entry : slice) {
+            items.add(entry.item);
+        }
+
+        return items;
+    }
+
+    /**
+     * Get every item sorted by the indexed value.
+     *
+     * @param ascending true for ascending order, false for descending
+     * @return sorted items
+     */
+    public List<T> sorted(boolean ascending) {
+        List<T> items = new ArrayList<>(entries.size());
+
+        for (Entry<T> entry : ascending ? entries : entries.descendingSet()) {
+            items.add(entry.item);
+        }
+
+        return items;
+    }
+
+    /**
+     * Read-only sorted set over an array of distinct elements already in
+     * natural order, handed to TreeSet.addAll(). Subsets are found by binary
+     * search and share the array.
+     *
+     * @param <E> element type
+     */
+    private static final class SortedRun<E> extends AbstractSet<E> implements SortedSet<E> {
+
+        // Elements in ascending order
+        private final E[] elements;
+
+        // First element of this run, inclusive
+        private final int from;
+
+        // End of this run, exclusive
+        private final int to;
+
+        private SortedRun(E[] elements) {
+            this(elements, 0, elements.length);
+        }
+
+        private SortedRun(E[] elements, int from, int to) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return Arrays.asList(elements).subList(from, to).iterator();
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return null;
+        }
+
+        @Override
+        public E first() {
+            if (from == to) {
+                throw new NoSuchElementException();
+            }
+
+            return elements[from];
+        }
+
+        @Override
+        public E last() {
+            if (from == to) {
+                throw new NoSuchElementException();
+            }
+
+            return elements[to - 1];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            if (((Comparable<? super E>) fromElement).compareTo(toElement) > 0) {
+                throw new IllegalArgumentException("fromElement > toElement");
+            }
+
+            int start = indexOf(fromElement);
+            return new SortedRun<>(elements, start, Math.max(start, indexOf(toElement)));
+        }
+
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            return new SortedRun<>(elements, from, indexOf(toElement));
+        }
+
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            return new SortedRun<>(elements, indexOf(fromElement), to);
+        }
+
+        /**
+         * Find the position of the first element not less than the given one,
+         * clamped to this run.
+         *
+         * @param element
+         * @return position in the array
+         */
+        private int indexOf(E element) {
+            int index = Arrays.binarySearch(elements, from, to, element);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    /**
+     * Index entry. Holds the value as a primitive so comparisons never unbox.
+     *
+     * @param <T> indexed type
+     */
+    private static final class Entry<T> implements Comparable<Entry<T>> {
+
+        // Indexed value captured at insertion
+        private final double key;
+
+        // Insertion order, used to break ties
+        private final long sequence;
+
+        // Indexed item
+        private final T item;
+
+        private Entry(double key, long sequence, T item) {
+            this.key = key;
+            this.sequence = sequence;
+            this.item = item;
+        }
+
+        @Override
+        public int compareTo(Entry<T> other) {
+            int result = Double.compare(key, other.key);
+
+            if (result != 0) {
+                return result;
+            }
+
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
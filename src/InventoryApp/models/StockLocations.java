@@ -0,0 +1,411 @@
+package InventoryApp.models;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import InventoryApp.exceptions.ValidationException;
+
+/**
+ * StockLocations splits each part's current inventory across warehouses.
+ * <p>
+ * Every named location owns a StockPartition. The default location is not
+ * stored; it holds whatever part of a Part's current inventory has not been
+ * assigned to a named location. This keeps Part.getInStock() the total across
+ * all locations: receiving stock at a location raises the total, and
+ * transfers between locations leave it unchanged. Editing a part's inventory
+ * through the parts screen adjusts the default location, which may not go
+ * below zero, and no change may take a part outside its minimum and maximum.
+ *
+ * @see StockPartition, Part
+ */
+public class StockLocations {
+
+    // Name of the implicit location holding unassigned stock
+    public static final String DEFAULT_LOCATION = "Default";
+
+    // Named location partitions, in registration order
+    private final static Map<String, StockPartition> partitions = new LinkedHashMap<>();
+
+    /**
+     * Constructor
+     */
+    private StockLocations() {
+    }
+
+    /**
+     * Register an in-memory location. Registering an existing location
+     * returns its partition.
+     *
+     * @param name
+     * @return location partition
+     */
+    public static synchronized StockPartition addLocation(String name) {
+        if (DEFAULT_LOCATION.equals(name)) {
+            throw new IllegalArgumentException("The default location cannot be registered.");
+        }
+
+        StockPartition partition = partitions.get(name);
+
+        if (partition == null) {
+            partition = new StockPartition(name);
+            partitions.put(name, partition);
+        }
+
+        return partition;
+    }
+
+    /**
+     * Register a location backed by its own journal, loading any quantities
+     * already recorded there.
+     *
+     * @param name
+     * @param journal journal file, created if missing
+     * @return location partition
+     * @throws IOException if the journal cannot be read or written
+     */
+    public static synchronized StockPartition openLocation(String name, Path journal) throws IOException {
+        StockPartition partition = addLocation(name);
+        partition.open(journal);
+        return partition;
+    }
+
+    /**
+     * Get every location name, starting with the default location
+     *
+     * @return location names
+     */
+    public static synchronized List<String> getLocations() {
+        List<String> names = new ArrayList<>(partitions.size() + 1);
+        names.add(DEFAULT_LOCATION);
+        names.addAll(partitions.keySet());
+        return names;
+    }
+
+    /**
+     * Get the partition of a named location
+     *
+     * @param name
+     * @return location partition, or null if the location is unknown
+     */
+    public static synchronized StockPartition getPartition(String name) {
+        return partitions.get(name);
+    }
+
+    /**
+     * Get the quantity of a part held at a location
+     *
+     * @param location
+     * @param part
+     * @return quantity
+     */
+    public static synchronized int getQuantity(String location, Part part) {
+        if (DEFAULT_LOCATION.equals(location)) {
+            return part.getInStock() - getAssignedQuantity(part.getPartID());
+        }
+
+        StockPartition partition = partitions.get(location);
+        return partition == null ? 0 : partition.getQuantity(part.getPartID());
+    }
+
+    /**
+     * Get the quantity of a part held at every location
+     *
+     * @param part
+     * @return quantity keyed by location name, starting with the default
+     */
+    public static synchronized Map<String, Integer> getQuantities(Part part) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(DEFAULT_LOCATION, getQuantity(DEFAULT_LOCATION, part));
+
+        for (StockPartition partition : partitions.values()) {
+            quantities.put(partition.getName(), partition.getQuantity(part.getPartID()));
+        }
+
+        return quantities;
+    }
+
+    /**
+     * Set the quantity of a part held at a location. The part's current
+     * inventory changes by the same amount.
+     *
+     * @param location
+     * @param part inventory part
+     * @param quantity
+     * @throws ValidationException if the quantity is negative, or would take
+     *         the part's current inventory outside its minimum and maximum
+     * @throws IOException if the location journal cannot be written
+     * @throws IllegalStateException on a read-only replica
+     */
+    public static void setQuantity(String location, Part part, int quantity)
+            throws ValidationException, IOException {
+        // the Inventory lock is always taken first, as Inventory calls in here
+        synchronized (Inventory.class) {
+            Inventory.requireWritable();
+            setQuantityLocked(location, part, quantity);
+        }
+    }
+
+    private static synchronized void setQuantityLocked(String location, Part part, int quantity)
+            throws ValidationException, IOException {
+        if (quantity < 0) {
+            throw new ValidationException("The quantity must be greater than 0.");
+        }
+
+        int oldQuantity = getQuantity(location, part);
+        int inStock = part.getInStock() + quantity - oldQuantity;
+
+        if (inStock < part.getMin() || inStock > part.getMax()) {
+            throw new ValidationException("The current inventory of " + part.getName() + " would be " + inStock
+                    + ", outside its minimum and maximum inventory.");
+        }
+
+        if (!DEFAULT_LOCATION.equals(location)) {
+            requirePartition(location).setQuantity(part.getPartID(), quantity);
+        }
+
+        Inventory.adjustStock(part, location, oldQuantity, inStock);
+    }
+
+    /**
+     * Set the quantity of a part held at a location back to a recorded value.
+     * Called by Inventory, holding its lock, when a stock change is undone.
+     *
+     * @param location
+     * @param part inventory part
+     * @param quantity
+     * @throws IllegalStateException if the location is no longer registered
+     */
+    static void restoreQuantity(String location, Part part, int quantity) {
+        try {
+            setQuantityLocked(location, part, quantity);
+        } catch (ValidationException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Move stock of a part between locations. The part's current inventory is
+     * unchanged, and listeners are told of the move through
+     * stockTransferred().
+     *
+     * @param part inventory part
+     * @param from source location
+     * @param to destination location
+     * @param quantity units to move
+     * @throws ValidationException if either location is unknown, or the
+     *         source does not hold enough stock, in which case nothing moves
+     * @throws IOException if a location journal cannot be written
+     * @throws IllegalStateException on a read-only replica
+     */
+    public static void transfer(Part part, String from, String to, int quantity)
+            throws ValidationException, IOException {
+        synchronized (Inventory.class) {
+            Inventory.requireWritable();
+            transferLocked(part, from, to, quantity);
+        }
+    }
+
+    private static synchronized void transferLocked(Part part, String from, String to, int quantity)
+            throws ValidationException, IOException {
+        if (quantity < 0) {
+            throw new ValidationException("The quantity must be greater than 0.");
+        }
+
+        // resolve both locations before either journal is written
+        StockPartition source = DEFAULT_LOCATION.equals(from) ? null : requirePartition(from);
+        StockPartition destination = DEFAULT_LOCATION.equals(to) ? null : requirePartition(to);
+        int available = getQuantity(from, part);
+
+        if (available < quantity) {
+            throw new ValidationException("Location " + from + " holds only " + available + " units of " + part.getName() + ".");
+        }
+
+        if (quantity == 0 || from.equals(to)) {
+            return;
+        }
+
+        int partID = part.getPartID();
+
+        if (source != null) {
+            source.setQuantity(partID, available - quantity);
+        }
+
+        if (destination != null) {
+            destination.setQuantity(partID, destination.getQuantity(partID) + quantity);
+        }
+
+        Inventory.transferStock(part, from, to, quantity);
+    }
+
+    /**
+     * Move stock of a part between locations again. Called by Inventory,
+     * holding its lock, when a transfer is undone, redone or replicated; a
+     * transfer involving a location not registered here is skipped.
+     *
+     * @param part inventory part
+     * @param from source location
+     * @param to destination location
+     * @param quantity units to move
+     * @throws IllegalStateException if the source no longer holds the stock
+     */
+    static void restoreTransfer(Part part, String from, String to, int quantity) {
+        if (!isRegistered(from) || !isRegistered(to)) {
+            return;
+        }
+
+        try {
+            transferLocked(part, from, to, quantity);
+        } catch (ValidationException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Clear a part from every location. Called by Inventory when a part is
+     * removed, so the locations no longer count its stock.
+     *
+     * @param partID
+     */
+    static synchronized void removePart(int partID) {
+        try {
+            for (StockPartition partition : partitions.values()) {
+                if (partition.getQuantity(partID) != 0) {
+                    partition.setQuantity(partID, 0);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Check that an updated part still holds all the stock assigned to named
+     * locations, so the default location is not left below zero. Called by
+     * Inventory before a part is replaced.
+     *
+     * @param part updated part
+     * @throws IllegalArgumentException if its current inventory is less than
+     *         the stock held at named locations
+     */
+    static synchronized void checkInStock(Part part) {
+        int assigned = getAssignedQuantity(part.getPartID());
+
+        if (part.getInStock() < assigned) {
+            throw new IllegalArgumentException("The current inventory of " + part.getName() + " cannot be less than the "
+                    + assigned + " units held at named locations.");
+        }
+    }
+
+    /**
+     * Get the quantity of a part held at each named location
+     *
+     * @param partID
+     * @return quantity keyed by location name, for locations holding any
+     */
+    static synchronized Map<String, Integer> getAssignedQuantities(int partID) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+
+        for (StockPartition partition : partitions.values()) {
+            if (partition.getQuantity(partID) != 0) {
+                quantities.put(partition.getName(), partition.getQuantity(partID));
+            }
+        }
+
+        return quantities;
+    }
+
+    /**
+     * Put a part's stock back at named locations. Called by Inventory when a
+     * removal is undone; locations no longer registered are skipped.
+     *
+     * @param partID
+     * @param quantities quantity keyed by location name
+     */
+    static synchronized void restorePart(int partID, Map<String, Integer> quantities) {
+        try {
+            for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                StockPartition partition = partitions.get(entry.getKey());
+
+                if (partition != null) {
+                    partition.setQuantity(partID, entry.getValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Clear every part from every location in memory. Called by Inventory when
+     * it is emptied or reloaded; location journals are left as they are.
+     */
+    static synchronized void clear() {
+        for (StockPartition partition : partitions.values()) {
+            partition.clearQuantities();
+        }
+    }
+
+    /**
+     * Clear every part from every location and truncate the location
+     * journals, discarding all recorded per-location stock.
+     *
+     * @throws IOException if a journal cannot be truncated
+     */
+    public static void truncate() throws IOException {
+        synchronized (Inventory.class) {
+            truncateLocked();
+        }
+    }
+
+    private static synchronized void truncateLocked() throws IOException {
+        for (StockPartition partition : partitions.values()) {
+            partition.truncate();
+        }
+    }
+
+    /**
+     * Get the quantity of a part assigned to named locations
+     *
+     * @param partID
+     * @return assigned quantity
+     */
+    private static int getAssignedQuantity(int partID) {
+        int assigned = 0;
+
+        for (StockPartition partition : partitions.values()) {
+            assigned += partition.getQuantity(partID);
+        }
+
+        return assigned;
+    }
+
+    private static synchronized boolean isRegistered(String location) {
+        return DEFAULT_LOCATION.equals(location) || partitions.containsKey(location);
+    }
+
+    /**
+     * Get the partition of a named location, failing if it is unknown
+     *
+     * @param name
+     * @return location partition
+     * @throws ValidationException if the location is unknown
+     */
+    private static StockPartition requirePartition(String name) throws ValidationException {
+        StockPartition partition = partitions.get(name);
+
+        if (partition == null) {
+            throw new ValidationException("Unknown location " + name + ".");
+        }
+
+        return partition;
+    }
+}
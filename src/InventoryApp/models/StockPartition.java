@@ -0,0 +1,245 @@
+package InventoryApp.models;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * StockPartition holds the quantity of every part stored at one location.
+ * <p>
+ * Quantities live in a primitive array indexed by part ID, which suits the
+ * dense IDs handed out by the parts screen. A partition may be backed by its
+ * own journal file: every change is appended as a (part ID, quantity) record,
+ * and loading replays the journal and rewrites it compacted. Partitions are
+ * independent, so a large site never has to be loaded or flushed alongside a
+ * small one.
+ *
+ * @see StockLocations
+ */
+public class StockPartition implements Closeable {
+
+    // Initial capacity of the quantity array
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Location name
+    private final String name;
+
+    // Quantity by part ID
+    private int[] quantities = new int[INITIAL_CAPACITY];
+
+    // Total units held at the location
+    private long unitsInStock;
+
+    // Journal file, or null if the partition is held in memory only
+    private Path journalPath;
+
+    // Open journal, or null if the partition is held in memory only
+    private DataOutputStream journal;
+
+    /**
+     * Constructor
+     *
+     * @param name location name
+     */
+    public StockPartition(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the location name
+     *
+     * @return location name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the quantity of a part held at this location
+     *
+     * @param partID
+     * @return quantity, 0 if none
+     */
+    public synchronized int getQuantity(int partID) {
+        if (partID < 0 || partID >= quantities.length) {
+            return 0;
+        }
+
+        return quantities[partID];
+    }
+
+    /**
+     * Get the total units held at this location
+     *
+     * @return units in stock
+     */
+    public synchronized long getUnitsInStock() {
+        return unitsInStock;
+    }
+
+    /**
+     * Set the quantity of a part held at this location, journaling the change
+     * if the partition is backed by a file.
+     *
+     * @param partID
+     * @param quantity
+     * @throws IOException if the journal cannot be written
+     */
+    synchronized void setQuantity(int partID, int quantity) throws IOException {
+        // reject a bad ID before it reaches the journal, where every replay would fail on it
+        ensureCapacity(partID);
+
+        if (journal != null) {
+            journal.writeInt(partID);
+            journal.writeInt(quantity);
+            journal.flush();
+        }
+
+        unitsInStock += quantity - quantities[partID];
+        quantities[partID] = quantity;
+    }
+
+    /**
+     * Clear every quantity held in memory. The journal, if any, is kept, so
+     * opening it again restores the recorded quantities.
+     */
+    synchronized void clearQuantities() {
+        Arrays.fill(quantities, 0);
+        unitsInStock = 0;
+    }
+
+    /**
+     * Clear every quantity and truncate the journal if the partition is
+     * backed by a file, discarding the recorded quantities for good.
+     *
+     * @throws IOException if the journal cannot be truncated
+     */
+    public synchronized void truncate() throws IOException {
+        clearQuantities();
+
+        if (journal != null) {
+            journal.close();
+            journal = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(journalPath,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)));
+        }
+    }
+
+    /**
+     * Load the partition from a journal file and keep journaling to it. The
+     * journal is compacted to one record per stocked part while loading.
+     *
+     * @param path journal file, created if missing
+     * @throws IOException if the journal cannot be read or written
+     */
+    public synchronized void open(Path path) throws IOException {
+        close();
+
+        Arrays.fill(quantities, 0);
+        unitsInStock = 0;
+
+        if (Files.exists(path)) {
+            replay(path);
+        }
+
+        // rewrite the journal compacted, force it to disk, then swap it in atomically
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+
+            for (int partID = 0; partID < quantities.length; partID++) {
+                if (quantities[partID] != 0) {
+                    out.writeInt(partID);
+                    out.writeInt(quantities[partID]);
+                }
+            }
+
+            out.flush();
+            channel.force(true);
+        }
+
+        try {
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // the file system cannot rename over the journal in one step
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        journalPath = path;
+        journal = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.APPEND)));
+    }
+
+    /**
+     * Get the journal file backing this partition
+     *
+     * @return journal file, or null if held in memory only
+     */
+    public synchronized Path getJournalPath() {
+        return journalPath;
+    }
+
+    /**
+     * Close the journal. The partition stays usable in memory.
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+            journalPath = null;
+        }
+    }
+
+    /**
+     * Replay a journal into the quantity array. A torn trailing record left by
+     * a crash is ignored.
+     *
+     * @param path
+     * @throws IOException
+     */
+    private void replay(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int partID = in.readInt();
+                int quantity = in.readInt();
+
+                ensureCapacity(partID);
+                unitsInStock += quantity - quantities[partID];
+                quantities[partID] = quantity;
+            }
+        } catch (EOFException e) {
+            // end of journal
+        }
+    }
+
+    /**
+     * Grow the quantity array to hold a part ID.
+     *
+     * @param partID
+     */
+    private void ensureCapacity(int partID) {
+        if (partID < 0) {
+            throw new IllegalArgumentException("Part ID must not be negative: " + partID);
+        }
+
+        if (partID >= quantities.length) {
+            quantities = Arrays.copyOf(quantities, Math.max(partID + 1, quantities.length * 2));
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package InventoryApp.models;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SupplierDictionary maps the manufacturer names of outsourced inventory parts
+ * to small integer IDs and keeps a supplier to parts index.
+ * <p>
+ * A supplier is registered when its first part enters the Inventory and
+ * dropped, freeing its ID for reuse, when its last part leaves. Parts share
+ * the registered copy of a company name, so it is held once no matter how
+ * many parts reference it. Per-supplier part counts and spend (price in cents
+ * times current inventory) are maintained as exact running totals by the
+ * Inventory, which makes supplier rollups constant time.
+ *
+ * @see OutsourcedPart, Inventory
+ */
+public class SupplierDictionary {
+
+    // Sentinel ID for parts without a company name
+    public static final int NO_SUPPLIER = -1;
+
+    // Supplier ID by company name
+    private final static Map<String, Integer> idsByName = new HashMap<>();
+
+    // Company name by supplier ID, null for a free ID
+    private final static List<String> names = new ArrayList<>();
+
+    // Inventory parts by supplier ID
+    private final static List<Set<OutsourcedPart>> partsBySupplier = new ArrayList<>();
+
+    // Running spend total in cents by supplier ID
+    private final static List<Long> spendBySupplier = new ArrayList<>();
+
+    // IDs of dropped suppliers, reused before new ones
+    private final static Deque<Integer> freeIDs = new ArrayDeque<>();
+
+    /**
+     * Constructor
+     */
+    private SupplierDictionary() {
+    }
+
+    /**
+     * Get the shared copy of a company name. Names are not registered here,
+     * so names that never reach the Inventory are not kept.
+     *
+     * @param companyName
+     * @return the registered copy if a supplier has that name, else companyName
+     */
+    public static synchronized String intern(String companyName) {
+        Integer supplierID = idsByName.get(companyName);
+        return supplierID == null ? companyName : names.get(supplierID);
+    }
+
+    /**
+     * Get the company name for a supplier ID
+     *
+     * @param supplierID
+     * @return company name, or null if the ID is unknown
+     */
+    public static synchronized String getName(int supplierID) {
+        if (supplierID < 0 || supplierID >= names.size()) {
+            return null;
+        }
+
+        return names.get(supplierID);
+    }
+
+    /**
+     * Get the supplier ID for a company name without registering it
+     *
+     * @param companyName
+     * @return supplier ID, or NO_SUPPLIER if the name is unknown
+     */
+    public static synchronized int lookupSupplierID(String companyName) {
+        Integer supplierID = idsByName.get(companyName);
+        return supplierID == null ? NO_SUPPLIER : supplierID;
+    }
+
+    /**
+     * Get the number of suppliers with inventory parts
+     *
+     * @return number of suppliers
+     */
+    public static synchronized int getSuppliersCount() {
+        return idsByName.size();
+    }
+
+    /**
+     * Get the inventory parts supplied by a company
+     *
+     * @param companyName
+     * @return parts from the supplier, empty if none
+     */
+    public static synchronized List<OutsourcedPart> lookupParts(String companyName) {
+        int supplierID = lookupSupplierID(companyName);
+
+        if (supplierID == NO_SUPPLIER) {
+            return Collections.emptyList();
+        }
+
+        return new ArrayList<>(partsBySupplier.get(supplierID));
+    }
+
+    /**
+     * Get the number of inventory parts supplied by a company
+     *
+     * @param companyName
+     * @return number of parts
+     */
+    public static synchronized int getPartsCount(String companyName) {
+        int supplierID = lookupSupplierID(companyName);
+        return supplierID == NO_SUPPLIER ? 0 : partsBySupplier.get(supplierID).size();
+    }
+
+    /**
+     * Get the stock value held for a supplier, summed as price times current
+     * inventory over its parts
+     *
+     * @param companyName
+     * @return supplier spend
+     */
+    public static synchronized double getSpend(String companyName) {
+        int supplierID = lookupSupplierID(companyName);
+        return supplierID == NO_SUPPLIER ? 0.0 : spendBySupplier.get(supplierID) / 100.0;
+    }
+
+    /**
+     * Get the spend of every supplier with at least one inventory part
+     *
+     * @return spend keyed by company name
+     */
+    public static synchronized Map<String, Double> getSpendBySupplier() {
+        Map<String, Double> rollup = new LinkedHashMap<>();
+
+        for (int supplierID = 0; supplierID < names.size(); supplierID++) {
+            if (names.get(supplierID) != null) {
+                rollup.put(names.get(supplierID), spendBySupplier.get(supplierID) / 100.0);
+            }
+        }
+
+        return rollup;
+    }
+
+    /**
+     * Drop every part and supplier from the index. Called by Inventory.
+     */
+    static synchronized void clearParts() {
+        idsByName.clear();
+        names.clear();
+        partsBySupplier.clear();
+        spendBySupplier.clear();
+        freeIDs.clear();
+    }
+
+    /**
+     * Index an inventory part under its supplier, registering the supplier
+     * if this is its first part. Called by Inventory.
+     *
+     * @param part
+     */
+    static synchronized void addPart(OutsourcedPart part) {
+        String companyName = part.getCompanyName();
+
+        if (companyName == null) {
+            return;
+        }
+
+        Integer supplierID = idsByName.get(companyName);
+
+        if (supplierID == null) {
+            supplierID = register(companyName);
+        }
+
+        if (partsBySupplier.get(supplierID).add(part)) {
+            spendBySupplier.set(supplierID, spendBySupplier.get(supplierID) + spendOf(part));
+        }
+    }
+
+    /**
+     * Remove an inventory part from its supplier, dropping the supplier once
+     * it has no parts left. Called by Inventory.
+     *
+     * @param part
+     */
+    static synchronized void removePart(OutsourcedPart part) {
+        Integer supplierID = idsByName.get(part.getCompanyName());
+
+        if (supplierID == null || !partsBySupplier.get(supplierID).remove(part)) {
+            return;
+        }
+
+        spendBySupplier.set(supplierID, spendBySupplier.get(supplierID) - spendOf(part));
+
+        if (partsBySupplier.get(supplierID).isEmpty()) {
+            idsByName.remove(names.get(supplierID));
+            names.set(supplierID, null);
+            spendBySupplier.set(supplierID, 0L);
+            freeIDs.push(supplierID);
+        }
+    }
+
+    /**
+     * Register a supplier under a free ID, or a new one if none is free.
+     *
+     * @param companyName
+     * @return supplier ID
+     */
+    private static int register(String companyName) {
+        Integer supplierID = freeIDs.poll();
+
+        if (supplierID == null) {
+            supplierID = names.size();
+            names.add(companyName);
+            partsBySupplier.add(new LinkedHashSet<>());
+            spendBySupplier.add(0L);
+        } else {
+            names.set(supplierID, companyName);
+        }
+
+        idsByName.put(companyName, supplierID);
+        return supplierID;
+    }
+
+    /**
+     * Get the stock value of a single part in cents. The price is rounded to
+     * the cent first, so the running totals add and subtract exactly.
+     *
+     * @param part
+     * @return price in cents times current inventory
+     */
+    private static long spendOf(Part part) {
+        return Math.round(part.getPrice() * 100) * part.getInStock();
+    }
+}
@@ -0,0 +1,255 @@
+package InventoryApp.replication;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.logging.Logger;
+
+import InventoryApp.models.Inventory;
+
+/**
+ * Replication ships every Inventory change from one primary process to
+ * read-only replicas over local TCP, for read scaling and failover.
+ * <p>
+ * The primary logs each change as a Delta and sends the log to its replicas
+ * in batches; a new or lagging replica first receives a snapshot. Replicas
+ * serve lookups and searches from their own Inventory and report how far they
+ * trail. If the primary fails, promote() turns a replica into the new
+ * primary under a new term, listening on its own port; the other replicas
+ * are pointed at it with startReplica() and resynchronize from a snapshot.
+ * Promotion is always an explicit command: a replica cannot tell a failed
+ * primary from a network partition, so it never promotes itself.
+ * <p>
+ * Terms only grow. A new primary takes a term above both the clock and the
+ * term it followed, so a promoted replica always outranks the primary it
+ * replaced. A replica refuses a primary whose term is below one it has
+ * already followed, and a primary that hears of a higher term stops
+ * accepting changes.
+ *
+ * @see ReplicationPrimary, ReplicationReplica, ReplicationStatus
+ */
+public class Replication {
+
+    /**
+     * Role of this process.
+     */
+    public enum Role {
+        STANDALONE, PRIMARY, REPLICA
+    }
+
+    // Logger for promotion and stepping down
+    private static final Logger logger = Logger.getLogger(Replication.class.getName());
+
+    // Changes a primary keeps for replicas to resume from
+    private static final int LOG_ENTRIES = Integer.getInteger("inventory.replication.logEntries", 65536);
+
+    // Primary, when this process is one
+    private static ReplicationPrimary primary;
+
+    // Replica, when this process is one
+    private static ReplicationReplica replica;
+
+    // Port to listen on once promoted
+    private static int promotionPort;
+
+    // Highest term this process has led or followed
+    private static long highestTerm;
+
+    /**
+     * Constructor
+     */
+    private Replication() {
+    }
+
+    /**
+     * Become the primary, shipping every later change to replicas that
+     * connect to a localhost port
+     *
+     * @param port port, or 0 for any free port
+     * @return bound port
+     * @throws IOException if the port cannot be bound
+     */
+    public static int startPrimary(int port) throws IOException {
+        synchronized (Inventory.class) {
+            return startPrimaryLocked(port, 0);
+        }
+    }
+
+    private static synchronized int startPrimaryLocked(int port, long lastSequence) throws IOException {
+        stopLocked();
+        primary = new ReplicationPrimary(port, newTerm(), lastSequence, LOG_ENTRIES);
+        return primary.getPort();
+    }
+
+    /**
+     * Become a read-only replica of a primary. The local inventory is
+     * replaced by the primary's.
+     *
+     * @param host primary host
+     * @param port primary replication port
+     * @param listenPort port to listen on if this replica is promoted, or 0
+     *        for any free port
+     */
+    public static void startReplica(String host, int port, int listenPort) {
+        synchronized (Inventory.class) {
+            startReplicaLocked(new InetSocketAddress(host, port), listenPort);
+        }
+    }
+
+    private static synchronized void startReplicaLocked(InetSocketAddress address, int listenPort) {
+        stopLocked();
+        promotionPort = listenPort;
+        replica = new ReplicationReplica(address, highestTerm);
+        Inventory.setReadOnly(true);
+    }
+
+    /**
+     * Start replication from system properties: inventory.replication.primary
+     * (host:port) makes this process a replica, otherwise
+     * inventory.replication.port makes it the primary. A replica listens on
+     * inventory.replication.port once promoted.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public static void startFromSystemProperties() throws IOException {
+        String primaryAddress = System.getProperty("inventory.replication.primary");
+        Integer port = Integer.getInteger("inventory.replication.port");
+
+        if (primaryAddress != null) {
+            int colon = primaryAddress.lastIndexOf(':');
+
+            if (colon < 0) {
+                throw new IllegalArgumentException("inventory.replication.primary must be host:port");
+            }
+
+            startReplica(primaryAddress.substring(0, colon), Integer.parseInt(primaryAddress.substring(colon + 1)),
+                    port == null ? 0 : port);
+        } else if (port != null) {
+            startPrimary(port);
+        }
+    }
+
+    /**
+     * Promote this replica to primary, continuing from the last change it
+     * applied, under a term above the one it followed. Use it only once the
+     * primary is known to have failed; other replicas are then pointed at
+     * this one.
+     *
+     * @return port the new primary listens on
+     * @throws IllegalStateException if this process is not a replica
+     * @throws IOException if the port cannot be bound
+     */
+    public static int promote() throws IOException {
+        synchronized (Inventory.class) {
+            return promoteLocked();
+        }
+    }
+
+    private static synchronized int promoteLocked() throws IOException {
+        if (replica == null) {
+            throw new IllegalStateException("This process is not a replica.");
+        }
+
+        long sequence = replica.getSequence();
+        observeTerm(replica.getHighestTerm());
+        int port = startPrimaryLocked(promotionPort, sequence);
+        logger.info("Promoted to primary on port " + port + " at sequence " + sequence + ", term " + primary.getTerm());
+        return port;
+    }
+
+    /**
+     * Stop accepting changes because a replica has followed a newer primary.
+     * Called on a sender thread of the superseded primary.
+     *
+     * @param superseded primary that heard of the newer term
+     * @param term newer term
+     */
+    static void stepDown(ReplicationPrimary superseded, long term) {
+        synchronized (Inventory.class) {
+            stepDownLocked(superseded, term);
+        }
+    }
+
+    private static synchronized void stepDownLocked(ReplicationPrimary superseded, long term) {
+        observeTerm(term);
+
+        if (primary == superseded && !Inventory.isReadOnly()) {
+            logger.severe("A primary of term " + term + " has replaced this one (term " + superseded.getTerm()
+                    + "); refusing further changes.");
+            Inventory.setReadOnly(true);
+        }
+    }
+
+    /**
+     * Record a term this process has followed
+     *
+     * @param term
+     */
+    static synchronized void observeTerm(long term) {
+        highestTerm = Math.max(highestTerm, term);
+    }
+
+    /**
+     * Stop replicating, as either primary or replica
+     */
+    public static void stop() {
+        synchronized (Inventory.class) {
+            stopLocked();
+        }
+    }
+
+    private static synchronized void stopLocked() {
+        if (primary != null) {
+            primary.close();
+            primary = null;
+        }
+
+        if (replica != null) {
+            replica.close();
+            replica = null;
+        }
+
+        // a replica, or a primary that stepped down, accepts changes again
+        Inventory.setReadOnly(false);
+    }
+
+    /**
+     * Determine whether local changes must be refused, as this process is a
+     * replica
+     *
+     * @return true on a replica
+     */
+    public static synchronized boolean isReadOnly() {
+        return replica != null;
+    }
+
+    /**
+     * Get this process's replication status
+     *
+     * @return status
+     */
+    public static synchronized ReplicationStatus getStatus() {
+        if (primary != null) {
+            return new ReplicationStatus(Role.PRIMARY, primary.getTerm(), primary.getSequence(),
+                    primary.getLagEntries(), 0, primary.getReplicas());
+        }
+
+        if (replica != null) {
+            return new ReplicationStatus(Role.REPLICA, replica.getTerm(), replica.getSequence(),
+                    replica.getPrimarySequence() - replica.getSequence(), replica.getLagMillis(),
+                    replica.isConnected() ? 1 : 0);
+        }
+
+        return new ReplicationStatus(Role.STANDALONE, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Choose a term above every term seen so far. The clock keeps terms
+     * growing across restarts, when nothing else is remembered.
+     *
+     * @return term
+     */
+    private static long newTerm() {
+        highestTerm = Math.max(highestTerm + 1, System.currentTimeMillis());
+        return highestTerm;
+    }
+}
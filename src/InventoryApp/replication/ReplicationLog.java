@@ -0,0 +1,124 @@
+package InventoryApp.replication;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ReplicationLog holds the most recent changes published by a primary, each
+ * encoded once and shipped to every replica.
+ * <p>
+ * Sequence numbers start after the sequence the log was created with. The
+ * log keeps a fixed number of entries; a replica that falls further behind
+ * is resynchronized from a snapshot instead.
+ *
+ * @see ReplicationPrimary
+ */
+final class ReplicationLog {
+
+    /**
+     * One encoded change.
+     */
+    static final class Entry {
+
+        // Sequence number
+        final long sequence;
+
+        // Time the change was made, in epoch milliseconds
+        final long time;
+
+        // Encoded Delta, or null for clearing the inventory
+        final byte[] data;
+
+        Entry(long sequence, long time, byte[] data) {
+            this.sequence = sequence;
+            this.time = time;
+            this.data = data;
+        }
+    }
+
+    // Entries, indexed by sequence modulo the capacity
+    private final Entry[] entries;
+
+    // Sequence of the last entry appended
+    private long lastSequence;
+
+    /**
+     * Constructor
+     *
+     * @param capacity entries kept
+     * @param lastSequence sequence the first entry follows
+     */
+    ReplicationLog(int capacity, long lastSequence) {
+        this.entries = new Entry[capacity];
+        this.lastSequence = lastSequence;
+    }
+
+    /**
+     * Append a change, waking any waiting senders
+     *
+     * @param time
+     * @param data encoded Delta, or null for clearing the inventory
+     */
+    synchronized void append(long time, byte[] data) {
+        lastSequence++;
+        entries[(int) (lastSequence % entries.length)] = new Entry(lastSequence, time, data);
+        notifyAll();
+    }
+
+    /**
+     * Get the sequence of the last entry appended
+     *
+     * @return sequence
+     */
+    synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Determine whether every entry after a sequence is still held
+     *
+     * @param sequence
+     * @return true if a replica at this sequence can resume from the log
+     */
+    synchronized boolean canResume(long sequence) {
+        Entry next = entries[(int) ((sequence + 1) % entries.length)];
+        return sequence == lastSequence || (sequence < lastSequence && next != null && next.sequence == sequence + 1);
+    }
+
+    /**
+     * Get the entries after a sequence, waiting for one if there are none yet
+     *
+     * @param sequence last entry already sent
+     * @param max most entries returned
+     * @param waitMillis longest wait for a new entry
+     * @return entries in order, empty if none arrived in time, or null if the
+     *         log no longer holds them
+     * @throws InterruptedException
+     */
+    synchronized List<Entry> since(long sequence, int max, long waitMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+
+        while (lastSequence <= sequence) {
+            long remaining = deadline - System.currentTimeMillis();
+
+            if (remaining <= 0) {
+                return Collections.emptyList();
+            }
+
+            wait(remaining);
+        }
+
+        if (!canResume(sequence)) {
+            return null;
+        }
+
+        List<Entry> batch = new ArrayList<>();
+
+        for (long next = sequence + 1; next <= lastSequence && batch.size() < max; next++) {
+            batch.add(entries[(int) (next % entries.length)]);
+        }
+
+        return batch;
+    }
+}
@@ -0,0 +1,358 @@
+package InventoryApp.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import InventoryApp.models.Delta;
+import InventoryApp.models.Inventory;
+import InventoryApp.models.InventoryListener;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+import InventoryApp.wire.BinaryBatch;
+
+/**
+ * ReplicationPrimary records every Inventory change in a ReplicationLog and
+ * ships the log to replicas over TCP, in batches.
+ * <p>
+ * A replica opens with the term and sequence it last applied. If it follows
+ * this primary's term and the log still holds everything after its sequence,
+ * shipping resumes there; otherwise the replica first receives a snapshot of
+ * the whole inventory as a BinaryBatch. An idle connection carries a heartbeat each second so
+ * replicas can measure their lag and notice a failed primary.
+ *
+ * @see Replication, ReplicationReplica
+ */
+final class ReplicationPrimary implements Closeable {
+
+    // Logger for replica connection failures
+    private static final Logger logger = Logger.getLogger(ReplicationPrimary.class.getName());
+
+    // Frame types
+    static final byte BATCH = 1;
+    static final byte SNAPSHOT = 2;
+    static final byte HEARTBEAT = 3;
+
+    // Most entries sent in one batch
+    private static final int BATCH_ENTRIES = 512;
+
+    // Heartbeat interval on an idle connection
+    static final long HEARTBEAT_MILLIS = 1000;
+
+    // Term identifying this primary; replicas of another term resynchronize
+    private final long term;
+
+    // Recent changes
+    private final ReplicationLog log;
+
+    // Listening socket
+    private final ServerSocket server;
+
+    // Listener recording changes
+    private final Recorder recorder = new Recorder();
+
+    // Connected replicas
+    private final List<Sender> senders = new CopyOnWriteArrayList<>();
+
+    /**
+     * Start recording changes and listening for replicas. Called with the
+     * Inventory lock held, so no change is missed.
+     *
+     * @param port port, or 0 for any free port
+     * @param term
+     * @param lastSequence sequence the first change follows
+     * @param logEntries changes kept for replicas to resume from
+     * @throws IOException if the port cannot be bound
+     */
+    ReplicationPrimary(int port, long term, long lastSequence, int logEntries) throws IOException {
+        this.term = term;
+        this.log = new ReplicationLog(logEntries, lastSequence);
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Inventory.addListener(recorder);
+
+        Thread acceptor = new Thread(this::accept, "replication-primary");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    long getTerm() {
+        return term;
+    }
+
+    int getPort() {
+        return server.getLocalPort();
+    }
+
+    long getSequence() {
+        return log.getLastSequence();
+    }
+
+    int getReplicas() {
+        return senders.size();
+    }
+
+    /**
+     * Get the number of changes the slowest replica has yet to be sent
+     *
+     * @return entries behind
+     */
+    long getLagEntries() {
+        long last = log.getLastSequence();
+        long lag = 0;
+
+        for (Sender sender : senders) {
+            lag = Math.max(lag, last - sender.sent);
+        }
+
+        return lag;
+    }
+
+    /**
+     * Stop recording and disconnect every replica
+     */
+    @Override
+    public void close() {
+        synchronized (Inventory.class) {
+            Inventory.removeListener(recorder);
+        }
+
+        try {
+            server.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not close the replication socket", e);
+        }
+
+        for (Sender sender : senders) {
+            sender.close();
+        }
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Sender sender = new Sender(socket);
+                senders.add(sender);
+                Thread thread = new Thread(sender, "replication-sender-" + socket.getPort());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    logger.log(Level.WARNING, "Could not accept a replica", e);
+                }
+            }
+        }
+    }
+
+    private void record(Delta delta) {
+        if (delta != null) {
+            log.append(System.currentTimeMillis(), encode(delta));
+        }
+    }
+
+    static byte[] encode(Delta delta) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            delta.write(new DataOutputStream(bytes));
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ships the log to one replica.
+     */
+    private final class Sender implements Runnable {
+
+        // Replica connection
+        private final Socket socket;
+
+        // Sequence of the last entry sent
+        private volatile long sent;
+
+        Sender(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                long replicaTerm = in.readLong();
+                long replicaSequence = in.readLong();
+
+                if (replicaTerm > term) {
+                    // the replica followed a newer primary, so this one was replaced
+                    Replication.stepDown(ReplicationPrimary.this, replicaTerm);
+                    return;
+                }
+
+                if (replicaTerm == term && log.canResume(replicaSequence)) {
+                    sent = replicaSequence;
+                } else {
+                    sendSnapshot(out);
+                }
+
+                while (!socket.isClosed()) {
+                    List<ReplicationLog.Entry> batch = log.since(sent, BATCH_ENTRIES, HEARTBEAT_MILLIS);
+
+                    if (batch == null) {
+                        // fell behind the log; the replica reconnects and takes a snapshot
+                        return;
+                    }
+
+                    if (batch.isEmpty()) {
+                        out.writeByte(HEARTBEAT);
+                        out.writeLong(term);
+                        out.writeLong(log.getLastSequence());
+                        out.writeLong(System.currentTimeMillis());
+                    } else {
+                        writeBatch(out, batch);
+                        sent = batch.get(batch.size() - 1).sequence;
+                    }
+
+                    out.flush();
+                }
+            } catch (IOException e) {
+                logger.log(Level.INFO, "Replica " + socket.getRemoteSocketAddress() + " disconnected", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Send the whole inventory as a binary batch, as of the last logged
+         * change
+         *
+         * @param out
+         * @throws IOException
+         */
+        private void sendSnapshot(DataOutputStream out) throws IOException {
+            ByteBuffer batch;
+            long sequence;
+
+            synchronized (Inventory.class) {
+                sequence = log.getLastSequence();
+                batch = BinaryBatch.encode(Inventory.getParts(), Inventory.getProducts());
+            }
+
+            out.writeByte(SNAPSHOT);
+            out.writeLong(term);
+            out.writeLong(sequence);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(batch.remaining());
+
+            // not closed, as that would close the connection
+            WritableByteChannel channel = Channels.newChannel(out);
+
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+
+            out.flush();
+            sent = sequence;
+        }
+
+        private void writeBatch(DataOutputStream out, List<ReplicationLog.Entry> batch) throws IOException {
+            out.writeByte(BATCH);
+            out.writeLong(term);
+            out.writeInt(batch.size());
+
+            for (ReplicationLog.Entry entry : batch) {
+                out.writeLong(entry.sequence);
+                out.writeLong(entry.time);
+
+                if (entry.data == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(entry.data.length);
+                    out.write(entry.data);
+                }
+            }
+        }
+
+        void close() {
+            senders.remove(this);
+
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Could not close a replica connection", e);
+            }
+        }
+    }
+
+    /**
+     * Inventory listener logging each change as a delta.
+     */
+    private final class Recorder implements InventoryListener {
+
+        @Override
+        public void partAdded(Part part) {
+            record(Delta.partAdded(part));
+        }
+
+        @Override
+        public void partRemoved(Part part) {
+            record(Delta.partRemoved(part));
+        }
+
+        @Override
+        public void partUpdated(Part oldPart, Part newPart) {
+            // in-place changes are logged by stockAdjusted()
+            if (oldPart != newPart) {
+                record(Delta.partUpdated(oldPart, newPart));
+            }
+        }
+
+        @Override
+        public void stockAdjusted(Part part, int oldInStock) {
+            record(Delta.stockAdjusted(part, oldInStock));
+        }
+
+        @Override
+        public void stockTransferred(Part part, String from, String to, int quantity) {
+            // replicas move the stock only between locations they have registered
+            record(Delta.stockTransferred(part, from, to, quantity));
+        }
+
+        @Override
+        public void productAdded(Product product) {
+            record(Delta.productAdded(product));
+        }
+
+        @Override
+        public void productRemoved(Product product) {
+            record(Delta.productRemoved(product));
+        }
+
+        @Override
+        public void productUpdated(Product oldProduct, Product newProduct) {
+            record(Delta.productUpdated(oldProduct, newProduct));
+        }
+
+        @Override
+        public void inventoryCleared() {
+            log.append(System.currentTimeMillis(), null);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package InventoryApp.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import InventoryApp.models.Delta;
+import InventoryApp.models.Inventory;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+import InventoryApp.wire.BinaryBatch;
+
+/**
+ * ReplicationReplica follows a primary: it applies the snapshot and batches
+ * of changes the primary ships, in order, each batch under one Inventory
+ * lock, and reconnects whenever the connection drops.
+ * <p>
+ * A replica never promotes itself. It refuses a primary whose term is below
+ * the highest it has followed, so a primary that was replaced cannot feed
+ * it stale changes.
+ *
+ * @see Replication, ReplicationPrimary
+ */
+final class ReplicationReplica implements Closeable {
+
+    // Logger for connection failures
+    private static final Logger logger = Logger.getLogger(ReplicationReplica.class.getName());
+
+    // Longest silence before the connection is considered failed
+    private static final int READ_TIMEOUT_MILLIS = (int) (5 * ReplicationPrimary.HEARTBEAT_MILLIS);
+
+    // Wait between connection attempts
+    private static final long RETRY_MILLIS = 1000;
+
+    // Primary address
+    private final InetSocketAddress primary;
+
+
+    // Follower thread
+    private final Thread thread;
+
+    // Term of the primary followed
+    private volatile long term;
+
+    // Highest term followed; primaries of lower terms are refused
+    private volatile long highestTerm;
+
+    // Sequence of the last change applied
+    private volatile long sequence;
+
+    // Primary commit time of the last change applied
+    private volatile long appliedTime;
+
+    // Last sequence the primary reported
+    private volatile long primarySequence;
+
+    // Whether the primary is connected
+    private volatile boolean connected;
+
+    // Current connection, if any
+    private volatile Socket socket;
+
+    // Cleared by close()
+    private volatile boolean running = true;
+
+    /**
+     * Start following a primary
+     *
+     * @param primary
+     * @param highestTerm highest term this process has led or followed
+     */
+    ReplicationReplica(InetSocketAddress primary, long highestTerm) {
+        this.primary = primary;
+        this.highestTerm = highestTerm;
+        this.thread = new Thread(this::run, "replication-replica");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    long getTerm() {
+        return term;
+    }
+
+    long getHighestTerm() {
+        return highestTerm;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    long getPrimarySequence() {
+        return Math.max(primarySequence, sequence);
+    }
+
+    boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Get how far the replica trails the primary in time
+     *
+     * @return milliseconds since the oldest change not yet applied was made,
+     *         or 0 if caught up
+     */
+    long getLagMillis() {
+        return sequence >= primarySequence ? 0 : Math.max(0, System.currentTimeMillis() - appliedTime);
+    }
+
+    /**
+     * Stop following the primary
+     */
+    @Override
+    public void close() {
+        running = false;
+        closeSocket();
+
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket s = new Socket()) {
+                socket = s;
+                s.connect(primary, READ_TIMEOUT_MILLIS);
+                s.setSoTimeout(READ_TIMEOUT_MILLIS);
+                s.setTcpNoDelay(true);
+                follow(s);
+            } catch (IOException e) {
+                if (running && connected) {
+                    logger.log(Level.WARNING, "Lost the primary at " + primary, e);
+                }
+            } catch (RuntimeException e) {
+                // diverged from the primary; an unknown term forces a snapshot
+                logger.log(Level.SEVERE, "Could not apply a change from " + primary + "; resynchronizing", e);
+                term = 0;
+            } finally {
+                connected = false;
+                socket = null;
+            }
+
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Apply frames from a connected primary until the connection fails
+     *
+     * @param s
+     * @throws IOException
+     */
+    private void follow(Socket s) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+        out.writeLong(term);
+        out.writeLong(sequence);
+        out.flush();
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+
+        while (running) {
+            byte type = in.readByte();
+            long frameTerm = in.readLong();
+
+            if (frameTerm < highestTerm) {
+                logger.warning("Refusing the primary at " + primary + ": its term " + frameTerm
+                        + " is older than term " + highestTerm + ", already followed.");
+                throw new IOException("Stale primary term " + frameTerm);
+            }
+
+            highestTerm = frameTerm;
+            Replication.observeTerm(frameTerm);
+            connected = true;
+
+            switch (type) {
+                case ReplicationPrimary.SNAPSHOT:
+                    applySnapshot(in, frameTerm);
+                    break;
+                case ReplicationPrimary.BATCH:
+                    applyBatch(in);
+                    break;
+                case ReplicationPrimary.HEARTBEAT:
+                    primarySequence = in.readLong();
+                    in.readLong();
+
+                    if (sequence >= primarySequence) {
+                        appliedTime = System.currentTimeMillis();
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown replication frame " + type);
+            }
+        }
+    }
+
+    private void applySnapshot(DataInputStream in, long frameTerm) throws IOException {
+        long snapshotSequence = in.readLong();
+        long time = in.readLong();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(in.readInt());
+
+        // not closed, as that would close the connection
+        ReadableByteChannel channel = Channels.newChannel(in);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                throw new EOFException("Truncated snapshot");
+            }
+        }
+
+        buffer.flip();
+        BinaryBatch batch = BinaryBatch.wrap(buffer);
+
+        List<Part> parts = batch.readParts();
+        Map<Integer, Part> byID = new HashMap<>();
+
+        for (Part part : parts) {
+            byID.put(part.getPartID(), part);
+        }
+
+        List<Product> products = batch.readProducts(byID::get);
+
+        synchronized (Inventory.class) {
+            requireRunning();
+            // replace the inventory in one batch, so listeners are notified once
+            Inventory.load(parts, products);
+        }
+
+        term = frameTerm;
+        sequence = snapshotSequence;
+        primarySequence = snapshotSequence;
+        appliedTime = time;
+    }
+
+    private void applyBatch(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        long[] sequences = new long[count];
+        long[] times = new long[count];
+        byte[][] deltas = new byte[count][];
+
+        for (int i = 0; i < count; i++) {
+            sequences[i] = in.readLong();
+            times[i] = in.readLong();
+            int length = in.readInt();
+
+            if (length >= 0) {
+                deltas[i] = new byte[length];
+                in.readFully(deltas[i]);
+            }
+        }
+
+        primarySequence = Math.max(primarySequence, sequences[count - 1]);
+
+        synchronized (Inventory.class) {
+            requireRunning();
+
+            for (int i = 0; i < count; i++) {
+                if (deltas[i] == null) {
+                    Inventory.clear();
+                } else {
+                    // read each delta only once the changes before it are applied
+                    Inventory.apply(Delta.read(new DataInputStream(new ByteArrayInputStream(deltas[i]))));
+                }
+            }
+        }
+
+        sequence = sequences[count - 1];
+        appliedTime = times[count - 1];
+    }
+
+    /**
+     * Refuse to apply changes once closed. Checked under the Inventory lock,
+     * which close() is called with, so a promoted replica applies nothing
+     * more.
+     *
+     * @throws IOException if closed
+     */
+    private void requireRunning() throws IOException {
+        if (!running) {
+            throw new IOException("The replica was closed.");
+        }
+    }
+
+    private void closeSocket() {
+        Socket s = socket;
+
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Could not close the primary connection", e);
+            }
+        }
+    }
+}
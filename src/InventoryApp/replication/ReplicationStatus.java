@@ -0,0 +1,110 @@
+package InventoryApp.replication;
+
+/**
+ * ReplicationStatus is a point-in-time summary of this process's role in
+ * replication.
+ *
+ * @see Replication
+ */
+public final class ReplicationStatus {
+
+    // Role of this process
+    private final Replication.Role role;
+
+    // Term of the primary, or 0 if none
+    private final long term;
+
+    // Sequence of the last change published or applied
+    private final long sequence;
+
+    // Changes behind: the slowest replica on a primary, or this replica
+    private final long lagEntries;
+
+    // Time behind the primary, on a replica
+    private final long lagMillis;
+
+    // Replicas connected to a primary, or 1 if a replica reaches its primary
+    private final int connections;
+
+    /**
+     * Constructor
+     *
+     * @param role
+     * @param term
+     * @param sequence
+     * @param lagEntries
+     * @param lagMillis
+     * @param connections
+     */
+    ReplicationStatus(Replication.Role role, long term, long sequence, long lagEntries, long lagMillis, int connections) {
+        this.role = role;
+        this.term = term;
+        this.sequence = sequence;
+        this.lagEntries = lagEntries;
+        this.lagMillis = lagMillis;
+        this.connections = connections;
+    }
+
+    /**
+     * Get the role of this process
+     *
+     * @return role
+     */
+    public Replication.Role getRole() {
+        return role;
+    }
+
+    /**
+     * Get the term of the primary
+     *
+     * @return term, or 0 if none
+     */
+    public long getTerm() {
+        return term;
+    }
+
+    /**
+     * Get the sequence of the last change published, on a primary, or
+     * applied, on a replica
+     *
+     * @return sequence
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Get the replication lag in changes: on a primary, how far the slowest
+     * replica trails; on a replica, how far it trails its primary
+     *
+     * @return changes behind
+     */
+    public long getLagEntries() {
+        return lagEntries;
+    }
+
+    /**
+     * Get how far a replica trails its primary in time
+     *
+     * @return milliseconds behind, 0 when caught up or not a replica
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * Get the number of replicas connected to a primary, or 1 if a replica
+     * reaches its primary and 0 if not
+     *
+     * @return connections
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("role=%s term=%d sequence=%d lagEntries=%d lagMillis=%d connections=%d",
+                role, term, sequence, lagEntries, lagMillis, connections);
+    }
+}
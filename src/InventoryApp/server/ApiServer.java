@@ -0,0 +1,1314 @@
+package InventoryApp.server;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import InventoryApp.exceptions.ValidationException;
+import InventoryApp.matching.DuplicateDetector;
+import InventoryApp.matching.DuplicateReport;
+import InventoryApp.matching.PartMatch;
+import InventoryApp.models.BulkEdit;
+import InventoryApp.models.InhousePart;
+import InventoryApp.models.Inventory;
+import InventoryApp.models.InventoryTimeline;
+import InventoryApp.models.OutsourcedPart;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+import InventoryApp.replication.Replication;
+import InventoryApp.replication.ReplicationStatus;
+import InventoryApp.wire.BinaryBatch;
+
+/**
+ * ApiServer exposes the Inventory over a local HTTP/JSON API so other systems
+ * can reach it without the GUI.
+ * <p>
+ * Routes:
+ * <ul>
+ * <li>GET /parts, optionally filtered by name, minPrice, maxPrice, supplier
+ * or machine query parameters</li>
+ * <li>GET, PUT and DELETE /parts/{id}; POST /parts</li>
+ * <li>POST /parts/bulk edits the parts listed by ID, or those matching the
+ * /parts filters, in one batch</li>
+ * <li>GET /products, optionally filtered by name, minPrice or maxPrice</li>
+ * <li>GET, PUT and DELETE /products/{id}; POST /products</li>
+ * <li>GET /batch exports, and POST /batch imports, parts and products as a
+ * BinaryBatch</li>
+ * <li>GET /replication; POST /replication/promote</li>
+ * </ul>
+ * GET requests accept an asOf parameter, in epoch milliseconds or ISO-8601,
+ * to read the inventory at a past time when the InventoryTimeline is enabled.
+ * Lists read as of a time accept the name and price filters.
+ * On a read-only replica, mutations are refused with 409. Request bodies
+ * larger than inventory.api.maxBodyBytes (64 MB by default) are refused with
+ * 413 before they are buffered.
+ * Responses are streamed as they are written. Requests run on a fixed pool
+ * of inventory.api.threads threads; when every thread is busy and the queue
+ * is full, the accepting thread runs the request itself, so further
+ * connections wait in the listen backlog. Reads run on the request thread;
+ * mutations are handed to a mutation executor so that, when the GUI
+ * is running, the observable lists are only changed on the JavaFX thread.
+ *
+ * @see Inventory
+ */
+public class ApiServer {
+
+    // Logger for failed requests
+    private static final Logger logger = Logger.getLogger(ApiServer.class.getName());
+
+    // Default port when none is given
+    public static final int DEFAULT_PORT = 8080;
+
+    // Pending connection backlog
+    private static final int BACKLOG = 1024;
+
+    // Request handler threads
+    private static final int THREADS = Integer.getInteger("inventory.api.threads",
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+
+    // Requests queued for a handler thread
+    private static final int QUEUED_REQUESTS = 256;
+
+    // Largest request body read into memory
+    private static final int MAX_BODY_BYTES = Integer.getInteger("inventory.api.maxBodyBytes", 64 << 20);
+
+    // Duplicate pairs written by default
+    private static final int DEFAULT_MATCH_LIMIT = 1000;
+
+    // Suggestions returned by default
+    private static final int DEFAULT_SUGGESTIONS = 5;
+
+    // Underlying HTTP server
+    private final HttpServer server;
+
+    // Request handler threads
+    private final ExecutorService requestExecutor;
+
+    // Executor used to apply mutations
+    private final Executor mutationExecutor;
+
+    // Serializes read-modify-write sequences such as ID assignment
+    private final ReentrantLock mutationLock = new ReentrantLock();
+
+    /**
+     * Constructor. Binds to the loopback interface but does not start serving.
+     *
+     * @param port port to listen on, 0 for any free port
+     * @param mutationExecutor executor used to apply mutations
+     * @throws IOException if the port cannot be bound
+     */
+    public ApiServer(int port, Executor mutationExecutor) throws IOException {
+        this.mutationExecutor = mutationExecutor;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        this.requestExecutor = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUED_REQUESTS), new DaemonThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        server.setExecutor(requestExecutor);
+        server.createContext("/parts", this::handleParts);
+        server.createContext("/products", this::handleProducts);
+        server.createContext("/batch", this::handleBatch);
+        server.createContext("/replication", this::handleReplication);
+        server.createContext("/parts/duplicates", this::handleMatching);
+        server.createContext("/parts/similar", this::handleMatching);
+        server.createContext("/parts/bulk", this::handleBulkEdit);
+    }
+
+    /**
+     * Start serving requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop serving requests, waiting up to a second for exchanges in flight.
+     */
+    public void stop() {
+        server.stop(1);
+        requestExecutor.shutdown();
+    }
+
+    /**
+     * Get the bound port
+     *
+     * @return port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Handle /parts requests.
+     *
+     * @param exchange
+     * @throws IOException
+     */
+    private void handleParts(HttpExchange exchange) throws IOException {
+        try {
+            Integer partID = parseID(exchange, "/parts");
+            String method = exchange.getRequestMethod();
+
+            if (partID == null && "GET".equals(method)) {
+                List<Part> parts = searchParts(parseQuery(exchange));
+                respond(exchange, 200, out -> writeArray(out, parts, ApiServer::writePart));
+            } else if (partID == null && "POST".equals(method)) {
+                Map<String, Object> body = readBody(exchange);
+                Part part = mutate(() -> {
+                    Part newPart = toPart(body, Inventory.allocatePartID());
+                    newPart.isValid();
+                    Inventory.addPart(newPart);
+                    return newPart;
+                });
+                respond(exchange, 201, out -> writePart(out, part));
+            } else if (partID == null) {
+                respondError(exchange, 405, "Method not allowed");
+            } else if ("GET".equals(method)) {
+                Map<String, String> query = parseQuery(exchange);
+                Part part = query.containsKey("asOf")
+                        ? InventoryTimeline.lookupPartAsOf(partID, parseTime(query.get("asOf")))
+                        : Inventory.lookupPart(partID);
+
+                if (part == null) {
+                    respondError(exchange, 404, "Part not found");
+                } else {
+                    respond(exchange, 200, out -> writePart(out, part));
+                }
+            } else if ("PUT".equals(method)) {
+                Map<String, Object> body = readBody(exchange);
+                Part part = mutate(() -> {
+                    if (Inventory.lookupPart(partID) == null) {
+                        return null;
+                    }
+
+                    Part updatedPart = toPart(body, partID);
+                    updatedPart.isValid();
+                    Inventory.updatePart(updatedPart);
+                    return updatedPart;
+                });
+
+                if (part == null) {
+                    respondError(exchange, 404, "Part not found");
+                } else {
+                    respond(exchange, 200, out -> writePart(out, part));
+                }
+            } else if ("DELETE".equals(method)) {
+                if (mutate(() -> Inventory.removePart(partID))) {
+                    respondEmpty(exchange);
+                } else {
+                    respondError(exchange, 404, "Part not found");
+                }
+            } else {
+                respondError(exchange, 405, "Method not allowed");
+            }
+        } catch (ValidationException | IllegalArgumentException e) {
+            respondError(exchange, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            respondError(exchange, 409, e.getMessage());
+        } catch (BodyTooLargeException e) {
+            respondError(exchange, 413, e.getMessage());
+        } catch (Exception e) {
+            respondInternalError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Handle /products requests.
+     *
+     * @param exchange
+     * @throws IOException
+     */
+    private void handleProducts(HttpExchange exchange) throws IOException {
+        try {
+            Integer productID = parseID(exchange, "/products");
+            String method = exchange.getRequestMethod();
+
+            if (productID == null && "GET".equals(method)) {
+                List<Product> products = searchProducts(parseQuery(exchange));
+                respond(exchange, 200, out -> writeArray(out, products, ApiServer::writeProduct));
+            } else if (productID == null && "POST".equals(method)) {
+                Map<String, Object> body = readBody(exchange);
+                Product product = mutate(() -> {
+                    Product newProduct = toProduct(body, Inventory.allocateProductID());
+                    newProduct.isValid();
+                    Inventory.addProduct(newProduct);
+                    return newProduct;
+                });
+                respond(exchange, 201, out -> writeProduct(out, product));
+            } else if (productID == null) {
+                respondError(exchange, 405, "Method not allowed");
+            } else if ("GET".equals(method)) {
+                Map<String, String> query = parseQuery(exchange);
+                Product product = query.containsKey("asOf")
+                        ? InventoryTimeline.lookupProductAsOf(productID, parseTime(query.get("asOf")))
+                        : Inventory.lookupProduct(productID);
+
+                if (product == null) {
+                    respondError(exchange, 404, "Product not found");
+                } else {
+                    respond(exchange, 200, out -> writeProduct(out, product));
+                }
+            } else if ("PUT".equals(method)) {
+                Map<String, Object> body = readBody(exchange);
+                Product product = mutate(() -> {
+                    if (Inventory.lookupProduct(productID) == null) {
+                        return null;
+                    }
+
+                    Product updatedProduct = toProduct(body, productID);
+                    updatedProduct.isValid();
+                    Inventory.updateProduct(updatedProduct);
+                    return updatedProduct;
+                });
+
+                if (product == null) {
+                    respondError(exchange, 404, "Product not found");
+                } else {
+                    respond(exchange, 200, out -> writeProduct(out, product));
+                }
+            } else if ("DELETE".equals(method)) {
+                // products with associated parts cannot be deleted
+                Boolean removed = mutate(() -> {
+                    Product product = Inventory.lookupProduct(productID);
+
+                    if (product == null) {
+                        return null;
+                    }
+
+                    return Inventory.canDeleteProduct(product) && Inventory.removeProduct(productID);
+                });
+
+                if (removed == null) {
+                    respondError(exchange, 404, "Product not found");
+                } else if (removed) {
+                    respondEmpty(exchange);
+                } else {
+                    respondError(exchange, 409, "This product has associated parts.");
+                }
+            } else {
+                respondError(exchange, 405, "Method not allowed");
+            }
+        } catch (ValidationException | IllegalArgumentException e) {
+            respondError(exchange, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            respondError(exchange, 409, e.getMessage());
+        } catch (BodyTooLargeException e) {
+            respondError(exchange, 413, e.getMessage());
+        } catch (Exception e) {
+            respondInternalError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Handle /batch requests: GET exports the whole inventory as a binary
+     * batch, and POST imports one, replacing parts and products whose IDs
+     * already exist and adding the rest.
+     *
+     * @param exchange
+     * @throws IOException
+     */
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+
+            if ("GET".equals(method)) {
+                ByteBuffer batch;
+
+                synchronized (Inventory.class) {
+                    batch = BinaryBatch.encode(Inventory.getParts(), Inventory.getProducts());
+                }
+
+                respondBinary(exchange, batch);
+            } else if ("POST".equals(method)) {
+                BinaryBatch batch = BinaryBatch.wrap(readBinaryBody(exchange));
+                mutate(() -> importBatch(batch));
+                respond(exchange, 200, out -> {
+                    out.write('{');
+                    Json.writeName(out, "parts");
+                    out.write(Integer.toString(batch.getPartCount()));
+                    out.write(',');
+                    Json.writeName(out, "products");
+                    out.write(Integer.toString(batch.getProductCount()));
+                    out.write('}');
+                });
+            } else {
+                respondError(exchange, 405, "Method not allowed");
+            }
+        } catch (ValidationException | IllegalArgumentException e) {
+            respondError(exchange, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            respondError(exchange, 409, e.getMessage());
+        } catch (BodyTooLargeException e) {
+            respondError(exchange, 413, e.getMessage());
+        } catch (Exception e) {
+            respondInternalError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Import a binary batch. Every part and product is validated, and every
+     * part to replace is looked up, before any is applied; products may use
+     * parts from the batch or the inventory.
+     *
+     * @param batch
+     * @return null
+     * @throws ValidationException if a part or product is invalid, or an ID
+     *         appears twice in the batch
+     */
+    private static Void importBatch(BinaryBatch batch) throws ValidationException {
+        synchronized (Inventory.class) {
+            Map<Integer, Part> parts = new HashMap<>();
+            Set<Integer> productIDs = new HashSet<>();
+
+            for (Part part : Inventory.getParts()) {
+                parts.put(part.getPartID(), part);
+            }
+
+            for (Product product : Inventory.getProducts()) {
+                productIDs.add(product.getProductID());
+            }
+
+            Set<Integer> partIDs = new HashSet<>(parts.keySet());
+            Set<Integer> batchIDs = new HashSet<>();
+            List<Part> newParts = batch.readParts();
+            List<Part> updatedParts = new ArrayList<>();
+            List<Part> addedParts = new ArrayList<>();
+
+            for (Part part : newParts) {
+                part.isValid();
+
+                if (!batchIDs.add(part.getPartID())) {
+                    throw new ValidationException("Part " + part.getPartID() + " appears twice in the batch.");
+                }
+
+                parts.put(part.getPartID(), part);
+
+                if (partIDs.contains(part.getPartID())) {
+                    updatedParts.add(part);
+                } else {
+                    addedParts.add(part);
+                }
+            }
+
+            List<Product> newProducts = batch.readProducts(parts::get);
+            batchIDs.clear();
+
+            for (Product product : newProducts) {
+                product.isValid();
+
+                if (!batchIDs.add(product.getProductID())) {
+                    throw new ValidationException("Product " + product.getProductID() + " appears twice in the batch.");
+                }
+            }
+
+            // updateParts() checks every part before replacing any, so a
+            // failure here leaves the inventory unchanged
+            Inventory.updateParts(updatedParts);
+
+            for (Part part : addedParts) {
+                Inventory.addPart(part);
+            }
+
+            for (Product product : newProducts) {
+                if (productIDs.contains(product.getProductID())) {
+                    Inventory.updateProduct(product);
+                } else {
+                    Inventory.addProduct(product);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Handle /replication requests: GET reports the replication status, and
+     * POST /replication/promote promotes a replica whose primary has failed.
+     *
+     * @param exchange
+     * @throws IOException
+     */
+    private void handleReplication(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+
+            if ("/replication".equals(path) && "GET".equals(method)) {
+                ReplicationStatus status = Replication.getStatus();
+                respond(exchange, 200, out -> writeReplicationStatus(out, status));
+            } else if ("/replication/promote".equals(path) && "POST".equals(method)) {
+                Replication.promote();
+                ReplicationStatus status = Replication.getStatus();
+                respond(exchange, 200, out -> writeReplicationStatus(out, status));
+            } else {
+                respondError(exchange, 405, "Method not allowed");
+            }
+        } catch (IllegalStateException e) {
+            respondError(exchange, 409, e.getMessage());
+        } catch (Exception e) {
+            respondInternalError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Handle POST /parts/bulk. The body holds the edit, as pricePercent,
+     * minChange, maxChange and companyName, each optional, and may list the
+     * part IDs to edit as ids; without ids, the parts matching the same query
+     * parameters as GET /parts are edited. Every part is validated before any
+     * is changed.
+     *
+     * @param exchange
+     * @throws IOException
+     */
+    private void handleBulkEdit(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respondError(exchange, 405, "Method not allowed");
+                return;
+            }
+
+            Map<String, String> query = parseQuery(exchange);
+            Map<String, Object> body = readBody(exchange);
+            BulkEdit edit = toBulkEdit(body);
+
+            if (query.containsKey("asOf")) {
+                throw new IllegalArgumentException("Past parts cannot be edited");
+            }
+
+            List<Part> parts = mutate(() -> {
+                List<Integer> partIDs = new ArrayList<>();
+
+                if (body.containsKey("ids")) {
+                    if (!(body.get("ids") instanceof List)) {
+                        throw new ValidationException("The ids field must list part IDs.");
+                    }
+
+                    for (Object partID : (List<?>) body.get("ids")) {
+                        if (!(partID instanceof Double)) {
+                            throw new ValidationException("The ids field must list part IDs.");
+                        }
+
+                        partIDs.add(((Double) partID).intValue());
+                    }
+                } else {
+                    for (Part part : searchParts(query)) {
+                        partIDs.add(part.getPartID());
+                    }
+                }
+
+                return edit.apply(partIDs);
+            });
+
+            respond(exchange, 200, out -> writeArray(out, parts, ApiServer::writePart));
+        } catch (ValidationException | IllegalArgumentException e) {
+            respondError(exchange, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            respondError(exchange, 409, e.getMessage());
+        } catch (BodyTooLargeException e) {
+            respondError(exchange, 413, e.getMessage());
+        } catch (Exception e) {
+            respondInternalError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Handle /parts/duplicates and /parts/similar requests. The first reports
+     * likely duplicates across the catalog; the second suggests existing
+     * parts like the name, price and source given.
+     *
+     * @param exchange
+     * @throws IOException
+     */
+    private void handleMatching(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> query = parseQuery(exchange);
+
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respondError(exchange, 405, "Method not allowed");
+            } else if ("/parts/duplicates".equals(path)) {
+                double minScore = parseDouble(query.get("minScore"), DuplicateDetector.DEFAULT_MIN_SCORE);
+                int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_MATCH_LIMIT;
+                DuplicateReport report = DuplicateDetector.report(minScore);
+                respond(exchange, 200, out -> writeDuplicateReport(out, report, limit));
+            } else if ("/parts/similar".equals(path)) {
+                String name = query.get("name");
+
+                if (name == null) {
+                    throw new IllegalArgumentException("Missing name");
+                }
+
+                List<PartMatch> matches = DuplicateDetector.suggest(name, parseDouble(query.get("price"), Double.NaN),
+                        query.get("source"), query.containsKey("exclude") ? Integer.parseInt(query.get("exclude")) : -1,
+                        query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_SUGGESTIONS);
+                respond(exchange, 200, out -> writeArray(out, matches, ApiServer::writeMatch));
+            } else {
+                respondError(exchange, 404, "Not found");
+            }
+        } catch (IllegalArgumentException e) {
+            respondError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            respondInternalError(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Search parts by the query parameters. A price range is served from the
+     * price index; the remaining filters are applied to its result.
+     *
+     * @param query
+     * @return matching parts
+     */
+    private static List<Part> searchParts(Map<String, String> query) {
+        List<Part> candidates;
+
+        if (query.containsKey("asOf")) {
+            candidates = InventoryTimeline.listPartsAsOf(parseTime(query.get("asOf")));
+        } else if (query.containsKey("supplier")) {
+            candidates = new ArrayList<>(Inventory.lookupPartsBySupplier(query.get("supplier")));
+        } else if (query.containsKey("machine")) {
+            candidates = new ArrayList<>(Inventory.lookupPartsByMachine(Integer.parseInt(query.get("machine"))));
+        } else if (query.containsKey("minPrice") || query.containsKey("maxPrice")) {
+            candidates = Inventory.lookupPartsByPrice(
+                    parseDouble(query.get("minPrice"), Double.NEGATIVE_INFINITY),
+                    parseDouble(query.get("maxPrice"), Double.POSITIVE_INFINITY));
+        } else {
+            candidates = Inventory.listParts();
+        }
+
+        double minPrice = parseDouble(query.get("minPrice"), Double.NEGATIVE_INFINITY);
+        double maxPrice = parseDouble(query.get("maxPrice"), Double.POSITIVE_INFINITY);
+        String name = query.get("name");
+        List<Part> parts = new ArrayList<>();
+
+        for (Part part : candidates) {
+            if (part.getPrice() >= minPrice && part.getPrice() <= maxPrice && nameMatches(part.getName(), name)) {
+                parts.add(part);
+            }
+        }
+
+        return parts;
+    }
+
+    /**
+     * Search products by the query parameters.
+     *
+     * @param query
+     * @return matching products
+     */
+    private static List<Product> searchProducts(Map<String, String> query) {
+        List<Product> candidates;
+
+        if (query.containsKey("asOf")) {
+            candidates = InventoryTimeline.listProductsAsOf(parseTime(query.get("asOf")));
+        } else if (query.containsKey("minPrice") || query.containsKey("maxPrice")) {
+            candidates = Inventory.lookupProductsByPrice(
+                    parseDouble(query.get("minPrice"), Double.NEGATIVE_INFINITY),
+                    parseDouble(query.get("maxPrice"), Double.POSITIVE_INFINITY));
+        } else {
+            candidates = Inventory.listProducts();
+        }
+
+        String name = query.get("name");
+        List<Product> products = new ArrayList<>();
+
+        for (Product product : candidates) {
+            if (nameMatches(product.getName(), name)) {
+                products.add(product);
+            }
+        }
+
+        return products;
+    }
+
+    /**
+     * Determine whether a name contains a case-insensitive search term.
+     *
+     * @param name
+     * @param term search term, or null to match everything
+     * @return true if the name matches
+     */
+    private static boolean nameMatches(String name, String term) {
+        return term == null || (name != null && name.toLowerCase().contains(term.toLowerCase()));
+    }
+
+    /**
+     * Apply a mutation through the mutation executor and wait for its result.
+     *
+     * @param mutation
+     * @return mutation result
+     * @throws Exception thrown by the mutation
+     */
+    private <T> T mutate(Callable<T> mutation) throws Exception {
+        // also covers a primary that stepped down for a newer one
+        if (Inventory.isReadOnly()) {
+            throw new IllegalStateException("This server is a read-only replica.");
+        }
+
+        FutureTask<T> task = new FutureTask<>(() -> {
+            mutationLock.lock();
+
+            try {
+                return mutation.call();
+            } finally {
+                mutationLock.unlock();
+            }
+        });
+
+        mutationExecutor.execute(task);
+
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * Build a part from a request body.
+     *
+     * @param body
+     * @param partID
+     * @return new part
+     * @throws ValidationException if a required field is missing
+     */
+    private static Part toPart(Map<String, Object> body, int partID) throws ValidationException {
+        Part part;
+
+        if ("outsourced".equals(body.get("type"))) {
+            OutsourcedPart outsourcedPart = new OutsourcedPart();
+            outsourcedPart.setCompanyName(requireString(body, "companyName"));
+            part = outsourcedPart;
+        } else {
+            InhousePart inhousePart = new InhousePart();
+            inhousePart.setMachineID(requireInt(body, "machineID"));
+            part = inhousePart;
+        }
+
+        part.setPartID(partID);
+        part.setName(requireString(body, "name"));
+        part.setPrice(requireDouble(body, "price"));
+        part.setInStock(requireInt(body, "inStock"));
+        part.setMin(requireInt(body, "min"));
+        part.setMax(requireInt(body, "max"));
+
+        return part;
+    }
+
+    /**
+     * Build a bulk edit from a request body.
+     *
+     * @param body
+     * @return edit
+     * @throws ValidationException if a field has the wrong type
+     */
+    private static BulkEdit toBulkEdit(Map<String, Object> body) throws ValidationException {
+        BulkEdit edit = new BulkEdit();
+
+        if (body.containsKey("pricePercent")) {
+            edit.setPricePercent(requireDouble(body, "pricePercent"));
+        }
+
+        if (body.containsKey("minChange")) {
+            edit.setMinChange(requireInt(body, "minChange"));
+        }
+
+        if (body.containsKey("maxChange")) {
+            edit.setMaxChange(requireInt(body, "maxChange"));
+        }
+
+        if (body.containsKey("companyName")) {
+            edit.setCompanyName(requireString(body, "companyName"));
+        }
+
+        return edit;
+    }
+
+    /**
+     * Build a product from a request body.
+     *
+     * @param body
+     * @param productID
+     * @return new product
+     * @throws ValidationException if a required field is missing or a part is unknown
+     */
+    private static Product toProduct(Map<String, Object> body, int productID) throws ValidationException {
+        Product product = new Product();
+        product.setProductID(productID);
+        product.setName(requireString(body, "name"));
+        product.setPrice(requireDouble(body, "price"));
+        product.setInStock(requireInt(body, "inStock"));
+        product.setMin(requireInt(body, "min"));
+        product.setMax(requireInt(body, "max"));
+
+        Object partIDs = body.get("parts");
+
+        if (partIDs instanceof List) {
+            for (Object partID : (List<?>) partIDs) {
+                if (!(partID instanceof Double)) {
+                    throw new ValidationException("The parts field must list part IDs.");
+                }
+
+                Part part = Inventory.lookupPart(((Double) partID).intValue());
+
+                if (part == null) {
+                    throw new ValidationException("Unknown part ID " + ((Double) partID).intValue() + ".");
+                }
+
+                product.addAssociatedPart(part);
+            }
+        }
+
+        return product;
+    }
+
+    /**
+     * Write a part as a JSON object.
+     *
+     * @param out
+     * @param part
+     * @throws IOException
+     */
+    static void writePart(Writer out, Part part) throws IOException {
+        out.write('{');
+        Json.writeName(out, "id");
+        out.write(Integer.toString(part.getPartID()));
+        out.write(',');
+        Json.writeName(out, "name");
+        Json.writeString(out, part.getName());
+        out.write(',');
+        Json.writeName(out, "price");
+        out.write(Double.toString(part.getPrice()));
+        out.write(',');
+        Json.writeName(out, "inStock");
+        out.write(Integer.toString(part.getInStock()));
+        out.write(',');
+        Json.writeName(out, "min");
+        out.write(Integer.toString(part.getMin()));
+        out.write(',');
+        Json.writeName(out, "max");
+        out.write(Integer.toString(part.getMax()));
+        out.write(',');
+
+        if (part instanceof OutsourcedPart) {
+            Json.writeName(out, "type");
+            Json.writeString(out, "outsourced");
+            out.write(',');
+            Json.writeName(out, "companyName");
+            Json.writeString(out, ((OutsourcedPart) part).getCompanyName());
+        } else {
+            Json.writeName(out, "type");
+            Json.writeString(out, "inhouse");
+            out.write(',');
+            Json.writeName(out, "machineID");
+            out.write(Integer.toString(((InhousePart) part).getMachineID()));
+        }
+
+        out.write('}');
+    }
+
+    /**
+     * Write a replication status as a JSON object.
+     *
+     * @param out
+     * @param status
+     * @throws IOException
+     */
+    private static void writeReplicationStatus(Writer out, ReplicationStatus status) throws IOException {
+        out.write('{');
+        Json.writeName(out, "role");
+        Json.writeString(out, status.getRole().name());
+        out.write(',');
+        Json.writeName(out, "term");
+        out.write(Long.toString(status.getTerm()));
+        out.write(',');
+        Json.writeName(out, "sequence");
+        out.write(Long.toString(status.getSequence()));
+        out.write(',');
+        Json.writeName(out, "lagEntries");
+        out.write(Long.toString(status.getLagEntries()));
+        out.write(',');
+        Json.writeName(out, "lagMillis");
+        out.write(Long.toString(status.getLagMillis()));
+        out.write(',');
+        Json.writeName(out, "connections");
+        out.write(Integer.toString(status.getConnections()));
+        out.write('}');
+    }
+
+    /**
+     * Write a duplicate report as a JSON object.
+     *
+     * @param out
+     * @param report
+     * @param limit most matches written
+     * @throws IOException
+     */
+    private static void writeDuplicateReport(Writer out, DuplicateReport report, int limit) throws IOException {
+        List<PartMatch> matches = report.getMatches();
+        out.write('{');
+        Json.writeName(out, "partsScanned");
+        out.write(Integer.toString(report.getPartsScanned()));
+        out.write(',');
+        Json.writeName(out, "pairsCompared");
+        out.write(Long.toString(report.getPairsCompared()));
+        out.write(',');
+        Json.writeName(out, "elapsedMillis");
+        out.write(Long.toString(report.getElapsedMillis()));
+        out.write(',');
+        Json.writeName(out, "matchCount");
+        out.write(Integer.toString(matches.size()));
+        out.write(',');
+        Json.writeName(out, "matches");
+        writeArray(out, matches.subList(0, Math.max(0, Math.min(limit, matches.size()))), ApiServer::writeMatch);
+        out.write('}');
+    }
+
+    /**
+     * Write a part match as a JSON object. The part compared is left out of
+     * a suggestion.
+     *
+     * @param out
+     * @param match
+     * @throws IOException
+     */
+    private static void writeMatch(Writer out, PartMatch match) throws IOException {
+        out.write('{');
+        Json.writeName(out, "score");
+        out.write(Double.toString(match.getScore()));
+        out.write(',');
+        Json.writeName(out, "nameSimilarity");
+        out.write(Double.toString(match.getNameSimilarity()));
+        out.write(',');
+
+        if (match.getPart() != null) {
+            Json.writeName(out, "part");
+            writePart(out, match.getPart());
+            out.write(',');
+        }
+
+        Json.writeName(out, "match");
+        writePart(out, match.getMatch());
+        out.write('}');
+    }
+
+    /**
+     * Write a product as a JSON object. Associated parts are written by ID.
+     *
+     * @param out
+     * @param product
+     * @throws IOException
+     */
+    static void writeProduct(Writer out, Product product) throws IOException {
+        out.write('{');
+        Json.writeName(out, "id");
+        out.write(Integer.toString(product.getProductID()));
+        out.write(',');
+        Json.writeName(out, "name");
+        Json.writeString(out, product.getName());
+        out.write(',');
+        Json.writeName(out, "price");
+        out.write(Double.toString(product.getPrice()));
+        out.write(',');
+        Json.writeName(out, "inStock");
+        out.write(Integer.toString(product.getInStock()));
+        out.write(',');
+        Json.writeName(out, "min");
+        out.write(Integer.toString(product.getMin()));
+        out.write(',');
+        Json.writeName(out, "max");
+        out.write(Integer.toString(product.getMax()));
+        out.write(',');
+        Json.writeName(out, "parts");
+        out.write('[');
+
+        boolean first = true;
+
+        for (Part part : new ArrayList<>(product.getAssociatedParts())) {
+            if (!first) {
+                out.write(',');
+            }
+
+            out.write(Integer.toString(part.getPartID()));
+            first = false;
+        }
+
+        out.write("]}");
+    }
+
+    /**
+     * Write a list as a JSON array.
+     *
+     * @param out
+     * @param items
+     * @param itemWriter
+     * @throws IOException
+     */
+    private static <T> void writeArray(Writer out, List<T> items, ItemWriter<T> itemWriter) throws IOException {
+        out.write('[');
+
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+
+            itemWriter.write(out, items.get(i));
+        }
+
+        out.write(']');
+    }
+
+    /**
+     * Stream a JSON response.
+     *
+     * @param exchange
+     * @param status
+     * @param body
+     * @throws IOException
+     */
+    private static void respond(HttpExchange exchange, int status, ResponseBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            body.write(out);
+        }
+    }
+
+    /**
+     * Send a binary batch response.
+     *
+     * @param exchange
+     * @param batch
+     * @throws IOException
+     */
+    private static void respondBinary(HttpExchange exchange, ByteBuffer batch) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", BinaryBatch.CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, batch.remaining());
+
+        try (WritableByteChannel out = Channels.newChannel(exchange.getResponseBody())) {
+            while (batch.hasRemaining()) {
+                out.write(batch);
+            }
+        }
+    }
+
+    /**
+     * Send an error response.
+     *
+     * @param exchange
+     * @param status
+     * @param message
+     * @throws IOException
+     */
+    private static void respondError(HttpExchange exchange, int status, String message) throws IOException {
+        respond(exchange, status, out -> {
+            out.write('{');
+            Json.writeName(out, "error");
+            Json.writeString(out, message);
+            out.write('}');
+        });
+    }
+
+    /**
+     * Log an unexpected failure and send a 500 response that does not reveal
+     * its details.
+     *
+     * @param exchange
+     * @param e
+     * @throws IOException
+     */
+    private static void respondInternalError(HttpExchange exchange, Exception e) throws IOException {
+        logger.log(Level.SEVERE, "Request " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + " failed", e);
+        respondError(exchange, 500, "Internal server error");
+    }
+
+    /**
+     * Send an empty success response.
+     *
+     * @param exchange
+     * @throws IOException
+     */
+    private static void respondEmpty(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    /**
+     * Parse the entity ID from a request path.
+     *
+     * @param exchange
+     * @param prefix context path
+     * @return entity ID, or null for the collection
+     */
+    private static Integer parseID(HttpExchange exchange, String prefix) {
+        String path = exchange.getRequestURI().getPath().substring(prefix.length());
+
+        if (path.isEmpty() || "/".equals(path)) {
+            return null;
+        }
+
+        try {
+            return Integer.valueOf(path.substring(1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid ID " + path.substring(1));
+        }
+    }
+
+    /**
+     * Parse the query string of a request.
+     *
+     * @param exchange
+     * @return query parameters
+     * @throws IOException
+     */
+    private static Map<String, String> parseQuery(HttpExchange exchange) throws IOException {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+
+        if (raw == null) {
+            return query;
+        }
+
+        for (String pair : raw.split("&")) {
+            int split = pair.indexOf('=');
+
+            if (split > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, split), "UTF-8"),
+                        URLDecoder.decode(pair.substring(split + 1), "UTF-8"));
+            }
+        }
+
+        return query;
+    }
+
+    /**
+     * Read a request body as a JSON object, of at most MAX_BODY_BYTES.
+     *
+     * @param exchange
+     * @return parsed body
+     * @throws IOException
+     */
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+
+        if (length != null && Long.parseLong(length) > MAX_BODY_BYTES) {
+            throw new BodyTooLargeException(Long.parseLong(length));
+        }
+
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+
+            while ((read = in.read(buffer)) != -1) {
+                if (body.size() + read > MAX_BODY_BYTES) {
+                    throw new BodyTooLargeException(-1);
+                }
+
+                body.write(buffer, 0, read);
+            }
+        }
+
+        return Json.parseObject(new String(body.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read a request body into a direct buffer, sized by the Content-Length
+     * header when given, and at most MAX_BODY_BYTES.
+     *
+     * @param exchange
+     * @return body, ready to read
+     * @throws IOException
+     */
+    private static ByteBuffer readBinaryBody(HttpExchange exchange) throws IOException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        long declared = length == null ? -1 : Long.parseLong(length);
+
+        if (declared > MAX_BODY_BYTES) {
+            throw new BodyTooLargeException(declared);
+        }
+
+        ByteBuffer body = ByteBuffer.allocateDirect(declared < 0 ? Math.min(65536, MAX_BODY_BYTES) : (int) declared);
+
+        try (ReadableByteChannel in = Channels.newChannel(exchange.getRequestBody())) {
+            while (true) {
+                if (!body.hasRemaining()) {
+                    if (length != null) {
+                        break;
+                    }
+
+                    if (body.capacity() >= MAX_BODY_BYTES) {
+                        throw new BodyTooLargeException(-1);
+                    }
+
+                    ByteBuffer larger = ByteBuffer.allocateDirect((int) Math.min(2L * body.capacity(), MAX_BODY_BYTES));
+                    body.flip();
+                    larger.put(body);
+                    body = larger;
+                }
+
+                if (in.read(body) == -1) {
+                    break;
+                }
+            }
+        }
+
+        body.flip();
+        return body;
+    }
+
+    /**
+     * Parse an optional number.
+     *
+     * @param value
+     * @param fallback value used if absent
+     * @return parsed number
+     */
+    private static double parseDouble(String value, double fallback) {
+        return value == null ? fallback : Double.parseDouble(value);
+    }
+
+    /**
+     * Parse a point in time given as epoch milliseconds or an ISO-8601
+     * instant.
+     *
+     * @param value
+     * @return epoch milliseconds
+     */
+    private static long parseTime(String value) {
+        if (!InventoryTimeline.isEnabled()) {
+            throw new IllegalArgumentException("Point-in-time reads are not enabled.");
+        }
+
+        try {
+            return value.chars().allMatch(Character::isDigit) ? Long.parseLong(value) : Instant.parse(value).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time " + value);
+        }
+    }
+
+    private static String requireString(Map<String, Object> body, String field) throws ValidationException {
+        Object value = body.get(field);
+
+        if (!(value instanceof String)) {
+            throw new ValidationException("The " + field + " field is required.");
+        }
+
+        return (String) value;
+    }
+
+    private static double requireDouble(Map<String, Object> body, String field) throws ValidationException {
+        Object value = body.get(field);
+
+        if (!(value instanceof Double)) {
+            throw new ValidationException("The " + field + " field must be a number.");
+        }
+
+        return (Double) value;
+    }
+
+    private static int requireInt(Map<String, Object> body, String field) throws ValidationException {
+        double value = requireDouble(body, field);
+
+        if (value != Math.rint(value) || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new ValidationException("The " + field + " field must be a whole number.");
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Writes a response body.
+     */
+    private interface ResponseBody {
+        void write(Writer out) throws IOException;
+    }
+
+    /**
+     * Writes one array item.
+     */
+    private interface ItemWriter<T> {
+        void write(Writer out, T item) throws IOException;
+    }
+
+    /**
+     * Thrown when a request body exceeds MAX_BODY_BYTES; answered with 413.
+     */
+    private static final class BodyTooLargeException extends IOException {
+
+        /**
+         * Constructor
+         *
+         * @param declared length declared by the request, or -1 if unknown
+         */
+        BodyTooLargeException(long declared) {
+            super("The request body" + (declared < 0 ? "" : " of " + declared + " bytes")
+                    + " exceeds the limit of " + MAX_BODY_BYTES + " bytes.");
+        }
+    }
+
+    /**
+     * Names request threads and marks them as daemons so a running server
+     * never keeps the JVM alive on its own.
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        // Thread counter for naming
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "inventory-api-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
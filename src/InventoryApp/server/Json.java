@@ -0,0 +1,360 @@
+package InventoryApp.server;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for the API server. Writing goes straight to a Writer
+ * so large responses are streamed; parsing produces plain maps, lists,
+ * strings, doubles, booleans and nulls.
+ *
+ * @see ApiServer
+ */
+public class Json {
+
+    // Input being parsed
+    private final String input;
+
+    // Current parse position
+    private int position;
+
+    /**
+     * Constructor
+     *
+     * @param input
+     */
+    private Json(String input) {
+        this.input = input;
+    }
+
+    /**
+     * Parse a JSON document.
+     *
+     * @param input
+     * @return parsed value
+     * @throws IllegalArgumentException if the input is not valid JSON
+     */
+    public static Object parse(String input) {
+        Json parser = new Json(input);
+        Object value = parser.readValue();
+        parser.skipWhitespace();
+
+        if (parser.position != input.length()) {
+            throw parser.error("Unexpected trailing content");
+        }
+
+        return value;
+    }
+
+    /**
+     * Parse a JSON object.
+     *
+     * @param input
+     * @return parsed object
+     * @throws IllegalArgumentException if the input is not a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String input) {
+        Object value = parse(input);
+
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Write a string as a quoted, escaped JSON string.
+     *
+     * @param out
+     * @param value string, or null
+     * @throws IOException
+     */
+    public static void writeString(Writer out, String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+
+        out.write('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+
+        out.write('"');
+    }
+
+    /**
+     * Write a "name": prefix for an object member.
+     *
+     * @param out
+     * @param name
+     * @throws IOException
+     */
+    public static void writeName(Writer out, String name) throws IOException {
+        writeString(out, name);
+        out.write(':');
+    }
+
+    /**
+     * Parse any value at the current position.
+     *
+     * @return parsed value
+     */
+    private Object readValue() {
+        skipWhitespace();
+
+        if (position >= input.length()) {
+            throw error("Unexpected end of input");
+        }
+
+        char c = input.charAt(position);
+
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                expect("true");
+                return Boolean.TRUE;
+            case 'f':
+                expect("false");
+                return Boolean.FALSE;
+            case 'n':
+                expect("null");
+                return null;
+            default:
+                return readNumber();
+        }
+    }
+
+    /**
+     * Parse an object at the current position.
+     *
+     * @return parsed object
+     */
+    private Map<String, Object> readObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+
+        while (true) {
+            skipWhitespace();
+
+            if (peek() != '"') {
+                throw error("Expected member name");
+            }
+
+            String name = readString();
+            skipWhitespace();
+
+            if (peek() != ':') {
+                throw error("Expected ':'");
+            }
+
+            position++;
+            object.put(name, readValue());
+            skipWhitespace();
+
+            char c = peek();
+            position++;
+
+            if (c == '}') {
+                return object;
+            }
+
+            if (c != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+
+    /**
+     * Parse an array at the current position.
+     *
+     * @return parsed array
+     */
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+
+        while (true) {
+            array.add(readValue());
+            skipWhitespace();
+
+            char c = peek();
+            position++;
+
+            if (c == ']') {
+                return array;
+            }
+
+            if (c != ',') {
+                throw error("Expected ',' or ']'");
+            }
+        }
+    }
+
+    /**
+     * Parse a string at the current position.
+     *
+     * @return parsed string
+     */
+    private String readString() {
+        StringBuilder value = new StringBuilder();
+        position++;
+
+        while (true) {
+            char c = peek();
+            position++;
+
+            if (c == '"') {
+                return value.toString();
+            }
+
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+
+            char escaped = peek();
+            position++;
+
+            switch (escaped) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > input.length()) {
+                        throw error("Truncated unicode escape");
+                    }
+
+                    value.append((char) Integer.parseInt(input.substring(position, position + 4), 16));
+                    position += 4;
+                    break;
+                default:
+                    value.append(escaped);
+            }
+        }
+    }
+
+    /**
+     * Parse a number at the current position.
+     *
+     * @return parsed number
+     */
+    private Double readNumber() {
+        int start = position;
+
+        while (position < input.length() && "+-0123456789.eE".indexOf(input.charAt(position)) >= 0) {
+            position++;
+        }
+
+        try {
+            return Double.valueOf(input.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw error("Invalid value");
+        }
+    }
+
+    /**
+     * Consume a literal at the current position.
+     *
+     * @param literal
+     */
+    private void expect(String literal) {
+        if (!input.startsWith(literal, position)) {
+            throw error("Invalid value");
+        }
+
+        position += literal.length();
+    }
+
+    /**
+     * Get the character at the current position.
+     *
+     * @return current character
+     */
+    private char peek() {
+        if (position >= input.length()) {
+            throw error("Unexpected end of input");
+        }
+
+        return input.charAt(position);
+    }
+
+    /**
+     * Skip whitespace at the current position.
+     */
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    /**
+     * Build a parse error for the current position.
+     *
+     * @param message
+     * @return parse error
+     */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+}
@@ -0,0 +1,101 @@
+package InventoryApp.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * ShardClient is a connection to one ShardWorker. Calls are serialized, one
+ * request and response at a time.
+ *
+ * @see ShardedInventory, ShardProtocol
+ */
+final class ShardClient implements Closeable {
+
+    /**
+     * Writes the arguments of a request.
+     */
+    @FunctionalInterface
+    interface Request {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Reads the result of a successful request.
+     *
+     * @param <T> result
+     */
+    @FunctionalInterface
+    interface Response<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    // Worker address, for messages
+    private final InetSocketAddress address;
+
+    // Open connection
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    /**
+     * Connect to a worker
+     *
+     * @param address
+     * @throws IOException
+     */
+    ShardClient(InetSocketAddress address) throws IOException {
+        this.address = address;
+        this.socket = new Socket(address.getAddress(), address.getPort());
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Send a request and read its response
+     *
+     * @param <T> result
+     * @param op operation code
+     * @param request writes the arguments, or null if there are none
+     * @param response reads the result, or null if there is none
+     * @return result, or null
+     * @throws UncheckedIOException if the worker cannot be reached
+     * @throws IllegalStateException if the worker rejects the request
+     */
+    synchronized <T> T call(byte op, Request request, Response<T> response) {
+        try {
+            out.writeByte(op);
+
+            if (request != null) {
+                request.write(out);
+            }
+
+            out.flush();
+
+            if (in.readByte() == ShardProtocol.ERROR) {
+                throw new IllegalStateException("Shard " + address + " failed: " + in.readUTF());
+            }
+
+            return response == null ? null : response.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Shard " + address + " is unreachable", e);
+        }
+    }
+
+    /**
+     * Close the connection
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,164 @@
+package InventoryApp.shard;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import InventoryApp.models.InhousePart;
+import InventoryApp.models.OutsourcedPart;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+
+/**
+ * ShardProtocol is the request and response format spoken between a
+ * ShardedInventory and its ShardWorkers.
+ * <p>
+ * A request is an operation code followed by its arguments; a response is a
+ * status, then either the result or an error message. A product travels with
+ * copies of its associated parts, which may live on other shards.
+ *
+ * @see ShardWorker, ShardClient
+ */
+final class ShardProtocol {
+
+    // Operation codes
+    static final byte PUT_PART = 1;
+    static final byte REMOVE_PART = 2;
+    static final byte GET_PARTS = 3;
+    static final byte PUT_PRODUCT = 4;
+    static final byte REMOVE_PRODUCT = 5;
+    static final byte GET_PRODUCT = 6;
+    static final byte SEARCH_PARTS = 7;
+    static final byte SEARCH_PRODUCTS = 8;
+    static final byte PARTS_BY_PRICE = 9;
+    static final byte STATS = 10;
+    static final byte CLEAR = 11;
+    static final byte SHUTDOWN = 12;
+
+    // Response statuses
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    // Part kinds
+    private static final byte INHOUSE = 0;
+    private static final byte OUTSOURCED = 1;
+
+    /**
+     * Constructor
+     */
+    private ShardProtocol() {
+    }
+
+    static void writePart(DataOutput out, Part part) throws IOException {
+        out.writeByte(part instanceof OutsourcedPart ? OUTSOURCED : INHOUSE);
+        out.writeInt(part.getPartID());
+        writeString(out, part.getName());
+        out.writeDouble(part.getPrice());
+        out.writeInt(part.getInStock());
+        out.writeInt(part.getMin());
+        out.writeInt(part.getMax());
+
+        if (part instanceof OutsourcedPart) {
+            writeString(out, ((OutsourcedPart) part).getCompanyName());
+        } else {
+            out.writeInt(((InhousePart) part).getMachineID());
+        }
+    }
+
+    static Part readPart(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        Part part = kind == OUTSOURCED ? new OutsourcedPart() : new InhousePart();
+        part.setPartID(in.readInt());
+        part.setName(readString(in));
+        part.setPrice(in.readDouble());
+        part.setInStock(in.readInt());
+        part.setMin(in.readInt());
+        part.setMax(in.readInt());
+
+        if (kind == OUTSOURCED) {
+            ((OutsourcedPart) part).setCompanyName(readString(in));
+        } else {
+            ((InhousePart) part).setMachineID(in.readInt());
+        }
+
+        return part;
+    }
+
+    static void writeParts(DataOutput out, List<? extends Part> parts) throws IOException {
+        out.writeInt(parts.size());
+
+        for (Part part : parts) {
+            writePart(out, part);
+        }
+    }
+
+    static List<Part> readParts(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<Part> parts = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            parts.add(readPart(in));
+        }
+
+        return parts;
+    }
+
+    static void writeProduct(DataOutput out, Product product) throws IOException {
+        out.writeInt(product.getProductID());
+        writeString(out, product.getName());
+        out.writeDouble(product.getPrice());
+        out.writeInt(product.getInStock());
+        out.writeInt(product.getMin());
+        out.writeInt(product.getMax());
+        writeParts(out, product.getAssociatedParts());
+    }
+
+    static Product readProduct(DataInput in) throws IOException {
+        Product product = new Product();
+        product.setProductID(in.readInt());
+        product.setName(readString(in));
+        product.setPrice(in.readDouble());
+        product.setInStock(in.readInt());
+        product.setMin(in.readInt());
+        product.setMax(in.readInt());
+
+        for (Part part : readParts(in)) {
+            product.addAssociatedPart(part);
+        }
+
+        return product;
+    }
+
+    static void writeProducts(DataOutput out, List<Product> products) throws IOException {
+        out.writeInt(products.size());
+
+        for (Product product : products) {
+            writeProduct(out, product);
+        }
+    }
+
+    static List<Product> readProducts(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<Product> products = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            products.add(readProduct(in));
+        }
+
+        return products;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
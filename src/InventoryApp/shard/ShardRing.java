@@ -0,0 +1,95 @@
+package InventoryApp.shard;
+
+import java.util.Arrays;
+
+/**
+ * ShardRing assigns part and product IDs to shards by consistent hashing.
+ * <p>
+ * Each shard owns many points on a ring of 32-bit hashes; an ID belongs to
+ * the shard owning the first point at or after the ID's hash. With enough
+ * points per shard the IDs spread evenly, and a ring with one more shard
+ * moves only about 1/N of the IDs.
+ *
+ * @see ShardedInventory
+ */
+public final class ShardRing {
+
+    // Default points per shard
+    public static final int DEFAULT_POINTS = 128;
+
+    // Point hashes, ascending
+    private final int[] points;
+
+    // Shard owning each point
+    private final int[] owners;
+
+    // Number of shards
+    private final int shards;
+
+    /**
+     * Constructor
+     *
+     * @param shards number of shards
+     * @param pointsPerShard points each shard owns on the ring
+     */
+    public ShardRing(int shards, int pointsPerShard) {
+        if (shards < 1 || pointsPerShard < 1) {
+            throw new IllegalArgumentException("A ring needs at least one shard and one point per shard.");
+        }
+
+        long[] ring = new long[shards * pointsPerShard];
+
+        for (int shard = 0; shard < shards; shard++) {
+            for (int point = 0; point < pointsPerShard; point++) {
+                int hash = mix(shard * 0x9E3779B9L + point * 0x85EBCA6BL);
+                // sort by hash, breaking ties by shard
+                ring[shard * pointsPerShard + point] = ((long) hash << 32) | shard;
+            }
+        }
+
+        Arrays.sort(ring);
+        this.points = new int[ring.length];
+        this.owners = new int[ring.length];
+
+        for (int i = 0; i < ring.length; i++) {
+            points[i] = (int) (ring[i] >> 32);
+            owners[i] = (int) ring[i];
+        }
+
+        this.shards = shards;
+    }
+
+    /**
+     * Get the number of shards
+     *
+     * @return shards
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * Get the shard owning an ID
+     *
+     * @param id part or product ID
+     * @return shard index
+     */
+    public int shardOf(int id) {
+        int index = Arrays.binarySearch(points, mix(id));
+
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        return owners[index == points.length ? 0 : index];
+    }
+
+    private static int mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+}
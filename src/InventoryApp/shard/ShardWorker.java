@@ -0,0 +1,300 @@
+package InventoryApp.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+
+/**
+ * ShardWorker holds one shard of a ShardedInventory: the parts and products
+ * whose IDs hash to it. It serves them over a localhost socket, one thread per
+ * connection.
+ * <p>
+ * Run as its own process with "java InventoryApp.shard.ShardWorker [port]";
+ * it prints "READY port" once it accepts connections.
+ *
+ * @see ShardedInventory, ShardProtocol
+ */
+public final class ShardWorker implements Closeable {
+
+    // Logger for connection failures
+    private static final Logger logger = Logger.getLogger(ShardWorker.class.getName());
+
+    // Line printed once the worker accepts connections
+    static final String READY = "READY ";
+
+    // Parts on this shard by ID
+    private final Map<Integer, Part> parts = new TreeMap<>();
+
+    // Products on this shard by ID
+    private final Map<Integer, Product> products = new TreeMap<>();
+
+    // Listening socket
+    private final ServerSocket server;
+
+    // Released by close() or a shutdown request
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    /**
+     * Listen on a localhost port
+     *
+     * @param port port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public ShardWorker(int port) throws IOException {
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Get the port the worker listens on
+     *
+     * @return port
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Start accepting connections on a daemon thread
+     */
+    public void start() {
+        Thread acceptor = new Thread(this::accept, "shard-worker-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Stop accepting connections
+     */
+    @Override
+    public void close() {
+        try {
+            server.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not close the worker socket", e);
+        }
+
+        closed.countDown();
+    }
+
+    /**
+     * Wait until the worker is closed
+     *
+     * @throws InterruptedException
+     */
+    public void awaitClose() throws InterruptedException {
+        closed.await();
+    }
+
+    /**
+     * Run a worker process
+     *
+     * @param args optional port
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        ShardWorker worker = new ShardWorker(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+        worker.start();
+        System.out.println(READY + worker.getPort());
+        System.out.flush();
+        worker.awaitClose();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Thread connection = new Thread(() -> serve(socket), "shard-connection-" + socket.getPort());
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    logger.log(Level.WARNING, "Could not accept a connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Answer requests on one connection until it closes
+     *
+     * @param socket
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream result = new DataOutputStream(buffer);
+
+            while (true) {
+                byte op = in.readByte();
+                buffer.reset();
+
+                try {
+                    handle(op, in, result);
+                    out.writeByte(ShardProtocol.OK);
+                    buffer.writeTo(out);
+                } catch (RuntimeException e) {
+                    out.writeByte(ShardProtocol.ERROR);
+                    out.writeUTF(String.valueOf(e.getMessage()));
+                }
+
+                out.flush();
+
+                if (op == ShardProtocol.SHUTDOWN) {
+                    close();
+                    return;
+                }
+            }
+        } catch (EOFException e) {
+            // the client disconnected
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Shard connection failed", e);
+        }
+    }
+
+    /**
+     * Carry out one request. All arguments are read before anything changes.
+     *
+     * @param op
+     * @param in arguments
+     * @param out result
+     * @throws IOException
+     */
+    private synchronized void handle(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        switch (op) {
+            case ShardProtocol.PUT_PART: {
+                Part part = ShardProtocol.readPart(in);
+                parts.put(part.getPartID(), part);
+                break;
+            }
+            case ShardProtocol.REMOVE_PART:
+                out.writeBoolean(parts.remove(in.readInt()) != null);
+                break;
+            case ShardProtocol.GET_PARTS: {
+                int count = in.readInt();
+                int[] ids = new int[count];
+
+                for (int i = 0; i < count; i++) {
+                    ids[i] = in.readInt();
+                }
+
+                for (int id : ids) {
+                    Part part = parts.get(id);
+                    out.writeBoolean(part != null);
+
+                    if (part != null) {
+                        ShardProtocol.writePart(out, part);
+                    }
+                }
+                break;
+            }
+            case ShardProtocol.PUT_PRODUCT: {
+                Product product = ShardProtocol.readProduct(in);
+                products.put(product.getProductID(), product);
+                break;
+            }
+            case ShardProtocol.REMOVE_PRODUCT:
+                out.writeBoolean(products.remove(in.readInt()) != null);
+                break;
+            case ShardProtocol.GET_PRODUCT: {
+                Product product = products.get(in.readInt());
+                out.writeBoolean(product != null);
+
+                if (product != null) {
+                    ShardProtocol.writeProduct(out, product);
+                }
+                break;
+            }
+            case ShardProtocol.SEARCH_PARTS: {
+                String term = ShardProtocol.readString(in);
+                List<Part> matches = new ArrayList<>();
+
+                for (Part part : parts.values()) {
+                    if (matches(part.getName(), term)) {
+                        matches.add(part);
+                    }
+                }
+
+                ShardProtocol.writeParts(out, matches);
+                break;
+            }
+            case ShardProtocol.SEARCH_PRODUCTS: {
+                String term = ShardProtocol.readString(in);
+                List<Product> matches = new ArrayList<>();
+
+                for (Product product : products.values()) {
+                    if (matches(product.getName(), term)) {
+                        matches.add(product);
+                    }
+                }
+
+                ShardProtocol.writeProducts(out, matches);
+                break;
+            }
+            case ShardProtocol.PARTS_BY_PRICE: {
+                double minPrice = in.readDouble();
+                double maxPrice = in.readDouble();
+                List<Part> matches = new ArrayList<>();
+
+                for (Part part : parts.values()) {
+                    if (part.getPrice() >= minPrice && part.getPrice() <= maxPrice) {
+                        matches.add(part);
+                    }
+                }
+
+                ShardProtocol.writeParts(out, matches);
+                break;
+            }
+            case ShardProtocol.STATS: {
+                double stockValue = 0;
+                int belowMinimum = 0;
+
+                for (Part part : parts.values()) {
+                    stockValue += part.getPrice() * part.getInStock();
+
+                    if (part.getInStock() < part.getMin()) {
+                        belowMinimum++;
+                    }
+                }
+
+                out.writeInt(parts.size());
+                out.writeInt(products.size());
+                out.writeDouble(stockValue);
+                out.writeInt(belowMinimum);
+                break;
+            }
+            case ShardProtocol.CLEAR:
+                parts.clear();
+                products.clear();
+                break;
+            case ShardProtocol.SHUTDOWN:
+                break;
+            default:
+                throw new IOException("Unknown operation " + op);
+        }
+    }
+
+    private static boolean matches(String name, String term) {
+        return term == null || (name != null && name.toLowerCase().contains(term.toLowerCase()));
+    }
+}
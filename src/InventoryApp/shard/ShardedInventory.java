@@ -0,0 +1,578 @@
+package InventoryApp.shard;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import InventoryApp.metrics.Metrics;
+import InventoryApp.metrics.OperationEvent;
+import InventoryApp.metrics.Timer;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+
+/**
+ * ShardedInventory splits parts and products across ShardWorker processes,
+ * for catalogs too large for one JVM.
+ * <p>
+ * A ShardRing assigns each ID to a shard by consistent hashing. Lookups and
+ * mutations go to the owning shard only; searches and totals are sent to
+ * every shard at once and the results merged. A product is stored with copies
+ * of its associated parts, which may live on other shards; lookups refresh
+ * those copies from their owners, one batched request per shard.
+ * <p>
+ * Workers listen on localhost, so a whole cluster can run on one machine:
+ * launch() starts the workers as child processes, and connect() joins
+ * workers started separately.
+ *
+ * @see ShardRing, ShardWorker
+ */
+public final class ShardedInventory implements Closeable {
+
+    // Operation timers
+    private final static Timer ROUTE = Metrics.timer("shard.route");
+    private final static Timer SCATTER_GATHER = Metrics.timer("shard.scatterGather");
+
+    // ID to shard assignment
+    private final ShardRing ring;
+
+    // Connection to each shard, by shard index
+    private final List<ShardClient> clients;
+
+    // Worker processes started by launch(), if any
+    private final List<Process> processes;
+
+    // Sends scatter-gather requests to all shards at once
+    private final ExecutorService gather;
+
+    /**
+     * Totals across every shard.
+     */
+    public static final class Totals {
+
+        // Number of parts
+        private final int parts;
+
+        // Number of products
+        private final int products;
+
+        // Sum of price times current inventory over all parts
+        private final double stockValue;
+
+        // Number of parts below their minimum inventory
+        private final int partsBelowMinimum;
+
+        Totals(int parts, int products, double stockValue, int partsBelowMinimum) {
+            this.parts = parts;
+            this.products = products;
+            this.stockValue = stockValue;
+            this.partsBelowMinimum = partsBelowMinimum;
+        }
+
+        /**
+         * Get the number of parts
+         *
+         * @return parts
+         */
+        public int getParts() {
+            return parts;
+        }
+
+        /**
+         * Get the number of products
+         *
+         * @return products
+         */
+        public int getProducts() {
+            return products;
+        }
+
+        /**
+         * Get the value of all parts in stock
+         *
+         * @return sum of price times current inventory
+         */
+        public double getStockValue() {
+            return stockValue;
+        }
+
+        /**
+         * Get the number of parts below their minimum inventory
+         *
+         * @return parts below minimum
+         */
+        public int getPartsBelowMinimum() {
+            return partsBelowMinimum;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param clients
+     * @param processes
+     */
+    private ShardedInventory(List<ShardClient> clients, List<Process> processes) {
+        this.ring = new ShardRing(clients.size(), ShardRing.DEFAULT_POINTS);
+        this.clients = clients;
+        this.processes = processes;
+        this.gather = Executors.newFixedThreadPool(clients.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-gather");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start worker processes on this machine, using this JVM's Java binary
+     * and classpath, and connect to them
+     *
+     * @param shards number of workers
+     * @return sharded inventory, which stops the workers when closed
+     * @throws IOException if a worker cannot be started or reached
+     */
+    public static ShardedInventory launch(int shards) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<Process> processes = new ArrayList<>();
+        List<InetSocketAddress> addresses = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < shards; i++) {
+                Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        ShardWorker.class.getName())
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                processes.add(process);
+                addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), awaitReady(process)));
+            }
+
+            return new ShardedInventory(connectAll(addresses), processes);
+        } catch (IOException | RuntimeException e) {
+            for (Process process : processes) {
+                process.destroy();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Connect to workers that are already running. The workers must be given
+     * in the same order every time, as the order decides which shard owns
+     * which IDs.
+     *
+     * @param workers worker addresses, by shard index
+     * @return sharded inventory
+     * @throws IOException if a worker cannot be reached
+     */
+    public static ShardedInventory connect(List<InetSocketAddress> workers) throws IOException {
+        return new ShardedInventory(connectAll(workers), Collections.emptyList());
+    }
+
+    /**
+     * Get the number of shards
+     *
+     * @return shards
+     */
+    public int getShards() {
+        return clients.size();
+    }
+
+    /**
+     * Get the shard owning an ID
+     *
+     * @param id part or product ID
+     * @return shard index
+     */
+    public int shardOf(int id) {
+        return ring.shardOf(id);
+    }
+
+    /**
+     * Add a part to its shard
+     *
+     * @param part
+     */
+    public void addPart(Part part) {
+        route(part.getPartID(), ShardProtocol.PUT_PART, out -> ShardProtocol.writePart(out, part), null);
+    }
+
+    /**
+     * Replace a part on its shard
+     *
+     * @param part
+     */
+    public void updatePart(Part part) {
+        addPart(part);
+    }
+
+    /**
+     * Remove a part from its shard
+     *
+     * @param partID
+     * @return true if the part was removed
+     */
+    public boolean removePart(int partID) {
+        return route(partID, ShardProtocol.REMOVE_PART, out -> out.writeInt(partID), in -> in.readBoolean());
+    }
+
+    /**
+     * Look up a part on its shard
+     *
+     * @param partID
+     * @return part, or null if not found
+     */
+    public Part lookupPart(int partID) {
+        return lookupParts(Collections.singletonList(partID)).get(partID);
+    }
+
+    /**
+     * Look up many parts with one request per shard holding any of them
+     *
+     * @param partIDs
+     * @return parts found, by ID
+     */
+    public Map<Integer, Part> lookupParts(List<Integer> partIDs) {
+        Map<Integer, List<Integer>> byShard = new HashMap<>();
+
+        for (int partID : partIDs) {
+            byShard.computeIfAbsent(ring.shardOf(partID), shard -> new ArrayList<>()).add(partID);
+        }
+
+        List<CompletableFuture<List<Part>>> requests = new ArrayList<>();
+
+        for (Map.Entry<Integer, List<Integer>> entry : byShard.entrySet()) {
+            ShardClient client = clients.get(entry.getKey());
+            List<Integer> ids = entry.getValue();
+            requests.add(CompletableFuture.supplyAsync(() -> client.call(ShardProtocol.GET_PARTS, out -> {
+                out.writeInt(ids.size());
+
+                for (int id : ids) {
+                    out.writeInt(id);
+                }
+            }, in -> {
+                List<Part> found = new ArrayList<>();
+
+                for (int i = 0; i < ids.size(); i++) {
+                    if (in.readBoolean()) {
+                        found.add(ShardProtocol.readPart(in));
+                    }
+                }
+
+                return found;
+            }), gather));
+        }
+
+        Map<Integer, Part> parts = new HashMap<>();
+
+        for (List<Part> found : join(requests)) {
+            for (Part part : found) {
+                parts.put(part.getPartID(), part);
+            }
+        }
+
+        return parts;
+    }
+
+    /**
+     * Add a product to its shard, with copies of its associated parts
+     *
+     * @param product
+     */
+    public void addProduct(Product product) {
+        route(product.getProductID(), ShardProtocol.PUT_PRODUCT, out -> ShardProtocol.writeProduct(out, product), null);
+    }
+
+    /**
+     * Replace a product on its shard
+     *
+     * @param product
+     */
+    public void updateProduct(Product product) {
+        addProduct(product);
+    }
+
+    /**
+     * Remove a product from its shard
+     *
+     * @param productID
+     * @return true if the product was removed
+     */
+    public boolean removeProduct(int productID) {
+        return route(productID, ShardProtocol.REMOVE_PRODUCT, out -> out.writeInt(productID), in -> in.readBoolean());
+    }
+
+    /**
+     * Look up a product, with its associated parts as they are now on their
+     * own shards
+     *
+     * @param productID
+     * @return product, or null if not found
+     */
+    public Product lookupProduct(int productID) {
+        Product product = route(productID, ShardProtocol.GET_PRODUCT, out -> out.writeInt(productID),
+                in -> in.readBoolean() ? ShardProtocol.readProduct(in) : null);
+
+        if (product != null) {
+            refreshParts(Collections.singletonList(product));
+        }
+
+        return product;
+    }
+
+    /**
+     * Search every shard for parts whose name contains a term
+     *
+     * @param term case-insensitive, or null for every part
+     * @return matching parts ordered by ID
+     */
+    public List<Part> searchParts(String term) {
+        List<Part> parts = merge(scatter(client -> client.call(ShardProtocol.SEARCH_PARTS,
+                out -> ShardProtocol.writeString(out, term), ShardProtocol::readParts)));
+        parts.sort(Comparator.comparingInt(Part::getPartID));
+        return parts;
+    }
+
+    /**
+     * Search every shard for products whose name contains a term
+     *
+     * @param term case-insensitive, or null for every product
+     * @return matching products ordered by ID, with current associated parts
+     */
+    public List<Product> searchProducts(String term) {
+        List<Product> products = merge(scatter(client -> client.call(ShardProtocol.SEARCH_PRODUCTS,
+                out -> ShardProtocol.writeString(out, term), ShardProtocol::readProducts)));
+        products.sort(Comparator.comparingInt(Product::getProductID));
+        refreshParts(products);
+        return products;
+    }
+
+    /**
+     * Search every shard for parts priced within a range
+     *
+     * @param minPrice lower bound, inclusive
+     * @param maxPrice upper bound, inclusive
+     * @return matching parts ordered by price
+     */
+    public List<Part> lookupPartsByPrice(double minPrice, double maxPrice) {
+        List<Part> parts = merge(scatter(client -> client.call(ShardProtocol.PARTS_BY_PRICE, out -> {
+            out.writeDouble(minPrice);
+            out.writeDouble(maxPrice);
+        }, ShardProtocol::readParts)));
+        parts.sort(Comparator.comparingDouble(Part::getPrice));
+        return parts;
+    }
+
+    /**
+     * Sum counts and stock value over every shard
+     *
+     * @return totals
+     */
+    public Totals getTotals() {
+        int parts = 0;
+        int products = 0;
+        double stockValue = 0;
+        int belowMinimum = 0;
+
+        for (Totals totals : scatter(client -> client.call(ShardProtocol.STATS, null,
+                in -> new Totals(in.readInt(), in.readInt(), in.readDouble(), in.readInt())))) {
+            parts += totals.getParts();
+            products += totals.getProducts();
+            stockValue += totals.getStockValue();
+            belowMinimum += totals.getPartsBelowMinimum();
+        }
+
+        return new Totals(parts, products, stockValue, belowMinimum);
+    }
+
+    /**
+     * Remove every part and product from every shard
+     */
+    public void clear() {
+        scatter(client -> client.call(ShardProtocol.CLEAR, null, null));
+    }
+
+    /**
+     * Disconnect, stopping the workers if launch() started them
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        for (ShardClient client : clients) {
+            if (!processes.isEmpty()) {
+                try {
+                    client.call(ShardProtocol.SHUTDOWN, null, null);
+                } catch (RuntimeException e) {
+                    // the worker is already gone
+                }
+            }
+
+            client.close();
+        }
+
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        gather.shutdown();
+    }
+
+    /**
+     * Send a request to the shard owning an ID
+     *
+     * @param <T> result
+     * @param id
+     * @param op
+     * @param request
+     * @param response
+     * @return result
+     */
+    private <T> T route(int id, byte op, ShardClient.Request request, ShardClient.Response<T> response) {
+        OperationEvent operation = ROUTE.start();
+
+        try {
+            return clients.get(ring.shardOf(id)).call(op, request, response);
+        } finally {
+            operation.stop();
+        }
+    }
+
+    /**
+     * Send a request to every shard at once and wait for all results
+     *
+     * @param <T> result
+     * @param call
+     * @return results by shard index
+     */
+    private <T> List<T> scatter(Function<ShardClient, T> call) {
+        OperationEvent operation = SCATTER_GATHER.start();
+
+        try {
+            List<CompletableFuture<T>> requests = new ArrayList<>();
+
+            for (ShardClient client : clients) {
+                requests.add(CompletableFuture.supplyAsync(() -> call.apply(client), gather));
+            }
+
+            return join(requests);
+        } finally {
+            operation.stop();
+        }
+    }
+
+    /**
+     * Replace the associated part copies of products with the parts as they
+     * are now on their own shards. Parts no longer found keep their copies.
+     *
+     * @param products
+     */
+    private void refreshParts(List<Product> products) {
+        List<Integer> partIDs = new ArrayList<>();
+
+        for (Product product : products) {
+            for (Part part : product.getAssociatedParts()) {
+                partIDs.add(part.getPartID());
+            }
+        }
+
+        if (partIDs.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Part> current = lookupParts(partIDs);
+
+        for (Product product : products) {
+            product.getAssociatedParts().replaceAll(part -> current.getOrDefault(part.getPartID(), part));
+        }
+    }
+
+    private static <T> List<T> merge(List<List<T>> results) {
+        List<T> merged = new ArrayList<>();
+
+        for (List<T> result : results) {
+            merged.addAll(result);
+        }
+
+        return merged;
+    }
+
+    private static <T> List<T> join(List<CompletableFuture<T>> requests) {
+        List<T> results = new ArrayList<>(requests.size());
+
+        try {
+            for (CompletableFuture<T> request : requests) {
+                results.add(request.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+
+        return results;
+    }
+
+    /**
+     * Read a launched worker's port from its READY line
+     *
+     * @param process
+     * @return port
+     * @throws IOException if the worker exits first
+     */
+    private static int awaitReady(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(ShardWorker.READY)) {
+                return Integer.parseInt(line.substring(ShardWorker.READY.length()).trim());
+            }
+        }
+
+        throw new IOException("A shard worker exited before it was ready.");
+    }
+
+    private static List<ShardClient> connectAll(List<InetSocketAddress> addresses) throws IOException {
+        List<ShardClient> clients = new ArrayList<>();
+
+        try {
+            for (InetSocketAddress address : addresses) {
+                clients.add(new ShardClient(address));
+            }
+        } catch (IOException e) {
+            for (ShardClient client : clients) {
+                client.close();
+            }
+
+            throw e;
+        }
+
+        return clients;
+    }
+}
@@ -0,0 +1,105 @@
+package InventoryApp.storage;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+
+/**
+ * InventoryStore persists parts, products and the parts associated with each
+ * product. Storage writes every Inventory change through to a store and loads
+ * the Inventory from it at startup.
+ * <p>
+ * Failures are reported as StorageException.
+ *
+ * @see Storage, JdbcStore
+ */
+public interface InventoryStore extends Closeable {
+
+    /**
+     * Load every part, ordered by ID
+     *
+     * @return parts
+     */
+    List<Part> loadParts();
+
+    /**
+     * Load every product, ordered by ID
+     *
+     * @param parts resolves associated part IDs to loaded parts
+     * @return products
+     */
+    List<Product> loadProducts(IntFunction<Part> parts);
+
+    /**
+     * Find one part
+     *
+     * @param partID
+     * @return part, or null if not stored
+     */
+    Part findPart(int partID);
+
+    /**
+     * Find one product, resolving its associated parts through findPart()
+     *
+     * @param productID
+     * @return product, or null if not stored
+     */
+    Product findProduct(int productID);
+
+    /**
+     * Insert or replace a part
+     *
+     * @param part
+     */
+    void savePart(Part part);
+
+    /**
+     * Insert or replace several parts. Stores that support it write them in
+     * one transaction.
+     *
+     * @param parts
+     */
+    default void saveParts(List<Part> parts) {
+        for (Part part : parts) {
+            savePart(part);
+        }
+    }
+
+    /**
+     * Insert or replace a product and its associated parts
+     *
+     * @param product
+     */
+    void saveProduct(Product product);
+
+    /**
+     * Delete a part
+     *
+     * @param partID
+     */
+    void deletePart(int partID);
+
+    /**
+     * Delete a product and its associated part links
+     *
+     * @param productID
+     */
+    void deleteProduct(int productID);
+
+    /**
+     * Replace the whole store with the given parts and products in one
+     * transaction
+     *
+     * @param parts
+     * @param products
+     */
+    void saveAll(List<Part> parts, List<Product> products);
+
+    /**
+     * Delete every part and product
+     */
+    void clear();
+}
@@ -0,0 +1,521 @@
+package InventoryApp.storage;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import InventoryApp.exceptions.StorageException;
+import InventoryApp.metrics.Metrics;
+import InventoryApp.metrics.OperationEvent;
+import InventoryApp.metrics.Timer;
+import InventoryApp.models.InhousePart;
+import InventoryApp.models.OutsourcedPart;
+import InventoryApp.models.Part;
+import InventoryApp.models.PartEdges;
+import InventoryApp.models.Product;
+
+/**
+ * JdbcStore keeps the inventory in an embedded, file-based SQL database such
+ * as H2 (jdbc:h2:file:./inventory) or SQLite (jdbc:sqlite:inventory.db). The
+ * driver only has to be on the classpath; the schema is created on first use.
+ * <p>
+ * Both part subtypes share the parts table, told apart by the kind column.
+ * The product_parts join table holds each product's associated parts in
+ * order. Statements are prepared once, and bulk writes are sent as batches in
+ * a single transaction.
+ * <p>
+ * Lookups read through a cache, so repeated lookups of the same part or
+ * product do not reach the database; every write updates the cache.
+ *
+ * @see InventoryStore, Storage
+ */
+public class JdbcStore implements InventoryStore {
+
+    // Kind column values
+    private static final String INHOUSE = "I";
+    private static final String OUTSOURCED = "O";
+
+    // Schema, portable across embedded databases
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS parts (id INTEGER PRIMARY KEY, kind CHAR(1) NOT NULL, "
+                + "name VARCHAR(255), price DOUBLE PRECISION, in_stock INTEGER, min_stock INTEGER, "
+                + "max_stock INTEGER, machine_id INTEGER, company_name VARCHAR(255))",
+        "CREATE TABLE IF NOT EXISTS products (id INTEGER PRIMARY KEY, name VARCHAR(255), "
+                + "price DOUBLE PRECISION, in_stock INTEGER, min_stock INTEGER, max_stock INTEGER)",
+        "CREATE TABLE IF NOT EXISTS product_parts (product_id INTEGER NOT NULL, "
+                + "part_order INTEGER NOT NULL, part_id INTEGER NOT NULL, PRIMARY KEY (product_id, part_order))"
+    };
+
+    private static final String PART_COLUMNS = "id, kind, name, price, in_stock, min_stock, max_stock, machine_id, company_name";
+    private static final String PRODUCT_COLUMNS = "id, name, price, in_stock, min_stock, max_stock";
+
+    // Operation timers
+    private final static Timer LOAD = Metrics.timer("storage.jdbc.load");
+    private final static Timer SAVE_ALL = Metrics.timer("storage.jdbc.saveAll");
+    private final static Timer SAVE_PARTS = Metrics.timer("storage.jdbc.saveParts");
+    private final static Timer CACHE_MISS = Metrics.timer("storage.jdbc.cacheMiss");
+
+    // Open connection, used by one thread at a time
+    private final Connection connection;
+
+    // Prepared statements, reused for every call
+    private final PreparedStatement insertPart;
+    private final PreparedStatement deletePart;
+    private final PreparedStatement selectPart;
+    private final PreparedStatement insertProduct;
+    private final PreparedStatement deleteProduct;
+    private final PreparedStatement selectProduct;
+    private final PreparedStatement insertLink;
+    private final PreparedStatement deleteLinks;
+    private final PreparedStatement selectLinks;
+
+    // Read-through caches of stored parts and products by ID
+    private final Map<Integer, Part> partCache = new HashMap<>();
+    private final Map<Integer, Product> productCache = new HashMap<>();
+
+    /**
+     * Open a database, creating the schema if missing
+     *
+     * @param url JDBC URL of an embedded database
+     * @throws StorageException if the database cannot be opened
+     */
+    public JdbcStore(String url) {
+        try {
+            connection = DriverManager.getConnection(url);
+            connection.setAutoCommit(false);
+
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : SCHEMA) {
+                    statement.executeUpdate(sql);
+                }
+            }
+
+            connection.commit();
+
+            insertPart = connection.prepareStatement("INSERT INTO parts (" + PART_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            deletePart = connection.prepareStatement("DELETE FROM parts WHERE id = ?");
+            selectPart = connection.prepareStatement("SELECT " + PART_COLUMNS + " FROM parts WHERE id = ?");
+            insertProduct = connection.prepareStatement("INSERT INTO products (" + PRODUCT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)");
+            deleteProduct = connection.prepareStatement("DELETE FROM products WHERE id = ?");
+            selectProduct = connection.prepareStatement("SELECT " + PRODUCT_COLUMNS + " FROM products WHERE id = ?");
+            insertLink = connection.prepareStatement("INSERT INTO product_parts (product_id, part_order, part_id) VALUES (?, ?, ?)");
+            deleteLinks = connection.prepareStatement("DELETE FROM product_parts WHERE product_id = ?");
+            selectLinks = connection.prepareStatement("SELECT part_id FROM product_parts WHERE product_id = ? ORDER BY part_order");
+        } catch (SQLException e) {
+            throw new StorageException("Could not open " + url, e);
+        }
+    }
+
+    @Override
+    public synchronized List<Part> loadParts() {
+        OperationEvent operation = LOAD.start();
+
+        try (Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery("SELECT " + PART_COLUMNS + " FROM parts ORDER BY id")) {
+            List<Part> parts = new ArrayList<>();
+
+            while (rows.next()) {
+                Part part = readPart(rows);
+                parts.add(part);
+                partCache.put(part.getPartID(), part);
+            }
+
+            return parts;
+        } catch (SQLException e) {
+            throw new StorageException("Could not load parts", e);
+        } finally {
+            operation.stop();
+        }
+    }
+
+    @Override
+    public synchronized List<Product> loadProducts(IntFunction<Part> parts) {
+        OperationEvent operation = LOAD.start();
+
+        try (Statement statement = connection.createStatement()) {
+            Map<Integer, Integer> rowByID = new HashMap<>();
+            List<Product> products = new ArrayList<>();
+
+            try (ResultSet rows = statement.executeQuery("SELECT " + PRODUCT_COLUMNS + " FROM products ORDER BY id")) {
+                while (rows.next()) {
+                    Product product = readProduct(rows);
+                    rowByID.put(product.getProductID(), products.size());
+                    products.add(product);
+                }
+            }
+
+            // both queries are in ID order, so each product's parts arrive
+            // together and in product order, ready for one PartEdges store
+            int[] counts = new int[products.size()];
+            List<Part> edges = new ArrayList<>();
+
+            try (ResultSet rows = statement.executeQuery(
+                    "SELECT product_id, part_id FROM product_parts ORDER BY product_id, part_order")) {
+                while (rows.next()) {
+                    Integer row = rowByID.get(rows.getInt(1));
+                    Part part = parts.apply(rows.getInt(2));
+
+                    if (row != null && part != null) {
+                        counts[row]++;
+                        edges.add(part);
+                    }
+                }
+            }
+
+            PartEdges store = new PartEdges(PartEdges.offsets(counts), edges.toArray(new Part[edges.size()]));
+
+            for (int i = 0; i < products.size(); i++) {
+                products.get(i).setAssociatedParts(store, i);
+            }
+
+            for (Product product : products) {
+                productCache.put(product.getProductID(), product);
+            }
+
+            return products;
+        } catch (SQLException e) {
+            throw new StorageException("Could not load products", e);
+        } finally {
+            operation.stop();
+        }
+    }
+
+    @Override
+    public synchronized Part findPart(int partID) {
+        Part part = partCache.get(partID);
+
+        if (part != null) {
+            return part;
+        }
+
+        OperationEvent operation = CACHE_MISS.start();
+
+        try {
+            selectPart.setInt(1, partID);
+
+            try (ResultSet rows = selectPart.executeQuery()) {
+                if (!rows.next()) {
+                    return null;
+                }
+
+                part = readPart(rows);
+            }
+
+            partCache.put(partID, part);
+            return part;
+        } catch (SQLException e) {
+            throw new StorageException("Could not read part " + partID, e);
+        } finally {
+            operation.stop();
+        }
+    }
+
+    @Override
+    public synchronized Product findProduct(int productID) {
+        Product product = productCache.get(productID);
+
+        if (product != null) {
+            return product;
+        }
+
+        OperationEvent operation = CACHE_MISS.start();
+
+        try {
+            selectProduct.setInt(1, productID);
+
+            try (ResultSet rows = selectProduct.executeQuery()) {
+                if (!rows.next()) {
+                    return null;
+                }
+
+                product = readProduct(rows);
+            }
+
+            selectLinks.setInt(1, productID);
+            List<Integer> partIDs = new ArrayList<>();
+
+            try (ResultSet rows = selectLinks.executeQuery()) {
+                while (rows.next()) {
+                    partIDs.add(rows.getInt(1));
+                }
+            }
+
+            for (int partID : partIDs) {
+                Part part = findPart(partID);
+
+                if (part != null) {
+                    product.addAssociatedPart(part);
+                }
+            }
+
+            productCache.put(productID, product);
+            return product;
+        } catch (SQLException e) {
+            throw new StorageException("Could not read product " + productID, e);
+        } finally {
+            operation.stop();
+        }
+    }
+
+    @Override
+    public synchronized void savePart(Part part) {
+        try {
+            deletePart.setInt(1, part.getPartID());
+            deletePart.executeUpdate();
+            bindPart(insertPart, part);
+            insertPart.executeUpdate();
+            connection.commit();
+            partCache.put(part.getPartID(), part);
+        } catch (SQLException e) {
+            throw rollback("Could not save part " + part.getPartID(), e);
+        }
+    }
+
+    @Override
+    public synchronized void saveParts(List<Part> parts) {
+        OperationEvent operation = SAVE_PARTS.start();
+
+        try {
+            for (Part part : parts) {
+                deletePart.setInt(1, part.getPartID());
+                deletePart.addBatch();
+                bindPart(insertPart, part);
+                insertPart.addBatch();
+            }
+
+            deletePart.executeBatch();
+            insertPart.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            throw rollback("Could not save " + parts.size() + " parts", e);
+        } finally {
+            operation.stop();
+        }
+
+        for (Part part : parts) {
+            partCache.put(part.getPartID(), part);
+        }
+    }
+
+    @Override
+    public synchronized void saveProduct(Product product) {
+        try {
+            deleteProduct.setInt(1, product.getProductID());
+            deleteProduct.executeUpdate();
+            deleteLinks.setInt(1, product.getProductID());
+            deleteLinks.executeUpdate();
+            bindProduct(insertProduct, product);
+            insertProduct.executeUpdate();
+            addLinks(product);
+            insertLink.executeBatch();
+            connection.commit();
+            productCache.put(product.getProductID(), product);
+        } catch (SQLException e) {
+            throw rollback("Could not save product " + product.getProductID(), e);
+        }
+    }
+
+    @Override
+    public synchronized void deletePart(int partID) {
+        try {
+            deletePart.setInt(1, partID);
+            deletePart.executeUpdate();
+            connection.commit();
+            partCache.remove(partID);
+        } catch (SQLException e) {
+            throw rollback("Could not delete part " + partID, e);
+        }
+    }
+
+    @Override
+    public synchronized void deleteProduct(int productID) {
+        try {
+            deleteLinks.setInt(1, productID);
+            deleteLinks.executeUpdate();
+            deleteProduct.setInt(1, productID);
+            deleteProduct.executeUpdate();
+            connection.commit();
+            productCache.remove(productID);
+        } catch (SQLException e) {
+            throw rollback("Could not delete product " + productID, e);
+        }
+    }
+
+    @Override
+    public synchronized void saveAll(List<Part> parts, List<Product> products) {
+        OperationEvent operation = SAVE_ALL.start();
+
+        try {
+            deleteAll();
+
+            for (Part part : parts) {
+                bindPart(insertPart, part);
+                insertPart.addBatch();
+            }
+
+            insertPart.executeBatch();
+
+            for (Product product : products) {
+                bindProduct(insertProduct, product);
+                insertProduct.addBatch();
+                addLinks(product);
+            }
+
+            insertProduct.executeBatch();
+            insertLink.executeBatch();
+            connection.commit();
+
+            partCache.clear();
+            productCache.clear();
+
+            for (Part part : parts) {
+                partCache.put(part.getPartID(), part);
+            }
+
+            for (Product product : products) {
+                productCache.put(product.getProductID(), product);
+            }
+        } catch (SQLException e) {
+            throw rollback("Could not save the inventory", e);
+        } finally {
+            operation.stop();
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        try {
+            deleteAll();
+            connection.commit();
+            partCache.clear();
+            productCache.clear();
+        } catch (SQLException e) {
+            throw rollback("Could not clear the inventory", e);
+        }
+    }
+
+    /**
+     * Close the database
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new StorageException("Could not close the database", e);
+        }
+    }
+
+    private void deleteAll() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM product_parts");
+            statement.executeUpdate("DELETE FROM products");
+            statement.executeUpdate("DELETE FROM parts");
+        }
+    }
+
+    /**
+     * Queue the associated part links of a product on the link batch
+     *
+     * @param product
+     * @throws SQLException
+     */
+    private void addLinks(Product product) throws SQLException {
+        for (int i = 0; i < product.getAssociatedPartsCount(); i++) {
+            insertLink.setInt(1, product.getProductID());
+            insertLink.setInt(2, i);
+            insertLink.setInt(3, product.getAssociatedPart(i).getPartID());
+            insertLink.addBatch();
+        }
+    }
+
+    /**
+     * Roll back the current transaction after a failure
+     *
+     * @param message
+     * @param cause
+     * @return exception to throw
+     */
+    private StorageException rollback(String message, SQLException cause) {
+        try {
+            deletePart.clearBatch();
+            insertPart.clearBatch();
+            insertProduct.clearBatch();
+            insertLink.clearBatch();
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+
+        return new StorageException(message, cause);
+    }
+
+    private static void bindPart(PreparedStatement statement, Part part) throws SQLException {
+        statement.setInt(1, part.getPartID());
+        statement.setString(2, part instanceof OutsourcedPart ? OUTSOURCED : INHOUSE);
+        statement.setString(3, part.getName());
+        statement.setDouble(4, part.getPrice());
+        statement.setInt(5, part.getInStock());
+        statement.setInt(6, part.getMin());
+        statement.setInt(7, part.getMax());
+
+        if (part instanceof OutsourcedPart) {
+            statement.setNull(8, Types.INTEGER);
+            statement.setString(9, ((OutsourcedPart) part).getCompanyName());
+        } else {
+            statement.setInt(8, ((InhousePart) part).getMachineID());
+            statement.setNull(9, Types.VARCHAR);
+        }
+    }
+
+    private static Part readPart(ResultSet rows) throws SQLException {
+        Part part;
+
+        if (OUTSOURCED.equals(rows.getString(2))) {
+            OutsourcedPart outsourced = new OutsourcedPart();
+            outsourced.setCompanyName(rows.getString(9));
+            part = outsourced;
+        } else {
+            InhousePart inhouse = new InhousePart();
+            inhouse.setMachineID(rows.getInt(8));
+            part = inhouse;
+        }
+
+        part.setPartID(rows.getInt(1));
+        part.setName(rows.getString(3));
+        part.setPrice(rows.getDouble(4));
+        part.setInStock(rows.getInt(5));
+        part.setMin(rows.getInt(6));
+        part.setMax(rows.getInt(7));
+        return part;
+    }
+
+    private static void bindProduct(PreparedStatement statement, Product product) throws SQLException {
+        statement.setInt(1, product.getProductID());
+        statement.setString(2, product.getName());
+        statement.setDouble(3, product.getPrice());
+        statement.setInt(4, product.getInStock());
+        statement.setInt(5, product.getMin());
+        statement.setInt(6, product.getMax());
+    }
+
+    private static Product readProduct(ResultSet rows) throws SQLException {
+        Product product = new Product();
+        product.setProductID(rows.getInt(1));
+        product.setName(rows.getString(2));
+        product.setPrice(rows.getDouble(3));
+        product.setInStock(rows.getInt(4));
+        product.setMin(rows.getInt(5));
+        product.setMax(rows.getInt(6));
+        return product;
+    }
+}
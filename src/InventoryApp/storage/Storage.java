@@ -0,0 +1,223 @@
+package InventoryApp.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import InventoryApp.models.Inventory;
+import InventoryApp.models.InventoryListener;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+
+/**
+ * Storage connects the Inventory to an InventoryStore.
+ * <p>
+ * When opened, Storage loads the Inventory from the store, or, if the store
+ * is empty, saves the current Inventory to it, either way in one batch. From then on,
+ * every change is written through to the store before the change returns.
+ * The Inventory remains the working copy, so reads never wait on the store.
+ * <p>
+ * A change is written after the Inventory has applied it, so a failed write
+ * cannot undo the change or keep other listeners from seeing it. The failure
+ * is logged and passed to the failure handler instead, and the store stays
+ * behind the Inventory until the change is saved again.
+ *
+ * @see InventoryStore, JdbcStore
+ */
+public class Storage {
+
+    // Store changes are written to, once opened
+    private static InventoryStore store;
+
+    // Listener writing changes, once opened
+    private static Writer writer;
+
+    // Told of every failed write, or null
+    private static volatile Consumer<RuntimeException> failureHandler;
+
+    // Logger for failed writes
+    private static final Logger logger = Logger.getLogger(Storage.class.getName());
+
+    /**
+     * Constructor
+     */
+    private Storage() {
+    }
+
+    /**
+     * Load the Inventory from a store and write every later change to it.
+     * Open the store before anything else listens to the Inventory, so
+     * loading is not recorded as a change.
+     *
+     * @param newStore
+     */
+    public static void open(InventoryStore newStore) {
+        synchronized (Inventory.class) {
+            openLocked(newStore);
+        }
+    }
+
+    private static synchronized void openLocked(InventoryStore newStore) {
+        if (store != null) {
+            throw new IllegalStateException("A store is already open.");
+        }
+
+        List<Part> parts = newStore.loadParts();
+
+        if (parts.isEmpty()) {
+            newStore.saveAll(Inventory.listParts(), Inventory.listProducts());
+        } else {
+            Map<Integer, Part> byID = new HashMap<>();
+
+            for (Part part : parts) {
+                byID.put(part.getPartID(), part);
+            }
+
+            // replace the Inventory in one batch, so listeners are notified once
+            Inventory.load(parts, newStore.loadProducts(byID::get));
+        }
+
+        store = newStore;
+        writer = new Writer();
+        Inventory.addListener(writer);
+    }
+
+    /**
+     * Open a JdbcStore if inventory.storage.url is set to the JDBC URL of an
+     * embedded database
+     */
+    public static void openFromSystemProperties() {
+        String url = System.getProperty("inventory.storage.url");
+
+        if (url != null) {
+            open(new JdbcStore(url));
+        }
+    }
+
+    /**
+     * Set the handler told of every write the store rejects, such as one
+     * showing an alert. It is called on the thread making the change, with
+     * the Inventory lock held.
+     *
+     * @param handler handler, or null for logging only
+     */
+    public static void setFailureHandler(Consumer<RuntimeException> handler) {
+        failureHandler = handler;
+    }
+
+    /**
+     * Get the open store
+     *
+     * @return store, or null if none is open
+     */
+    public static synchronized InventoryStore getStore() {
+        return store;
+    }
+
+    /**
+     * Stop writing changes and close the store
+     */
+    public static void close() {
+        synchronized (Inventory.class) {
+            closeLocked();
+        }
+    }
+
+    private static synchronized void closeLocked() {
+        if (store == null) {
+            return;
+        }
+
+        Inventory.removeListener(writer);
+
+        try {
+            store.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            store = null;
+            writer = null;
+        }
+    }
+
+    /**
+     * Log a failed write and pass it to the failure handler, if any
+     *
+     * @param e
+     */
+    private static void failed(RuntimeException e) {
+        logger.log(Level.SEVERE, "Could not write a change to the store", e);
+        Consumer<RuntimeException> handler = failureHandler;
+
+        if (handler != null) {
+            handler.accept(e);
+        }
+    }
+
+    /**
+     * Inventory listener writing each change through to the store. A failed
+     * write is reported rather than thrown, so the listeners after this one
+     * still see the change.
+     */
+    private static final class Writer implements InventoryListener {
+
+        @Override
+        public void partAdded(Part part) {
+            write(() -> store.savePart(part));
+        }
+
+        @Override
+        public void partRemoved(Part part) {
+            write(() -> store.deletePart(part.getPartID()));
+        }
+
+        @Override
+        public void partUpdated(Part oldPart, Part newPart) {
+            write(() -> store.savePart(newPart));
+        }
+
+        @Override
+        public void partsUpdated(List<Part> oldParts, List<Part> newParts) {
+            write(() -> store.saveParts(newParts));
+        }
+
+        @Override
+        public void productAdded(Product product) {
+            write(() -> store.saveProduct(product));
+        }
+
+        @Override
+        public void productRemoved(Product product) {
+            write(() -> store.deleteProduct(product.getProductID()));
+        }
+
+        @Override
+        public void productUpdated(Product oldProduct, Product newProduct) {
+            write(() -> store.saveProduct(newProduct));
+        }
+
+        @Override
+        public void inventoryCleared() {
+            write(() -> store.clear());
+        }
+
+        @Override
+        public void inventoryLoaded(List<Part> parts, List<Product> products) {
+            // saveAll() replaces everything in one transaction
+            write(() -> store.saveAll(parts, products));
+        }
+
+        private void write(Runnable change) {
+            try {
+                change.run();
+            } catch (RuntimeException e) {
+                failed(e);
+            }
+        }
+    }
+}
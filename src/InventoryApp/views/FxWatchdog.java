@@ -0,0 +1,244 @@
+package InventoryApp.views;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javafx.application.Platform;
+
+import InventoryApp.metrics.Metrics;
+import InventoryApp.metrics.Timer;
+
+/**
+ * FxWatchdog detects stalls of the JavaFX application thread. A daemon thread
+ * posts a heartbeat with Platform.runLater; while a heartbeat is overdue by
+ * more than the threshold, the FX thread's stack is sampled.
+ * <p>
+ * Samples are aggregated by the first application frame on the stack, which
+ * is usually the handler doing the blocking work. report() lists the worst
+ * offenders with a representative stack, and every stall longer than the
+ * threshold is recorded in the fx.stall timer.
+ *
+ * @see Metrics
+ */
+public class FxWatchdog {
+
+    // Package prefix identifying application frames
+    private static final String APPLICATION_PACKAGE = "InventoryApp.";
+
+    // Stack frames kept per offender
+    private static final int STACK_DEPTH = 16;
+
+    // Logger for stall reports
+    private static final Logger logger = Logger.getLogger(FxWatchdog.class.getName());
+
+    // Stall durations
+    private static final Timer STALLS = Metrics.timer("fx.stall");
+
+    // Running watchdog, if started
+    private static FxWatchdog instance;
+
+    // Stall threshold
+    private final long thresholdNanos;
+
+    // Delay between heartbeats and samples
+    private final long sampleMillis;
+
+    // Samples by first application frame
+    private final ConcurrentMap<String, Offender> offenders = new ConcurrentHashMap<>();
+
+    // Watchdog thread
+    private final Thread thread;
+
+    // The JavaFX application thread, once seen
+    private volatile Thread fxThread;
+
+    // System.nanoTime() when the outstanding heartbeat was posted, or 0
+    private volatile long pendingSince;
+
+    // Cleared to stop the watchdog
+    private volatile boolean running = true;
+
+    /**
+     * Constructor
+     *
+     * @param thresholdMillis
+     * @param sampleMillis
+     */
+    private FxWatchdog(long thresholdMillis, long sampleMillis) {
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+        this.sampleMillis = sampleMillis;
+        this.thread = new Thread(this::run, "fx-watchdog");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Start the watchdog. Starting twice returns the running watchdog.
+     *
+     * @param thresholdMillis heartbeat delay counted as a stall
+     * @return running watchdog
+     */
+    public static synchronized FxWatchdog start(long thresholdMillis) {
+        if (instance == null) {
+            instance = new FxWatchdog(thresholdMillis, Math.max(10, thresholdMillis / 4));
+            instance.thread.start();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Start the watchdog if inventory.watchdog.thresholdMs is set.
+     *
+     * @return running watchdog, or null if not configured
+     */
+    public static FxWatchdog startFromSystemProperties() {
+        Long thresholdMillis = Long.getLong("inventory.watchdog.thresholdMs");
+        return thresholdMillis == null ? null : start(thresholdMillis);
+    }
+
+    /**
+     * Get the running watchdog
+     *
+     * @return running watchdog, or null if not started
+     */
+    public static synchronized FxWatchdog getInstance() {
+        return instance;
+    }
+
+    /**
+     * Stop the watchdog and log the offender report.
+     */
+    public static synchronized void stop() {
+        if (instance != null) {
+            instance.running = false;
+            instance.thread.interrupt();
+
+            String report = instance.report(10);
+
+            if (!report.isEmpty()) {
+                logger.info("FX thread stall report\n" + report);
+            }
+
+            instance = null;
+        }
+    }
+
+    /**
+     * Get a report of the worst offenders, by number of stalled samples.
+     *
+     * @param limit maximum number of offenders
+     * @return report, empty if no stall was sampled
+     */
+    public String report(int limit) {
+        List<Offender> worst = new ArrayList<>(offenders.values());
+        worst.sort((a, b) -> Long.compare(b.samples.get(), a.samples.get()));
+
+        StringBuilder report = new StringBuilder();
+
+        for (Offender offender : worst.subList(0, Math.min(limit, worst.size()))) {
+            report.append(offender.samples.get()).append(" samples (~")
+                    .append(offender.samples.get() * sampleMillis).append(" ms) in ")
+                    .append(offender.frame).append('\n');
+
+            for (StackTraceElement element : offender.stack) {
+                report.append("    at ").append(element).append('\n');
+            }
+        }
+
+        return report.toString();
+    }
+
+    /**
+     * Watchdog loop: post a heartbeat when none is outstanding, otherwise
+     * sample the FX thread if the heartbeat is overdue.
+     */
+    private void run() {
+        while (running) {
+            long sent = pendingSince;
+
+            if (sent == 0) {
+                pendingSince = System.nanoTime();
+                Platform.runLater(this::heartbeat);
+            } else if (System.nanoTime() - sent > thresholdNanos && fxThread != null) {
+                sample(fxThread.getStackTrace());
+            }
+
+            try {
+                Thread.sleep(sampleMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Heartbeat, run on the FX thread. Records the delay if it was a stall.
+     */
+    private void heartbeat() {
+        fxThread = Thread.currentThread();
+
+        long delay = System.nanoTime() - pendingSince;
+        pendingSince = 0;
+
+        if (delay > thresholdNanos) {
+            STALLS.record(delay);
+            logger.warning("FX thread stalled for " + delay / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * Aggregate one stack sample under its first application frame.
+     *
+     * @param stack
+     */
+    private void sample(StackTraceElement[] stack) {
+        if (stack.length == 0) {
+            return;
+        }
+
+        StackTraceElement key = stack[0];
+
+        for (StackTraceElement element : stack) {
+            if (element.getClassName().startsWith(APPLICATION_PACKAGE)) {
+                key = element;
+                break;
+            }
+        }
+
+        String frame = key.toString();
+        Offender offender = offenders.get(frame);
+
+        if (offender == null) {
+            StackTraceElement[] kept = new StackTraceElement[Math.min(STACK_DEPTH, stack.length)];
+            System.arraycopy(stack, 0, kept, 0, kept.length);
+            offenders.putIfAbsent(frame, new Offender(frame, kept));
+            offender = offenders.get(frame);
+        }
+
+        offender.samples.incrementAndGet();
+    }
+
+    /**
+     * Samples attributed to one application frame.
+     */
+    private static final class Offender {
+
+        // First application frame on the sampled stacks
+        private final String frame;
+
+        // First stack sampled for this frame
+        private final StackTraceElement[] stack;
+
+        // Number of samples
+        private final AtomicLong samples = new AtomicLong();
+
+        private Offender(String frame, StackTraceElement[] stack) {
+            this.frame = frame;
+            this.stack = stack;
+        }
+    }
+}
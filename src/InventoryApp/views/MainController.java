@@ -2,6 +2,10 @@ package InventoryApp.views;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
@@ -20,21 +24,31 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.SelectionMode;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
+import javafx.scene.layout.GridPane;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import InventoryApp.InventoryApp;
+import InventoryApp.metrics.FxmlLoadEvent;
+import InventoryApp.metrics.Metrics;
+import InventoryApp.metrics.OperationEvent;
+import InventoryApp.metrics.TablePopulateEvent;
+import InventoryApp.metrics.Timer;
+import InventoryApp.models.BulkEdit;
 import InventoryApp.models.Inventory;
 import static InventoryApp.models.Inventory.canDeleteProduct;
-import static InventoryApp.models.Inventory.getParts;
-import static InventoryApp.models.Inventory.getProducts;
 import static InventoryApp.models.Inventory.removePart;
 import static InventoryApp.models.Inventory.removeProduct;
 import InventoryApp.models.Part;
 import InventoryApp.models.Product;
+import static InventoryApp.views.ObservableInventory.getParts;
+import static InventoryApp.views.ObservableInventory.getProducts;
 
 /**
  * Main Controller. This class controls the main inventory screen containing
@@ -45,6 +59,10 @@ import InventoryApp.models.Product;
  */
 public class MainController implements Initializable {
 
+    // Handler timers
+    private final static Timer SEARCH_PART = Metrics.timer("view.main.searchPart");
+    private final static Timer SEARCH_PRODUCT = Metrics.timer("view.main.searchProduct");
+
     // the whole parts table
     @FXML
     private TableView<Part> MainPartsTable;
@@ -168,6 +186,10 @@ public class MainController implements Initializable {
      */
     @FXML
     void handleAddPart(ActionEvent event) throws IOException {        
+        if (refuseReadOnly()) {
+            return;
+        }
+        
         showPartsScreen(event);
     }
 
@@ -179,28 +201,44 @@ public class MainController implements Initializable {
      */
     @FXML
     void handleAddProduct(ActionEvent event) throws IOException {
+        if (refuseReadOnly()) {
+            return;
+        }
+        
         showProductScreen(event);
     }
 
     /**
-     * Handle the deletion of a part.
+     * Handle the deletion of the selected parts, after one confirmation.
      * 
      * @param event
      * @throws IOException 
      */
     @FXML
     void handleDeletePart(ActionEvent event) throws IOException {
-        Part part = MainPartsTable.getSelectionModel().getSelectedItem();
+        if (refuseReadOnly()) {
+            return;
+        }
+        
+        List<Part> parts = new ArrayList<>(MainPartsTable.getSelectionModel().getSelectedItems());
+        
+        if (parts.isEmpty()) {
+            return;
+        }
 
         Alert alert = new Alert(AlertType.CONFIRMATION);
         alert.initModality(Modality.NONE);
         alert.setTitle("Part Delete");
         alert.setHeaderText("Confirm deletion?");
-        alert.setContentText("Are you sure you want to delete " + part.getName() + "?");
+        alert.setContentText("Are you sure you want to delete "
+                + (parts.size() == 1 ? parts.get(0).getName() : parts.size() + " parts") + "?");
         Optional<ButtonType> result = alert.showAndWait();
 
         if (result.get() == ButtonType.OK) {
-            removePart(part.getPartID());
+            for (Part part : parts) {
+                removePart(part.getPartID());
+            }
+            
             populatePartsTable();
         }
     }
@@ -218,6 +256,10 @@ public class MainController implements Initializable {
      */
     @FXML
     void handleDeleteProduct(ActionEvent event) throws IOException {
+        if (refuseReadOnly()) {
+            return;
+        }
+        
         Product product = MainProductsTable.getSelectionModel().getSelectedItem();
 
         if (!canDeleteProduct(product)) {
@@ -241,6 +283,137 @@ public class MainController implements Initializable {
         }
     }
     
+    /**
+     * Edit several parts at once: change prices by a percentage, shift the
+     * minimum and maximum inventory, or reassign outsourced parts to another
+     * supplier. The edit
+     * applies to the selected parts, or to every part listed, such as a
+     * search result, when none is selected. All parts are validated and saved
+     * as one batch.
+     * 
+     * @param event 
+     */
+    @FXML
+    void handleBulkEditPart(ActionEvent event) {
+        if (refuseReadOnly()) {
+            return;
+        }
+        
+        List<Part> parts = MainPartsTable.getSelectionModel().getSelectedItems();
+        
+        if (parts.isEmpty()) {
+            parts = MainPartsTable.getItems();
+        }
+        
+        if (parts.isEmpty()) {
+            return;
+        }
+        
+        List<Integer> partIDs = new ArrayList<>(parts.size());
+        
+        for (Part part : parts) {
+            partIDs.add(part.getPartID());
+        }
+        
+        TextField priceField = new TextField();
+        TextField minField = new TextField();
+        TextField maxField = new TextField();
+        TextField companyField = new TextField();
+        priceField.setPromptText("Percent, e.g. 5 or -10");
+        minField.setPromptText("Change, e.g. 2 or -2");
+        maxField.setPromptText("Change, e.g. 2 or -2");
+        companyField.setPromptText("Outsourced parts; blank to keep");
+        
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.addRow(0, new Label("Price %"), priceField);
+        grid.addRow(1, new Label("Min"), minField);
+        grid.addRow(2, new Label("Max"), maxField);
+        grid.addRow(3, new Label("Company Name"), companyField);
+        
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Bulk Edit");
+        dialog.setHeaderText("Edit " + partIDs.size() + (partIDs.size() == 1 ? " part" : " parts"));
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        Optional<ButtonType> result = dialog.showAndWait();
+        
+        if (!result.isPresent() || result.get() != ButtonType.OK) {
+            return;
+        }
+        
+        BulkEdit edit = new BulkEdit();
+        
+        try {
+            edit.setPricePercent(priceField.getText().trim().isEmpty() ? 0 : Double.parseDouble(priceField.getText().trim()));
+            edit.setMinChange(minField.getText().trim().isEmpty() ? 0 : Integer.parseInt(minField.getText().trim()));
+            edit.setMaxChange(maxField.getText().trim().isEmpty() ? 0 : Integer.parseInt(maxField.getText().trim()));
+        } catch (NumberFormatException e) {
+            Alert alert = new Alert(AlertType.INFORMATION);
+            alert.setTitle("ValidationError");
+            alert.setHeaderText("Bulk edit not saved");
+            alert.setContentText("The price, min and max changes must be numbers.");
+            alert.showAndWait();
+            return;
+        }
+        
+        if (!companyField.getText().trim().isEmpty()) {
+            edit.setCompanyName(companyField.getText().trim());
+        }
+        
+        SaveQueue.editParts(partIDs, edit, updatedParts -> showEditedParts(updatedParts));
+    }
+    
+    /**
+     * Tell the user changes are refused while this process is a read-only
+     * replica, whose inventory follows the primary's.
+     * 
+     * @return true if the inventory is read-only
+     */
+    private boolean refuseReadOnly() {
+        if (!Inventory.isReadOnly()) {
+            return false;
+        }
+        
+        Alert alert = new Alert(AlertType.INFORMATION);
+        alert.setTitle("Read-only Replica");
+        alert.setHeaderText("Changes are not allowed!");
+        alert.setContentText("This inventory is a read-only replica. Make changes on the primary.");
+        alert.showAndWait();
+        return true;
+    }
+    
+    /**
+     * Show the parts of a committed bulk edit in a search result. The full
+     * parts list is mirrored from the Inventory and needs no refresh.
+     * 
+     * @param updatedParts 
+     */
+    private void showEditedParts(List<Part> updatedParts) {
+        ObservableList<Part> items = MainPartsTable.getItems();
+        
+        if (items == getParts() || updatedParts.isEmpty()) {
+            return;
+        }
+        
+        Map<Integer, Part> updates = new HashMap<>();
+        
+        for (Part part : updatedParts) {
+            updates.put(part.getPartID(), part);
+        }
+        
+        List<Part> refreshed = new ArrayList<>(items.size());
+        
+        for (Part part : items) {
+            refreshed.add(updates.getOrDefault(part.getPartID(), part));
+        }
+        
+        TablePopulateEvent populate = new TablePopulateEvent("MainPartsTable", refreshed.size());
+        items.setAll(refreshed);
+        populate.commit();
+    }
+    
     /**
      * Set modifiedPart. modifiedPart is used to dynamically switch between add
      * and modify view.
@@ -250,6 +423,20 @@ public class MainController implements Initializable {
      */
     @FXML
     void handleModifyPart(ActionEvent event) throws IOException {
+        if (refuseReadOnly()) {
+            return;
+        }
+        
+        // the parts table allows several rows to be selected for a bulk edit
+        if (MainPartsTable.getSelectionModel().getSelectedItems().size() > 1) {
+            Alert alert = new Alert(AlertType.INFORMATION);
+            alert.setTitle("Part Modify");
+            alert.setHeaderText("Select a single part!");
+            alert.setContentText("Select one part to modify, or use Bulk Edit to change several parts.");
+            alert.showAndWait();
+            return;
+        }
+        
         modifiedPart = MainPartsTable.getSelectionModel().getSelectedItem();
         setModifiedPart(modifiedPart);
 
@@ -265,6 +452,10 @@ public class MainController implements Initializable {
      */
     @FXML
     void handleModifyProduct(ActionEvent event) throws IOException {
+        if (refuseReadOnly()) {
+            return;
+        }
+        
         modifiedProduct = MainProductsTable.getSelectionModel().getSelectedItem();
         setModifiedProduct(modifiedProduct);
         
@@ -283,19 +474,25 @@ public class MainController implements Initializable {
      */
     @FXML
     void handleSearchPart(ActionEvent event) throws IOException {
-        String partsSearchIdString = MainPartsSearchField.getText();
-        Part searchedPart = Inventory.lookupPart(Integer.parseInt(partsSearchIdString));
+        OperationEvent operation = SEARCH_PART.start();
+        
+        try {
+            String partsSearchIdString = MainPartsSearchField.getText();
+            Part searchedPart = Inventory.lookupPart(Integer.parseInt(partsSearchIdString));
 
-        if (searchedPart != null) {
-            ObservableList<Part> filteredPartsList = FXCollections.observableArrayList();
-            filteredPartsList.add(searchedPart);
-            MainPartsTable.setItems(filteredPartsList);
-        } else {
-            Alert alert = new Alert(AlertType.INFORMATION);
-            alert.setTitle("Search Error");
-            alert.setHeaderText("Part not found");
-            alert.setContentText("The search term entered does not match any part!");
-            alert.showAndWait();
+            if (searchedPart != null) {
+                ObservableList<Part> filteredPartsList = FXCollections.observableArrayList();
+                filteredPartsList.add(searchedPart);
+                MainPartsTable.setItems(filteredPartsList);
+            } else {
+                Alert alert = new Alert(AlertType.INFORMATION);
+                alert.setTitle("Search Error");
+                alert.setHeaderText("Part not found");
+                alert.setContentText("The search term entered does not match any part!");
+                alert.showAndWait();
+            }
+        } finally {
+            operation.stop();
         }
     }
     
@@ -311,19 +508,25 @@ public class MainController implements Initializable {
      */
     @FXML
     void handleSearchProduct(ActionEvent event) throws IOException {
-        String productSearchIdString = MainProductsSearchField.getText();
-        Product searchedProduct= Inventory.lookupProduct(Integer.parseInt(productSearchIdString));
+        OperationEvent operation = SEARCH_PRODUCT.start();
+        
+        try {
+            String productSearchIdString = MainProductsSearchField.getText();
+            Product searchedProduct= Inventory.lookupProduct(Integer.parseInt(productSearchIdString));
 
-        if (searchedProduct != null) {
-            ObservableList<Product> filteredProductList = FXCollections.observableArrayList();
-            filteredProductList.add(searchedProduct);
-            MainProductsTable.setItems(filteredProductList);
-        } else {
-            Alert alert = new Alert(AlertType.INFORMATION);
-            alert.setTitle("Search Error");
-            alert.setHeaderText("Product not found");
-            alert.setContentText("The search term entered does not match any product!");
-            alert.showAndWait();
+            if (searchedProduct != null) {
+                ObservableList<Product> filteredProductList = FXCollections.observableArrayList();
+                filteredProductList.add(searchedProduct);
+                MainProductsTable.setItems(filteredProductList);
+            } else {
+                Alert alert = new Alert(AlertType.INFORMATION);
+                alert.setTitle("Search Error");
+                alert.setHeaderText("Product not found");
+                alert.setContentText("The search term entered does not match any product!");
+                alert.showAndWait();
+            }
+        } finally {
+            operation.stop();
         }
     }
    
@@ -349,10 +552,79 @@ public class MainController implements Initializable {
         MainProductInStockCol.setCellValueFactory(cellData -> new SimpleIntegerProperty(cellData.getValue().getInStock()).asObject());
         MainProductPriceCol.setCellValueFactory(cellData -> new SimpleDoubleProperty(cellData.getValue().getPrice()).asObject());
         
+        // several parts may be selected for a bulk edit
+        MainPartsTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        
+        // price and inventory sorts are fed from the Inventory indexes
+        MainPartsTable.setSortPolicy(table -> sortPartsTable(table));
+        MainProductsTable.setSortPolicy(table -> sortProductsTable(table));
+        
         populatePartsTable();
         populateProductsTable();
     }
     
+    /**
+     * Sort the parts table. A single-column sort on price or inventory of the
+     * full parts list is served pre-sorted from the Inventory indexes; any
+     * other sort falls back to the default policy.
+     * 
+     * @param table
+     * @return true if the sort was applied
+     */
+    private Boolean sortPartsTable(TableView<Part> table) {
+        if (table.getItems() == getParts() && table.getSortOrder().size() == 1) {
+            TableColumn<Part, ?> column = table.getSortOrder().get(0);
+            boolean ascending = column.getSortType() == TableColumn.SortType.ASCENDING;
+            
+            if (column == MainPartPriceCol) {
+                TablePopulateEvent populate = new TablePopulateEvent("MainPartsTable", getParts().size());
+                getParts().setAll(Inventory.getPartsSortedByPrice(ascending));
+                populate.commit();
+                return true;
+            }
+            
+            if (column == MainPartInStockCol) {
+                TablePopulateEvent populate = new TablePopulateEvent("MainPartsTable", getParts().size());
+                getParts().setAll(Inventory.getPartsSortedByStock(ascending));
+                populate.commit();
+                return true;
+            }
+        }
+        
+        return TableView.DEFAULT_SORT_POLICY.call(table);
+    }
+    
+    /**
+     * Sort the products table. A single-column sort on price or inventory of
+     * the full products list is served pre-sorted from the Inventory indexes;
+     * any other sort falls back to the default policy.
+     * 
+     * @param table
+     * @return true if the sort was applied
+     */
+    private Boolean sortProductsTable(TableView<Product> table) {
+        if (table.getItems() == getProducts() && table.getSortOrder().size() == 1) {
+            TableColumn<Product, ?> column = table.getSortOrder().get(0);
+            boolean ascending = column.getSortType() == TableColumn.SortType.ASCENDING;
+            
+            if (column == MainProductPriceCol) {
+                TablePopulateEvent populate = new TablePopulateEvent("MainProductsTable", getProducts().size());
+                getProducts().setAll(Inventory.getProductsSortedByPrice(ascending));
+                populate.commit();
+                return true;
+            }
+            
+            if (column == MainProductInStockCol) {
+                TablePopulateEvent populate = new TablePopulateEvent("MainProductsTable", getProducts().size());
+                getProducts().setAll(Inventory.getProductsSortedByStock(ascending));
+                populate.commit();
+                return true;
+            }
+        }
+        
+        return TableView.DEFAULT_SORT_POLICY.call(table);
+    }
+    
     /**
      * Populate the parts table.
      */
@@ -386,7 +658,10 @@ public class MainController implements Initializable {
      * @throws IOException 
      */
     public void showPartsScreen(ActionEvent event) throws IOException {
+        FxmlLoadEvent load = new FxmlLoadEvent("Parts.fxml");
         Parent loader = FXMLLoader.load(getClass().getResource("Parts.fxml"));
+        load.commit();
+        
         Scene scene = new Scene(loader);
         Stage window = (Stage) ((Node) event.getSource()).getScene().getWindow();
         window.setScene(scene);
@@ -402,7 +677,10 @@ public class MainController implements Initializable {
      * @throws IOException 
      */
     public void showProductScreen(ActionEvent event) throws IOException {
+        FxmlLoadEvent load = new FxmlLoadEvent("Products.fxml");
         Parent loader = FXMLLoader.load(getClass().getResource("Products.fxml"));
+        load.commit();
+        
         Scene scene = new Scene(loader);
         Stage window = (Stage) ((Node) event.getSource()).getScene().getWindow();
         window.setScene(scene);
@@ -0,0 +1,367 @@
+package InventoryApp.views;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import InventoryApp.models.Inventory;
+import InventoryApp.models.InventoryListener;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+
+/**
+ * ObservableInventory is the JavaFX adapter over the Inventory. It mirrors
+ * the inventory's parts and products into observable lists for the tables.
+ * <p>
+ * Changes made on the JavaFX application thread are mirrored immediately;
+ * changes made elsewhere, such as through the API, are mirrored on the
+ * JavaFX application thread. The tables may sort the mirrored lists freely
+ * without reordering the Inventory itself.
+ * <p>
+ * Saves queued on the SaveQueue are shown ahead of their commit. Such items
+ * are pending until the Inventory reports the change, and are rolled back if
+ * the commit fails.
+ * 
+ * @see Inventory, SaveQueue
+ */
+public class ObservableInventory {
+    
+    // Observable mirror of the inventory's parts
+    private final static ObservableList<Part> parts = FXCollections.observableArrayList();
+    
+    // Observable mirror of the inventory's products
+    private final static ObservableList<Product> products = FXCollections.observableArrayList();
+    
+    // Items shown ahead of their commit; touched on the JavaFX thread only
+    private final static Set<Object> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+    
+    // Pending items that are added, and so have no ID until their commit
+    private final static Set<Object> adding = Collections.newSetFromMap(new IdentityHashMap<>());
+    
+    static {
+        // seed and subscribe under the Inventory lock so no change is missed
+        synchronized (Inventory.class) {
+            parts.setAll(Inventory.listParts());
+            products.setAll(Inventory.listProducts());
+            Inventory.addListener(new Mirror());
+        }
+    }
+    
+    /**
+     * Constructor
+     */
+    private ObservableInventory() {
+    }
+    
+    /**
+     * Get the observable list of parts
+     * 
+     * @return list of parts in inventory
+     */
+    public static ObservableList<Part> getParts() {
+        return parts;
+    }
+    
+    /**
+     * Get the observable list of products
+     * 
+     * @return list of products in inventory
+     */
+    public static ObservableList<Product> getProducts() {
+        return products;
+    }
+    
+    /**
+     * Show a part saved through the SaveQueue before it is committed
+     * 
+     * @param oldPart part being modified, or null if newPart is added
+     * @param newPart 
+     */
+    static void showPart(Part oldPart, Part newPart) {
+        pending.add(newPart);
+        show(parts, oldPart, newPart, Part::getPartID);
+    }
+    
+    /**
+     * Roll back a part whose commit failed
+     * 
+     * @param oldPart part being modified, or null if newPart was added
+     * @param newPart 
+     */
+    static void rollbackPart(Part oldPart, Part newPart) {
+        pending.remove(newPart);
+        adding.remove(newPart);
+        rollback(parts, oldPart, newPart);
+    }
+    
+    /**
+     * Show a product saved through the SaveQueue before it is committed
+     * 
+     * @param oldProduct product being modified, or null if newProduct is added
+     * @param newProduct 
+     */
+    static void showProduct(Product oldProduct, Product newProduct) {
+        pending.add(newProduct);
+        show(products, oldProduct, newProduct, Product::getProductID);
+    }
+    
+    /**
+     * Roll back a product whose commit failed
+     * 
+     * @param oldProduct product being modified, or null if newProduct was added
+     * @param newProduct 
+     */
+    static void rollbackProduct(Product oldProduct, Product newProduct) {
+        pending.remove(newProduct);
+        adding.remove(newProduct);
+        rollback(products, oldProduct, newProduct);
+    }
+    
+    /**
+     * Apply a change to the mirrored lists on the JavaFX application thread.
+     * 
+     * @param change 
+     */
+    private static void apply(Runnable change) {
+        if (Platform.isFxApplicationThread()) {
+            change.run();
+        } else {
+            Platform.runLater(change);
+        }
+    }
+    
+    /**
+     * Find the row of an item, or failing that the row of another version of
+     * it with the same ID, such as a later save shown ahead of its commit.
+     * 
+     * @param list
+     * @param item
+     * @param id gets the ID of an item
+     * @return index, or -1 if no row has the item's ID
+     */
+    private static <T> int find(List<T> list, T item, ToIntFunction<T> id) {
+        int index = list.indexOf(item);
+        
+        if (index >= 0) {
+            return index;
+        }
+        
+        for (int i = 0; i < list.size(); i++) {
+            T row = list.get(i);
+            
+            if (!adding.contains(row) && id.applyAsInt(row) == id.applyAsInt(item)) {
+                return i;
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Replace an item in a mirrored list. If the old item is no longer
+     * present its row is found by ID, and the change is dropped if that row
+     * shows a later save still to be committed.
+     * 
+     * @param list
+     * @param oldItem
+     * @param newItem 
+     * @param id gets the ID of an item
+     */
+    private static <T> void replace(ObservableList<T> list, T oldItem, T newItem, ToIntFunction<T> id) {
+        int index = find(list, oldItem, id);
+        
+        if (index < 0) {
+            list.add(newItem);
+        } else if (list.get(index) == oldItem || !pending.contains(list.get(index))) {
+            list.set(index, newItem);
+        }
+    }
+    
+    /**
+     * Show an item ahead of its commit.
+     * 
+     * @param list
+     * @param oldItem item being replaced, or null to append
+     * @param newItem 
+     * @param id gets the ID of an item
+     */
+    private static <T> void show(ObservableList<T> list, T oldItem, T newItem, ToIntFunction<T> id) {
+        int index = oldItem == null ? -1 : find(list, oldItem, id);
+        
+        if (oldItem == null) {
+            adding.add(newItem);
+        }
+        
+        if (index < 0) {
+            list.add(newItem);
+        } else {
+            list.set(index, newItem);
+        }
+    }
+    
+    /**
+     * Undo show() for an item whose commit failed.
+     * 
+     * @param list
+     * @param oldItem item that was replaced, or null if newItem was appended
+     * @param newItem 
+     */
+    private static <T> void rollback(ObservableList<T> list, T oldItem, T newItem) {
+        int index = list.indexOf(newItem);
+        
+        if (index < 0) {
+            return;
+        }
+        
+        if (oldItem == null) {
+            list.remove(index);
+        } else {
+            list.set(index, oldItem);
+        }
+    }
+    
+    /**
+     * Mirror an added item, unless it is already shown as pending. A pending
+     * item is set again so its row picks up the ID assigned at commit.
+     * 
+     * @param list
+     * @param item 
+     * @param id gets the ID of an item
+     */
+    private static <T> void added(ObservableList<T> list, T item, ToIntFunction<T> id) {
+        adding.remove(item);
+        
+        if (pending.remove(item)) {
+            replace(list, item, item, id);
+        } else {
+            list.add(item);
+        }
+    }
+    
+    /**
+     * Mirror an updated item, unless it is already shown as pending.
+     * 
+     * @param list
+     * @param oldItem
+     * @param newItem 
+     * @param id gets the ID of an item
+     */
+    private static <T> void updated(ObservableList<T> list, T oldItem, T newItem, ToIntFunction<T> id) {
+        if (pending.remove(newItem)) {
+            replace(list, newItem, newItem, id);
+        } else {
+            replace(list, oldItem, newItem, id);
+        }
+    }
+    
+    /**
+     * Mirror a batch of updated items as a single change to the list, so the
+     * table refreshes once. Items keep their positions, and so any sort.
+     * 
+     * @param list
+     * @param oldItems
+     * @param newItems updated items, in the same order
+     * @param id gets the ID of an item
+     */
+    private static <T> void updatedAll(ObservableList<T> list, List<T> oldItems, List<T> newItems, ToIntFunction<T> id) {
+        Map<T, T> updates = new IdentityHashMap<>();
+        
+        for (int i = 0; i < newItems.size(); i++) {
+            pending.remove(newItems.get(i));
+            updates.put(oldItems.get(i), newItems.get(i));
+        }
+        
+        List<T> items = new ArrayList<>(list);
+        
+        for (int i = 0; i < items.size(); i++) {
+            T newItem = updates.remove(items.get(i));
+            
+            if (newItem != null) {
+                items.set(i, newItem);
+            }
+        }
+        
+        // items no longer shown are matched by ID, as in replace()
+        for (T newItem : updates.values()) {
+            int index = find(items, newItem, id);
+            
+            if (index < 0) {
+                items.add(newItem);
+            } else if (!pending.contains(items.get(index))) {
+                items.set(index, newItem);
+            }
+        }
+        
+        list.setAll(items);
+    }
+    
+    /**
+     * Inventory listener mirroring each change into the observable lists.
+     */
+    private static final class Mirror implements InventoryListener {
+        
+        @Override
+        public void partAdded(Part part) {
+            apply(() -> added(parts, part, Part::getPartID));
+        }
+        
+        @Override
+        public void partRemoved(Part part) {
+            apply(() -> parts.remove(part));
+        }
+        
+        @Override
+        public void partUpdated(Part oldPart, Part newPart) {
+            apply(() -> updated(parts, oldPart, newPart, Part::getPartID));
+        }
+        
+        @Override
+        public void partsUpdated(List<Part> oldParts, List<Part> newParts) {
+            apply(() -> updatedAll(parts, oldParts, newParts, Part::getPartID));
+        }
+        
+        @Override
+        public void productAdded(Product product) {
+            apply(() -> added(products, product, Product::getProductID));
+        }
+        
+        @Override
+        public void productRemoved(Product product) {
+            apply(() -> products.remove(product));
+        }
+        
+        @Override
+        public void productUpdated(Product oldProduct, Product newProduct) {
+            apply(() -> updated(products, oldProduct, newProduct, Product::getProductID));
+        }
+        
+        @Override
+        public void inventoryCleared() {
+            apply(() -> {
+                pending.clear();
+                adding.clear();
+                parts.clear();
+                products.clear();
+            });
+        }
+        
+        @Override
+        public void inventoryLoaded(List<Part> loadedParts, List<Product> loadedProducts) {
+            // one change per list, however large the catalog
+            apply(() -> {
+                pending.clear();
+                adding.clear();
+                parts.setAll(loadedParts);
+                products.setAll(loadedProducts);
+            });
+        }
+    }
+}
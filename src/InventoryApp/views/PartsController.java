@@ -2,8 +2,16 @@ package InventoryApp.views;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -20,6 +28,11 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import InventoryApp.exceptions.ValidationException;
+import InventoryApp.matching.DuplicateDetector;
+import InventoryApp.matching.PartMatch;
+import InventoryApp.metrics.Metrics;
+import InventoryApp.metrics.OperationEvent;
+import InventoryApp.metrics.Timer;
 import InventoryApp.models.InhousePart;
 import InventoryApp.models.Inventory;
 import InventoryApp.models.OutsourcedPart;
@@ -34,11 +47,33 @@ import static InventoryApp.views.MainController.getModifiedPart;
  * <br>
  * The associated Parts.fxml contains markup for both add and modify parts
  * screens. This screen was built using SceneBuilder.
+ * <br>
+ * While a part is entered, existing parts that look like it are listed under
+ * the form, and saving a new part that closely matches one asks first.
  * 
  * @author Dale Richards <dric123@wgu.edu>
  */
 public class PartsController implements Initializable {
 
+    // Handler timers
+    private final static Timer SAVE = Metrics.timer("view.parts.save");
+
+    // Logger for failed suggestions
+    private static final Logger logger = Logger.getLogger(PartsController.class.getName());
+
+    // Similar parts listed under the form
+    private static final int SUGGESTIONS = 3;
+
+    // Score of a similar part above which saving a new part asks first
+    private static final double CONFIRM_SCORE = 0.9;
+
+    // Worker finding similar parts off the JavaFX application thread
+    private final static ExecutorService matcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-match");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     // GUI part ID
     @FXML
     private TextField PartsIDField;
@@ -83,12 +118,22 @@ public class PartsController implements Initializable {
     @FXML
     private RadioButton PartsOutsourcedRadioButton;
     
+    // GUI list of similar existing parts
+    @FXML
+    private Label PartsSimilarLabel;
+    
     // Flag representing the manufacturing status of this part
     //  ie. in-house or outsourced
     private boolean isInHouse;
     
     // Part being modified if this is a modification, else null 
     private final Part modifyPart;
+    
+    // Latest request for similar parts; older answers are dropped
+    private final AtomicInteger suggestionRequest = new AtomicInteger();
+    
+    // Similar parts last listed
+    private List<PartMatch> similarParts = Collections.emptyList();
 
     /**
      * Constructor
@@ -157,98 +202,187 @@ public class PartsController implements Initializable {
      */
     @FXML
     void handleSave(ActionEvent event) throws IOException {
-        // Get data from the GUI
-        String partName = PartsNameField.getText();
-        String partInv = PartsInStockField.getText();
-        String partPrice = PartsPriceField.getText();
-        String partMin = PartsMinField.getText();
-        String partMax = PartsMaxField.getText();
-        String partDyn = PartsMfgField.getText();
+        OperationEvent operation = SAVE.start();
         
-        if ("".equals(partInv)) {
-            partInv = "0";
-        }
+        try {
+            // Ask before adding a part that looks like one already entered
+            if (modifyPart == null && !similarParts.isEmpty()
+                    && similarParts.get(0).getScore() >= CONFIRM_SCORE && !confirmDuplicate(similarParts.get(0))) {
+                return;
+            }
+            
+            // Get data from the GUI
+            String partName = PartsNameField.getText();
+            String partInv = PartsInStockField.getText();
+            String partPrice = PartsPriceField.getText();
+            String partMin = PartsMinField.getText();
+            String partMax = PartsMaxField.getText();
+            String partDyn = PartsMfgField.getText();
+        
+            if ("".equals(partInv)) {
+                partInv = "0";
+            }
         
-        // The next if/else block is a bit unruly. Ideally, in a real world 
-        // scenario and with a development budget, I'd implement a visitor
-        // pattern, but that's a bit beyond the scope of work for this 
-        // assignment.
-        if (isInHouse) {
-            // Create or modify an instance of InhousePart and set the instance
-            //   vars as appropriate.
-            InhousePart modifiedPart = new InhousePart();
-            modifiedPart.setName(partName);
-            modifiedPart.setPrice(Double.parseDouble(partPrice));
-            modifiedPart.setInStock(Integer.parseInt(partInv));
-            modifiedPart.setMin(Integer.parseInt(partMin));
-            modifiedPart.setMax(Integer.parseInt(partMax));
-            modifiedPart.setMachineID(Integer.parseInt(partDyn));
+            // The next if/else block is a bit unruly. Ideally, in a real world 
+            // scenario and with a development budget, I'd implement a visitor
+            // pattern, but that's a bit beyond the scope of work for this 
+            // assignment.
+            if (isInHouse) {
+                // Create or modify an instance of InhousePart and set the instance
+                //   vars as appropriate.
+                InhousePart modifiedPart = new InhousePart();
+                modifiedPart.setName(partName);
+                modifiedPart.setPrice(Double.parseDouble(partPrice));
+                modifiedPart.setInStock(Integer.parseInt(partInv));
+                modifiedPart.setMin(Integer.parseInt(partMin));
+                modifiedPart.setMax(Integer.parseInt(partMax));
+                modifiedPart.setMachineID(Integer.parseInt(partDyn));
 
-            try {
-                modifiedPart.isValid();
-                
-                // If this is a modified part, we ill update it. Otherwise we save a
-                //    new part.
-                if (modifyPart == null) {
-                    modifiedPart.setPartID(Inventory.getPartsCount());
-                    Inventory.addPart(modifiedPart);
-                } else {
-                    int partID = modifyPart.getPartID();
-                    modifiedPart.setPartID(partID);
-                    Inventory.updatePart(modifiedPart);
+                try {
+                    modifiedPart.isValid();
+                    
+                    // If this is a modified part, we ill update it. Otherwise we save a
+                    //    new part. The commit runs on the SaveQueue, which shows
+                    //    the part at once and rolls it back on failure.
+                    if (modifyPart != null) {
+                        modifiedPart.setPartID(modifyPart.getPartID());
+                    }
+                    
+                    SaveQueue.savePart(modifyPart, modifiedPart);
+                    
+                    // Return to the main screen
+                    Parent loader = FXMLLoader.load(getClass().getResource("Main.fxml"));
+                    Scene scene = new Scene(loader);
+                    Stage window = (Stage) ((Node) event.getSource()).getScene().getWindow();
+                    window.setScene(scene);
+                    window.show();
+                } catch (ValidationException e) {
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                    alert.setTitle("ValidationError");
+                    alert.setHeaderText("Part not valid");
+                    alert.setContentText(e.getMessage());
+                    alert.showAndWait();
+                }
+            } else {
+                // Create or modify an instance of OutsourcedPart and set the instance
+                //   vars as appropriate.
+                OutsourcedPart modifiedPart = new OutsourcedPart();
+                modifiedPart.setName(partName);
+                modifiedPart.setPrice(Double.parseDouble(partPrice));
+                modifiedPart.setInStock(Integer.parseInt(partInv));
+                modifiedPart.setMin(Integer.parseInt(partMin));
+                modifiedPart.setMax(Integer.parseInt(partMax));
+                modifiedPart.setCompanyName(partDyn);
+            
+                try {
+                    modifiedPart.isValid();
+                    
+                    // If this is a modified part, we ill update it. Otherwise we save a
+                    //    new part. The commit runs on the SaveQueue, which shows
+                    //    the part at once and rolls it back on failure.
+                    if (modifyPart != null) {
+                        modifiedPart.setPartID(modifyPart.getPartID());
+                    }
+                    
+                    SaveQueue.savePart(modifyPart, modifiedPart);
+                    
+                    // Return to the main screen
+                    Parent loader = FXMLLoader.load(getClass().getResource("Main.fxml"));
+                    Scene scene = new Scene(loader);
+                    Stage window = (Stage) ((Node) event.getSource()).getScene().getWindow();
+                    window.setScene(scene);
+                    window.show();
+                } catch (ValidationException e) {
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                    alert.setTitle("ValidationError");
+                    alert.setHeaderText("Part not valid");
+                    alert.setContentText(e.getMessage());
+                    alert.showAndWait();
                 }
-                
-                // Return to the main screen
-                Parent loader = FXMLLoader.load(getClass().getResource("Main.fxml"));
-                Scene scene = new Scene(loader);
-                Stage window = (Stage) ((Node) event.getSource()).getScene().getWindow();
-                window.setScene(scene);
-                window.show();
-            } catch (ValidationException e) {
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("ValidationError");
-                alert.setHeaderText("Part not valid");
-                alert.setContentText(e.getMessage());
-                alert.showAndWait();
             }
-        } else {
-            // Create or modify an instance of OutsourcedPart and set the instance
-            //   vars as appropriate.
-            OutsourcedPart modifiedPart = new OutsourcedPart();
-            modifiedPart.setName(partName);
-            modifiedPart.setPrice(Double.parseDouble(partPrice));
-            modifiedPart.setInStock(Integer.parseInt(partInv));
-            modifiedPart.setMin(Integer.parseInt(partMin));
-            modifiedPart.setMax(Integer.parseInt(partMax));
-            modifiedPart.setCompanyName(partDyn);
+        } finally {
+            operation.stop();
+        }
+    }
+
+    /**
+     * Ask whether to save a part that looks like an existing one.
+     * 
+     * @param match
+     * @return true to save anyway
+     */
+    private boolean confirmDuplicate(PartMatch match) {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Possible Duplicate");
+        alert.setHeaderText("A similar part already exists");
+        alert.setContentText(describe(match.getMatch()) + " looks like this part. Save it anyway?");
+        Optional<ButtonType> result = alert.showAndWait();
+        
+        return result.isPresent() && result.get() == ButtonType.OK;
+    }
+    
+    /**
+     * Look for existing parts like the one entered, off the JavaFX
+     * application thread, and list them once found.
+     */
+    private void suggestSimilarParts() {
+        int request = suggestionRequest.incrementAndGet();
+        String name = PartsNameField.getText();
+        double price = parsePrice(PartsPriceField.getText());
+        String source = PartsMfgField.getText();
+        int excludePartID = modifyPart == null ? -1 : modifyPart.getPartID();
+        
+        matcher.execute(() -> {
+            // skip requests overtaken by further typing
+            if (request != suggestionRequest.get()) {
+                return;
+            }
             
             try {
-                modifiedPart.isValid();
-                
-                // If this is a modified part, we ill update it. Otherwise we save a
-                //    new part.
-                if (modifyPart == null) {
-                    modifiedPart.setPartID(Inventory.getPartsCount());
-                    Inventory.addPart(modifiedPart);
-                } else {
-                    int partID = modifyPart.getPartID();
-                    modifiedPart.setPartID(partID);
-                    Inventory.updatePart(modifiedPart);
-                }
+                List<PartMatch> matches = DuplicateDetector.suggest(name, price, source, excludePartID, SUGGESTIONS);
                 
-                // Return to the main screen
-                Parent loader = FXMLLoader.load(getClass().getResource("Main.fxml"));
-                Scene scene = new Scene(loader);
-                Stage window = (Stage) ((Node) event.getSource()).getScene().getWindow();
-                window.setScene(scene);
-                window.show();
-            } catch (ValidationException e) {
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("ValidationError");
-                alert.setHeaderText("Part not valid");
-                alert.setContentText(e.getMessage());
-                alert.showAndWait();
+                Platform.runLater(() -> {
+                    if (request == suggestionRequest.get()) {
+                        showSimilarParts(matches);
+                    }
+                });
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Could not look up similar parts", e);
             }
+        });
+    }
+    
+    /**
+     * List similar parts under the form.
+     * 
+     * @param matches 
+     */
+    private void showSimilarParts(List<PartMatch> matches) {
+        similarParts = matches;
+        
+        if (matches.isEmpty()) {
+            PartsSimilarLabel.setText("");
+            return;
+        }
+        
+        StringBuilder text = new StringBuilder("Similar parts:");
+        
+        for (PartMatch match : matches) {
+            text.append("\n").append(describe(match.getMatch()));
+        }
+        
+        PartsSimilarLabel.setText(text.toString());
+    }
+    
+    private static String describe(Part part) {
+        return part.getName() + " (ID " + part.getPartID() + ", $" + part.getPrice() + ")";
+    }
+    
+    private static double parsePrice(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException | NullPointerException e) {
+            return Double.NaN;
         }
     }
 
@@ -264,7 +398,7 @@ public class PartsController implements Initializable {
     public void initialize(URL url, ResourceBundle rb) {
         if (modifyPart == null) {
             PartsPageLabel.setText("Add Part");
-            int partAutoID = Inventory.getPartsCount();
+            int partAutoID = Inventory.getNextPartID();
             PartsIDField.setText("AUTO GEN: " + partAutoID);
             
             isInHouse = true;
@@ -292,6 +426,13 @@ public class PartsController implements Initializable {
                 PartsMfgLabel.setText("Comp Nm");
                 PartsOutsourcedRadioButton.setSelected(true);
             }
+            
+            suggestSimilarParts();
         }
+        
+        // List similar parts as the name, price or source change
+        PartsNameField.textProperty().addListener((observable, oldValue, newValue) -> suggestSimilarParts());
+        PartsPriceField.textProperty().addListener((observable, oldValue, newValue) -> suggestSimilarParts());
+        PartsMfgField.textProperty().addListener((observable, oldValue, newValue) -> suggestSimilarParts());
     }
 }
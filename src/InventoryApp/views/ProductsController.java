@@ -26,6 +26,9 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import InventoryApp.exceptions.ValidationException;
+import InventoryApp.metrics.Metrics;
+import InventoryApp.metrics.OperationEvent;
+import InventoryApp.metrics.Timer;
 import InventoryApp.models.Inventory;
 import InventoryApp.models.Part;
 import InventoryApp.models.Product;
@@ -44,6 +47,10 @@ import static InventoryApp.views.MainController.getModifiedProduct;
  */
 public class ProductsController implements Initializable {
 
+    // Handler timers
+    private final static Timer SAVE = Metrics.timer("view.products.save");
+    private final static Timer SEARCH_PARTS = Metrics.timer("view.products.searchParts");
+
     // Dynamic page label
     @FXML
     private Label ProductsPageLabel;
@@ -208,54 +215,55 @@ public class ProductsController implements Initializable {
      */
     @FXML
     void handleSave(ActionEvent event) throws IOException {
-        String productName = ProductsNameField.getText();
-        String productInv = ProductsInStockField.getText();
-        String productPrice = ProductsPriceField.getText();
-        String productMin = ProductsMinField.getText();
-        String productMax = ProductsMaxField.getText();
+        OperationEvent operation = SAVE.start();
+        
+        try {
+            String productName = ProductsNameField.getText();
+            String productInv = ProductsInStockField.getText();
+            String productPrice = ProductsPriceField.getText();
+            String productMin = ProductsMinField.getText();
+            String productMax = ProductsMaxField.getText();
 
-        Product newProduct = new Product();
-        newProduct.setName(productName);
-        newProduct.setPrice(Double.parseDouble(productPrice));
-        newProduct.setInStock(Integer.parseInt(productInv));
-        newProduct.setMin(Integer.parseInt(productMin));
-        newProduct.setMax(Integer.parseInt(productMax));
-       
-        // If this is a modification, clear old parts.
-        // This is basically a preemptive dedupe.
-        if (modifiedProduct != null) {
-            modifiedProduct.purgeAssociatedParts();
-        }
+            Product newProduct = new Product();
+            newProduct.setName(productName);
+            newProduct.setPrice(Double.parseDouble(productPrice));
+            newProduct.setInStock(Integer.parseInt(productInv));
+            newProduct.setMin(Integer.parseInt(productMin));
+            newProduct.setMax(Integer.parseInt(productMax));
         
-        // Iterate productParts and add them to the product
-        for (Part p: productParts) {
-            newProduct.addAssociatedPart(p);
-        }
+            // Iterate productParts and add them to the product. The modified
+            //   product keeps its own parts so a failed save can be rolled back.
+            for (Part p: productParts) {
+                newProduct.addAssociatedPart(p);
+            }
         
-        try {
-            newProduct.isValid();
+            try {
+                newProduct.isValid();
             
-            // Create or update product as required.
-            if (modifiedProduct == null) {
-                newProduct.setProductID(Inventory.getProductsCount());
-                Inventory.addProduct(newProduct);
-            } else {
-                newProduct.setProductID(modifiedProduct.getProductID());
-                Inventory.updateProduct(newProduct);
-            }
+                // Create or update product as required. The commit runs on the
+                //   SaveQueue, which shows the product at once and rolls it back
+                //   on failure.
+                if (modifiedProduct != null) {
+                    newProduct.setProductID(modifiedProduct.getProductID());
+                }
+            
+                SaveQueue.saveProduct(modifiedProduct, newProduct);
 
-            // Return to the main screen
-            Parent loader = FXMLLoader.load(getClass().getResource("Main.fxml"));
-            Scene scene = new Scene(loader);
-            Stage window = (Stage) ((Node) event.getSource()).getScene().getWindow();
-            window.setScene(scene);
-            window.show();
-        } catch (ValidationException e) {
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("ValidationError");
-            alert.setHeaderText("Product not valid");
-            alert.setContentText(e.getMessage());
-            alert.showAndWait();
+                // Return to the main screen
+                Parent loader = FXMLLoader.load(getClass().getResource("Main.fxml"));
+                Scene scene = new Scene(loader);
+                Stage window = (Stage) ((Node) event.getSource()).getScene().getWindow();
+                window.setScene(scene);
+                window.show();
+            } catch (ValidationException e) {
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("ValidationError");
+                alert.setHeaderText("Product not valid");
+                alert.setContentText(e.getMessage());
+                alert.showAndWait();
+            }
+        } finally {
+            operation.stop();
         }
     }
     
@@ -265,19 +273,25 @@ public class ProductsController implements Initializable {
      */
     @FXML
     void handleSearchParts(ActionEvent event) throws IOException {
-        String partsSearchIdString = ProductPartsSearchField.getText();
-        Part searchedPart = Inventory.lookupPart(Integer.parseInt(partsSearchIdString));
+        OperationEvent operation = SEARCH_PARTS.start();
+        
+        try {
+            String partsSearchIdString = ProductPartsSearchField.getText();
+            Part searchedPart = Inventory.lookupPart(Integer.parseInt(partsSearchIdString));
 
-        if (searchedPart != null) {
-            ObservableList<Part> filteredPartsList = FXCollections.observableArrayList();
-            filteredPartsList.add(searchedPart);
-            ProductAllPartsTable.setItems(filteredPartsList);
-        } else {
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("Search Error");
-            alert.setHeaderText("Part not found");
-            alert.setContentText("The search term entered does not match any part!");
-            alert.showAndWait();
+            if (searchedPart != null) {
+                ObservableList<Part> filteredPartsList = FXCollections.observableArrayList();
+                filteredPartsList.add(searchedPart);
+                ProductAllPartsTable.setItems(filteredPartsList);
+            } else {
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("Search Error");
+                alert.setHeaderText("Part not found");
+                alert.setContentText("The search term entered does not match any part!");
+                alert.showAndWait();
+            }
+        } finally {
+            operation.stop();
         }
     }
     
@@ -293,7 +307,7 @@ public class ProductsController implements Initializable {
         //   Otherwise we populate existing data in the modify format,
         if (modifiedProduct == null) {
             ProductsPageLabel.setText("Add Product");
-            int productAutoID = Inventory.getProductsCount();
+            int productAutoID = Inventory.getNextProductID();
             ProductsIDField.setText("AUTO GEN: " + productAutoID);
             System.out.println("Here");
         } else {
@@ -306,7 +320,7 @@ public class ProductsController implements Initializable {
             ProductsMinField.setText(Integer.toString(modifiedProduct.getMin()));
             ProductsMaxField.setText(Integer.toString(modifiedProduct.getMax()));
         
-            productParts = modifiedProduct.getAssociatedParts();
+            productParts = FXCollections.observableArrayList(modifiedProduct.getAssociatedParts());
         }
         
         ProductAllPartsIDCol.setCellValueFactory(cellData -> new SimpleIntegerProperty(cellData.getValue().getPartID()).asObject());
@@ -328,7 +342,7 @@ public class ProductsController implements Initializable {
      * Populate the available parts table.
      */
     public void populateAvailablePartsTable() {
-        ProductAllPartsTable.setItems(Inventory.getParts());
+        ProductAllPartsTable.setItems(ObservableInventory.getParts());
     }
 
     /**
@@ -0,0 +1,173 @@
+package InventoryApp.views;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+
+import InventoryApp.exceptions.ValidationException;
+import InventoryApp.metrics.Metrics;
+import InventoryApp.metrics.OperationEvent;
+import InventoryApp.metrics.Timer;
+import InventoryApp.models.BulkEdit;
+import InventoryApp.models.Inventory;
+import InventoryApp.models.Part;
+import InventoryApp.models.Product;
+
+/**
+ * SaveQueue commits saves from the parts and products screens off the JavaFX
+ * application thread.
+ * <p>
+ * The screens validate a save before queueing it. The save is shown in the
+ * tables at once through ObservableInventory, then checked again and
+ * committed to the Inventory on a single worker thread, so saves apply in the
+ * order they were made. If the commit fails, the tables are rolled back and
+ * the user is notified.
+ * <p>
+ * A bulk edit is queued the same way, but shown only once committed, when
+ * the tables refresh once for all of its parts.
+ *
+ * @see ObservableInventory
+ */
+public class SaveQueue {
+
+    // Logger for failed commits
+    private static final Logger logger = Logger.getLogger(SaveQueue.class.getName());
+
+    // Commit timers
+    private final static Timer COMMIT_PART = Metrics.timer("view.saveQueue.commitPart");
+    private final static Timer COMMIT_PRODUCT = Metrics.timer("view.saveQueue.commitProduct");
+    private final static Timer COMMIT_EDIT = Metrics.timer("view.saveQueue.commitEdit");
+
+    // Single worker committing saves in order
+    private final static ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-save");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructor
+     */
+    private SaveQueue() {
+    }
+
+    /**
+     * Save a part. Called on the JavaFX application thread.
+     *
+     * @param oldPart part being modified, or null to add newPart
+     * @param newPart part to commit
+     */
+    public static void savePart(Part oldPart, Part newPart) {
+        ObservableInventory.showPart(oldPart, newPart);
+
+        worker.execute(() -> {
+            OperationEvent operation = COMMIT_PART.start();
+
+            try {
+                newPart.isValid();
+
+                // assign the ID at commit time, as earlier saves may still be queued
+                synchronized (Inventory.class) {
+                    Inventory.requireWritable();
+
+                    if (oldPart == null) {
+                        newPart.setPartID(Inventory.allocatePartID());
+                        Inventory.addPart(newPart);
+                    } else {
+                        Inventory.updatePart(newPart);
+                    }
+                }
+            } catch (ValidationException | RuntimeException e) {
+                Platform.runLater(() -> {
+                    ObservableInventory.rollbackPart(oldPart, newPart);
+                    notifyFailure("Part " + newPart.getName() + " not saved", e);
+                });
+            } finally {
+                operation.stop();
+            }
+        });
+    }
+
+    /**
+     * Save a product. Called on the JavaFX application thread.
+     *
+     * @param oldProduct product being modified, or null to add newProduct
+     * @param newProduct product to commit
+     */
+    public static void saveProduct(Product oldProduct, Product newProduct) {
+        ObservableInventory.showProduct(oldProduct, newProduct);
+
+        worker.execute(() -> {
+            OperationEvent operation = COMMIT_PRODUCT.start();
+
+            try {
+                newProduct.isValid();
+
+                synchronized (Inventory.class) {
+                    Inventory.requireWritable();
+
+                    if (oldProduct == null) {
+                        newProduct.setProductID(Inventory.allocateProductID());
+                        Inventory.addProduct(newProduct);
+                    } else {
+                        Inventory.updateProduct(newProduct);
+                    }
+                }
+            } catch (ValidationException | RuntimeException e) {
+                Platform.runLater(() -> {
+                    ObservableInventory.rollbackProduct(oldProduct, newProduct);
+                    notifyFailure("Product " + newProduct.getName() + " not saved", e);
+                });
+            } finally {
+                operation.stop();
+            }
+        });
+    }
+
+    /**
+     * Apply a bulk edit. Called on the JavaFX application thread.
+     *
+     * @param partIDs IDs of the parts to edit
+     * @param edit
+     * @param committed called on the JavaFX application thread with the
+     *        updated parts once committed
+     */
+    public static void editParts(List<Integer> partIDs, BulkEdit edit, Consumer<List<Part>> committed) {
+        worker.execute(() -> {
+            OperationEvent operation = COMMIT_EDIT.start();
+
+            try {
+                List<Part> updatedParts = edit.apply(partIDs);
+                Platform.runLater(() -> committed.accept(updatedParts));
+            } catch (ValidationException | RuntimeException e) {
+                Platform.runLater(() -> notifyFailure("Bulk edit of " + partIDs.size() + " parts not saved", e));
+            } finally {
+                operation.stop();
+            }
+        });
+    }
+
+    /**
+     * Tell the user a save was rolled back.
+     *
+     * @param header
+     * @param e cause of the failure
+     */
+    private static void notifyFailure(String header, Exception e) {
+        if (!(e instanceof ValidationException)) {
+            logger.log(Level.WARNING, header, e);
+        }
+
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("ValidationError");
+        alert.setHeaderText(header);
+        alert.setContentText(e.getMessage());
+        alert.show();
+    }
+}
@@ -0,0 +1,671 @@
+package InventoryApp.wire;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import InventoryApp.models.InhousePart;
+import InventoryApp.models.OutsourcedPart;
+import InventoryApp.models.Part;
+import InventoryApp.models.PartEdges;
+import InventoryApp.models.Product;
+
+/**
+ * BinaryBatch is a compact binary form of a batch of parts and products, for
+ * moving catalogs between instances. A batch is written straight into a
+ * ByteBuffer, usually a direct one, and read in place: every field sits at a
+ * fixed offset, so a row can be inspected or copied without building a Part
+ * or Product, and names and suppliers are stored once in a string table.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header    magic, version, reserved, part count, product count,
+ *           link count, string count, batch length        28 bytes
+ * parts     price, ID, kind, in stock, min, max, name,
+ *           machine ID or company name                    36 bytes each
+ * products  price, ID, in stock, min, max, name,
+ *           first link, link count                        36 bytes each
+ * links     associated part IDs                           4 bytes each
+ * strings   end offset of each string, then the bytes
+ * </pre>
+ * Strings are referred to by index, or -1 for null, and stored as UTF-8 with
+ * supplementary characters written as surrogate pairs.
+ *
+ * @see BinaryBatch#encode(List, List), BinaryBatch#wrap(ByteBuffer)
+ */
+public final class BinaryBatch {
+
+    // Content type of a batch sent over HTTP
+    public static final String CONTENT_TYPE = "application/x-inventory-batch";
+
+    // "INVB"
+    private static final int MAGIC = 0x494E5642;
+
+    // Format version
+    private static final short VERSION = 1;
+
+    // Record sizes
+    private static final int HEADER_BYTES = 28;
+    private static final int PART_BYTES = 36;
+    private static final int PRODUCT_BYTES = 36;
+    private static final int LINK_BYTES = 4;
+
+    // Part kinds
+    private static final int INHOUSE = 0;
+    private static final int OUTSOURCED = 1;
+
+    // Buffer holding the batch
+    private final ByteBuffer buffer;
+
+    // Offset of the batch in the buffer
+    private final int base;
+
+    // Entry counts
+    private final int partCount;
+    private final int productCount;
+    private final int linkCount;
+    private final int stringCount;
+
+    // Section offsets in the buffer
+    private final int productsOffset;
+    private final int linksOffset;
+    private final int stringsOffset;
+
+    // Strings decoded so far, by index
+    private final String[] strings;
+
+    /**
+     * Constructor
+     *
+     * @param buffer
+     * @param base
+     */
+    private BinaryBatch(ByteBuffer buffer, int base) {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt(base) != MAGIC) {
+            throw new IllegalArgumentException("Not an inventory batch");
+        }
+
+        if (buffer.getShort(base + 4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported batch version " + buffer.getShort(base + 4));
+        }
+
+        this.buffer = buffer;
+        this.base = base;
+        this.partCount = buffer.getInt(base + 8);
+        this.productCount = buffer.getInt(base + 12);
+        this.linkCount = buffer.getInt(base + 16);
+        this.stringCount = buffer.getInt(base + 20);
+
+        int length = buffer.getInt(base + 24);
+        long sections = HEADER_BYTES + (long) partCount * PART_BYTES + (long) productCount * PRODUCT_BYTES
+                + (long) linkCount * LINK_BYTES + stringCount * 4L;
+
+        if ((partCount | productCount | linkCount | stringCount) < 0 || length > buffer.remaining()
+                || sections > length) {
+            throw new IllegalArgumentException("Truncated inventory batch");
+        }
+
+        this.productsOffset = base + HEADER_BYTES + partCount * PART_BYTES;
+        this.linksOffset = productsOffset + productCount * PRODUCT_BYTES;
+        this.stringsOffset = linksOffset + linkCount * LINK_BYTES;
+        this.strings = new String[stringCount];
+    }
+
+    /**
+     * Encode parts and products into a new direct buffer of the exact size.
+     * The parts, products and their associated parts must not change
+     * meanwhile.
+     *
+     * @param parts
+     * @param products
+     * @return buffer holding the batch, ready to read
+     */
+    public static ByteBuffer encode(List<? extends Part> parts, List<? extends Product> products) {
+        Encoder encoder = new Encoder(parts, products);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(encoder.length);
+        encoder.write(buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Encode parts and products at the position of a buffer, advancing it
+     * past the batch
+     *
+     * @param parts
+     * @param products
+     * @param target
+     * @throws BufferOverflowException if the batch does not fit; nothing is
+     *         written
+     */
+    public static void encode(List<? extends Part> parts, List<? extends Product> products, ByteBuffer target) {
+        Encoder encoder = new Encoder(parts, products);
+
+        if (target.remaining() < encoder.length) {
+            throw new BufferOverflowException();
+        }
+
+        encoder.write(target);
+    }
+
+    /**
+     * Read the batch at the position of a buffer, in place, advancing the
+     * position past it. The buffer must not change while the batch is read.
+     *
+     * @param buffer
+     * @return batch
+     * @throws IllegalArgumentException if the buffer does not hold a batch
+     */
+    public static BinaryBatch wrap(ByteBuffer buffer) {
+        BinaryBatch batch = new BinaryBatch(buffer, buffer.position());
+        buffer.position(batch.base + batch.getLength());
+        return batch;
+    }
+
+    /**
+     * Get the encoded length of this batch
+     *
+     * @return bytes
+     */
+    public int getLength() {
+        return buffer.getInt(base + 24);
+    }
+
+    /**
+     * Get the number of parts in the batch
+     *
+     * @return parts
+     */
+    public int getPartCount() {
+        return partCount;
+    }
+
+    /**
+     * Get the number of products in the batch
+     *
+     * @return products
+     */
+    public int getProductCount() {
+        return productCount;
+    }
+
+    /**
+     * Get the ID of the part at an index
+     *
+     * @param index
+     * @return part ID
+     */
+    public int getPartID(int index) {
+        return buffer.getInt(part(index) + 8);
+    }
+
+    /**
+     * Determine whether the part at an index is outsourced
+     *
+     * @param index
+     * @return true if outsourced, false if made in-house
+     */
+    public boolean isOutsourced(int index) {
+        return buffer.getInt(part(index) + 12) == OUTSOURCED;
+    }
+
+    /**
+     * Get the price of the part at an index
+     *
+     * @param index
+     * @return price
+     */
+    public double getPartPrice(int index) {
+        return buffer.getDouble(part(index));
+    }
+
+    /**
+     * Get the stock of the part at an index
+     *
+     * @param index
+     * @return in stock
+     */
+    public int getPartInStock(int index) {
+        return buffer.getInt(part(index) + 16);
+    }
+
+    /**
+     * Get the minimum stock of the part at an index
+     *
+     * @param index
+     * @return minimum
+     */
+    public int getPartMin(int index) {
+        return buffer.getInt(part(index) + 20);
+    }
+
+    /**
+     * Get the maximum stock of the part at an index
+     *
+     * @param index
+     * @return maximum
+     */
+    public int getPartMax(int index) {
+        return buffer.getInt(part(index) + 24);
+    }
+
+    /**
+     * Get the name of the part at an index
+     *
+     * @param index
+     * @return name
+     */
+    public String getPartName(int index) {
+        return string(buffer.getInt(part(index) + 28));
+    }
+
+    /**
+     * Get the machine ID of an in-house part
+     *
+     * @param index
+     * @return machine ID
+     * @throws IllegalStateException if the part is outsourced
+     */
+    public int getPartMachineID(int index) {
+        if (isOutsourced(index)) {
+            throw new IllegalStateException("Part " + getPartID(index) + " is outsourced.");
+        }
+
+        return buffer.getInt(part(index) + 32);
+    }
+
+    /**
+     * Get the company name of an outsourced part
+     *
+     * @param index
+     * @return company name
+     * @throws IllegalStateException if the part is made in-house
+     */
+    public String getPartCompanyName(int index) {
+        if (!isOutsourced(index)) {
+            throw new IllegalStateException("Part " + getPartID(index) + " is made in-house.");
+        }
+
+        return string(buffer.getInt(part(index) + 32));
+    }
+
+    /**
+     * Get the ID of the product at an index
+     *
+     * @param index
+     * @return product ID
+     */
+    public int getProductID(int index) {
+        return buffer.getInt(product(index) + 8);
+    }
+
+    /**
+     * Get the price of the product at an index
+     *
+     * @param index
+     * @return price
+     */
+    public double getProductPrice(int index) {
+        return buffer.getDouble(product(index));
+    }
+
+    /**
+     * Get the stock of the product at an index
+     *
+     * @param index
+     * @return in stock
+     */
+    public int getProductInStock(int index) {
+        return buffer.getInt(product(index) + 12);
+    }
+
+    /**
+     * Get the minimum stock of the product at an index
+     *
+     * @param index
+     * @return minimum
+     */
+    public int getProductMin(int index) {
+        return buffer.getInt(product(index) + 16);
+    }
+
+    /**
+     * Get the maximum stock of the product at an index
+     *
+     * @param index
+     * @return maximum
+     */
+    public int getProductMax(int index) {
+        return buffer.getInt(product(index) + 20);
+    }
+
+    /**
+     * Get the name of the product at an index
+     *
+     * @param index
+     * @return name
+     */
+    public String getProductName(int index) {
+        return string(buffer.getInt(product(index) + 24));
+    }
+
+    /**
+     * Get the number of associated parts of the product at an index
+     *
+     * @param index
+     * @return associated parts
+     */
+    public int getProductPartCount(int index) {
+        return buffer.getInt(product(index) + 32);
+    }
+
+    /**
+     * Get the ID of one associated part of a product
+     *
+     * @param index product index
+     * @param partIndex position among the product's associated parts
+     * @return part ID
+     */
+    public int getProductPartID(int index, int partIndex) {
+        if (partIndex < 0 || partIndex >= getProductPartCount(index)) {
+            throw new IndexOutOfBoundsException("Associated part " + partIndex);
+        }
+
+        return link(buffer.getInt(product(index) + 28) + partIndex);
+    }
+
+    /**
+     * Build the part at an index
+     *
+     * @param index
+     * @return new part
+     */
+    public Part readPart(int index) {
+        Part part;
+
+        if (isOutsourced(index)) {
+            OutsourcedPart outsourcedPart = new OutsourcedPart();
+            outsourcedPart.setCompanyName(getPartCompanyName(index));
+            part = outsourcedPart;
+        } else {
+            InhousePart inhousePart = new InhousePart();
+            inhousePart.setMachineID(getPartMachineID(index));
+            part = inhousePart;
+        }
+
+        part.setPartID(getPartID(index));
+        part.setName(getPartName(index));
+        part.setPrice(getPartPrice(index));
+        part.setInStock(getPartInStock(index));
+        part.setMin(getPartMin(index));
+        part.setMax(getPartMax(index));
+
+        return part;
+    }
+
+    /**
+     * Build every part in the batch
+     *
+     * @return new parts, in batch order
+     */
+    public List<Part> readParts() {
+        List<Part> parts = new ArrayList<>(partCount);
+
+        for (int i = 0; i < partCount; i++) {
+            parts.add(readPart(i));
+        }
+
+        return parts;
+    }
+
+    /**
+     * Build the product at an index, resolving its associated parts by ID
+     *
+     * @param index
+     * @param parts part lookup by ID
+     * @return new product
+     * @throws IllegalArgumentException if an associated part is not found
+     */
+    public Product readProduct(int index, IntFunction<Part> parts) {
+        Product product = newProduct(index);
+
+        for (int i = 0; i < getProductPartCount(index); i++) {
+            int partID = getProductPartID(index, i);
+            Part part = parts.apply(partID);
+
+            if (part == null) {
+                throw new IllegalArgumentException("Product " + product.getProductID() + " uses unknown part " + partID);
+            }
+
+            product.addAssociatedPart(part);
+        }
+
+        return product;
+    }
+
+    /**
+     * Build every product in the batch. Their associated parts are resolved
+     * now but kept in one PartEdges store shared by all of them.
+     *
+     * @param parts part lookup by ID
+     * @return new products, in batch order
+     * @throws IllegalArgumentException if an associated part is not found
+     */
+    public List<Product> readProducts(IntFunction<Part> parts) {
+        List<Product> products = new ArrayList<>(productCount);
+        int[] counts = new int[productCount];
+
+        for (int i = 0; i < productCount; i++) {
+            counts[i] = getProductPartCount(i);
+        }
+
+        int[] offsets = PartEdges.offsets(counts);
+        Part[] edges = new Part[offsets[productCount]];
+        PartEdges store = new PartEdges(offsets, edges);
+
+        for (int i = 0; i < productCount; i++) {
+            Product product = newProduct(i);
+
+            for (int j = 0; j < counts[i]; j++) {
+                int partID = getProductPartID(i, j);
+                Part part = parts.apply(partID);
+
+                if (part == null) {
+                    throw new IllegalArgumentException("Product " + product.getProductID() + " uses unknown part " + partID);
+                }
+
+                edges[offsets[i] + j] = part;
+            }
+
+            product.setAssociatedParts(store, i);
+            products.add(product);
+        }
+
+        return products;
+    }
+
+    private Product newProduct(int index) {
+        Product product = new Product();
+        product.setProductID(getProductID(index));
+        product.setName(getProductName(index));
+        product.setPrice(getProductPrice(index));
+        product.setInStock(getProductInStock(index));
+        product.setMin(getProductMin(index));
+        product.setMax(getProductMax(index));
+        return product;
+    }
+
+    private int part(int index) {
+        if (index < 0 || index >= partCount) {
+            throw new IndexOutOfBoundsException("Part " + index);
+        }
+
+        return base + HEADER_BYTES + index * PART_BYTES;
+    }
+
+    private int product(int index) {
+        if (index < 0 || index >= productCount) {
+            throw new IndexOutOfBoundsException("Product " + index);
+        }
+
+        return productsOffset + index * PRODUCT_BYTES;
+    }
+
+    private int link(int index) {
+        if (index < 0 || index >= linkCount) {
+            throw new IllegalArgumentException("Corrupt inventory batch");
+        }
+
+        return buffer.getInt(linksOffset + index * LINK_BYTES);
+    }
+
+    /**
+     * Decode a string from the table, once
+     *
+     * @param ref string index, or -1
+     * @return string, or null
+     */
+    private String string(int ref) {
+        if (ref == -1) {
+            return null;
+        }
+
+        if (ref < 0 || ref >= stringCount) {
+            throw new IllegalArgumentException("Corrupt inventory batch");
+        }
+
+        String value = strings[ref];
+
+        if (value == null) {
+            int bytes = stringsOffset + stringCount * 4;
+            int start = bytes + (ref == 0 ? 0 : buffer.getInt(stringsOffset + (ref - 1) * 4));
+            int end = bytes + buffer.getInt(stringsOffset + ref * 4);
+
+            if (start > end || end > base + getLength()) {
+                throw new IllegalArgumentException("Corrupt inventory batch");
+            }
+
+            value = decode(start, end);
+            strings[ref] = value;
+        }
+
+        return value;
+    }
+
+    private String decode(int start, int end) {
+        char[] chars = new char[end - start];
+        int length = 0;
+        int i = start;
+
+        while (i < end) {
+            int b = buffer.get(i++) & 0xFF;
+
+            if (b < 0x80) {
+                chars[length++] = (char) b;
+            } else if (b < 0xE0) {
+                chars[length++] = (char) (((b & 0x1F) << 6) | (buffer.get(i++) & 0x3F));
+            } else {
+                chars[length++] = (char) (((b & 0x0F) << 12) | ((buffer.get(i++) & 0x3F) << 6) | (buffer.get(i++) & 0x3F));
+            }
+        }
+
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Lays out a batch: assigns string indexes and link ranges on a first
+     * pass, so the batch can be written in a single pass once its length is
+     * known.
+     */
+    private static final class Encoder {
+
+        // Rows to write
+        private final List<? extends Part> parts;
+        private final List<? extends Product> products;
+
+        // Distinct strings in first-use order
+        private final StringTable table = new StringTable();
+
+        // Total associated parts
+        private int linkCount;
+
+        // Encoded length
+        private final int length;
+
+        Encoder(List<? extends Part> parts, List<? extends Product> products) {
+            this.parts = parts;
+            this.products = products;
+
+            for (Part part : parts) {
+                table.add(part.getName());
+
+                if (part instanceof OutsourcedPart) {
+                    table.add(((OutsourcedPart) part).getCompanyName());
+                }
+            }
+
+            for (Product product : products) {
+                table.add(product.getName());
+                linkCount += product.getAssociatedPartsCount();
+            }
+
+            long total = (long) HEADER_BYTES + (long) parts.size() * PART_BYTES + (long) products.size() * PRODUCT_BYTES
+                    + (long) linkCount * LINK_BYTES + table.size() * 4L + table.getByteLength();
+
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The batch is too large to encode.");
+            }
+
+            this.length = (int) total;
+        }
+
+        void write(ByteBuffer out) {
+            out.putInt(MAGIC);
+            out.putShort(VERSION);
+            out.putShort((short) 0);
+            out.putInt(parts.size());
+            out.putInt(products.size());
+            out.putInt(linkCount);
+            out.putInt(table.size());
+            out.putInt(length);
+
+            for (Part part : parts) {
+                boolean outsourced = part instanceof OutsourcedPart;
+                out.putDouble(part.getPrice());
+                out.putInt(part.getPartID());
+                out.putInt(outsourced ? OUTSOURCED : INHOUSE);
+                out.putInt(part.getInStock());
+                out.putInt(part.getMin());
+                out.putInt(part.getMax());
+                out.putInt(table.indexOf(part.getName()));
+                out.putInt(outsourced
+                        ? table.indexOf(((OutsourcedPart) part).getCompanyName())
+                        : ((InhousePart) part).getMachineID());
+            }
+
+            int firstLink = 0;
+
+            for (Product product : products) {
+                out.putDouble(product.getPrice());
+                out.putInt(product.getProductID());
+                out.putInt(product.getInStock());
+                out.putInt(product.getMin());
+                out.putInt(product.getMax());
+                out.putInt(table.indexOf(product.getName()));
+                out.putInt(firstLink);
+                out.putInt(product.getAssociatedPartsCount());
+                firstLink += product.getAssociatedPartsCount();
+            }
+
+            for (Product product : products) {
+                for (int i = 0; i < product.getAssociatedPartsCount(); i++) {
+                    out.putInt(product.getAssociatedPart(i).getPartID());
+                }
+            }
+
+            table.write(out);
+        }
+    }
+}
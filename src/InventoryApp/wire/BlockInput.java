@@ -0,0 +1,81 @@
+package InventoryApp.wire;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * BlockInput reads one decompressed catalog block written by a BlockOutput.
+ *
+ * @see BlockOutput, CatalogFile
+ */
+final class BlockInput {
+
+    // Block bytes
+    private final byte[] bytes;
+
+    // Read position
+    private int position;
+
+    BlockInput(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    int readByte() throws IOException {
+        require(1);
+        return bytes[position++];
+    }
+
+    long readVarLong() throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            byte b = bytes[position++];
+            value |= (long) (b & 0x7F) << shift;
+
+            if (b >= 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Corrupt catalog block");
+    }
+
+    int readVarInt() throws IOException {
+        return (int) readVarLong();
+    }
+
+    long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readSignedVarInt() throws IOException {
+        return (int) readSignedVarLong();
+    }
+
+    long readLong() throws IOException {
+        require(8);
+        long value = 0;
+
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[position++] & 0xFF);
+        }
+
+        return value;
+    }
+
+    String readString() throws IOException {
+        int length = readVarInt();
+        require(length);
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private void require(int count) throws IOException {
+        if (count < 0 || position + count > bytes.length) {
+            throw new IOException("Corrupt catalog block");
+        }
+    }
+}
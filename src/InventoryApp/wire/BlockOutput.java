@@ -0,0 +1,87 @@
+package InventoryApp.wire;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * BlockOutput builds one uncompressed catalog block in a reusable byte
+ * array. Ints are written as varints, seven bits a byte, and signed values
+ * zigzag-coded first so small negative numbers stay short.
+ *
+ * @see BlockInput, CatalogFile
+ */
+final class BlockOutput {
+
+    // Bytes written so far
+    private byte[] bytes = new byte[1 << 16];
+
+    // Number of bytes written
+    private int length;
+
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    void reset() {
+        length = 0;
+    }
+
+    void writeByte(int value) {
+        ensure(1);
+        bytes[length++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+        ensure(10);
+
+        while ((value & ~0x7FL) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        bytes[length++] = (byte) value;
+    }
+
+    void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeSignedVarInt(int value) {
+        writeSignedVarLong(value);
+    }
+
+    void writeLong(long value) {
+        ensure(8);
+
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            bytes[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    /**
+     * Write a string as its UTF-8 length and bytes
+     *
+     * @param value
+     */
+    void writeString(String value) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(encoded.length);
+        ensure(encoded.length);
+        System.arraycopy(encoded, 0, bytes, length, encoded.length);
+        length += encoded.length;
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,1126 @@
+package InventoryApp.wire;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+
+import InventoryApp.models.InhousePart;
+import InventoryApp.models.Inventory;
+import InventoryApp.models.InventorySnapshot;
+import InventoryApp.models.OutsourcedPart;
+import InventoryApp.models.Part;
+import InventoryApp.models.PartEdges;
+import InventoryApp.models.Product;
+
+/**
+ * CatalogFile is a compressed file holding a snapshot of the catalog.
+ * <p>
+ * Parts and products are stored in blocks of up to 4096 rows. Each block
+ * is stored column by column: a dictionary of the block's distinct names and
+ * company names, IDs as varint deltas from the previous ID, prices as varint
+ * cents, and the remaining ints as varints. The block is then compressed on
+ * its own in the LZ4 block layout. An index at the end of the file records
+ * where each block lies and the range of IDs it holds, so a single part or
+ * product can be read by decompressing just its block.
+ * <p>
+ * Layout:
+ * <pre>
+ * header    magic, version, reserved                      8 bytes
+ * blocks    compressed rows
+ * index     per block: type, rows, min ID, max ID, offset,
+ *           compressed length, length, CRC-32             33 bytes each
+ * trailer   block count, index offset, magic              16 bytes
+ * </pre>
+ * Reads may run from any thread.
+ *
+ * @see LzBlock
+ */
+public final class CatalogFile implements Closeable {
+
+    // "INVC"
+    private static final int MAGIC = 0x494E5643;
+
+    // System property naming the catalog file loaded at startup and saved on shutdown
+    private static final String FILE_PROPERTY = "inventory.catalog.file";
+
+    // Format version
+    private static final short VERSION = 1;
+
+    // Rows per block
+    private static final int BLOCK_ROWS = 4096;
+
+    // Block types
+    private static final byte PARTS = 0;
+    private static final byte PRODUCTS = 1;
+
+    // Part kinds
+    private static final byte INHOUSE = 0;
+    private static final byte OUTSOURCED = 1;
+
+    // Section sizes
+    private static final int HEADER_BYTES = 8;
+    private static final int INDEX_ENTRY_BYTES = 33;
+    private static final int TRAILER_BYTES = 16;
+
+    // Open file
+    private final FileChannel channel;
+
+    // Block index
+    private final List<Block> blocks;
+
+    /**
+     * Where one block lies and what it holds.
+     */
+    private static final class Block {
+
+        // PARTS or PRODUCTS
+        final byte type;
+
+        // Rows in the block
+        final int rows;
+
+        // Range of IDs in the block
+        final int minID;
+        final int maxID;
+
+        // Position and size in the file
+        final long offset;
+        final int compressedLength;
+        final int length;
+
+        // CRC-32 of the compressed bytes
+        final int checksum;
+
+        Block(byte type, int rows, int minID, int maxID, long offset, int compressedLength, int length, int checksum) {
+            this.type = type;
+            this.rows = rows;
+            this.minID = minID;
+            this.maxID = maxID;
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.length = length;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * Compresses encoded blocks into a new file and writes the index once
+     * they are all in.
+     */
+    private static final class BlockWriter implements Closeable {
+
+        // File being written
+        private final FileChannel channel;
+
+        // Buffered stream over the channel
+        private final DataOutputStream out;
+
+        // Block being encoded
+        final BlockOutput block = new BlockOutput();
+
+        // Compression buffer, grown as needed
+        private byte[] compressed = new byte[0];
+
+        // Checksum of each compressed block
+        private final CRC32 crc = new CRC32();
+
+        // Blocks written so far
+        private final List<Block> index = new ArrayList<>();
+
+        // Position in the file
+        private long offset;
+
+        BlockWriter(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            offset = HEADER_BYTES;
+        }
+
+        /**
+         * Compress and write the encoded block
+         *
+         * @param type
+         * @param rows
+         * @param ids minimum ID in the high half, maximum ID in the low half
+         * @throws IOException
+         */
+        void append(byte type, int rows, long ids) throws IOException {
+            int maxLength = LzBlock.maxCompressedLength(block.getLength());
+
+            if (compressed.length < maxLength) {
+                compressed = new byte[maxLength];
+            }
+
+            int length = LzBlock.compress(block.getBytes(), block.getLength(), compressed);
+            crc.reset();
+            crc.update(compressed, 0, length);
+            index.add(new Block(type, rows, (int) (ids >> 32), (int) ids, offset, length, block.getLength(),
+                    (int) crc.getValue()));
+            out.write(compressed, 0, length);
+            offset += length;
+        }
+
+        /**
+         * Write the index and trailer, and force the file to disk
+         *
+         * @throws IOException
+         */
+        void finish() throws IOException {
+            long indexOffset = offset;
+
+            for (Block entry : index) {
+                out.writeByte(entry.type);
+                out.writeInt(entry.rows);
+                out.writeInt(entry.minID);
+                out.writeInt(entry.maxID);
+                out.writeLong(entry.offset);
+                out.writeInt(entry.compressedLength);
+                out.writeInt(entry.length);
+                out.writeInt(entry.checksum);
+            }
+
+            out.writeInt(index.size());
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC);
+            out.flush();
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param channel
+     * @param blocks
+     */
+    private CatalogFile(FileChannel channel, List<Block> blocks) {
+        this.channel = channel;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Save a snapshot of the Inventory. The snapshot is taken at once and
+     * written without holding the Inventory lock.
+     *
+     * @param path
+     * @throws IOException
+     */
+    public static void save(Path path) throws IOException {
+        InventorySnapshot snapshot = Inventory.snapshot();
+        write(path, snapshot.getParts(), snapshot.getProducts());
+    }
+
+    /**
+     * Load the catalog file named by inventory.catalog.file, if it is set and
+     * the file exists
+     *
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public static void loadFromSystemProperties() throws IOException {
+        String file = System.getProperty(FILE_PROPERTY);
+
+        if (file != null && Files.exists(Paths.get(file))) {
+            load(Paths.get(file));
+        }
+    }
+
+    /**
+     * Save the Inventory to the catalog file named by inventory.catalog.file,
+     * if it is set
+     *
+     * @throws IOException
+     */
+    public static void saveFromSystemProperties() throws IOException {
+        String file = System.getProperty(FILE_PROPERTY);
+
+        if (file != null) {
+            save(Paths.get(file));
+        }
+    }
+
+    /**
+     * Replace the Inventory with the catalog saved in a file, decoding its
+     * blocks in parallel on the common fork-join pool
+     *
+     * @param path
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public static void load(Path path) throws IOException {
+        load(path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Replace the Inventory with the catalog saved in a file.
+     * <p>
+     * Part and product blocks are decoded at once, in parallel, each into a
+     * task's own list that is then copied to its place in the result; the
+     * index gives every block's first row up front. Products are then linked
+     * to their parts in a second parallel pass, and the whole catalog is
+     * handed to the Inventory in one batch, so views are refreshed once.
+     *
+     * @param path
+     * @param pool
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public static void load(Path path, ForkJoinPool pool) throws IOException {
+        try (CatalogFile file = open(path)) {
+            Part[] parts = new Part[file.getPartCount()];
+            Product[] products = new Product[file.getProductCount()];
+            int[][] links = new int[products.length][];
+
+            ForkJoinTask<Void> partsTask = pool.submit(file.new DecodeTask(file.blocksOf(PARTS), 0, parts, null));
+
+            try {
+                pool.invoke(file.new DecodeTask(file.blocksOf(PRODUCTS), 0, products, links));
+            } finally {
+                // the file stays open until both halves are done
+                partsTask.quietlyJoin();
+            }
+
+            partsTask.join();
+
+            pool.invoke(new LinkTask(new Linker(products, links, partsByID(parts)), 0, products.length));
+            Inventory.load(Arrays.asList(parts), Arrays.asList(products));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Write parts and products to a file, replacing it atomically where the
+     * file system supports it. The new file is forced to disk before it
+     * replaces the old one.
+     *
+     * @param path
+     * @param parts
+     * @param products
+     * @throws IOException
+     */
+    public static void write(Path path, List<? extends Part> parts, List<? extends Product> products) throws IOException {
+        Path written = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (BlockWriter out = new BlockWriter(written)) {
+            for (int start = 0; start < parts.size(); start += BLOCK_ROWS) {
+                List<? extends Part> rows = parts.subList(start, Math.min(start + BLOCK_ROWS, parts.size()));
+                out.append(PARTS, rows.size(), encodeParts(rows, out.block));
+            }
+
+            for (int start = 0; start < products.size(); start += BLOCK_ROWS) {
+                List<? extends Product> rows = products.subList(start, Math.min(start + BLOCK_ROWS, products.size()));
+                out.append(PRODUCTS, rows.size(), encodeProducts(rows, out.block));
+            }
+
+            out.finish();
+        }
+
+        try {
+            Files.move(written, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // the file system cannot rename over the file in one step
+            Files.move(written, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Open a catalog file for reading, loading only its index
+     *
+     * @param path
+     * @return open file
+     * @throws IOException if the file cannot be read or is not a catalog
+     */
+    public static CatalogFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            long size = channel.size();
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+
+            if (size < HEADER_BYTES + TRAILER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a catalog file");
+            }
+
+            if (header.getShort() != VERSION) {
+                throw new IOException("Unsupported catalog version in " + path);
+            }
+
+            ByteBuffer trailer = read(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            int count = trailer.getInt();
+            long indexOffset = trailer.getLong();
+
+            if (trailer.getInt() != MAGIC || count < 0
+                    || indexOffset + (long) count * INDEX_ENTRY_BYTES != size - TRAILER_BYTES) {
+                throw new IOException(path + " is truncated");
+            }
+
+            ByteBuffer entries = read(channel, indexOffset, count * INDEX_ENTRY_BYTES);
+            List<Block> blocks = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                blocks.add(new Block(entries.get(), entries.getInt(), entries.getInt(), entries.getInt(),
+                        entries.getLong(), entries.getInt(), entries.getInt(), entries.getInt()));
+            }
+
+            return new CatalogFile(channel, blocks);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the number of parts in the file
+     *
+     * @return parts
+     */
+    public int getPartCount() {
+        return count(PARTS);
+    }
+
+    /**
+     * Get the number of products in the file
+     *
+     * @return products
+     */
+    public int getProductCount() {
+        return count(PRODUCTS);
+    }
+
+    /**
+     * Read every part
+     *
+     * @return parts, in saved order
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public List<Part> readParts() throws IOException {
+        List<Part> parts = new ArrayList<>(getPartCount());
+
+        for (Block block : blocks) {
+            if (block.type == PARTS) {
+                decodeParts(block, parts);
+            }
+        }
+
+        return parts;
+    }
+
+    /**
+     * Read every product, resolving associated parts by ID
+     *
+     * @param parts part lookup by ID
+     * @return products, in saved order
+     * @throws IOException if the file cannot be read or is corrupt, or an
+     *         associated part is not found
+     */
+    public List<Product> readProducts(IntFunction<Part> parts) throws IOException {
+        List<Product> products = new ArrayList<>(getProductCount());
+        List<int[]> links = new ArrayList<>(getProductCount());
+
+        for (Block block : blocks) {
+            if (block.type == PRODUCTS) {
+                decodeProducts(block, products, links);
+            }
+        }
+
+        Product[] linked = products.toArray(new Product[products.size()]);
+        new Linker(linked, links.toArray(new int[links.size()][]), parts).link(0, linked.length);
+        return products;
+    }
+
+    /**
+     * Read one part, decompressing only the blocks that may hold it
+     *
+     * @param partID
+     * @return part, or null if not in the file
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public Part lookupPart(int partID) throws IOException {
+        for (Block block : blocks) {
+            if (block.type == PARTS && block.minID <= partID && partID <= block.maxID) {
+                List<Part> parts = new ArrayList<>(block.rows);
+                decodeParts(block, parts);
+
+                for (Part part : parts) {
+                    if (part.getPartID() == partID) {
+                        return part;
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Read one product, decompressing only the blocks that may hold it
+     *
+     * @param productID
+     * @param parts part lookup by ID
+     * @return product, or null if not in the file
+     * @throws IOException if the file cannot be read or is corrupt, or an
+     *         associated part is not found
+     */
+    public Product lookupProduct(int productID, IntFunction<Part> parts) throws IOException {
+        for (Block block : blocks) {
+            if (block.type == PRODUCTS && block.minID <= productID && productID <= block.maxID) {
+                List<Product> products = new ArrayList<>(block.rows);
+                List<int[]> links = new ArrayList<>(block.rows);
+                decodeProducts(block, products, links);
+
+                for (int i = 0; i < products.size(); i++) {
+                    if (products.get(i).getProductID() == productID) {
+                        Product[] linked = {products.get(i)};
+                        new Linker(linked, new int[][] {links.get(i)}, parts).link(0, 1);
+                        return linked[0];
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int count(byte type) {
+        int count = 0;
+
+        for (Block block : blocks) {
+            if (block.type == type) {
+                count += block.rows;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Encode a block of parts
+     *
+     * @param parts
+     * @param out
+     * @return minimum ID in the high half, maximum ID in the low half
+     */
+    private static long encodeParts(List<? extends Part> parts, BlockOutput out) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+
+        for (Part part : parts) {
+            intern(dictionary, part.getName());
+
+            if (part instanceof OutsourcedPart) {
+                intern(dictionary, ((OutsourcedPart) part).getCompanyName());
+            }
+        }
+
+        out.reset();
+        out.writeVarInt(parts.size());
+        writeDictionary(dictionary, out);
+
+        int previous = 0;
+        int minID = Integer.MAX_VALUE;
+        int maxID = Integer.MIN_VALUE;
+
+        for (Part part : parts) {
+            // dense IDs code as zero
+            out.writeSignedVarLong((long) part.getPartID() - previous - 1);
+            previous = part.getPartID();
+            minID = Math.min(minID, previous);
+            maxID = Math.max(maxID, previous);
+        }
+
+        for (Part part : parts) {
+            out.writeByte(part instanceof OutsourcedPart ? OUTSOURCED : INHOUSE);
+        }
+
+        for (Part part : parts) {
+            writePrice(part.getPrice(), out);
+        }
+
+        for (Part part : parts) {
+            out.writeSignedVarInt(part.getInStock());
+        }
+
+        for (Part part : parts) {
+            out.writeSignedVarInt(part.getMin());
+        }
+
+        for (Part part : parts) {
+            out.writeSignedVarInt(part.getMax());
+        }
+
+        for (Part part : parts) {
+            writeRef(dictionary, part.getName(), out);
+        }
+
+        for (Part part : parts) {
+            if (part instanceof OutsourcedPart) {
+                writeRef(dictionary, ((OutsourcedPart) part).getCompanyName(), out);
+            } else {
+                out.writeSignedVarInt(((InhousePart) part).getMachineID());
+            }
+        }
+
+        return (long) minID << 32 | (maxID & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Encode a block of products. Associated parts are stored by ID, as
+     * varint deltas from the previous associated part.
+     *
+     * @param products
+     * @param out
+     * @return minimum ID in the high half, maximum ID in the low half
+     */
+    private static long encodeProducts(List<? extends Product> products, BlockOutput out) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+
+        for (Product product : products) {
+            intern(dictionary, product.getName());
+        }
+
+        out.reset();
+        out.writeVarInt(products.size());
+        writeDictionary(dictionary, out);
+
+        int previous = 0;
+        int minID = Integer.MAX_VALUE;
+        int maxID = Integer.MIN_VALUE;
+
+        for (Product product : products) {
+            out.writeSignedVarLong((long) product.getProductID() - previous - 1);
+            previous = product.getProductID();
+            minID = Math.min(minID, previous);
+            maxID = Math.max(maxID, previous);
+        }
+
+        for (Product product : products) {
+            writePrice(product.getPrice(), out);
+        }
+
+        for (Product product : products) {
+            out.writeSignedVarInt(product.getInStock());
+        }
+
+        for (Product product : products) {
+            out.writeSignedVarInt(product.getMin());
+        }
+
+        for (Product product : products) {
+            out.writeSignedVarInt(product.getMax());
+        }
+
+        for (Product product : products) {
+            writeRef(dictionary, product.getName(), out);
+        }
+
+        for (Product product : products) {
+            out.writeVarInt(product.getAssociatedPartsCount());
+        }
+
+        int previousPart = 0;
+
+        for (Product product : products) {
+            for (int i = 0; i < product.getAssociatedPartsCount(); i++) {
+                int partID = product.getAssociatedPart(i).getPartID();
+                out.writeSignedVarLong((long) partID - previousPart);
+                previousPart = partID;
+            }
+        }
+
+        return (long) minID << 32 | (maxID & 0xFFFFFFFFL);
+    }
+
+    private void decodeParts(Block block, List<Part> parts) throws IOException {
+        BlockInput in = new BlockInput(readBlock(block));
+        int rows = in.readVarInt();
+
+        if (rows != block.rows) {
+            throw new IOException("Corrupt catalog block");
+        }
+
+        String[] dictionary = readDictionary(in);
+        int[] ids = new int[rows];
+        boolean[] outsourced = new boolean[rows];
+        int previous = 0;
+
+        for (int i = 0; i < rows; i++) {
+            previous = (int) (previous + 1 + in.readSignedVarLong());
+            ids[i] = previous;
+        }
+
+        for (int i = 0; i < rows; i++) {
+            outsourced[i] = in.readByte() == OUTSOURCED;
+        }
+
+        Part[] decoded = new Part[rows];
+
+        for (int i = 0; i < rows; i++) {
+            decoded[i] = outsourced[i] ? new OutsourcedPart() : new InhousePart();
+            decoded[i].setPartID(ids[i]);
+        }
+
+        for (Part part : decoded) {
+            part.setPrice(readPrice(in));
+        }
+
+        for (Part part : decoded) {
+            part.setInStock(in.readSignedVarInt());
+        }
+
+        for (Part part : decoded) {
+            part.setMin(in.readSignedVarInt());
+        }
+
+        for (Part part : decoded) {
+            part.setMax(in.readSignedVarInt());
+        }
+
+        for (Part part : decoded) {
+            part.setName(readRef(dictionary, in));
+        }
+
+        for (Part part : decoded) {
+            if (part instanceof OutsourcedPart) {
+                ((OutsourcedPart) part).setCompanyName(readRef(dictionary, in));
+            } else {
+                ((InhousePart) part).setMachineID(in.readSignedVarInt());
+            }
+
+            parts.add(part);
+        }
+    }
+
+    /**
+     * Decode a block of products, leaving their associated parts as IDs to
+     * be linked once every part is read
+     *
+     * @param block
+     * @param products decoded products are appended here
+     * @param links the associated part IDs of each are appended here
+     * @throws IOException if the block cannot be read or is corrupt
+     */
+    private void decodeProducts(Block block, List<Product> products, List<int[]> links) throws IOException {
+        BlockInput in = new BlockInput(readBlock(block));
+        int rows = in.readVarInt();
+
+        if (rows != block.rows) {
+            throw new IOException("Corrupt catalog block");
+        }
+
+        String[] dictionary = readDictionary(in);
+        Product[] decoded = new Product[rows];
+        int previous = 0;
+
+        for (int i = 0; i < rows; i++) {
+            previous = (int) (previous + 1 + in.readSignedVarLong());
+            decoded[i] = new Product();
+            decoded[i].setProductID(previous);
+        }
+
+        for (Product product : decoded) {
+            product.setPrice(readPrice(in));
+        }
+
+        for (Product product : decoded) {
+            product.setInStock(in.readSignedVarInt());
+        }
+
+        for (Product product : decoded) {
+            product.setMin(in.readSignedVarInt());
+        }
+
+        for (Product product : decoded) {
+            product.setMax(in.readSignedVarInt());
+        }
+
+        for (Product product : decoded) {
+            product.setName(readRef(dictionary, in));
+        }
+
+        int[] partCounts = new int[rows];
+
+        for (int i = 0; i < rows; i++) {
+            partCounts[i] = in.readVarInt();
+        }
+
+        int previousPart = 0;
+
+        for (int i = 0; i < rows; i++) {
+            if (partCounts[i] < 0) {
+                throw new IOException("Corrupt catalog block");
+            }
+
+            int[] partIDs = new int[partCounts[i]];
+
+            for (int j = 0; j < partIDs.length; j++) {
+                previousPart = (int) (previousPart + in.readSignedVarLong());
+                partIDs[j] = previousPart;
+            }
+
+            products.add(decoded[i]);
+            links.add(partIDs);
+        }
+    }
+
+    /**
+     * Links products to their associated parts through one PartEdges store
+     * shared by them all. Disjoint ranges may be linked at the same time.
+     */
+    private static final class Linker {
+
+        // Products and the IDs of their associated parts
+        private final Product[] products;
+        private final int[][] links;
+
+        // Part lookup by ID
+        private final IntFunction<Part> parts;
+
+        // Associated parts of every product, filled in as ranges are linked
+        private final Part[] edges;
+
+        // Start of each product's parts in edges
+        private final int[] offsets;
+
+        // Store handed to the products
+        private final PartEdges store;
+
+        Linker(Product[] products, int[][] links, IntFunction<Part> parts) throws IOException {
+            int[] counts = new int[links.length];
+
+            for (int i = 0; i < links.length; i++) {
+                counts[i] = links[i].length;
+            }
+
+            try {
+                offsets = PartEdges.offsets(counts);
+            } catch (ArithmeticException e) {
+                throw new IOException("Corrupt catalog file", e);
+            }
+
+            this.products = products;
+            this.links = links;
+            this.parts = parts;
+            edges = new Part[offsets[links.length]];
+            store = new PartEdges(offsets, edges);
+        }
+
+        /**
+         * Link a range of products
+         *
+         * @param from
+         * @param to
+         * @throws IOException if an associated part is not found
+         */
+        void link(int from, int to) throws IOException {
+            for (int i = from; i < to; i++) {
+                int offset = offsets[i];
+
+                for (int partID : links[i]) {
+                    Part part = parts.apply(partID);
+
+                    if (part == null) {
+                        throw new IOException("Product " + products[i].getProductID() + " uses unknown part " + partID);
+                    }
+
+                    edges[offset++] = part;
+                }
+
+                products[i].setAssociatedParts(store, i);
+            }
+        }
+    }
+
+    private List<Block> blocksOf(byte type) {
+        List<Block> matching = new ArrayList<>();
+
+        for (Block block : blocks) {
+            if (block.type == type) {
+                matching.add(block);
+            }
+        }
+
+        return matching;
+    }
+
+    /**
+     * Index parts by ID: in an array when IDs are dense, as they are when
+     * handed out by the parts screen, and in a map otherwise
+     *
+     * @param parts
+     * @return part lookup by ID
+     */
+    private static IntFunction<Part> partsByID(Part[] parts) {
+        int maxID = -1;
+        boolean dense = true;
+
+        for (Part part : parts) {
+            dense &= part.getPartID() >= 0;
+            maxID = Math.max(maxID, part.getPartID());
+        }
+
+        if (dense && maxID < 2L * parts.length + BLOCK_ROWS) {
+            Part[] byID = new Part[maxID + 1];
+
+            for (Part part : parts) {
+                byID[part.getPartID()] = part;
+            }
+
+            return partID -> partID >= 0 && partID < byID.length ? byID[partID] : null;
+        }
+
+        Map<Integer, Part> byID = new HashMap<>();
+
+        for (Part part : parts) {
+            byID.put(part.getPartID(), part);
+        }
+
+        return byID::get;
+    }
+
+    /**
+     * Decodes a run of blocks of one type, splitting it until each task
+     * holds a single block.
+     */
+    private final class DecodeTask extends RecursiveAction {
+
+        // Blocks to decode
+        private final List<Block> run;
+
+        // Row of the first block in the result
+        private final int firstRow;
+
+        // Decoded rows, shared by every task
+        private final Object[] rows;
+
+        // Associated part IDs of each product, or null when decoding parts
+        private final int[][] links;
+
+        DecodeTask(List<Block> run, int firstRow, Object[] rows, int[][] links) {
+            this.run = run;
+            this.firstRow = firstRow;
+            this.rows = rows;
+            this.links = links;
+        }
+
+        @Override
+        protected void compute() {
+            if (run.size() > 1) {
+                int split = run.size() / 2;
+                int splitRow = firstRow;
+
+                for (Block block : run.subList(0, split)) {
+                    splitRow += block.rows;
+                }
+
+                invokeAll(new DecodeTask(run.subList(0, split), firstRow, rows, links),
+                        new DecodeTask(run.subList(split, run.size()), splitRow, rows, links));
+                return;
+            }
+
+            if (run.isEmpty()) {
+                return;
+            }
+
+            try {
+                Block block = run.get(0);
+
+                if (links == null) {
+                    List<Part> decoded = new ArrayList<>(block.rows);
+                    decodeParts(block, decoded);
+                    System.arraycopy(decoded.toArray(), 0, rows, firstRow, block.rows);
+                } else {
+                    List<Product> decoded = new ArrayList<>(block.rows);
+                    List<int[]> decodedLinks = new ArrayList<>(block.rows);
+                    decodeProducts(block, decoded, decodedLinks);
+                    System.arraycopy(decoded.toArray(), 0, rows, firstRow, block.rows);
+                    System.arraycopy(decodedLinks.toArray(), 0, links, firstRow, block.rows);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Links a range of products to their associated parts, splitting it
+     * into runs of one block's worth of products.
+     */
+    private static final class LinkTask extends RecursiveAction {
+
+        // Products and their associated parts
+        private final Linker linker;
+
+        // Range of products to link
+        private final int from;
+        private final int to;
+
+        LinkTask(Linker linker, int from, int to) {
+            this.linker = linker;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BLOCK_ROWS) {
+                int split = (from + to) >>> 1;
+                invokeAll(new LinkTask(linker, from, split), new LinkTask(linker, split, to));
+                return;
+            }
+
+            try {
+                linker.link(from, to);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Read, check and decompress a block
+     *
+     * @param block
+     * @return uncompressed bytes
+     * @throws IOException if the block cannot be read or is corrupt
+     */
+    private byte[] readBlock(Block block) throws IOException {
+        ByteBuffer compressed = read(channel, block.offset, block.compressedLength);
+        CRC32 crc = new CRC32();
+        crc.update(compressed.array(), 0, block.compressedLength);
+
+        if ((int) crc.getValue() != block.checksum) {
+            throw new IOException("Corrupt catalog block at " + block.offset);
+        }
+
+        byte[] bytes = new byte[block.length];
+        LzBlock.decompress(compressed.array(), 0, block.compressedLength, bytes);
+        return bytes;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of catalog file");
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void intern(Map<String, Integer> dictionary, String value) {
+        if (value != null && !dictionary.containsKey(value)) {
+            dictionary.put(value, dictionary.size());
+        }
+    }
+
+    private static void writeDictionary(Map<String, Integer> dictionary, BlockOutput out) {
+        out.writeVarInt(dictionary.size());
+
+        for (String value : dictionary.keySet()) {
+            out.writeString(value);
+        }
+    }
+
+    private static String[] readDictionary(BlockInput in) throws IOException {
+        int count = in.readVarInt();
+
+        if (count < 0) {
+            throw new IOException("Corrupt catalog block");
+        }
+
+        String[] dictionary = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            dictionary[i] = in.readString();
+        }
+
+        return dictionary;
+    }
+
+    /**
+     * Write a dictionary reference, 0 for null and the index plus one
+     * otherwise
+     *
+     * @param dictionary
+     * @param value
+     * @param out
+     */
+    private static void writeRef(Map<String, Integer> dictionary, String value, BlockOutput out) {
+        out.writeVarInt(value == null ? 0 : dictionary.get(value) + 1);
+    }
+
+    private static String readRef(String[] dictionary, BlockInput in) throws IOException {
+        int ref = in.readVarInt();
+
+        if (ref < 0 || ref > dictionary.length) {
+            throw new IOException("Corrupt catalog block");
+        }
+
+        return ref == 0 ? null : dictionary[ref - 1];
+    }
+
+    /**
+     * Write a price as whole cents when that is exact, shifted left with a
+     * clear low bit, or as a set low bit followed by the raw double
+     *
+     * @param price
+     * @param out
+     */
+    private static void writePrice(double price, BlockOutput out) {
+        long cents = Math.round(price * 100);
+
+        if (Math.abs(cents) < 1L << 52 && cents / 100.0 == price) {
+            out.writeVarLong(((cents << 1) ^ (cents >> 63)) << 1);
+        } else {
+            out.writeVarLong(1);
+            out.writeLong(Double.doubleToRawLongBits(price));
+        }
+    }
+
+    private static double readPrice(BlockInput in) throws IOException {
+        long value = in.readVarLong();
+
+        if ((value & 1) != 0) {
+            return Double.longBitsToDouble(in.readLong());
+        }
+
+        long zigzag = value >>> 1;
+        return ((zigzag >>> 1) ^ -(zigzag & 1)) / 100.0;
+    }
+}
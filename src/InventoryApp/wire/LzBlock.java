@@ -0,0 +1,214 @@
+package InventoryApp.wire;
+
+import java.io.IOException;
+
+/**
+ * LzBlock compresses a block of bytes in the LZ4 block layout: sequences of
+ * a token, literal bytes copied as they are, and a match copied from up to
+ * 64 KiB back. Matches are found greedily through a small hash table, which
+ * favours speed over ratio; each block is compressed on its own.
+ *
+ * @see CatalogFile
+ */
+final class LzBlock {
+
+    // Shortest match worth encoding
+    private static final int MIN_MATCH = 4;
+
+    // The last bytes of a block are always literals
+    private static final int LAST_LITERALS = 5;
+
+    // No match starts this close to the end of a block
+    private static final int MATCH_MARGIN = 12;
+
+    // Farthest a match may reach back
+    private static final int MAX_OFFSET = 65535;
+
+    // Hash table size, as a power of two
+    private static final int HASH_BITS = 12;
+
+    /**
+     * Constructor
+     */
+    private LzBlock() {
+    }
+
+    /**
+     * Get the largest compressed size of a block, for incompressible input
+     *
+     * @param length uncompressed length
+     * @return bytes
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compress a block
+     *
+     * @param src
+     * @param length bytes of src to compress
+     * @param dst at least maxCompressedLength(length) bytes
+     * @return compressed length
+     */
+    static int compress(byte[] src, int length, byte[] dst) {
+        int[] table = new int[1 << HASH_BITS];
+        int anchor = 0;
+        int in = 0;
+        int out = 0;
+        int matchLimit = length - MATCH_MARGIN;
+        int literalLimit = length - LAST_LITERALS;
+
+        while (in < matchLimit) {
+            int sequence = readInt(src, in);
+            int hash = (sequence * -1640531535) >>> (32 - HASH_BITS);
+            // positions are stored plus one so that 0 means empty
+            int ref = table[hash] - 1;
+            table[hash] = in + 1;
+
+            if (ref < 0 || in - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                in++;
+                continue;
+            }
+
+            int matchLength = MIN_MATCH;
+
+            while (in + matchLength < literalLimit && src[ref + matchLength] == src[in + matchLength]) {
+                matchLength++;
+            }
+
+            while (in > anchor && ref > 0 && src[in - 1] == src[ref - 1]) {
+                in--;
+                ref--;
+                matchLength++;
+            }
+
+            out = writeSequence(src, anchor, in - anchor, in - ref, matchLength, dst, out);
+            in += matchLength;
+            anchor = in;
+        }
+
+        return writeLiterals(src, anchor, length - anchor, dst, out);
+    }
+
+    /**
+     * Decompress a block
+     *
+     * @param src
+     * @param offset start of the block in src
+     * @param length compressed length
+     * @param dst exactly the uncompressed length
+     * @throws IOException if the block is corrupt
+     */
+    static void decompress(byte[] src, int offset, int length, byte[] dst) throws IOException {
+        int in = offset;
+        int end = offset + length;
+        int out = 0;
+
+        try {
+            while (true) {
+                int token = src[in++] & 0xFF;
+                int literals = token >>> 4;
+
+                if (literals == 15) {
+                    int b;
+
+                    do {
+                        b = src[in++] & 0xFF;
+                        literals += b;
+                    } while (b == 255);
+                }
+
+                if (in + literals > end) {
+                    throw new IOException("Corrupt compressed block");
+                }
+
+                System.arraycopy(src, in, dst, out, literals);
+                in += literals;
+                out += literals;
+
+                if (in == end) {
+                    break;
+                }
+
+                int distance = (src[in++] & 0xFF) | (src[in++] & 0xFF) << 8;
+                int matchLength = (token & 0x0F) + MIN_MATCH;
+
+                if ((token & 0x0F) == 15) {
+                    int b;
+
+                    do {
+                        b = src[in++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+
+                if (distance == 0 || distance > out || out + matchLength > dst.length) {
+                    throw new IOException("Corrupt compressed block");
+                }
+
+                // byte by byte, as a match may overlap the bytes it produces
+                for (int from = out - distance; matchLength > 0; matchLength--) {
+                    dst[out++] = dst[from++];
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt compressed block", e);
+        }
+
+        if (out != dst.length) {
+            throw new IOException("Corrupt compressed block");
+        }
+    }
+
+    private static int writeSequence(byte[] src, int start, int literals, int distance, int matchLength, byte[] dst, int out) {
+        int extraMatch = matchLength - MIN_MATCH;
+        int tokenAt = out++;
+        int token = Math.min(extraMatch, 15);
+
+        if (literals >= 15) {
+            token |= 0xF0;
+            out = writeLength(literals - 15, dst, out);
+        } else {
+            token |= literals << 4;
+        }
+
+        dst[tokenAt] = (byte) token;
+        System.arraycopy(src, start, dst, out, literals);
+        out += literals;
+        dst[out++] = (byte) distance;
+        dst[out++] = (byte) (distance >>> 8);
+
+        if (extraMatch >= 15) {
+            out = writeLength(extraMatch - 15, dst, out);
+        }
+
+        return out;
+    }
+
+    private static int writeLiterals(byte[] src, int start, int literals, byte[] dst, int out) {
+        if (literals >= 15) {
+            dst[out++] = (byte) 0xF0;
+            out = writeLength(literals - 15, dst, out);
+        } else {
+            dst[out++] = (byte) (literals << 4);
+        }
+
+        System.arraycopy(src, start, dst, out, literals);
+        return out + literals;
+    }
+
+    private static int writeLength(int length, byte[] dst, int out) {
+        while (length >= 255) {
+            dst[out++] = (byte) 255;
+            length -= 255;
+        }
+
+        dst[out++] = (byte) length;
+        return out;
+    }
+
+    private static int readInt(byte[] src, int at) {
+        return (src[at] & 0xFF) | (src[at + 1] & 0xFF) << 8 | (src[at + 2] & 0xFF) << 16 | (src[at + 3] & 0xFF) << 24;
+    }
+}
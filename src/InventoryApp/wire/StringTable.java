@@ -0,0 +1,102 @@
+package InventoryApp.wire;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StringTable collects the distinct strings of a batch, so each is written
+ * once however many rows share it.
+ *
+ * @see BinaryBatch
+ */
+final class StringTable {
+
+    // Index of each string
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    // Strings in index order
+    private final List<String> strings = new ArrayList<>();
+
+    // Encoded length of all strings
+    private long byteLength;
+
+    /**
+     * Add a string unless already present
+     *
+     * @param value string, or null
+     */
+    void add(String value) {
+        if (value != null && !indexes.containsKey(value)) {
+            indexes.put(value, strings.size());
+            strings.add(value);
+            byteLength += encodedLength(value);
+        }
+    }
+
+    /**
+     * Get the index of a string added earlier
+     *
+     * @param value string, or null
+     * @return index, or -1 for null
+     */
+    int indexOf(String value) {
+        return value == null ? -1 : indexes.get(value);
+    }
+
+    int size() {
+        return strings.size();
+    }
+
+    long getByteLength() {
+        return byteLength;
+    }
+
+    /**
+     * Write the end offset of each string, then the strings themselves
+     *
+     * @param out
+     */
+    void write(ByteBuffer out) {
+        int end = 0;
+
+        for (String value : strings) {
+            end += encodedLength(value);
+            out.putInt(end);
+        }
+
+        for (String value : strings) {
+            encode(value, out);
+        }
+    }
+
+    private static int encodedLength(String value) {
+        int length = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            length += c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+        }
+
+        return length;
+    }
+
+    private static void encode(String value, ByteBuffer out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+}